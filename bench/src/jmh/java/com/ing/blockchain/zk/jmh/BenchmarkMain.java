@@ -0,0 +1,121 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.jmh;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Runs the benchmarks once for every thread count, with the GC profiler so that the results include the allocated
+ * bytes per operation ({@code gc.alloc.rate.norm}). The results of each thread count are written as JSON to the
+ * output directory, with a summary of the score and the allocated bytes per benchmark. With {@code -b} the summary
+ * of each thread count is compared with the summary in the baseline directory, which shows latency and allocation
+ * regressions side by side.
+ *
+ * Usage: BenchmarkMain [-t threads,...] [-p param=value,...]... [-o directory] [-b baseline directory] [regexp]...
+ *
+ * For example {@code -t 1,4 -p bits=1024,2048 -p rangeBits=64 RangeProof} measures proving and verifying for two
+ * group sizes, on one and four threads.
+ */
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        int[] threadCounts = {1};
+        File directory = new File("build/jmh");
+        File baseline = null;
+        List<String> includes = new ArrayList<>();
+        List<String[]> params = new ArrayList<>();
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-t":
+                    threadCounts = parseInts(args[++i]);
+                    break;
+                case "-p":
+                    String[] param = args[++i].split("=", 2);
+                    if (param.length != 2) {
+                        throw new IllegalArgumentException("Expected -p param=value,..., got " + args[i]);
+                    }
+                    params.add(param);
+                    break;
+                case "-o":
+                    directory = new File(args[++i]);
+                    break;
+                case "-b":
+                    baseline = new File(args[++i]);
+                    break;
+                default:
+                    includes.add(args[i]);
+            }
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IllegalArgumentException("Cannot create directory " + directory);
+        }
+
+        for (int threads : threadCounts) {
+            ChainedOptionsBuilder options = new OptionsBuilder()
+                    .threads(threads)
+                    .addProfiler(GCProfiler.class)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(new File(directory, "results-" + threads + "-threads.json").getPath());
+            for (String include : includes) {
+                options.include(include);
+            }
+            for (String[] param : params) {
+                options.param(param[0], param[1].split(","));
+            }
+            Collection<RunResult> results = new Runner(options.build()).run();
+
+            ResultSummary summary = ResultSummary.of(results);
+            String summaryName = "summary-" + threads + "-threads.tsv";
+            summary.write(new File(directory, summaryName));
+            if (baseline != null) {
+                File baselineSummary = new File(baseline, summaryName);
+                if (baselineSummary.isFile()) {
+                    System.out.println("Compared with " + baselineSummary + ", " + threads + " threads:");
+                    summary.printComparison(ResultSummary.read(baselineSummary), System.out);
+                } else {
+                    System.out.println("No baseline " + baselineSummary);
+                }
+            }
+        }
+    }
+
+    private static int[] parseInts(String list) {
+        String[] values = list.split(",");
+        int[] result = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = Integer.parseInt(values[i]);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.jmh;
+
+import com.ing.blockchain.zk.SecretOrderGroupGenerator;
+import com.ing.blockchain.zk.dto.SecretOrderGroup;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generation of a group with safe primes. The time varies a lot between runs, and finding safe primes takes seconds
+ * for N of 512 bits and minutes to hours for 2048 bits or more, so by default only 512 bits is measured; pass
+ * {@code -p bits=1024,2048} to measure more.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GroupGenerationBenchmark {
+
+    @Param({"512"})
+    public int bits;
+
+    @Benchmark
+    public SecretOrderGroup generate() {
+        return new SecretOrderGroupGenerator(bits).generate();
+    }
+}
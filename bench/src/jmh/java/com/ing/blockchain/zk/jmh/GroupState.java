@@ -0,0 +1,51 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.jmh;
+
+import com.ing.blockchain.zk.bench.BenchmarkGroups;
+import com.ing.blockchain.zk.dto.SecretOrderGroup;
+import com.ing.blockchain.zk.dto.SecurityProfile;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * Base of the benchmark states: a group of the given bit length, see {@link BenchmarkGroups}, and the security
+ * profile for it. Groups are generated from a fixed seed, so every run measures the same group.
+ */
+@State(Scope.Benchmark)
+public abstract class GroupState {
+
+    @Param({"512", "1024", "2048", "3072", "4096"})
+    public int bits;
+
+    public SecretOrderGroup group;
+    public SecurityProfile profile;
+
+    protected void createGroup() {
+        group = BenchmarkGroups.generate(bits, new Random(bits));
+        // The original parameters for 1024 bit groups, 80 bits of statistical security otherwise
+        profile = bits == SecurityProfile.LEGACY.getModulusBitLength()
+                ? SecurityProfile.LEGACY : SecurityProfile.forModulus("n-" + bits, bits, 80);
+    }
+}
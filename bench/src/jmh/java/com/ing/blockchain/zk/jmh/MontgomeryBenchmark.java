@@ -0,0 +1,113 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.jmh;
+
+import com.ing.blockchain.zk.math.MontgomeryKernel;
+import com.ing.blockchain.zk.math.MontgomeryParams;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The Montgomery kernels against BigInteger: one exponentiation with an exponent as long as N, and one modular
+ * multiplication. The kernel benchmarks run once per {@link MontgomeryKernel}; the vector kernel needs the JVM option
+ * {@code --add-modules jdk.incubator.vector}, which {@code gradle :bench:jmh} adds on JDK 16 or later.
+ *
+ * For example {@code -p bits=1024,2048,3072,4096 Montgomery} measures the sizes of SecretOrderGroupGenerator and of
+ * the security profiles.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MontgomeryBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class OperandState extends GroupState {
+
+        BigInteger N;
+        BigInteger base;
+        BigInteger exponent;
+        BigInteger a;
+        BigInteger b;
+
+        @Setup
+        public void createOperands() {
+            createGroup();
+            Random random = new Random(bits);
+            N = group.getN();
+            base = group.getG();
+            exponent = new BigInteger(bits, random);
+            a = new BigInteger(bits, random).mod(N);
+            b = new BigInteger(bits, random).mod(N);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class KernelState {
+
+        @Param({"SCALAR", "VECTOR"})
+        public MontgomeryKernel kernel;
+
+        OperandState operands;
+        MontgomeryParams params;
+        int[] x;
+        int[] y;
+        int[] product;
+
+        @Setup
+        public void createParams(OperandState operands) {
+            if (!kernel.isAvailable()) {
+                throw new IllegalStateException(kernel + " kernel not available, run with --add-modules "
+                        + "jdk.incubator.vector on JDK 16 or later");
+            }
+            this.operands = operands;
+            params = new MontgomeryParams(operands.N, kernel);
+            x = params.toMontgomery(operands.a);
+            y = params.toMontgomery(operands.b);
+            product = new int[params.getLimbs()];
+        }
+    }
+
+    @Benchmark
+    public BigInteger modPow(OperandState state) {
+        return state.base.modPow(state.exponent, state.N);
+    }
+
+    @Benchmark
+    public BigInteger montgomeryPow(KernelState state) {
+        return state.params.pow(state.operands.base, state.operands.exponent);
+    }
+
+    @Benchmark
+    public BigInteger multiplyMod(OperandState state) {
+        return state.a.multiply(state.b).mod(state.N);
+    }
+
+    @Benchmark
+    public int[] montgomeryMultiply(KernelState state) {
+        state.params.multiply(state.x, state.y, state.product);
+        return state.product;
+    }
+}
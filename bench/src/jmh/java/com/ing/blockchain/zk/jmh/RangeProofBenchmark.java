@@ -0,0 +1,72 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.jmh;
+
+import com.ing.blockchain.zk.HPAKErangeProof;
+import com.ing.blockchain.zk.TTPGenerator;
+import com.ing.blockchain.zk.dto.ClosedRange;
+import com.ing.blockchain.zk.dto.RangeProof;
+import com.ing.blockchain.zk.dto.TTPMessage;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Proving and verifying a range proof, by bit length of N and bit length of the width of the range.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RangeProofBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class ProofState extends GroupState {
+
+        @Param({"8", "64", "256"})
+        public int rangeBits;
+
+        TTPMessage message;
+        ClosedRange range;
+        RangeProof proof;
+
+        @Setup
+        public void createProof() {
+            createGroup();
+            BigInteger start = BigInteger.TEN;
+            range = ClosedRange.of(start, start.add(BigInteger.ONE.shiftLeft(rangeBits)));
+            message = TTPGenerator.generateTTPMessage(start.add(BigInteger.ONE.shiftLeft(rangeBits - 1)), group, profile);
+            proof = HPAKErangeProof.calculateRangeProof(message, range, profile);
+        }
+    }
+
+    @Benchmark
+    public RangeProof prove(ProofState state) {
+        return HPAKErangeProof.calculateRangeProof(state.message, state.range, state.profile);
+    }
+
+    @Benchmark
+    public void verify(ProofState state) {
+        HPAKErangeProof.validateRangeProof(state.proof, state.message.getCommitment(), state.range, state.profile);
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.jmh;
+
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The score and the allocated bytes per operation of each benchmark in a run, so that a run can be compared with
+ * a baseline run of an earlier release. Written as tab-separated lines:
+ * <pre>
+ * benchmark  params  score  unit  bytes/op
+ * </pre>
+ */
+class ResultSummary {
+
+    private static final String ALLOCATION = "gc.alloc.rate.norm";
+
+    private static final class Row {
+        private final double score;
+        private final String unit;
+        private final double bytesPerOp;
+
+        private Row(double score, String unit, double bytesPerOp) {
+            this.score = score;
+            this.unit = unit;
+            this.bytesPerOp = bytesPerOp;
+        }
+    }
+
+    // Rows by benchmark and parameters, in the order of the run
+    private final Map<String, Row> rows = new LinkedHashMap<>();
+
+    static ResultSummary of(Collection<RunResult> results) {
+        ResultSummary summary = new ResultSummary();
+        for (RunResult result : results) {
+            String name = result.getParams().getBenchmark() + "\t" + params(result);
+            double bytesPerOp = Double.NaN;
+            for (String key : result.getSecondaryResults().keySet()) {
+                // The GC profiler prefixes its results with a middle dot
+                if (key.endsWith(ALLOCATION)) {
+                    Result<?> secondary = result.getSecondaryResults().get(key);
+                    bytesPerOp = secondary.getScore();
+                }
+            }
+            Result<?> primary = result.getPrimaryResult();
+            summary.rows.put(name, new Row(primary.getScore(), primary.getScoreUnit(), bytesPerOp));
+        }
+        return summary;
+    }
+
+    private static String params(RunResult result) {
+        List<String> params = new ArrayList<>();
+        for (String key : result.getParams().getParamsKeys()) {
+            params.add(key + "=" + result.getParams().getParam(key));
+        }
+        return params.isEmpty() ? "-" : String.join(",", params);
+    }
+
+    static ResultSummary read(File file) throws IOException {
+        ResultSummary summary = new ResultSummary();
+        for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+            String[] fields = line.split("\t");
+            if (fields.length != 5) {
+                throw new IOException("Not a benchmark summary line in " + file + ": " + line);
+            }
+            summary.rows.put(fields[0] + "\t" + fields[1],
+                    new Row(Double.parseDouble(fields[2]), fields[3], Double.parseDouble(fields[4])));
+        }
+        return summary;
+    }
+
+    void write(File file) throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (Map.Entry<String, Row> entry : rows.entrySet()) {
+            Row row = entry.getValue();
+            lines.add(entry.getKey() + "\t" + row.score + "\t" + row.unit + "\t" + row.bytesPerOp);
+        }
+        Files.write(file.toPath(), lines, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Prints the score and the allocated bytes of every benchmark next to their change relative to the baseline.
+     */
+    void printComparison(ResultSummary baseline, PrintStream out) {
+        out.printf("%-50s %-25s %12s %8s %14s %8s%n", "Benchmark", "Params", "Score", "Change", "Bytes/op", "Change");
+        for (Map.Entry<String, Row> entry : rows.entrySet()) {
+            String[] name = entry.getKey().split("\t");
+            Row row = entry.getValue();
+            Row base = baseline.rows.get(entry.getKey());
+            out.printf("%-50s %-25s %12.3f %8s %14.0f %8s%n", name[0], name[1], row.score,
+                    base == null || !base.unit.equals(row.unit) ? "" : change(base.score, row.score),
+                    row.bytesPerOp, base == null ? "" : change(base.bytesPerOp, row.bytesPerOp));
+        }
+    }
+
+    private static String change(double base, double value) {
+        if (Double.isNaN(base) || Double.isNaN(value) || base == 0) {
+            return "";
+        }
+        return String.format("%+.1f%%", 100 * (value - base) / base);
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.jmh;
+
+import com.ing.blockchain.zk.HPAKEEqualityConstraint;
+import com.ing.blockchain.zk.HPAKESquare;
+import com.ing.blockchain.zk.TTPGenerator;
+import com.ing.blockchain.zk.dto.Commitment;
+import com.ing.blockchain.zk.dto.ECProof;
+import com.ing.blockchain.zk.dto.SquareProof;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The building blocks of a range proof: the commitment, the proof that two commitments hide the same number and
+ * the proof that a commitment hides a square.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SubProofBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class SubProofState extends GroupState {
+
+        final SecureRandom random = new SecureRandom();
+
+        BigInteger x;
+        BigInteger r1;
+        BigInteger r2;
+
+        // E = g^x h^r1, F = c^x h^r2 with c an independent commitment
+        BigInteger c;
+        BigInteger E;
+        BigInteger F;
+        ECProof equalityProof;
+
+        // S = g^(x^2) h^r1
+        BigInteger S;
+        SquareProof squareProof;
+
+        @Setup
+        public void createProofs() {
+            createGroup();
+            BigInteger N = group.getN();
+            x = new BigInteger(64, random);
+            r1 = TTPGenerator.generateKey(N, profile, random);
+            r2 = TTPGenerator.generateKey(N, profile, random);
+            c = TTPGenerator.commit(group, BigInteger.valueOf(1234), r2).getCommitmentValue();
+
+            E = TTPGenerator.commit(group, x, r1).getCommitmentValue();
+            F = c.modPow(x, N).multiply(group.getH().modPow(r2, N)).mod(N);
+            equalityProof = HPAKEEqualityConstraint.calculateZeroKnowledgeProof(N, group.getG(), c, group.getH(),
+                    group.getH(), x, r1, r2, profile, random);
+
+            S = TTPGenerator.commit(group, x.multiply(x), r1).getCommitmentValue();
+            squareProof = HPAKESquare.calculateZeroKnowledgeProof(N, group.getG(), group.getH(), x, r1, profile,
+                    random);
+        }
+    }
+
+    @Benchmark
+    public Commitment commit(SubProofState state) {
+        return TTPGenerator.commit(state.group, state.x, state.r1);
+    }
+
+    @Benchmark
+    public ECProof proveEquality(SubProofState state) {
+        return HPAKEEqualityConstraint.calculateZeroKnowledgeProof(state.group.getN(), state.group.getG(), state.c,
+                state.group.getH(), state.group.getH(), state.x, state.r1, state.r2, state.profile, state.random);
+    }
+
+    @Benchmark
+    public void verifyEquality(SubProofState state) {
+        HPAKEEqualityConstraint.validateZeroKnowledgeProof(state.group.getN(), state.group.getG(), state.c,
+                state.group.getH(), state.group.getH(), state.E, state.F, state.equalityProof);
+    }
+
+    @Benchmark
+    public SquareProof proveSquare(SubProofState state) {
+        return HPAKESquare.calculateZeroKnowledgeProof(state.group.getN(), state.group.getG(), state.group.getH(),
+                state.x, state.r1, state.profile, state.random);
+    }
+
+    @Benchmark
+    public void verifySquare(SubProofState state) {
+        HPAKESquare.validateZeroKnowledgeProof(state.group.getN(), state.group.getG(), state.group.getH(), state.S,
+                state.squareProof);
+    }
+}
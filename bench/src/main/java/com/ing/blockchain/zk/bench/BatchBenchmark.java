@@ -0,0 +1,116 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.bench;
+
+import com.ing.blockchain.zk.HPAKErangeProof;
+import com.ing.blockchain.zk.TTPGenerator;
+import com.ing.blockchain.zk.dto.*;
+import com.ing.blockchain.zk.precompile.BatchItem;
+import com.ing.blockchain.zk.precompile.CalldataEncoder;
+import com.ing.blockchain.zk.precompile.PrecompileValidator;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares k calls of validate with one call of validateBatch holding k proofs: calldata size, calldata gas
+ * (16 per non-zero and 4 per zero byte) and the time to validate the input in Java.
+ *
+ * Usage: BatchBenchmark [iterations]
+ */
+public class BatchBenchmark {
+
+    private static final int[] BATCH_SIZES = {1, 4, 16};
+
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+
+        SecretOrderGroup group = BenchmarkGroups.generate(1024, new SecureRandom());
+        ClosedRange range = ClosedRange.of("18", "65");
+        List<BatchItem> items = new ArrayList<>();
+        for (int i = 0; i < BATCH_SIZES[BATCH_SIZES.length - 1]; i++) {
+            TTPMessage message = TTPGenerator.generateTTPMessage(BigInteger.valueOf(18 + i), group);
+            items.add(new BatchItem(range, message.getCommitment(), HPAKErangeProof.calculateRangeProof(message, range)));
+        }
+
+        System.out.println("| k | Single bytes | Batch bytes | Single calldata gas | Batch calldata gas "
+                + "| Single (ms) | Batch (ms) |");
+        System.out.println("|--:|-------------:|------------:|--------------------:|-------------------:"
+                + "|------------:|-----------:|");
+        for (int k : BATCH_SIZES) {
+            System.out.println(measure(items.subList(0, k), iterations));
+        }
+    }
+
+    static String measure(List<BatchItem> items, int iterations) {
+        CalldataEncoder encoder = new CalldataEncoder();
+        List<byte[]> singles = new ArrayList<>();
+        int singleBytes = 0;
+        long singleGas = 0;
+        for (BatchItem item : items) {
+            encoder.encode(item.getProof(), item.getCommitment(), item.getRange());
+            byte[] input = encoder.toByteArray();
+            singles.add(input);
+            singleBytes += input.length;
+            singleGas += calldataGas(input);
+        }
+        encoder.encodeBatch(items);
+        byte[] batch = encoder.toByteArray();
+
+        // Warm up
+        validateAll(singles);
+        PrecompileValidator.validateBatch(batch);
+
+        long singleNanos = 0;
+        long batchNanos = 0;
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            validateAll(singles);
+            long validated = System.nanoTime();
+            if (PrecompileValidator.validateBatch(batch).cardinality() != items.size()) {
+                throw new IllegalStateException("Batch validation failed");
+            }
+            batchNanos += System.nanoTime() - validated;
+            singleNanos += validated - start;
+        }
+
+        return String.format("| %d | %d | %d | %d | %d | %.1f | %.1f |", items.size(), singleBytes, batch.length,
+                singleGas, calldataGas(batch), singleNanos / 1e6 / iterations, batchNanos / 1e6 / iterations);
+    }
+
+    private static void validateAll(List<byte[]> inputs) {
+        for (byte[] input : inputs) {
+            if (!PrecompileValidator.validate(input)) {
+                throw new IllegalStateException("Validation failed");
+            }
+        }
+    }
+
+    private static long calldataGas(byte[] input) {
+        long gas = 0;
+        for (byte b : input) {
+            gas += b == 0 ? 4 : 16;
+        }
+        return gas;
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.ing.blockchain.zk.bench;
+
+import com.ing.blockchain.zk.dto.SecretOrderGroup;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import static java.math.BigInteger.ONE;
+
+/**
+ * Groups for benchmarks only: NOT SECURE.
+ *
+ * Finding safe primes for large N takes minutes to hours. The cost of proving and verifying only depends on the
+ * bit lengths of N and the exponents, so benchmarks use N = p * q for ordinary primes p and q, with g a random
+ * square and h = g^alpha like SecretOrderGroupGenerator does.
+ */
+public final class BenchmarkGroups {
+
+    private BenchmarkGroups() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    public static SecretOrderGroup generate(int bitLength, Random random) {
+        BigInteger p = BigInteger.probablePrime(bitLength / 2, random);
+        BigInteger q;
+        BigInteger N;
+        do {
+            q = BigInteger.probablePrime(bitLength - bitLength / 2, random);
+            N = p.multiply(q);
+        } while (q.equals(p) || N.bitLength() != bitLength);
+
+        BigInteger g;
+        do {
+            BigInteger root = new BigInteger(bitLength, random).mod(N);
+            g = root.multiply(root).mod(N);
+        } while (g.compareTo(ONE) <= 0 || !g.gcd(N).equals(ONE));
+
+        BigInteger alpha = new BigInteger(bitLength, random).setBit(bitLength / 2);
+        BigInteger h = g.modPow(alpha, N);
+
+        return new SecretOrderGroup(N, g, h);
+    }
+}
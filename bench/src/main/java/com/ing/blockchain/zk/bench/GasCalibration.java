@@ -0,0 +1,183 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.bench;
+
+import com.ing.blockchain.zk.HPAKErangeProof;
+import com.ing.blockchain.zk.TTPGenerator;
+import com.ing.blockchain.zk.dto.*;
+import com.ing.blockchain.zk.precompile.CalldataEncoder;
+import com.ing.blockchain.zk.precompile.PrecompileValidator;
+import org.web3j.crypto.ECKeyPair;
+import org.web3j.crypto.Sign;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.security.SignatureException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Calibrates the gas price of the range proof precompile.
+ *
+ * Measures {@link PrecompileValidator#validate(byte[])} over a grid of N bit lengths and sizes of the proof fields,
+ * and fits the model
+ * <pre>
+ * gas = G_base + G_byte * bytes + G_word * bytes * (bits / 1024)^2
+ * </pre>
+ * with bytes the length of the input and bits the bit length of N. The last term follows the cost of the modular
+ * exponentiations: the exponents grow with the input, and a multiplication modulo N grows with the square of its
+ * bit length. Times are converted to gas with ecrecover (3000 gas) measured in the same JVM, or with a given number
+ * of gas per second.
+ *
+ * The recommended RequiredGas uses the upper bounds of the 95% confidence intervals, so that the price does not
+ * fall below the measured cost for large groups.
+ *
+ * Usage: GasCalibration [iterations] [gas per second]
+ */
+public class GasCalibration {
+
+    private static final int[] MODULUS_BITS = {512, 1024, 1536, 2048, 3072, 4096};
+    // Bits added to the blinding values (k2 and s of the profile), which makes the proof fields larger
+    private static final int[] EXTRA_BITS = {0, 512, 1024};
+    private static final int STATISTICAL_SECURITY = 80;
+    private static final int HASH_SOUNDNESS = 128; // t, as in the named profiles
+
+    private static final int ECRECOVER_GAS = 3000;
+    private static final int WARM_UP = 3;
+
+    public static void main(String[] args) throws SignatureException {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        double gasPerNano;
+        if (args.length > 1) {
+            gasPerNano = Double.parseDouble(args[1]) / 1e9;
+            System.out.printf("Reference: %s gas per second%n", args[1]);
+        } else {
+            double ecrecoverNanos = measureEcrecover();
+            gasPerNano = ECRECOVER_GAS / ecrecoverNanos;
+            System.out.printf("Reference: ecrecover takes %.1f us, %d gas%n", ecrecoverNanos / 1e3, ECRECOVER_GAS);
+        }
+
+        SecureRandom random = new SecureRandom();
+        byte[] warmUp = createInput(BenchmarkGroups.generate(1024, random), SecurityProfile.LEGACY);
+        for (int i = 0; i < 10 * WARM_UP; i++) {
+            validate(warmUp);
+        }
+
+        List<double[]> features = new ArrayList<>();
+        List<Double> gas = new ArrayList<>();
+        double legacyBytes = 0;
+
+        System.out.println();
+        System.out.println("| N bits | Extra bits | Input bytes | Verify (ms) | Gas |");
+        System.out.println("|-------:|-----------:|------------:|------------:|----:|");
+        for (int bits : MODULUS_BITS) {
+            SecretOrderGroup group = BenchmarkGroups.generate(bits, random);
+            for (int extra : EXTRA_BITS) {
+                SecurityProfile profile = SecurityProfile.of("calibration", bits, SecurityProfile.PRECOMPILE_K1_BITS,
+                        bits + STATISTICAL_SECURITY + extra, HASH_SOUNDNESS, STATISTICAL_SECURITY, STATISTICAL_SECURITY + extra);
+                byte[] input = createInput(group, profile);
+                if (bits == SecurityProfile.LEGACY.getModulusBitLength()) {
+                    legacyBytes = createInput(group, SecurityProfile.LEGACY).length;
+                }
+
+                for (int i = 0; i < WARM_UP; i++) {
+                    validate(input);
+                }
+                double total = 0;
+                for (int i = 0; i < iterations; i++) {
+                    long start = System.nanoTime();
+                    validate(input);
+                    double sample = (System.nanoTime() - start) * gasPerNano;
+                    features.add(features(input.length, bits));
+                    gas.add(sample);
+                    total += sample;
+                }
+                System.out.printf("| %d | %d | %d | %.1f | %.0f |%n", bits, extra, input.length,
+                        total / iterations / gasPerNano / 1e6, total / iterations);
+            }
+        }
+
+        double[] y = new double[gas.size()];
+        for (int i = 0; i < y.length; i++) {
+            y[i] = gas.get(i);
+        }
+        LeastSquares fit = LeastSquares.fit(features.toArray(new double[0][]), y);
+        String[] names = {"G_base", "G_byte", "G_word"};
+
+        System.out.println();
+        System.out.printf("Fit over %d samples, R^2 = %.4f%n", y.length, fit.getRSquared());
+        for (int j = 0; j < names.length; j++) {
+            System.out.printf("  %-6s = %12.4f +/- %.4f (95%%)%n", names[j], fit.getCoefficient(j), fit.getConfidence(j));
+        }
+
+        double base = upperBound(fit, 0);
+        double perByte = upperBound(fit, 1);
+        double perWord = upperBound(fit, 2);
+        System.out.println();
+        System.out.println("Recommended RequiredGas, with bits the bit length of N in the commitment:");
+        System.out.printf("  gas = %.0f + %.2f * len(input) + %.4f * len(input) * bits * bits / 1048576%n",
+                base, perByte, perWord);
+        System.out.printf("For a %d bit N and the legacy profile (%.0f bytes): %.0f gas, currently %d%n",
+                SecurityProfile.LEGACY.getModulusBitLength(), legacyBytes,
+                base + perByte * legacyBytes + perWord * legacyBytes, PrecompileValidator.REQUIRED_GAS);
+    }
+
+    private static double[] features(int bytes, int bits) {
+        double words = bits / 1024.0;
+        return new double[]{1, bytes, bytes * words * words};
+    }
+
+    // The coefficients are not negative in the recommended price
+    private static double upperBound(LeastSquares fit, int feature) {
+        return Math.max(0, fit.getCoefficient(feature) + fit.getConfidence(feature));
+    }
+
+    private static byte[] createInput(SecretOrderGroup group, SecurityProfile profile) {
+        ClosedRange range = ClosedRange.of("18", "65");
+        TTPMessage message = TTPGenerator.generateTTPMessage(BigInteger.valueOf(50), group, profile);
+        RangeProof proof = HPAKErangeProof.calculateRangeProof(message, range, profile);
+        CalldataEncoder encoder = new CalldataEncoder();
+        encoder.encode(proof, message.getCommitment(), range);
+        return encoder.toByteArray();
+    }
+
+    private static void validate(byte[] input) {
+        if (!PrecompileValidator.validate(input)) {
+            throw new IllegalStateException("Valid proof rejected");
+        }
+    }
+
+    private static double measureEcrecover() throws SignatureException {
+        ECKeyPair keyPair = ECKeyPair.create(BigInteger.valueOf(0x1234567));
+        byte[] message = "gas calibration".getBytes();
+        Sign.SignatureData signature = Sign.signMessage(message, keyPair);
+
+        int count = 500;
+        for (int i = 0; i < count; i++) {
+            Sign.signedMessageToKey(message, signature);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            Sign.signedMessageToKey(message, signature);
+        }
+        return (System.nanoTime() - start) / (double) count;
+    }
+}
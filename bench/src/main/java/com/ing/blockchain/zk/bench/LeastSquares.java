@@ -0,0 +1,188 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.bench;
+
+/**
+ * Ordinary least squares fit of y = b_0 x_0 + ... + b_p-1 x_p-1, with standard errors and confidence intervals of
+ * the coefficients.
+ */
+public final class LeastSquares {
+
+    // Two-sided 95% quantile of the standard normal distribution
+    private static final double Z_975 = 1.959963984540054;
+
+    private final double[] coefficients;
+    private final double[] standardErrors;
+    private final double rSquared;
+    private final int degreesOfFreedom;
+
+    private LeastSquares(double[] coefficients, double[] standardErrors, double rSquared, int degreesOfFreedom) {
+        this.coefficients = coefficients;
+        this.standardErrors = standardErrors;
+        this.rSquared = rSquared;
+        this.degreesOfFreedom = degreesOfFreedom;
+    }
+
+    /**
+     * @param x the samples of the features, one row per sample
+     * @param y the samples of the dependent variable
+     * @throws IllegalArgumentException if there are not more samples than features, or the features are dependent
+     */
+    public static LeastSquares fit(double[][] x, double[] y) {
+        int n = y.length;
+        int p = x[0].length;
+        if (x.length != n || n <= p) {
+            throw new IllegalArgumentException("Need more samples than features");
+        }
+
+        // Normal equations: (X^T X) b = X^T y
+        double[][] xtx = new double[p][p];
+        double[] xty = new double[p];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < p; j++) {
+                xty[j] += x[i][j] * y[i];
+                for (int k = 0; k < p; k++) {
+                    xtx[j][k] += x[i][j] * x[i][k];
+                }
+            }
+        }
+        double[][] inverse = invert(xtx);
+        double[] b = new double[p];
+        for (int j = 0; j < p; j++) {
+            for (int k = 0; k < p; k++) {
+                b[j] += inverse[j][k] * xty[k];
+            }
+        }
+
+        double mean = 0;
+        for (double value : y) {
+            mean += value / n;
+        }
+        double residualSquares = 0;
+        double totalSquares = 0;
+        for (int i = 0; i < n; i++) {
+            double predicted = 0;
+            for (int j = 0; j < p; j++) {
+                predicted += b[j] * x[i][j];
+            }
+            residualSquares += (y[i] - predicted) * (y[i] - predicted);
+            totalSquares += (y[i] - mean) * (y[i] - mean);
+        }
+
+        double variance = residualSquares / (n - p);
+        double[] errors = new double[p];
+        for (int j = 0; j < p; j++) {
+            errors[j] = Math.sqrt(variance * inverse[j][j]);
+        }
+        double rSquared = totalSquares == 0 ? 1 : 1 - residualSquares / totalSquares;
+        return new LeastSquares(b, errors, rSquared, n - p);
+    }
+
+    // Gauss-Jordan elimination with partial pivoting
+    private static double[][] invert(double[][] matrix) {
+        int p = matrix.length;
+        double[][] a = new double[p][2 * p];
+        for (int i = 0; i < p; i++) {
+            System.arraycopy(matrix[i], 0, a[i], 0, p);
+            a[i][p + i] = 1;
+        }
+        for (int column = 0; column < p; column++) {
+            int pivot = column;
+            for (int row = column + 1; row < p; row++) {
+                if (Math.abs(a[row][column]) > Math.abs(a[pivot][column])) {
+                    pivot = row;
+                }
+            }
+            if (Math.abs(a[pivot][column]) <= 1e-12 * scale(matrix)) {
+                throw new IllegalArgumentException("The features are linearly dependent");
+            }
+            double[] swap = a[column];
+            a[column] = a[pivot];
+            a[pivot] = swap;
+
+            double divisor = a[column][column];
+            for (int k = 0; k < 2 * p; k++) {
+                a[column][k] /= divisor;
+            }
+            for (int row = 0; row < p; row++) {
+                double factor = a[row][column];
+                if (row != column && factor != 0) {
+                    for (int k = 0; k < 2 * p; k++) {
+                        a[row][k] -= factor * a[column][k];
+                    }
+                }
+            }
+        }
+        double[][] inverse = new double[p][p];
+        for (int i = 0; i < p; i++) {
+            System.arraycopy(a[i], p, inverse[i], 0, p);
+        }
+        return inverse;
+    }
+
+    private static double scale(double[][] matrix) {
+        double max = 0;
+        for (double[] row : matrix) {
+            for (double value : row) {
+                max = Math.max(max, Math.abs(value));
+            }
+        }
+        return max;
+    }
+
+    public double getCoefficient(int feature) {
+        return coefficients[feature];
+    }
+
+    public double getStandardError(int feature) {
+        return standardErrors[feature];
+    }
+
+    public double getRSquared() {
+        return rSquared;
+    }
+
+    /**
+     * @return half the width of the 95% confidence interval of the coefficient
+     */
+    public double getConfidence(int feature) {
+        return tQuantile975(degreesOfFreedom) * standardErrors[feature];
+    }
+
+    public double predict(double... features) {
+        double result = 0;
+        for (int j = 0; j < coefficients.length; j++) {
+            result += coefficients[j] * features[j];
+        }
+        return result;
+    }
+
+    // 97.5% quantile of Student's t distribution, Cornish-Fisher expansion around the normal quantile
+    static double tQuantile975(int degreesOfFreedom) {
+        double z = Z_975;
+        double v = degreesOfFreedom;
+        double z3 = z * z * z;
+        double z5 = z3 * z * z;
+        double z7 = z5 * z * z;
+        return z + (z3 + z) / (4 * v) + (5 * z5 + 16 * z3 + 3 * z) / (96 * v * v)
+                + (3 * z7 + 19 * z5 + 17 * z3 - 15 * z) / (384 * v * v * v);
+    }
+}
@@ -0,0 +1,426 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.bench;
+
+import com.ing.blockchain.zk.HPAKErangeProof;
+import com.ing.blockchain.zk.dto.SecretOrderGroup;
+import com.ing.blockchain.zk.exception.ZeroKnowledgeException;
+import com.ing.blockchain.zk.metrics.LatencyHistogram;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Load generator for a verifier node: replays a {@link ProofCorpus} in blocks at a target rate through
+ * {@link HPAKErangeProof#validateRangeProof} on a number of worker threads.
+ *
+ * A block of proofs is released at once, as when a node imports a block, and the next block follows when the
+ * target rate allows it, whether or not the previous block is done. The latency of a proof is measured from the
+ * release of its block, so it includes the time the proof waited for a worker; the service time is the validation
+ * alone. A rate of 0 releases the next block when the previous one is done, which measures the maximum throughput.
+ *
+ * Usage: LoadGenerator [-b bits,...] [-g groups per size] [-n corpus size] [-r range bits] [-i invalid fraction]
+ * [-t threads] [-s block size] [-R proofs per second] [-d seconds] [-S seed] [-f test vectors]
+ *
+ * With a seed the corpus is the same on every run, see {@link SeededRandom}; with a file of {@link TestVectors} the
+ * corpus is read from the file instead of generated.
+ */
+public class LoadGenerator {
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final ProofCorpus corpus;
+    private final int threads;
+    private final int blockSize;
+    private final double rate;
+
+    /**
+     * @param rate the target number of proofs per second, 0 for as many as possible
+     */
+    public LoadGenerator(ProofCorpus corpus, int threads, int blockSize, double rate) {
+        if (corpus.size() == 0 || threads < 1 || blockSize < 1 || rate < 0) {
+            throw new IllegalArgumentException("Invalid load parameters");
+        }
+        this.corpus = corpus;
+        this.threads = threads;
+        this.blockSize = blockSize;
+        this.rate = rate;
+    }
+
+    public static void main(String[] args) throws InterruptedException, IOException {
+        int[] bits = {1024};
+        int groupsPerSize = 2;
+        int corpusSize = 200;
+        int rangeBits = 64;
+        double invalidFraction = 0.05;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int blockSize = 50;
+        double rate = 0;
+        int seconds = 30;
+        Long seed = null;
+        String vectors = null;
+
+        for (int i = 0; i < args.length; i++) {
+            String value = args[++i];
+            switch (args[i - 1]) {
+                case "-b":
+                    String[] sizes = value.split(",");
+                    bits = new int[sizes.length];
+                    for (int j = 0; j < sizes.length; j++) {
+                        bits[j] = Integer.parseInt(sizes[j]);
+                    }
+                    break;
+                case "-g":
+                    groupsPerSize = Integer.parseInt(value);
+                    break;
+                case "-n":
+                    corpusSize = Integer.parseInt(value);
+                    break;
+                case "-r":
+                    rangeBits = Integer.parseInt(value);
+                    break;
+                case "-i":
+                    invalidFraction = Double.parseDouble(value);
+                    break;
+                case "-t":
+                    threads = Integer.parseInt(value);
+                    break;
+                case "-s":
+                    blockSize = Integer.parseInt(value);
+                    break;
+                case "-R":
+                    rate = Double.parseDouble(value);
+                    break;
+                case "-d":
+                    seconds = Integer.parseInt(value);
+                    break;
+                case "-S":
+                    seed = Long.parseLong(value);
+                    break;
+                case "-f":
+                    vectors = value;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i - 1]);
+            }
+        }
+
+        ProofCorpus corpus;
+        if (vectors != null) {
+            try (Reader reader = Files.newBufferedReader(Paths.get(vectors), StandardCharsets.UTF_8)) {
+                corpus = TestVectors.toCorpus(TestVectors.read(reader));
+            }
+            System.out.printf("Read %d proofs from %s%n", corpus.size(), vectors);
+        } else {
+            SecureRandom random = seed == null ? new SecureRandom() : SeededRandom.create(seed);
+            List<SecretOrderGroup> groups = new ArrayList<>();
+            for (int size : bits) {
+                for (int j = 0; j < groupsPerSize; j++) {
+                    groups.add(BenchmarkGroups.generate(size, random));
+                }
+            }
+            System.out.printf("Generating %d proofs over %d groups...%n", corpusSize, groups.size());
+            corpus = ProofCorpus.generate(groups, corpusSize, rangeBits, invalidFraction, random);
+        }
+
+        LoadGenerator generator = new LoadGenerator(corpus, threads, blockSize, rate);
+        // Warm up with a tenth of the run, at most 10 seconds
+        generator.run(Math.min(10_000, seconds * 100L));
+        System.out.println(generator.run(seconds * 1000L));
+    }
+
+    // A proof of a block, with the release time of the block
+    private static final class Task {
+        private final ProofCorpus.Entry entry;
+        private final long released;
+        private final Block block;
+
+        private Task(ProofCorpus.Entry entry, long released, Block block) {
+            this.entry = entry;
+            this.released = released;
+            this.block = block;
+        }
+    }
+
+    private static final class Block {
+        private final long released;
+        private final AtomicLong remaining;
+
+        private Block(long released, int size) {
+            this.released = released;
+            this.remaining = new AtomicLong(size);
+        }
+    }
+
+    private static final Task STOP = new Task(null, 0, null);
+
+    /**
+     * Replays the corpus for the given time and returns the measurements.
+     */
+    public Result run(long millis) throws InterruptedException {
+        BlockingQueue<Task> queue = new LinkedBlockingQueue<>();
+        Result result = new Result();
+        GcTime gcStart = GcTime.now();
+
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> work(queue, result), "load-" + t);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+
+        long start = System.nanoTime();
+        long end = start + TimeUnit.MILLISECONDS.toNanos(millis);
+        long blockNanos = rate == 0 ? 0 : (long) (blockSize * 1e9 / rate);
+        int next = 0;
+        long release = start;
+        Block previous = null;
+        while (release < end) {
+            if (blockNanos > 0) {
+                sleepUntil(release);
+            } else if (previous != null) {
+                // Closed loop: release the next block when the previous one is done
+                synchronized (previous) {
+                    while (previous.remaining.get() > 0) {
+                        previous.wait();
+                    }
+                }
+                release = System.nanoTime();
+            }
+            Block block = new Block(release, blockSize);
+            for (int i = 0; i < blockSize; i++) {
+                queue.add(new Task(corpus.getEntries().get(next), release, block));
+                next = (next + 1) % corpus.size();
+            }
+            result.blocks++;
+            previous = block;
+            release += blockNanos;
+        }
+        for (int t = 0; t < threads; t++) {
+            queue.add(STOP);
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        // At a target rate the last block may be done before the end of the run
+        result.nanos = Math.max(System.nanoTime(), end) - start;
+        result.gc = GcTime.now().minus(gcStart);
+        result.offeredRate = rate;
+        result.threads = threads;
+        result.blockSize = blockSize;
+        return result;
+    }
+
+    private static void sleepUntil(long time) throws InterruptedException {
+        long delay;
+        while ((delay = time - System.nanoTime()) > 0) {
+            TimeUnit.NANOSECONDS.sleep(delay);
+        }
+    }
+
+    private static void work(BlockingQueue<Task> queue, Result result) {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        boolean cpuTime = threadBean.isCurrentThreadCpuTimeSupported();
+        long cpuStart = cpuTime ? threadBean.getCurrentThreadCpuTime() : 0;
+        try {
+            Task task;
+            while ((task = queue.take()) != STOP) {
+                long start = System.nanoTime();
+                boolean valid = validate(task.entry);
+                long done = System.nanoTime();
+
+                result.serviceTime.record(done - start);
+                result.latency.record(done - task.released);
+                result.proofs.increment();
+                if (valid != task.entry.isValid()) {
+                    result.unexpected.increment();
+                }
+                if (task.block.remaining.decrementAndGet() == 0) {
+                    result.blockLatency.record(done - task.block.released);
+                    synchronized (task.block) {
+                        task.block.notifyAll();
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (cpuTime) {
+                result.cpuNanos.add(threadBean.getCurrentThreadCpuTime() - cpuStart);
+            }
+        }
+    }
+
+    private static boolean validate(ProofCorpus.Entry entry) {
+        try {
+            HPAKErangeProof.validateRangeProof(entry.getProof(), entry.getCommitment(), entry.getRange());
+            return true;
+        } catch (ZeroKnowledgeException | ArithmeticException e) {
+            return false;
+        }
+    }
+
+    // Total collection count and time of all garbage collectors
+    private static final class GcTime {
+        private final long count;
+        private final long millis;
+
+        private GcTime(long count, long millis) {
+            this.count = count;
+            this.millis = millis;
+        }
+
+        static GcTime now() {
+            long count = 0;
+            long millis = 0;
+            for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+                count += Math.max(0, collector.getCollectionCount());
+                millis += Math.max(0, collector.getCollectionTime());
+            }
+            return new GcTime(count, millis);
+        }
+
+        GcTime minus(GcTime other) {
+            return new GcTime(count - other.count, millis - other.millis);
+        }
+    }
+
+    /**
+     * Measurements of one run.
+     */
+    public static final class Result {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LatencyHistogram serviceTime = new LatencyHistogram();
+        private final LatencyHistogram blockLatency = new LatencyHistogram();
+        private final LongAdder proofs = new LongAdder();
+        private final LongAdder unexpected = new LongAdder();
+        private final LongAdder cpuNanos = new LongAdder();
+        private long blocks;
+        private long nanos;
+        private GcTime gc;
+        private double offeredRate;
+        private int threads;
+        private int blockSize;
+
+        private Result() {
+        }
+
+        public long getProofs() {
+            return proofs.sum();
+        }
+
+        public long getBlocks() {
+            return blocks;
+        }
+
+        /**
+         * @return the number of proofs whose validation result differed from the expected result
+         */
+        public long getUnexpected() {
+            return unexpected.sum();
+        }
+
+        /**
+         * @return validated proofs per second
+         */
+        public double getThroughput() {
+            return getProofs() * 1e9 / nanos;
+        }
+
+        /**
+         * @return the time from the release of the block of a proof until it was validated
+         */
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+
+        /**
+         * @return the time of the validation of a proof
+         */
+        public LatencyHistogram getServiceTime() {
+            return serviceTime;
+        }
+
+        /**
+         * @return the time from the release of a block until all its proofs were validated
+         */
+        public LatencyHistogram getBlockLatency() {
+            return blockLatency;
+        }
+
+        /**
+         * @return the CPU time of the workers per proof in nanoseconds, 0 if the JVM does not measure it
+         */
+        public double getCpuNanosPerProof() {
+            return getProofs() == 0 ? 0 : (double) cpuNanos.sum() / getProofs();
+        }
+
+        public long getGcCount() {
+            return gc.count;
+        }
+
+        public long getGcMillis() {
+            return gc.millis;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder();
+            builder.append(String.format("Threads %d, blocks of %d, offered %s%n", threads, blockSize,
+                    offeredRate == 0 ? "as fast as possible" : String.format("%.1f proofs/s", offeredRate)));
+            builder.append(String.format("Validated %d proofs in %d blocks in %.1f s: %.1f proofs/s, %d unexpected "
+                    + "results%n", getProofs(), blocks, nanos / 1e9, getThroughput(), getUnexpected()));
+            appendHistogram(builder, "Latency (ms)", latency);
+            appendHistogram(builder, "Service time (ms)", serviceTime);
+            appendHistogram(builder, "Block time (ms)", blockLatency);
+            builder.append(String.format("CPU per proof: %.2f ms%n", getCpuNanosPerProof() / 1e6));
+            builder.append(String.format("GC: %d collections, %d ms (%.2f%% of the run)%n", gc.count, gc.millis,
+                    gc.millis * 1e8 / nanos));
+            return builder.toString();
+        }
+
+        private static void appendHistogram(StringBuilder builder, String name, LatencyHistogram histogram) {
+            builder.append(String.format("%-18s mean %8.2f", name, histogram.getMean() / 1e6));
+            for (double percentile : PERCENTILES) {
+                builder.append(String.format("  p%s %8.2f", percentile == (int) percentile
+                        ? Integer.toString((int) percentile) : Double.toString(percentile),
+                        histogram.getValueAtPercentile(percentile) / 1e6));
+            }
+            builder.append(String.format("  max %8.2f%n", histogram.getMax() / 1e6));
+        }
+    }
+}
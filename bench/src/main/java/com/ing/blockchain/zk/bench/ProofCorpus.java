@@ -0,0 +1,137 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.bench;
+
+import com.ing.blockchain.zk.HPAKErangeProof;
+import com.ing.blockchain.zk.TTPGenerator;
+import com.ing.blockchain.zk.dto.*;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static java.math.BigInteger.ONE;
+
+/**
+ * Range proofs with their commitments, ranges and expected validation results, for load tests and benchmarks.
+ *
+ * Invalid proofs have a response x that is off by one, so they pass the sub-proofs of checks 3 to 5 and are only
+ * rejected at check 9: the most expensive rejection.
+ */
+public final class ProofCorpus {
+
+    /**
+     * A proof to validate and whether it is valid.
+     */
+    public static final class Entry {
+        private final Commitment commitment;
+        private final ClosedRange range;
+        private final RangeProof proof;
+        private final boolean valid;
+
+        public Entry(Commitment commitment, ClosedRange range, RangeProof proof, boolean valid) {
+            this.commitment = commitment;
+            this.range = range;
+            this.proof = proof;
+            this.valid = valid;
+        }
+
+        public Commitment getCommitment() {
+            return commitment;
+        }
+
+        public ClosedRange getRange() {
+            return range;
+        }
+
+        public RangeProof getProof() {
+            return proof;
+        }
+
+        public boolean isValid() {
+            return valid;
+        }
+    }
+
+    private final List<Entry> entries;
+
+    private ProofCorpus(List<Entry> entries) {
+        this.entries = Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * @return a corpus of the given entries, for example read from {@link TestVectors}
+     */
+    public static ProofCorpus of(List<Entry> entries) {
+        return new ProofCorpus(new ArrayList<>(entries));
+    }
+
+    /**
+     * Generates proofs over the given groups in turn, with the default security profile, or for a group larger than it
+     * covers the profile of {@link SecurityProfile#forModulus} with 80 bits of statistical security, which has the same
+     * k1, so that all proofs verify with the default profile. All randomness, including that of the commitments and the
+     * proofs, comes from the given source, so a {@link SeededRandom} gives the same corpus on every run.
+     *
+     * @param rangeBits       the bit length of the width of the ranges
+     * @param invalidFraction the fraction of invalid proofs, spread evenly over the corpus
+     */
+    public static ProofCorpus generate(List<SecretOrderGroup> groups, int size, int rangeBits, double invalidFraction,
+                                       SecureRandom random) {
+        if (groups.isEmpty() || size < 0 || rangeBits < 1 || invalidFraction < 0 || invalidFraction > 1) {
+            throw new IllegalArgumentException("Invalid corpus parameters");
+        }
+        List<Entry> entries = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            SecretOrderGroup group = groups.get(i % groups.size());
+            BigInteger start = new BigInteger(rangeBits, random);
+            BigInteger end = start.add(ONE.shiftLeft(rangeBits));
+            BigInteger secret = start.add(new BigInteger(rangeBits, random));
+            ClosedRange range = ClosedRange.of(start, end);
+
+            int bits = group.getN().bitLength();
+            SecurityProfile profile = bits <= SecurityProfile.DEFAULT.getModulusBitLength() ? SecurityProfile.DEFAULT
+                    : SecurityProfile.forModulus("n-" + bits, bits, 80);
+            TTPMessage message = TTPGenerator.generateTTPMessage(secret, group, profile, random);
+            RangeProof proof = HPAKErangeProof.calculateRangeProof(message, range, profile, random);
+
+            // Invalid entries at i = 1/f, 2/f, ... so that every part of the corpus has the same fraction
+            boolean valid = Math.floor((i + 1) * invalidFraction) == Math.floor(i * invalidFraction);
+            entries.add(new Entry(message.getCommitment(), range, valid ? proof : tamper(proof), valid));
+        }
+        return new ProofCorpus(entries);
+    }
+
+    private static RangeProof tamper(RangeProof proof) {
+        return new RangeProof(proof.getEcProof2(), proof.getSqrProof3(), proof.getSqrProof4(), proof.getcPrime(),
+                proof.getcPrime1(), proof.getcPrime2(), proof.getcPrime3(), proof.getX().add(ONE), proof.getY(),
+                proof.getU(), proof.getV());
+    }
+
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.ing.blockchain.zk.bench;
+
+import com.ing.blockchain.zk.HPAKErangeProof;
+import com.ing.blockchain.zk.TTPGenerator;
+import com.ing.blockchain.zk.dto.*;
+import com.ing.blockchain.zk.metrics.AllocationCounter;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures the cost of proving and verifying for each named security profile, and prints a table
+ * that can be used to pick a profile. The allocated kilobytes are only measured on JVMs that count allocations per
+ * thread, see {@link AllocationCounter}.
+ *
+ * Usage: SecurityProfileBenchmark [iterations]
+ */
+public class SecurityProfileBenchmark {
+
+    private static final SecurityProfile[] PROFILES = {
+            SecurityProfile.LEGACY, SecurityProfile.RSA_2048, SecurityProfile.RSA_3072
+    };
+
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+
+        SecureRandom random = new SecureRandom();
+        List<String> rows = new ArrayList<>();
+        for (SecurityProfile profile : PROFILES) {
+            SecretOrderGroup group = BenchmarkGroups.generate(profile.getModulusBitLength(), random);
+            rows.add(measure(profile, group, iterations));
+        }
+
+        System.out.println("| Profile | N bits | Proof bytes | Prove (ms) | Verify (ms) | Prove (KB) | Verify (KB) |");
+        System.out.println("|---------|-------:|------------:|-----------:|------------:|-----------:|------------:|");
+        rows.forEach(System.out::println);
+    }
+
+    static String measure(SecurityProfile profile, SecretOrderGroup group, int iterations) {
+        BigInteger x = new BigInteger("50");
+        ClosedRange range = ClosedRange.of("18", "65");
+        TTPMessage message = TTPGenerator.generateTTPMessage(x, group, profile);
+
+        // Warm up
+        RangeProof proof = HPAKErangeProof.calculateRangeProof(message, range, profile);
+        HPAKErangeProof.validateRangeProof(proof, message.getCommitment(), range, profile);
+
+        long proveNanos = 0;
+        long verifyNanos = 0;
+        long proveBytes = 0;
+        long verifyBytes = 0;
+        long proofBytes = 0;
+        for (int i = 0; i < iterations; i++) {
+            long startBytes = AllocationCounter.currentThread();
+            long start = System.nanoTime();
+            proof = HPAKErangeProof.calculateRangeProof(message, range, profile);
+            long proved = System.nanoTime();
+            long provedBytes = AllocationCounter.currentThread();
+            HPAKErangeProof.validateRangeProof(proof, message.getCommitment(), range, profile);
+            long verified = System.nanoTime();
+            long verifiedBytes = AllocationCounter.currentThread();
+
+            proveNanos += proved - start;
+            verifyNanos += verified - proved;
+            proveBytes += provedBytes - startBytes;
+            verifyBytes += verifiedBytes - provedBytes;
+            proofBytes += proofSize(proof);
+        }
+
+        return String.format("| %s | %d | %d | %.1f | %.1f | %.0f | %.0f |", profile.getName(), group.getN().bitLength(),
+                proofBytes / iterations, proveNanos / 1e6 / iterations, verifyNanos / 1e6 / iterations,
+                proveBytes / 1024.0 / iterations, verifyBytes / 1024.0 / iterations);
+    }
+
+    // Sum of the minimal two's-complement encodings of the 22 integers in the proof
+    private static int proofSize(RangeProof proof) {
+        BigInteger[] fields = {
+                proof.getcPrime(), proof.getcPrime1(), proof.getcPrime2(), proof.getcPrime3(),
+                proof.getU(), proof.getV(), proof.getX(), proof.getY()
+        };
+        int size = 0;
+        for (BigInteger field : fields) {
+            size += field.toByteArray().length;
+        }
+        size += squareProofSize(proof.getSqrProof3()) + squareProofSize(proof.getSqrProof4());
+        return size + ecProofSize(proof.getEcProof2());
+    }
+
+    private static int squareProofSize(SquareProof proof) {
+        return proof.getF().toByteArray().length + ecProofSize(proof.getECProof());
+    }
+
+    private static int ecProofSize(ECProof proof) {
+        return proof.getC().toByteArray().length + proof.getD().toByteArray().length
+                + proof.getD1().toByteArray().length + proof.getD2().toByteArray().length;
+    }
+}
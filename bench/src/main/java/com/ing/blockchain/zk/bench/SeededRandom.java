@@ -0,0 +1,107 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.bench;
+
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.prng.EntropySource;
+import org.bouncycastle.crypto.prng.EntropySourceProvider;
+import org.bouncycastle.crypto.prng.SP800SecureRandomBuilder;
+import org.bouncycastle.util.Pack;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+
+/**
+ * Reproducible randomness for benchmark corpora and test vectors only: NOT SECURE.
+ *
+ * The returned SecureRandom is a Hash_DRBG of SP 800-90A with SHA-256, whose entropy input is derived from the seed
+ * alone. Everyone who knows the seed knows every value it produces, so commitments and proofs made with it hide
+ * nothing. Its only purpose is that the same seed gives the same groups, commitments and proofs on every run, so the
+ * Java verifier and the go-ethereum precompile can be compared on identical inputs.
+ *
+ * Calls of setSeed are ignored: the output only depends on the seed given here and the sequence of requests. The
+ * output of the prover also depends on the algorithms of BigInteger, which have been stable across JDK versions.
+ */
+public final class SeededRandom {
+
+    private static final byte[] PERSONALIZATION =
+            "com.ing.blockchain.zk test vectors, not for production".getBytes(StandardCharsets.US_ASCII);
+
+    private SeededRandom() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    public static SecureRandom create(long seed) {
+        return create(Pack.longToBigEndian(seed));
+    }
+
+    public static SecureRandom create(byte[] seed) {
+        byte[] copy = seed.clone();
+        return new SP800SecureRandomBuilder(new SeedEntropySourceProvider(copy))
+                .setPersonalizationString(PERSONALIZATION)
+                .buildHash(new SHA256Digest(), derive(copy, -1, 32), false);
+    }
+
+    // The n-th entropy input is SHA-256(seed || n || 0) || SHA-256(seed || n || 1) || ..., cut to the requested size
+    private static byte[] derive(byte[] seed, int n, int bytes) {
+        byte[] output = new byte[bytes];
+        SHA256Digest digest = new SHA256Digest();
+        byte[] block = new byte[digest.getDigestSize()];
+        for (int offset = 0, i = 0; offset < bytes; offset += block.length, i++) {
+            digest.update(seed, 0, seed.length);
+            digest.update(Pack.intToBigEndian(n), 0, 4);
+            digest.update(Pack.intToBigEndian(i), 0, 4);
+            digest.doFinal(block, 0);
+            System.arraycopy(block, 0, output, offset, Math.min(block.length, bytes - offset));
+        }
+        return output;
+    }
+
+    private static final class SeedEntropySourceProvider implements EntropySourceProvider {
+        private final byte[] seed;
+
+        private SeedEntropySourceProvider(byte[] seed) {
+            this.seed = seed;
+        }
+
+        @Override
+        public EntropySource get(int bitsRequired) {
+            return new EntropySource() {
+                private int requests;
+
+                @Override
+                public boolean isPredictionResistant() {
+                    return false;
+                }
+
+                @Override
+                public byte[] getEntropy() {
+                    return derive(seed, requests++, (bitsRequired + 7) / 8);
+                }
+
+                @Override
+                public int entropySize() {
+                    return bitsRequired;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,276 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.ing.blockchain.zk.HPAKErangeProof;
+import com.ing.blockchain.zk.codec.BinaryCodec;
+import com.ing.blockchain.zk.dto.ClosedRange;
+import com.ing.blockchain.zk.dto.Commitment;
+import com.ing.blockchain.zk.dto.RangeProof;
+import com.ing.blockchain.zk.dto.SecretOrderGroup;
+import com.ing.blockchain.zk.exception.ZeroKnowledgeException;
+import com.ing.blockchain.zk.precompile.CalldataEncoder;
+import com.ing.blockchain.zk.precompile.PrecompileValidator;
+import org.bouncycastle.util.encoders.Hex;
+
+import java.io.*;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reproducible test vectors: range proofs for several group sizes and ranges, generated from a seed with
+ * {@link SeededRandom}, so the Java verifier and the zkrangeproof validator of go-ethereum can be benchmarked on
+ * identical inputs. NOT SECURE: the commitments hide nothing from anyone who knows the seed, and the groups are
+ * {@link BenchmarkGroups}.
+ *
+ * The vectors are JSON lines, one vector per line:
+ * <pre>
+ * {"name":"n1024-r32-0","bits":1024,"rangeBits":32,"valid":true,"lower":"...","upper":"...",
+ *  "commitment":"0x...","proof":"0x...","calldata":"0x..."}
+ * </pre>
+ * The range bounds are decimal. The commitment and the proof are in the format of {@link BinaryCodec}, the calldata
+ * is a call of the precompile as made by {@link CalldataEncoder#encode}. Valid is the result that both verifiers
+ * must give.
+ *
+ * Usage: TestVectors [-S seed] [-b bits,...] [-r range bits,...] [-n vectors per size and range]
+ * [-i invalid fraction] [-o output file]
+ */
+public final class TestVectors {
+
+    /**
+     * A named entry of a corpus.
+     */
+    public static final class Vector {
+        private final String name;
+        private final int rangeBits;
+        private final ProofCorpus.Entry entry;
+
+        public Vector(String name, int rangeBits, ProofCorpus.Entry entry) {
+            this.name = name;
+            this.rangeBits = rangeBits;
+            this.entry = entry;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return the bit length of the modulus of the group
+         */
+        public int getBitLength() {
+            return entry.getCommitment().getGroup().getN().bitLength();
+        }
+
+        public int getRangeBits() {
+            return rangeBits;
+        }
+
+        public ProofCorpus.Entry getEntry() {
+            return entry;
+        }
+    }
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private TestVectors() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    public static void main(String[] args) throws IOException {
+        long seed = 1;
+        int[] bits = {512, 1024, 2048};
+        int[] rangeBits = {8, 32, 64};
+        int count = 10;
+        double invalidFraction = 0.2;
+        String output = null;
+
+        for (int i = 0; i < args.length; i++) {
+            String value = args[++i];
+            switch (args[i - 1]) {
+                case "-S":
+                    seed = Long.parseLong(value);
+                    break;
+                case "-b":
+                    bits = parseList(value);
+                    break;
+                case "-r":
+                    rangeBits = parseList(value);
+                    break;
+                case "-n":
+                    count = Integer.parseInt(value);
+                    break;
+                case "-i":
+                    invalidFraction = Double.parseDouble(value);
+                    break;
+                case "-o":
+                    output = value;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i - 1]);
+            }
+        }
+
+        List<Vector> vectors = generate(seed, bits, rangeBits, count, invalidFraction);
+        for (Vector vector : vectors) {
+            check(vector);
+        }
+        try (Writer writer = output == null
+                ? new OutputStreamWriter(System.out, StandardCharsets.UTF_8)
+                : Files.newBufferedWriter(Paths.get(output), StandardCharsets.UTF_8)) {
+            write(vectors, writer);
+        }
+    }
+
+    private static int[] parseList(String value) {
+        String[] items = value.split(",");
+        int[] list = new int[items.length];
+        for (int i = 0; i < items.length; i++) {
+            list[i] = Integer.parseInt(items[i]);
+        }
+        return list;
+    }
+
+    /**
+     * Generates count vectors for every combination of group size and range width, with one group per size. The same
+     * arguments give the same vectors.
+     */
+    public static List<Vector> generate(long seed, int[] bits, int[] rangeBits, int count, double invalidFraction) {
+        SecureRandom random = SeededRandom.create(seed);
+        List<Vector> vectors = new ArrayList<>();
+        for (int size : bits) {
+            List<SecretOrderGroup> group = Collections.singletonList(BenchmarkGroups.generate(size, random));
+            for (int width : rangeBits) {
+                ProofCorpus corpus = ProofCorpus.generate(group, count, width, invalidFraction, random);
+                for (int i = 0; i < corpus.size(); i++) {
+                    vectors.add(new Vector("n" + size + "-r" + width + "-" + i, width, corpus.getEntries().get(i)));
+                }
+            }
+        }
+        return vectors;
+    }
+
+    /**
+     * Checks that the Java verifier and the Java version of the precompile both give the expected result.
+     *
+     * @throws IllegalStateException if one of them does not
+     */
+    public static void check(Vector vector) {
+        ProofCorpus.Entry entry = vector.getEntry();
+        boolean valid;
+        try {
+            HPAKErangeProof.validateRangeProof(entry.getProof(), entry.getCommitment(), entry.getRange());
+            valid = true;
+        } catch (ZeroKnowledgeException | ArithmeticException e) {
+            valid = false;
+        }
+        if (valid != entry.isValid()) {
+            throw new IllegalStateException("Verifier disagrees with vector " + vector.getName());
+        }
+        if (PrecompileValidator.validate(calldata(entry)) != entry.isValid()) {
+            throw new IllegalStateException("Precompile disagrees with vector " + vector.getName());
+        }
+    }
+
+    private static byte[] calldata(ProofCorpus.Entry entry) {
+        CalldataEncoder encoder = new CalldataEncoder();
+        encoder.encode(entry.getProof(), entry.getCommitment(), entry.getRange());
+        return encoder.toByteArray();
+    }
+
+    public static void write(List<Vector> vectors, Writer writer) throws IOException {
+        for (Vector vector : vectors) {
+            ProofCorpus.Entry entry = vector.getEntry();
+            ObjectNode node = MAPPER.createObjectNode();
+            node.put("name", vector.getName());
+            node.put("bits", vector.getBitLength());
+            node.put("rangeBits", vector.getRangeBits());
+            node.put("valid", entry.isValid());
+            node.put("lower", entry.getRange().getStart().toString());
+            node.put("upper", entry.getRange().getEnd().toString());
+            node.put("commitment", toHex(BinaryCodec.encode(entry.getCommitment())));
+            node.put("proof", toHex(BinaryCodec.encode(entry.getProof())));
+            node.put("calldata", toHex(calldata(entry)));
+            writer.write(MAPPER.writeValueAsString(node));
+            writer.write('\n');
+        }
+        writer.flush();
+    }
+
+    /**
+     * Reads vectors from their commitments, ranges and proofs in the binary format; the calldata is not read.
+     *
+     * @throws IllegalArgumentException if a line is not a vector
+     */
+    public static List<Vector> read(Reader reader) throws IOException {
+        List<Vector> vectors = new ArrayList<>();
+        BufferedReader lines = new BufferedReader(reader);
+        for (String line = lines.readLine(); line != null; line = lines.readLine()) {
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            JsonNode node = MAPPER.readTree(line);
+            JsonNode name = node.get("name");
+            if (name == null || !node.hasNonNull("valid") || !node.hasNonNull("lower") || !node.hasNonNull("upper")
+                    || !node.hasNonNull("commitment") || !node.hasNonNull("proof")) {
+                throw new IllegalArgumentException("Invalid test vector: " + line);
+            }
+            ClosedRange range = ClosedRange.of(new BigInteger(node.get("lower").asText()),
+                    new BigInteger(node.get("upper").asText()));
+            Commitment commitment = BinaryCodec.decodeCommitment(fromHex(node.get("commitment").asText()));
+            RangeProof proof = BinaryCodec.decodeRangeProof(fromHex(node.get("proof").asText()));
+            vectors.add(new Vector(name.asText(), node.path("rangeBits").asInt(),
+                    new ProofCorpus.Entry(commitment, range, proof, node.get("valid").asBoolean())));
+        }
+        return vectors;
+    }
+
+    /**
+     * @return a corpus of the entries of the vectors, in their order
+     */
+    public static ProofCorpus toCorpus(List<Vector> vectors) {
+        List<ProofCorpus.Entry> entries = new ArrayList<>(vectors.size());
+        for (Vector vector : vectors) {
+            entries.add(vector.getEntry());
+        }
+        return ProofCorpus.of(entries);
+    }
+
+    private static String toHex(byte[] bytes) {
+        return "0x" + Hex.toHexString(bytes);
+    }
+
+    private static byte[] fromHex(String hex) {
+        if (!hex.startsWith("0x")) {
+            throw new IllegalArgumentException("Hex string without 0x prefix: " + hex);
+        }
+        return Hex.decode(hex.substring(2));
+    }
+}
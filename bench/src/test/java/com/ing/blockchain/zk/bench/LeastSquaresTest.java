@@ -0,0 +1,79 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.bench;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link LeastSquares}.
+ */
+public class LeastSquaresTest {
+
+    @Test
+    public void testExactFit() {
+        double[][] x = {{1, 1, 0}, {1, 2, 1}, {1, 3, 5}, {1, 4, 2}, {1, 7, 3}};
+        double[] y = new double[x.length];
+        for (int i = 0; i < x.length; i++) {
+            y[i] = 3 + 2 * x[i][1] - 0.5 * x[i][2];
+        }
+        LeastSquares fit = LeastSquares.fit(x, y);
+        assertEquals(3, fit.getCoefficient(0), 1e-9);
+        assertEquals(2, fit.getCoefficient(1), 1e-9);
+        assertEquals(-0.5, fit.getCoefficient(2), 1e-9);
+        assertEquals(1, fit.getRSquared(), 1e-9);
+        assertEquals(0, fit.getConfidence(1), 1e-6);
+        assertEquals(13, fit.predict(1, 5, 0), 1e-9);
+    }
+
+    @Test
+    public void testNoisyFit() {
+        Random random = new Random(1);
+        int n = 1000;
+        double[][] x = new double[n][];
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            double bytes = 5000 + random.nextInt(40000);
+            x[i] = new double[]{1, bytes};
+            y[i] = 20000 + 10 * bytes + 1000 * random.nextGaussian();
+        }
+        LeastSquares fit = LeastSquares.fit(x, y);
+        assertTrue(Math.abs(fit.getCoefficient(1) - 10) < fit.getConfidence(1));
+        assertTrue(fit.getConfidence(1) < 0.1);
+        assertTrue(fit.getRSquared() > 0.99);
+    }
+
+    @Test
+    public void testTQuantile() {
+        assertEquals(2.228, LeastSquares.tQuantile975(10), 0.005);
+        assertEquals(2.042, LeastSquares.tQuantile975(30), 0.001);
+        assertEquals(1.960, LeastSquares.tQuantile975(100000), 0.001);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDependentFeatures() {
+        LeastSquares.fit(new double[][]{{1, 2}, {2, 4}, {3, 6}}, new double[]{1, 2, 3});
+    }
+}
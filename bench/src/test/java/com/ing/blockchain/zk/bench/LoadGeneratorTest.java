@@ -0,0 +1,77 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.bench;
+
+import com.ing.blockchain.zk.dto.SecretOrderGroup;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link ProofCorpus} and {@link LoadGenerator}.
+ */
+public class LoadGeneratorTest {
+
+    private static ProofCorpus corpus;
+
+    @BeforeClass
+    public static void createCorpus() {
+        SecureRandom random = SeededRandom.create(1);
+        List<SecretOrderGroup> groups = Arrays.asList(BenchmarkGroups.generate(256, random),
+                BenchmarkGroups.generate(384, random));
+        corpus = ProofCorpus.generate(groups, 10, 16, 0.2, random);
+    }
+
+    @Test
+    public void testCorpus() {
+        assertEquals(10, corpus.size());
+        assertEquals(2, corpus.getEntries().stream().filter(e -> !e.isValid()).count());
+        assertEquals(256, corpus.getEntries().get(0).getCommitment().getGroup().getN().bitLength());
+        assertEquals(384, corpus.getEntries().get(1).getCommitment().getGroup().getN().bitLength());
+    }
+
+    @Test
+    public void testMaximumThroughput() throws InterruptedException {
+        LoadGenerator.Result result = new LoadGenerator(corpus, 2, 5, 0).run(300);
+        assertTrue(result.getProofs() >= 5);
+        assertEquals(5 * result.getBlocks(), result.getProofs());
+        assertEquals(0, result.getUnexpected());
+        assertEquals(result.getProofs(), result.getLatency().getCount());
+        assertEquals(result.getBlocks(), result.getBlockLatency().getCount());
+        assertTrue(result.getThroughput() > 0);
+        assertTrue(result.toString().contains("proofs/s"));
+    }
+
+    @Test
+    public void testTargetRate() throws InterruptedException {
+        // Blocks of 5 proofs every 100 ms
+        LoadGenerator.Result result = new LoadGenerator(corpus, 2, 5, 50).run(500);
+        assertEquals(5, result.getBlocks());
+        assertEquals(25, result.getProofs());
+        assertEquals(0, result.getUnexpected());
+        assertTrue(result.getLatency().getMax() >= result.getServiceTime().getMax());
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.bench;
+
+import com.ing.blockchain.zk.codec.BinaryCodec;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link SeededRandom} and {@link TestVectors}.
+ */
+public class TestVectorsTest {
+
+    private static final int[] BITS = {256, 384};
+    private static final int[] RANGE_BITS = {8, 32};
+
+    private static List<TestVectors.Vector> vectors;
+
+    @BeforeClass
+    public static void generateVectors() {
+        vectors = TestVectors.generate(42, BITS, RANGE_BITS, 5, 0.2);
+    }
+
+    @Test
+    public void testSeededRandom() {
+        byte[] first = new byte[100];
+        byte[] second = new byte[100];
+        SeededRandom.create(7).nextBytes(first);
+        SecureRandom random = SeededRandom.create(7);
+        random.setSeed(8);
+        random.nextBytes(second);
+        assertArrayEquals(first, second);
+
+        SeededRandom.create(8).nextBytes(second);
+        assertFalse(Arrays.equals(first, second));
+    }
+
+    @Test
+    public void testReproducible() throws IOException {
+        List<TestVectors.Vector> again = TestVectors.generate(42, BITS, RANGE_BITS, 5, 0.2);
+        assertEquals(toString(vectors), toString(again));
+
+        List<TestVectors.Vector> other = TestVectors.generate(43, BITS, RANGE_BITS, 5, 0.2);
+        assertNotEquals(toString(vectors), toString(other));
+    }
+
+    @Test
+    public void testVectors() {
+        assertEquals(BITS.length * RANGE_BITS.length * 5, vectors.size());
+        assertEquals("n256-r8-0", vectors.get(0).getName());
+        assertEquals(256, vectors.get(0).getBitLength());
+        assertEquals(384, vectors.get(vectors.size() - 1).getBitLength());
+        assertEquals(4, vectors.stream().filter(v -> !v.getEntry().isValid()).count());
+        for (TestVectors.Vector vector : vectors) {
+            TestVectors.check(vector);
+        }
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        String written = toString(vectors);
+        List<TestVectors.Vector> read = TestVectors.read(new StringReader(written));
+        assertEquals(vectors.size(), read.size());
+        for (int i = 0; i < read.size(); i++) {
+            TestVectors.Vector expected = vectors.get(i);
+            TestVectors.Vector actual = read.get(i);
+            assertEquals(expected.getName(), actual.getName());
+            assertEquals(expected.getRangeBits(), actual.getRangeBits());
+            assertEquals(expected.getEntry().isValid(), actual.getEntry().isValid());
+            assertArrayEquals(BinaryCodec.encode(expected.getEntry().getProof()),
+                    BinaryCodec.encode(actual.getEntry().getProof()));
+            assertArrayEquals(BinaryCodec.encode(expected.getEntry().getCommitment()),
+                    BinaryCodec.encode(actual.getEntry().getCommitment()));
+        }
+        assertEquals(written, toString(read));
+        assertEquals(vectors.size(), TestVectors.toCorpus(read).size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testReadInvalid() throws IOException {
+        TestVectors.read(new StringReader("{\"name\":\"missing fields\"}\n"));
+    }
+
+    private static String toString(List<TestVectors.Vector> vectors) throws IOException {
+        StringWriter writer = new StringWriter();
+        TestVectors.write(vectors, writer);
+        return writer.toString();
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.client;
+
+import java.math.BigInteger;
+
+/**
+ * Outcome of one JSON-RPC call of {@link RangeProofClient}.
+ */
+public final class CallResult {
+
+    private final String value;
+    private final String error;
+    private final long latencyNanos;
+
+    CallResult(String value, String error, long latencyNanos) {
+        this.value = value;
+        this.error = error;
+        this.latencyNanos = latencyNanos;
+    }
+
+    /**
+     * @return the result of the call: the output of eth_call or the transaction hash of eth_sendRawTransaction
+     */
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * @return the error message of the node or the transport, or null
+     */
+    public String getError() {
+        return error;
+    }
+
+    public boolean isError() {
+        return error != null;
+    }
+
+    /**
+     * @return whether the output of eth_call is the word 1, i.e. the precompile accepted the proof
+     */
+    public boolean isValid() {
+        return value != null && value.length() > 2 && BigInteger.ONE.equals(new BigInteger(value.substring(2), 16));
+    }
+
+    /**
+     * @return the time between sending the request and receiving the response
+     */
+    public long getLatencyNanos() {
+        return latencyNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CallResult(%s, %.3f ms)", isError() ? "error: " + error : value, latencyNanos / 1e6);
+    }
+}
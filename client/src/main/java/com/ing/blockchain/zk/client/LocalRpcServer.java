@@ -0,0 +1,302 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.ing.blockchain.zk.precompile.PrecompileValidator;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.web3j.crypto.Hash;
+import org.web3j.utils.Numeric;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process stand-in for the JSON-RPC interface of a node with the range proof precompile, to test and load-test
+ * clients without a node.
+ *
+ * It answers eth_call to address 0x09 with {@link PrecompileValidator}, and accepts eth_sendRawTransaction by
+ * returning the hash of the transaction; transactions to 0x09 are validated and counted. An artificial latency can be
+ * added to every response to simulate the network.
+ *
+ * The server keeps the nonces of a single account: it rejects a transaction whose nonce is below the transaction
+ * count or was used before, and answers eth_getTransactionCount with the count, which is the first nonce that has not
+ * been used. Signatures are not checked.
+ */
+public class LocalRpcServer implements Closeable {
+
+    private static final BigInteger PRECOMPILE = BigInteger.valueOf(9);
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private volatile long latencyMillis;
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger maxActive = new AtomicInteger();
+    private final AtomicInteger validTransactions = new AtomicInteger();
+    private final AtomicInteger invalidTransactions = new AtomicInteger();
+
+    // Nonces at or above the transaction count that have been used, and the number of transactions to reject
+    private final Set<Long> nonces = new HashSet<>();
+    private long transactionCount;
+    private int rejections;
+
+    /**
+     * Starts a server on a free port of the loopback interface.
+     *
+     * @param threads the number of requests that are handled at the same time
+     */
+    public LocalRpcServer(int threads) throws IOException {
+        executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "local-rpc");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public String getUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/";
+    }
+
+    /**
+     * @param latencyMillis the delay before each response
+     */
+    public void setLatencyMillis(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    public int getRequests() {
+        return requests.get();
+    }
+
+    /**
+     * @return the largest number of requests that were handled at the same time
+     */
+    public int getMaxConcurrentRequests() {
+        return maxActive.get();
+    }
+
+    public int getValidTransactions() {
+        return validTransactions.get();
+    }
+
+    public int getInvalidTransactions() {
+        return invalidTransactions.get();
+    }
+
+    /**
+     * @param transactionCount the nonce of the next transaction of the account
+     */
+    public synchronized void setTransactionCount(long transactionCount) {
+        this.transactionCount = transactionCount;
+        nonces.clear();
+    }
+
+    public synchronized long getTransactionCount() {
+        return transactionCount;
+    }
+
+    /**
+     * Rejects the next transactions with an error, as a node does for example when its pool is full.
+     *
+     * @param count the number of transactions to reject
+     */
+    public synchronized void rejectTransactions(int count) {
+        rejections = count;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        int concurrent = active.incrementAndGet();
+        maxActive.accumulateAndGet(concurrent, Math::max);
+        try {
+            JsonNode request;
+            try (InputStream body = exchange.getRequestBody()) {
+                request = mapper.readTree(body);
+            }
+            ObjectNode response = respond(request);
+
+            if (latencyMillis > 0) {
+                TimeUnit.MILLISECONDS.sleep(latencyMillis);
+            }
+            byte[] bytes = mapper.writeValueAsBytes(response);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            active.decrementAndGet();
+            exchange.close();
+        }
+    }
+
+    private ObjectNode respond(JsonNode request) {
+        ObjectNode response = mapper.createObjectNode();
+        response.put("jsonrpc", "2.0");
+        response.set("id", request.get("id"));
+
+        JsonNode params = request.path("params");
+        try {
+            switch (request.path("method").asText()) {
+                case "eth_call":
+                    response.put("result", call(params.path(0)));
+                    break;
+                case "eth_sendRawTransaction":
+                    response.put("result", sendRawTransaction(params.path(0).asText()));
+                    break;
+                case "eth_getTransactionCount":
+                    response.put("result", Numeric.encodeQuantity(BigInteger.valueOf(getTransactionCount())));
+                    break;
+                default:
+                    return error(response, -32601, "the method " + request.path("method").asText()
+                            + " does not exist/is not available");
+            }
+        } catch (IllegalArgumentException e) {
+            return error(response, -32000, e.getMessage());
+        }
+        return response;
+    }
+
+    private ObjectNode error(ObjectNode response, int code, String message) {
+        ObjectNode error = response.putObject("error");
+        error.put("code", code);
+        error.put("message", message);
+        return response;
+    }
+
+    private String call(JsonNode transaction) {
+        if (!PRECOMPILE.equals(Numeric.toBigInt(transaction.path("to").asText("0x0")))) {
+            return "0x";
+        }
+        byte[] input = Numeric.hexStringToByteArray(transaction.path("data").asText("0x"));
+        return Numeric.toHexString(PrecompileValidator.run(input));
+    }
+
+    private String sendRawTransaction(String hex) {
+        byte[] raw = Numeric.hexStringToByteArray(hex);
+        List<byte[]> fields = decodeRlpList(raw);
+        if (fields.size() != 9) {
+            throw new IllegalArgumentException("rlp: invalid transaction");
+        }
+        useNonce(new BigInteger(1, fields.get(0)).longValueExact());
+        byte[] to = fields.get(3);
+        if (to.length > 0 && PRECOMPILE.equals(new BigInteger(1, to))) {
+            boolean valid;
+            try {
+                valid = BigInteger.ONE.equals(new BigInteger(1, PrecompileValidator.run(fields.get(5))));
+            } catch (IllegalArgumentException e) {
+                valid = false;
+            }
+            (valid ? validTransactions : invalidTransactions).incrementAndGet();
+        }
+        return Numeric.toHexString(Hash.sha3(raw));
+    }
+
+    private synchronized void useNonce(long nonce) {
+        if (rejections > 0) {
+            rejections--;
+            throw new IllegalArgumentException("transaction rejected");
+        }
+        if (nonce < transactionCount || !nonces.add(nonce)) {
+            throw new IllegalArgumentException("nonce too low");
+        }
+        while (nonces.remove(transactionCount)) {
+            transactionCount++;
+        }
+    }
+
+
+    // Decodes an RLP list of strings, which is all a transaction consists of
+    private static List<byte[]> decodeRlpList(byte[] rlp) {
+        int[] header = rlpHeader(rlp, 0);
+        if (header[2] != 1 || header[0] + header[1] != rlp.length) {
+            throw new IllegalArgumentException("rlp: expected a list");
+        }
+        List<byte[]> items = new ArrayList<>();
+        int position = header[0];
+        while (position < rlp.length) {
+            int[] item = rlpHeader(rlp, position);
+            if (item[2] != 0 || item[0] + item[1] > rlp.length) {
+                throw new IllegalArgumentException("rlp: expected a string");
+            }
+            items.add(Arrays.copyOfRange(rlp, item[0], item[0] + item[1]));
+            position = item[0] + item[1];
+        }
+        return items;
+    }
+
+    // Returns the offset of the payload, the length of the payload and 1 for a list or 0 for a string
+    private static int[] rlpHeader(byte[] rlp, int position) {
+        if (position >= rlp.length) {
+            throw new IllegalArgumentException("rlp: unexpected end");
+        }
+        int prefix = rlp[position] & 0xff;
+        if (prefix < 0x80) {
+            return new int[]{position, 1, 0};
+        }
+        int list = prefix >= 0xc0 ? 1 : 0;
+        int base = list == 1 ? 0xc0 : 0x80;
+        if (prefix - base <= 55) {
+            return new int[]{position + 1, prefix - base, list};
+        }
+        int lengthBytes = prefix - base - 55;
+        if (lengthBytes > 3 || position + 1 + lengthBytes > rlp.length) {
+            throw new IllegalArgumentException("rlp: invalid length");
+        }
+        int length = 0;
+        for (int i = 0; i < lengthBytes; i++) {
+            length = (length << 8) | (rlp[position + 1 + i] & 0xff);
+        }
+        return new int[]{position + 1 + lengthBytes, length, list};
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.client;
+
+import com.ing.blockchain.zk.dto.ClosedRange;
+import com.ing.blockchain.zk.dto.Commitment;
+import com.ing.blockchain.zk.dto.RangeProof;
+import com.ing.blockchain.zk.precompile.CalldataEncoder;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.web3j.crypto.Credentials;
+import org.web3j.crypto.TransactionEncoder;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.core.methods.request.RawTransaction;
+import org.web3j.protocol.core.methods.request.Transaction;
+import org.web3j.protocol.core.methods.response.EthGetTransactionCount;
+import org.web3j.protocol.http.HttpService;
+import org.web3j.utils.Numeric;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Client that checks range proofs with eth_call and submits them with eth_sendRawTransaction to the precompile at
+ * address 0x09.
+ *
+ * Calls are sent asynchronously, at most maxInFlight at the same time: a call blocks the caller until a slot is
+ * free. Nonces are assigned locally, so that transactions can be submitted without waiting for earlier ones. The
+ * calldata is encoded in a buffer per calling thread.
+ *
+ * The nonce of a submission that fails, because the node rejects it or cannot be reached, is given to the next
+ * submission, so that later transactions are not stuck behind a gap. If the nonces of the client and the account
+ * disagree otherwise, for example because the node did receive a transaction whose response got lost, or because
+ * another client uses the same account, {@link #resyncNonce()} takes the nonce of the node.
+ */
+public class RangeProofClient implements AutoCloseable {
+
+    public static final String PRECOMPILE_ADDRESS = "0x0000000000000000000000000000000000000009";
+
+    private final Web3j web3j;
+    private final int maxInFlight;
+    private final Semaphore inFlight;
+    private final ThreadLocal<CalldataEncoder> encoders = ThreadLocal.withInitial(CalldataEncoder::new);
+
+    private final Credentials credentials;
+    private final AtomicLong nonce;
+    // Nonces of failed submissions, which are used again before the next new nonce
+    private final ConcurrentSkipListSet<Long> freeNonces = new ConcurrentSkipListSet<>();
+    private final BigInteger gasPrice;
+    private final BigInteger gasLimit;
+
+    /**
+     * Creates a client that can only call eth_call.
+     */
+    public RangeProofClient(Web3j web3j, int maxInFlight) {
+        this(web3j, maxInFlight, null, BigInteger.ZERO, BigInteger.ZERO, BigInteger.ZERO);
+    }
+
+    /**
+     * @param credentials the key to sign transactions with
+     * @param nonce the nonce of the first transaction
+     */
+    public RangeProofClient(Web3j web3j, int maxInFlight, Credentials credentials, BigInteger nonce,
+                            BigInteger gasPrice, BigInteger gasLimit) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight should be positive");
+        }
+        this.web3j = web3j;
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.credentials = credentials;
+        this.nonce = new AtomicLong(nonce.longValueExact());
+        this.gasPrice = gasPrice;
+        this.gasLimit = gasLimit;
+    }
+
+    /**
+     * The default HttpService allows two connections per host, which limits the number of calls in flight. The
+     * connection manager is shared, because HttpService closes the client after each request.
+     *
+     * @return an HTTP service with a connection for each call in flight
+     */
+    public static HttpService httpService(String url, int maxInFlight) {
+        PoolingHttpClientConnectionManager connections = new PoolingHttpClientConnectionManager();
+        connections.setMaxTotal(maxInFlight);
+        connections.setDefaultMaxPerRoute(maxInFlight);
+        CloseableHttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(connections)
+                .setConnectionManagerShared(true)
+                .build();
+        return new HttpService(url, httpClient);
+    }
+
+    /**
+     * Validates the proof with eth_call, without creating a transaction.
+     */
+    public CompletableFuture<CallResult> preCheck(RangeProof proof, Commitment commitment, ClosedRange range) {
+        String data = encode(proof, commitment, range);
+        Transaction call = Transaction.createEthCallTransaction(
+                credentials == null ? null : credentials.getAddress(), PRECOMPILE_ADDRESS, data);
+        return send(web3j.ethCall(call, DefaultBlockParameterName.LATEST), result -> { });
+    }
+
+    /**
+     * Signs a transaction that calls the precompile with the proof, and sends it with eth_sendRawTransaction.
+     */
+    public CompletableFuture<CallResult> submit(RangeProof proof, Commitment commitment, ClosedRange range) {
+        if (credentials == null) {
+            throw new IllegalStateException("Client has no credentials to sign transactions");
+        }
+        String data = encode(proof, commitment, range);
+        Long free = freeNonces.pollFirst();
+        long transactionNonce = free != null ? free : nonce.getAndIncrement();
+        try {
+            RawTransaction transaction = RawTransaction.createTransaction(BigInteger.valueOf(transactionNonce),
+                    gasPrice, gasLimit, PRECOMPILE_ADDRESS, data);
+            String signed = Numeric.toHexString(TransactionEncoder.signMessage(transaction, credentials));
+            return send(web3j.ethSendRawTransaction(signed), result -> {
+                if (result.isError()) {
+                    freeNonces.add(transactionNonce);
+                }
+            });
+        } catch (RuntimeException e) {
+            freeNonces.add(transactionNonce);
+            throw e;
+        }
+    }
+
+    /**
+     * @return the nonce of the next transaction
+     */
+    public BigInteger getNonce() {
+        Long free = freeNonces.isEmpty() ? null : freeNonces.first();
+        return BigInteger.valueOf(free != null ? free : nonce.get());
+    }
+
+    /**
+     * Takes the nonce of the next transaction from the pending transaction count of the account at the node, and
+     * forgets the nonces of failed submissions. Call this when no submissions are in flight.
+     *
+     * @return the nonce of the next transaction
+     * @throws IOException if the node cannot be reached or returns an error
+     */
+    public BigInteger resyncNonce() throws IOException {
+        if (credentials == null) {
+            throw new IllegalStateException("Client has no credentials to sign transactions");
+        }
+        EthGetTransactionCount count = web3j.ethGetTransactionCount(credentials.getAddress(),
+                DefaultBlockParameterName.PENDING).send();
+        if (count.hasError()) {
+            throw new IOException("Cannot get the transaction count: " + count.getError().getMessage());
+        }
+        BigInteger next = count.getTransactionCount();
+        freeNonces.clear();
+        nonce.set(next.longValueExact());
+        return next;
+    }
+
+    /**
+     * @return the number of calls that have been sent and not yet completed
+     */
+    public int getInFlight() {
+        return maxInFlight - inFlight.availablePermits();
+    }
+
+    /**
+     * Waits until all calls have completed.
+     */
+    public void awaitCompletion() throws InterruptedException {
+        inFlight.acquire(maxInFlight);
+        inFlight.release(maxInFlight);
+    }
+
+    /**
+     * Waits until all calls have completed, see {@link #awaitCompletion()}. If the thread is interrupted, this returns
+     * early with the interrupt flag set.
+     */
+    @Override
+    public void close() {
+        try {
+            awaitCompletion();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private String encode(RangeProof proof, Commitment commitment, ClosedRange range) {
+        CalldataEncoder encoder = encoders.get();
+        encoder.encode(proof, commitment, range);
+        return encoder.toHexString();
+    }
+
+    // Sends the request; the listener sees the result before it completes and before the slot is free
+    private <T extends Response<String>> CompletableFuture<CallResult> send(Request<?, T> request,
+                                                                            Consumer<CallResult> listener) {
+        inFlight.acquireUninterruptibly();
+        long start = System.nanoTime();
+        CompletableFuture<T> response;
+        try {
+            response = request.sendAsync();
+        } catch (RuntimeException e) {
+            inFlight.release();
+            throw e;
+        }
+        // Complete the result before releasing the slot, so that awaitCompletion implies completed results
+        CompletableFuture<CallResult> callResult = new CompletableFuture<>();
+        response.whenComplete((result, exception) -> {
+            long latency = System.nanoTime() - start;
+            try {
+                CallResult outcome;
+                if (exception != null) {
+                    outcome = new CallResult(null, String.valueOf(exception.getMessage()), latency);
+                } else if (result.hasError()) {
+                    outcome = new CallResult(null, result.getError().getMessage(), latency);
+                } else {
+                    outcome = new CallResult(result.getResult(), null, latency);
+                }
+                listener.accept(outcome);
+                callResult.complete(outcome);
+            } finally {
+                inFlight.release();
+            }
+        });
+        return callResult;
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.client;
+
+import com.ing.blockchain.zk.HPAKErangeProof;
+import com.ing.blockchain.zk.RangeProofTests;
+import com.ing.blockchain.zk.TTPGenerator;
+import com.ing.blockchain.zk.dto.ClosedRange;
+import com.ing.blockchain.zk.dto.RangeProof;
+import com.ing.blockchain.zk.dto.TTPMessage;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.web3j.crypto.Credentials;
+import org.web3j.crypto.ECKeyPair;
+import org.web3j.protocol.Web3j;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link RangeProofClient} against a {@link LocalRpcServer}.
+ */
+public class RangeProofClientTest {
+
+    private static final int MAX_IN_FLIGHT = 4;
+
+    private static TTPMessage message;
+    private static ClosedRange range;
+    private static RangeProof proof;
+
+    private LocalRpcServer server;
+    private ScheduledExecutorService scheduler;
+    private Web3j web3j;
+
+    @BeforeClass
+    public static void createProof() {
+        message = TTPGenerator.generateTTPMessage(BigInteger.valueOf(50), RangeProofTests.EXAMPLE_GROUP);
+        range = ClosedRange.of("10", "100");
+        proof = HPAKErangeProof.calculateRangeProof(message, range);
+    }
+
+    @Before
+    public void startServer() throws Exception {
+        server = new LocalRpcServer(2 * MAX_IN_FLIGHT);
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        web3j = Web3j.build(RangeProofClient.httpService(server.getUrl(), MAX_IN_FLIGHT), 1000, scheduler);
+    }
+
+    @After
+    public void stopServer() {
+        scheduler.shutdownNow();
+        server.close();
+    }
+
+    @Test
+    public void testPreCheck() throws Exception {
+        RangeProofClient client = new RangeProofClient(web3j, MAX_IN_FLIGHT);
+
+        CallResult valid = client.preCheck(proof, message.getCommitment(), range).get();
+        assertFalse(valid.getError(), valid.isError());
+        assertTrue(valid.isValid());
+        assertTrue(valid.getLatencyNanos() > 0);
+
+        CallResult invalid = client.preCheck(proof, message.getCommitment(), ClosedRange.of("60", "100")).get();
+        assertFalse(invalid.isError());
+        assertFalse(invalid.isValid());
+
+        server.close();
+        CallResult error = client.preCheck(proof, message.getCommitment(), range).get();
+        assertTrue(error.isError());
+        assertNull(error.getValue());
+    }
+
+    @Test
+    public void testPipelining() throws Exception {
+        server.setLatencyMillis(50);
+        int calls = 4 * MAX_IN_FLIGHT;
+        List<CompletableFuture<CallResult>> results = new ArrayList<>();
+        try (RangeProofClient client = new RangeProofClient(web3j, MAX_IN_FLIGHT)) {
+            for (int i = 0; i < calls; i++) {
+                results.add(client.preCheck(proof, message.getCommitment(), range));
+                assertTrue(client.getInFlight() <= MAX_IN_FLIGHT);
+            }
+        }
+
+        for (CompletableFuture<CallResult> result : results) {
+            assertTrue(result.isDone());
+            assertTrue(result.get().isValid());
+            assertTrue(result.get().getLatencyNanos() >= 50_000_000L);
+        }
+        assertEquals(calls, server.getRequests());
+        assertTrue(server.getMaxConcurrentRequests() <= MAX_IN_FLIGHT);
+        assertTrue(server.getMaxConcurrentRequests() > 1);
+    }
+
+    @Test
+    public void testSubmit() throws Exception {
+        Credentials credentials = Credentials.create(ECKeyPair.create(BigInteger.valueOf(0x1234567)));
+        RangeProofClient client = new RangeProofClient(web3j, MAX_IN_FLIGHT, credentials, BigInteger.TEN,
+                BigInteger.ONE, BigInteger.valueOf(200000));
+
+        List<CompletableFuture<CallResult>> results = new ArrayList<>();
+        results.add(client.submit(proof, message.getCommitment(), range));
+        results.add(client.submit(proof, message.getCommitment(), range));
+        results.add(client.submit(proof, message.getCommitment(), ClosedRange.of("60", "100")));
+        client.close();
+
+        assertEquals(BigInteger.valueOf(13), client.getNonce());
+        assertNotEquals(results.get(0).get().getValue(), results.get(1).get().getValue());
+        for (CompletableFuture<CallResult> result : results) {
+            assertEquals(66, result.get().getValue().length());
+        }
+        assertEquals(2, server.getValidTransactions());
+        assertEquals(1, server.getInvalidTransactions());
+    }
+
+    @Test
+    public void testRejectedSubmission() throws Exception {
+        server.setTransactionCount(10);
+        Credentials credentials = Credentials.create(ECKeyPair.create(BigInteger.valueOf(0x1234567)));
+        RangeProofClient client = new RangeProofClient(web3j, MAX_IN_FLIGHT, credentials, BigInteger.TEN,
+                BigInteger.ONE, BigInteger.valueOf(200000));
+
+        server.rejectTransactions(1);
+        assertTrue(client.submit(proof, message.getCommitment(), range).get().isError());
+        assertEquals(BigInteger.TEN, client.getNonce());
+
+        // The next submissions take nonce 10 again, and then 11
+        assertFalse(client.submit(proof, message.getCommitment(), range).get().isError());
+        assertFalse(client.submit(proof, message.getCommitment(), range).get().isError());
+        assertEquals(BigInteger.valueOf(12), client.getNonce());
+        assertEquals(12, server.getTransactionCount());
+        assertEquals(2, server.getValidTransactions());
+    }
+
+    @Test
+    public void testResyncNonce() throws Exception {
+        server.setTransactionCount(5);
+        Credentials credentials = Credentials.create(ECKeyPair.create(BigInteger.valueOf(0x1234567)));
+        RangeProofClient client = new RangeProofClient(web3j, MAX_IN_FLIGHT, credentials, BigInteger.ZERO,
+                BigInteger.ONE, BigInteger.valueOf(200000));
+
+        CallResult tooLow = client.submit(proof, message.getCommitment(), range).get();
+        assertTrue(tooLow.isError());
+        assertEquals(BigInteger.valueOf(5), client.resyncNonce());
+        assertFalse(client.submit(proof, message.getCommitment(), range).get().isError());
+        assertEquals(BigInteger.valueOf(6), client.getNonce());
+        assertEquals(6, server.getTransactionCount());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testSubmitWithoutCredentials() {
+        new RangeProofClient(web3j, MAX_IN_FLIGHT).submit(proof, message.getCommitment(), range);
+    }
+}
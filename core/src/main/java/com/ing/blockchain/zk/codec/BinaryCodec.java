@@ -0,0 +1,463 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.ing.blockchain.zk.codec;
+
+import com.ing.blockchain.zk.dto.*;
+
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Compact, versioned binary encoding of the range proof and related messages.
+ *
+ * <pre>
+ * message := 'Z' 'K' version type body
+ * integer := header magnitude
+ * </pre>
+ *
+ * The header of an integer is an unsigned 16 bit big-endian number. The highest bit is the sign, the other 15 bits
+ * are the length n of the magnitude. The magnitude is n bytes big-endian without leading zeros, so zero has length 0.
+ * Every value has exactly one encoding. The bodies are the integers of the message in a fixed order; for the range
+ * proof this is the order of {@link RangeProof#toArray()} and for the combined range proof the order of
+ * {@link CombinedRangeProof#toArray()}.
+ *
+ * Encoding and decoding are single passes over a ByteBuffer; {@link #encodedSize} gives the exact size upfront.
+ */
+public final class BinaryCodec {
+
+    public static final byte VERSION = 1;
+
+    // Largest magnitude that fits in the 15 bit length of an integer header
+    public static final int MAX_MAGNITUDE_BYTES = 0x7fff;
+
+    static final byte MAGIC_0 = 'Z';
+    static final byte MAGIC_1 = 'K';
+    public static final int MESSAGE_HEADER_BYTES = 4;
+    static final int INTEGER_HEADER_BYTES = 2;
+
+    private static final int SIGN_BIT = 0x8000;
+
+    /**
+     * Message types.
+     */
+    public static final byte TYPE_EC_PROOF = 1;
+    public static final byte TYPE_SQUARE_PROOF = 2;
+    public static final byte TYPE_RANGE_PROOF = 3;
+    public static final byte TYPE_GROUP = 4;
+    public static final byte TYPE_COMMITMENT = 5;
+    public static final byte TYPE_TTP_MESSAGE = 6;
+    public static final byte TYPE_RANGE = 7;
+    public static final byte TYPE_COMMITMENT_REFERENCE = 8; // see GroupRegistry
+    public static final byte TYPE_COMBINED_RANGE_PROOF = 10;
+
+    private BinaryCodec() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    // ----- Sizes
+
+    public static int encodedSize(ECProof proof) {
+        return MESSAGE_HEADER_BYTES + bodySize(proof);
+    }
+
+    public static int encodedSize(SquareProof proof) {
+        return MESSAGE_HEADER_BYTES + bodySize(proof);
+    }
+
+    public static int encodedSize(RangeProof proof) {
+        return MESSAGE_HEADER_BYTES + bodySize(proof);
+    }
+
+    public static int encodedSize(CombinedRangeProof proof) {
+        return MESSAGE_HEADER_BYTES + bodySize(proof);
+    }
+
+    public static int encodedSize(SecretOrderGroup group) {
+        return MESSAGE_HEADER_BYTES + bodySize(group);
+    }
+
+    public static int encodedSize(Commitment commitment) {
+        return MESSAGE_HEADER_BYTES + bodySize(commitment);
+    }
+
+    public static int encodedSize(TTPMessage message) {
+        return MESSAGE_HEADER_BYTES + bodySize(message.getCommitment())
+                + integerSize(message.getX()) + integerSize(message.getY());
+    }
+
+    public static int encodedSize(ClosedRange range) {
+        return MESSAGE_HEADER_BYTES + bodySize(range);
+    }
+
+    // ----- Encoding
+
+    public static void encode(ECProof proof, ByteBuffer buffer) {
+        putHeader(buffer, TYPE_EC_PROOF);
+        putBody(proof, buffer);
+    }
+
+    public static void encode(SquareProof proof, ByteBuffer buffer) {
+        putHeader(buffer, TYPE_SQUARE_PROOF);
+        putBody(proof, buffer);
+    }
+
+    public static void encode(RangeProof proof, ByteBuffer buffer) {
+        putHeader(buffer, TYPE_RANGE_PROOF);
+        putBody(proof, buffer);
+    }
+
+    public static void encode(CombinedRangeProof proof, ByteBuffer buffer) {
+        putHeader(buffer, TYPE_COMBINED_RANGE_PROOF);
+        putBody(proof, buffer);
+    }
+
+    public static void encode(SecretOrderGroup group, ByteBuffer buffer) {
+        putHeader(buffer, TYPE_GROUP);
+        putBody(group, buffer);
+    }
+
+    public static void encode(Commitment commitment, ByteBuffer buffer) {
+        putHeader(buffer, TYPE_COMMITMENT);
+        putBody(commitment, buffer);
+    }
+
+    public static void encode(TTPMessage message, ByteBuffer buffer) {
+        putHeader(buffer, TYPE_TTP_MESSAGE);
+        putBody(message.getCommitment(), buffer);
+        putInteger(buffer, message.getX());
+        putInteger(buffer, message.getY());
+    }
+
+    public static void encode(ClosedRange range, ByteBuffer buffer) {
+        putHeader(buffer, TYPE_RANGE);
+        putBody(range, buffer);
+    }
+
+    public static byte[] encode(RangeProof proof) {
+        ByteBuffer buffer = ByteBuffer.allocate(encodedSize(proof));
+        encode(proof, buffer);
+        return buffer.array();
+    }
+
+    public static byte[] encode(CombinedRangeProof proof) {
+        ByteBuffer buffer = ByteBuffer.allocate(encodedSize(proof));
+        encode(proof, buffer);
+        return buffer.array();
+    }
+
+    public static byte[] encode(Commitment commitment) {
+        ByteBuffer buffer = ByteBuffer.allocate(encodedSize(commitment));
+        encode(commitment, buffer);
+        return buffer.array();
+    }
+
+    public static byte[] encode(TTPMessage message) {
+        ByteBuffer buffer = ByteBuffer.allocate(encodedSize(message));
+        encode(message, buffer);
+        return buffer.array();
+    }
+
+    // ----- Decoding
+
+    public static ECProof decodeECProof(ByteBuffer buffer) {
+        checkHeader(buffer, TYPE_EC_PROOF);
+        return getECProof(buffer);
+    }
+
+    public static SquareProof decodeSquareProof(ByteBuffer buffer) {
+        checkHeader(buffer, TYPE_SQUARE_PROOF);
+        return getSquareProof(buffer);
+    }
+
+    public static RangeProof decodeRangeProof(ByteBuffer buffer) {
+        checkHeader(buffer, TYPE_RANGE_PROOF);
+        return getRangeProof(buffer);
+    }
+
+    public static CombinedRangeProof decodeCombinedRangeProof(ByteBuffer buffer) {
+        checkHeader(buffer, TYPE_COMBINED_RANGE_PROOF);
+        return getCombinedRangeProof(buffer);
+    }
+
+    public static SecretOrderGroup decodeGroup(ByteBuffer buffer) {
+        checkHeader(buffer, TYPE_GROUP);
+        return getGroup(buffer);
+    }
+
+    public static Commitment decodeCommitment(ByteBuffer buffer) {
+        checkHeader(buffer, TYPE_COMMITMENT);
+        return getCommitment(buffer);
+    }
+
+    public static TTPMessage decodeTTPMessage(ByteBuffer buffer) {
+        checkHeader(buffer, TYPE_TTP_MESSAGE);
+        Commitment commitment = getCommitment(buffer);
+        BigInteger x = getInteger(buffer);
+        BigInteger y = getInteger(buffer);
+        return new TTPMessage(commitment, x, y);
+    }
+
+    public static ClosedRange decodeRange(ByteBuffer buffer) {
+        checkHeader(buffer, TYPE_RANGE);
+        return getRange(buffer);
+    }
+
+    public static RangeProof decodeRangeProof(byte[] bytes) {
+        return decodeRangeProof(ByteBuffer.wrap(bytes));
+    }
+
+    public static CombinedRangeProof decodeCombinedRangeProof(byte[] bytes) {
+        return decodeCombinedRangeProof(ByteBuffer.wrap(bytes));
+    }
+
+    public static Commitment decodeCommitment(byte[] bytes) {
+        return decodeCommitment(ByteBuffer.wrap(bytes));
+    }
+
+    public static TTPMessage decodeTTPMessage(byte[] bytes) {
+        return decodeTTPMessage(ByteBuffer.wrap(bytes));
+    }
+
+    // ----- Message header, public for message types that are encoded elsewhere
+
+    public static void putHeader(ByteBuffer buffer, byte type) {
+        buffer.put(MAGIC_0).put(MAGIC_1).put(VERSION).put(type);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the buffer does not start with the header of a message of the given type
+     */
+    public static void checkHeader(ByteBuffer buffer, byte type) {
+        byte actualType = messageType(buffer);
+        if (actualType != type) {
+            throw new IllegalArgumentException("Expected message type " + type + " but found " + actualType);
+        }
+        buffer.position(buffer.position() + MESSAGE_HEADER_BYTES);
+    }
+
+    /**
+     * @return the type of the message, without consuming it
+     * @throws IllegalArgumentException if the buffer does not start with a message header of this version
+     */
+    public static byte messageType(ByteBuffer buffer) {
+        ByteBuffer header = buffer.duplicate();
+        try {
+            if (header.get() != MAGIC_0 || header.get() != MAGIC_1) {
+                throw new IllegalArgumentException("Not a range proof encoding");
+            }
+            byte version = header.get();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported encoding version " + version);
+            }
+            return header.get();
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated encoding", e);
+        }
+    }
+
+    // ----- Bodies, without message header
+
+    static int bodySize(ECProof proof) {
+        return integerSize(proof.getC()) + integerSize(proof.getD())
+                + integerSize(proof.getD1()) + integerSize(proof.getD2());
+    }
+
+    static int bodySize(SquareProof proof) {
+        return integerSize(proof.getF()) + bodySize(proof.getECProof());
+    }
+
+    static int bodySize(RangeProof proof) {
+        int size = 0;
+        for (BigInteger field : proof.toArray()) {
+            size += integerSize(field);
+        }
+        return size;
+    }
+
+    static int bodySize(CombinedRangeProof proof) {
+        int size = 0;
+        for (BigInteger field : proof.toArray()) {
+            size += integerSize(field);
+        }
+        return size;
+    }
+
+    static int bodySize(SecretOrderGroup group) {
+        return integerSize(group.getN()) + integerSize(group.getG()) + integerSize(group.getH());
+    }
+
+    static int bodySize(Commitment commitment) {
+        return bodySize(commitment.getGroup()) + integerSize(commitment.getCommitmentValue());
+    }
+
+    static int bodySize(ClosedRange range) {
+        return integerSize(range.getStart()) + integerSize(range.getEnd());
+    }
+
+    static void putBody(ECProof proof, ByteBuffer buffer) {
+        putInteger(buffer, proof.getC());
+        putInteger(buffer, proof.getD());
+        putInteger(buffer, proof.getD1());
+        putInteger(buffer, proof.getD2());
+    }
+
+    static void putBody(SquareProof proof, ByteBuffer buffer) {
+        putInteger(buffer, proof.getF());
+        putBody(proof.getECProof(), buffer);
+    }
+
+    static void putBody(RangeProof proof, ByteBuffer buffer) {
+        for (BigInteger field : proof.toArray()) {
+            putInteger(buffer, field);
+        }
+    }
+
+    static void putBody(CombinedRangeProof proof, ByteBuffer buffer) {
+        for (BigInteger field : proof.toArray()) {
+            putInteger(buffer, field);
+        }
+    }
+
+    static void putBody(SecretOrderGroup group, ByteBuffer buffer) {
+        putInteger(buffer, group.getN());
+        putInteger(buffer, group.getG());
+        putInteger(buffer, group.getH());
+    }
+
+    static void putBody(Commitment commitment, ByteBuffer buffer) {
+        putBody(commitment.getGroup(), buffer);
+        putInteger(buffer, commitment.getCommitmentValue());
+    }
+
+    static void putBody(ClosedRange range, ByteBuffer buffer) {
+        putInteger(buffer, range.getStart());
+        putInteger(buffer, range.getEnd());
+    }
+
+    static ECProof getECProof(ByteBuffer buffer) {
+        BigInteger c = getInteger(buffer);
+        BigInteger D = getInteger(buffer);
+        BigInteger D1 = getInteger(buffer);
+        BigInteger D2 = getInteger(buffer);
+        return new ECProof(c, D, D1, D2);
+    }
+
+    static SquareProof getSquareProof(ByteBuffer buffer) {
+        BigInteger F = getInteger(buffer);
+        return new SquareProof(F, getECProof(buffer));
+    }
+
+    static RangeProof getRangeProof(ByteBuffer buffer) {
+        BigInteger[] fields = new BigInteger[RangeProof.FIELD_COUNT];
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = getInteger(buffer);
+        }
+        return RangeProof.fromArray(fields);
+    }
+
+    static CombinedRangeProof getCombinedRangeProof(ByteBuffer buffer) {
+        BigInteger[] fields = new BigInteger[CombinedRangeProof.FIELD_COUNT];
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = getInteger(buffer);
+        }
+        return CombinedRangeProof.fromArray(fields);
+    }
+
+    static SecretOrderGroup getGroup(ByteBuffer buffer) {
+        BigInteger N = getInteger(buffer);
+        BigInteger g = getInteger(buffer);
+        BigInteger h = getInteger(buffer);
+        return new SecretOrderGroup(N, g, h);
+    }
+
+    static Commitment getCommitment(ByteBuffer buffer) {
+        SecretOrderGroup group = getGroup(buffer);
+        return new Commitment(group, getInteger(buffer));
+    }
+
+    static ClosedRange getRange(ByteBuffer buffer) {
+        BigInteger start = getInteger(buffer);
+        return ClosedRange.of(start, getInteger(buffer));
+    }
+
+    // ----- Integers
+
+    /**
+     * @return the number of bytes of the encoding of n, including the header.
+     */
+    public static int integerSize(BigInteger n) {
+        return INTEGER_HEADER_BYTES + magnitudeLength(n);
+    }
+
+    public static void putInteger(ByteBuffer buffer, BigInteger n) {
+        int length = magnitudeLength(n);
+        if (length > MAX_MAGNITUDE_BYTES) {
+            throw new IllegalArgumentException("Integer of " + length + " bytes is too large to encode");
+        }
+        buffer.putShort((short) (n.signum() < 0 ? SIGN_BIT | length : length));
+        if (length == 0) {
+            return;
+        }
+        byte[] bytes = (n.signum() < 0 ? n.negate() : n).toByteArray();
+        // toByteArray() has a leading zero byte when the highest bit of the magnitude is set
+        buffer.put(bytes, bytes.length - length, length);
+    }
+
+    public static BigInteger getInteger(ByteBuffer buffer) {
+        try {
+            int header = buffer.getShort() & 0xffff;
+            int length = header & ~SIGN_BIT;
+            boolean negative = (header & SIGN_BIT) != 0;
+            if (length == 0) {
+                if (negative) {
+                    throw new IllegalArgumentException("Non-canonical encoding of zero");
+                }
+                return BigInteger.ZERO;
+            }
+            byte[] magnitude = new byte[length];
+            buffer.get(magnitude);
+            if (magnitude[0] == 0) {
+                throw new IllegalArgumentException("Non-canonical encoding: leading zero byte");
+            }
+            return new BigInteger(negative ? -1 : 1, magnitude);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated encoding", e);
+        }
+    }
+
+    /**
+     * Advances the buffer past one encoded integer without decoding it.
+     */
+    public static void skipInteger(ByteBuffer buffer) {
+        int length = buffer.getShort(buffer.position()) & ~SIGN_BIT & 0xffff;
+        buffer.position(buffer.position() + INTEGER_HEADER_BYTES + length);
+    }
+
+    // Number of bytes of the magnitude |n|, without computing |n| for negative numbers.
+    // For negative n, bitLength() excludes the sign bit, which is one bit short for -2^k.
+    static int magnitudeLength(BigInteger n) {
+        int bits = n.bitLength();
+        if (n.signum() < 0 && n.getLowestSetBit() == bits) {
+            bits++;
+        }
+        return (bits + 7) >>> 3;
+    }
+}
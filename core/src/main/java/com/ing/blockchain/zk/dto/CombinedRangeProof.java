@@ -0,0 +1,103 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.dto;
+
+import java.io.Serializable;
+import java.math.BigInteger;
+
+/**
+ * Version 2 of the range proof, in which the equality proof of step 2 and the square proofs of steps 3 and 4 are one
+ * sigma protocol with a single Fiat–Shamir challenge, see HPAKECombinedRangeProof of the verifier module.
+ *
+ * The proof has the fields of a {@link RangeProof}, but its three sub-proofs carry the same challenge, which is only
+ * encoded once. A {@link RangeProof} of version 1 has a challenge per sub-proof.
+ */
+public class CombinedRangeProof implements Serializable {
+
+    // Number of integers in a combined range proof, see toArray()
+    public static final int FIELD_COUNT = RangeProof.FIELD_COUNT - 2;
+
+    // Positions of the challenges of the sub-proofs in RangeProof.toArray()
+    private static final int[] CHALLENGE_FIELDS = {5, 10, 14};
+
+    private BigInteger challenge;
+    private RangeProof proof;
+
+    /**
+     * @throws IllegalArgumentException if a sub-proof has another challenge
+     */
+    public CombinedRangeProof(BigInteger challenge, RangeProof proof) {
+        if (!challenge.equals(proof.getEcProof2().getC())
+                || !challenge.equals(proof.getSqrProof3().getECProof().getC())
+                || !challenge.equals(proof.getSqrProof4().getECProof().getC())) {
+            throw new IllegalArgumentException("Sub-proof with a challenge other than the combined challenge");
+        }
+        this.challenge = challenge;
+        this.proof = proof;
+    }
+
+    public BigInteger getChallenge() {
+        return challenge;
+    }
+
+    /**
+     * @return the fields of the proof, with the combined challenge in all three sub-proofs
+     */
+    public RangeProof getProof() {
+        return proof;
+    }
+
+    /**
+     * Returns the challenge followed by the other integers in the order of {@link RangeProof#toArray()}.
+     */
+    public BigInteger[] toArray() {
+        BigInteger[] fields = proof.toArray();
+        BigInteger[] result = new BigInteger[FIELD_COUNT];
+        result[0] = challenge;
+        int j = 1;
+        for (int i = 0; i < fields.length; i++) {
+            if (!isChallenge(i, i + 1 - j)) {
+                result[j++] = fields[i];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Inverse of {@link #toArray()}.
+     */
+    public static CombinedRangeProof fromArray(BigInteger[] fields) {
+        if (fields.length != FIELD_COUNT) {
+            throw new IllegalArgumentException("A combined range proof consists of " + FIELD_COUNT + " integers");
+        }
+        BigInteger[] result = new BigInteger[RangeProof.FIELD_COUNT];
+        int j = 1;
+        for (int i = 0; i < result.length; i++) {
+            result[i] = isChallenge(i, i + 1 - j) ? fields[0] : fields[j++];
+        }
+        return new CombinedRangeProof(fields[0], RangeProof.fromArray(result));
+    }
+
+    // Whether field i of RangeProof.toArray() is a challenge, given the number of challenges before it
+    private static boolean isChallenge(int i, int challengesBefore) {
+        return challengesBefore < CHALLENGE_FIELDS.length && i == CHALLENGE_FIELDS[challengesBefore];
+    }
+}
@@ -24,6 +24,9 @@ import java.math.BigInteger;
 
 public class RangeProof implements Serializable {
 
+    // Number of integers in a range proof, see toArray()
+    public static final int FIELD_COUNT = 22;
+
     private ECProof ecProof2;
     private SquareProof sqrProof3, sqrProof4;
     private BigInteger cPrime, cPrime1, cPrime2, cPrime3, x, y, u, v;
@@ -87,4 +90,38 @@ public class RangeProof implements Serializable {
     public SquareProof getSqrProof4() {
         return sqrProof4;
     }
+
+    /**
+     * Returns the integers of this proof in the order that the go-ethereum precompile expects.
+     */
+    public BigInteger[] toArray() {
+        ECProof ecProof2 = getEcProof2();
+        SquareProof sqrProof3 = getSqrProof3();
+        SquareProof sqrProof4 = getSqrProof4();
+        return new BigInteger[]{
+                getcPrime(), getcPrime1(), getcPrime2(), getcPrime3(),
+                sqrProof3.getF(), sqrProof3.getECProof().getC(), sqrProof3.getECProof().getD(),
+                sqrProof3.getECProof().getD1(), sqrProof3.getECProof().getD2(),
+                sqrProof4.getF(), sqrProof4.getECProof().getC(), sqrProof4.getECProof().getD(),
+                sqrProof4.getECProof().getD1(), sqrProof4.getECProof().getD2(),
+                ecProof2.getC(), ecProof2.getD(), ecProof2.getD1(), ecProof2.getD2(),
+                getU(), getV(), getX(), getY()
+        };
+    }
+
+    /**
+     * Inverse of {@link #toArray()}.
+     */
+    public static RangeProof fromArray(BigInteger[] fields) {
+        if (fields.length != FIELD_COUNT) {
+            throw new IllegalArgumentException("A range proof consists of " + FIELD_COUNT + " integers");
+        }
+        ECProof ecProof2 = new ECProof(fields[14], fields[15], fields[16], fields[17]);
+        ECProof ecProof3 = new ECProof(fields[5], fields[6], fields[7], fields[8]);
+        ECProof ecProof4 = new ECProof(fields[10], fields[11], fields[12], fields[13]);
+        SquareProof sqrProof3 = new SquareProof(fields[4], ecProof3);
+        SquareProof sqrProof4 = new SquareProof(fields[9], ecProof4);
+        return new RangeProof(ecProof2, sqrProof3, sqrProof4, fields[0], fields[1], fields[2], fields[3],
+                fields[20], fields[21], fields[18], fields[19]);
+    }
 }
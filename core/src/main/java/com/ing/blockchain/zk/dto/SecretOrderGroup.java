@@ -21,6 +21,7 @@ package com.ing.blockchain.zk.dto;
 
 import java.io.Serializable;
 import java.math.BigInteger;
+import java.util.Objects;
 
 import static com.ing.blockchain.zk.util.BigIntUtil.shortBigInt;
 
@@ -42,6 +43,9 @@ public class SecretOrderGroup implements Serializable {
      */
     private BigInteger h;
 
+    // Cached hash code, groups are used as keys of interning and fingerprint maps
+    private transient int hash;
+
     public SecretOrderGroup(BigInteger N, BigInteger g, BigInteger h) {
         this.N = N;
         this.g = g;
@@ -60,6 +64,32 @@ public class SecretOrderGroup implements Serializable {
         return h;
     }
 
+    /**
+     * Groups are equal when N, g and h are equal, see {@link com.ing.blockchain.zk.math.GroupInterner} to share one
+     * instance between equal groups.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SecretOrderGroup)) {
+            return false;
+        }
+        SecretOrderGroup other = (SecretOrderGroup) o;
+        return Objects.equals(N, other.N) && Objects.equals(g, other.g) && Objects.equals(h, other.h);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = hash;
+        if (result == 0) {
+            result = Objects.hash(N, g, h);
+            hash = result;
+        }
+        return result;
+    }
+
     @Override
     public String toString() {
         return String.format("SecretOrderGroup(N=%s, g=%s, h=%s",
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.ing.blockchain.zk.dto;
+
+import java.io.Serializable;
+import java.math.BigInteger;
+
+/**
+ * Security parameters of the range proof and its sub-protocols.
+ *
+ * The parameters determine the bit lengths of the random exponents chosen by the prover, and therefore the cost
+ * of proving and verifying. Only k1 is used by the verifier, the other parameters only affect the prover.
+ * <ul>
+ *     <li>k1: upper bound of the challenges s and t in the range proof.
+ *     The go-ethereum precompile hard-codes k1 = 2^160.</li>
+ *     <li>k2: upper bound of the random values w, r' and r'' in the range proof.</li>
+ *     <li>t: soundness parameter of the equality proof (bitlength of hash divided by 2).</li>
+ *     <li>l: zero-knowledge parameter of the equality proof.</li>
+ *     <li>s: commitment keys are chosen in ]-2^s N, 2^s N[.</li>
+ * </ul>
+ */
+public final class SecurityProfile implements Serializable {
+
+    // Bit length of k1 that the go-ethereum precompile expects
+    public static final int PRECOMPILE_K1_BITS = 160;
+
+    // Soundness parameter that matches the 256 bit challenges produced by DigestUtil
+    private static final int HASH_SOUNDNESS = 128;
+
+    /**
+     * The parameters that were originally hard-coded; proofs are interchangeable with older versions.
+     */
+    public static final SecurityProfile LEGACY = new SecurityProfile("legacy", 1024, 160, 2048, 128, 40, 552);
+
+    /**
+     * 2048 bit N with 80 bits of statistical security.
+     */
+    public static final SecurityProfile RSA_2048 = forModulus("rsa-2048", 2048, 80);
+
+    /**
+     * 3072 bit N with 128 bits of statistical security.
+     */
+    public static final SecurityProfile RSA_3072 = forModulus("rsa-3072", 3072, 128);
+
+    public static final SecurityProfile DEFAULT = LEGACY;
+
+    private final String name;
+    private final int modulusBitLength;
+    private final int k1BitLength;
+    private final int k2BitLength;
+    private final int t;
+    private final int l;
+    private final int s;
+
+    private final BigInteger k1;
+    private final BigInteger k2;
+
+    private SecurityProfile(String name, int modulusBitLength, int k1BitLength, int k2BitLength, int t, int l, int s) {
+        if (modulusBitLength <= 0 || k1BitLength <= 0 || k2BitLength <= 0 || t <= 0 || l <= 0 || s <= 0) {
+            throw new IllegalArgumentException("Security parameters must be positive");
+        }
+        this.name = name;
+        this.modulusBitLength = modulusBitLength;
+        this.k1BitLength = k1BitLength;
+        this.k2BitLength = k2BitLength;
+        this.t = t;
+        this.l = l;
+        this.s = s;
+        this.k1 = BigInteger.ONE.shiftLeft(k1BitLength);
+        this.k2 = BigInteger.ONE.shiftLeft(k2BitLength);
+    }
+
+    public static SecurityProfile of(String name, int modulusBitLength, int k1BitLength, int k2BitLength,
+                                     int t, int l, int s) {
+        return new SecurityProfile(name, modulusBitLength, k1BitLength, k2BitLength, t, l, s);
+    }
+
+    /**
+     * Derives the exponent sizes for the given size of N from the target statistical security.
+     *
+     * The random values that blind a secret (w, n1 and n2 in the equality proof, r', r'' and the commitment keys)
+     * exceed the value they hide by statisticalSecurity bits. The challenge range k1 stays at the value of the
+     * precompile, unless the statistical security asks for more.
+     *
+     * @param modulusBitLength    the bit length of N
+     * @param statisticalSecurity the statistical security in bits
+     */
+    public static SecurityProfile forModulus(String name, int modulusBitLength, int statisticalSecurity) {
+        return new SecurityProfile(name, modulusBitLength,
+                Math.max(PRECOMPILE_K1_BITS, statisticalSecurity),
+                modulusBitLength + statisticalSecurity,
+                HASH_SOUNDNESS,
+                statisticalSecurity,
+                statisticalSecurity);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getModulusBitLength() {
+        return modulusBitLength;
+    }
+
+    public int getK1BitLength() {
+        return k1BitLength;
+    }
+
+    public int getK2BitLength() {
+        return k2BitLength;
+    }
+
+    public BigInteger getK1() {
+        return k1;
+    }
+
+    public BigInteger getK2() {
+        return k2;
+    }
+
+    public int getT() {
+        return t;
+    }
+
+    public int getL() {
+        return l;
+    }
+
+    public int getS() {
+        return s;
+    }
+
+    /**
+     * Checks that the profile covers the given modulus. The commitment keys and the random values of the proofs are
+     * chosen relative to the modulus size of the profile, so with a larger N they no longer hide the secret.
+     *
+     * @throws IllegalArgumentException if N has more bits than the modulus of the profile
+     */
+    public void checkModulus(BigInteger N) {
+        if (N.bitLength() > modulusBitLength) {
+            throw new IllegalArgumentException("Profile " + name + " is for N of up to " + modulusBitLength
+                    + " bits, not " + N.bitLength());
+        }
+    }
+
+    /**
+     * @return whether proofs made with this profile can be verified by the go-ethereum precompile.
+     */
+    public boolean isPrecompileCompatible() {
+        return k1BitLength == PRECOMPILE_K1_BITS;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SecurityProfile(%s, |N|=%d, k1=2^%d, k2=2^%d, t=%d, l=%d, s=%d)",
+                name, modulusBitLength, k1BitLength, k2BitLength, t, l, s);
+    }
+}
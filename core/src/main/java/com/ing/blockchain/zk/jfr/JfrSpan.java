@@ -0,0 +1,88 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.jfr;
+
+import com.ing.blockchain.zk.dto.SecretOrderGroup;
+import com.ing.blockchain.zk.registry.GroupFingerprint;
+
+// A span that is recorded as a flight recorder event. Only ProofEvents refers to this class, and only when the JVM
+// has a flight recorder, so that the events are never loaded without one.
+final class JfrSpan extends Span {
+
+    private final ProofEvent event;
+    private SecretOrderGroup group;
+
+    private JfrSpan(ProofEvent event, SecretOrderGroup group) {
+        this.event = event;
+        this.group = group;
+    }
+
+    static Span groupGeneration(int bitLength) {
+        return begin(new GroupGenerationEvent(), null, bitLength);
+    }
+
+    static Span safePrime(int bitLength) {
+        return begin(new SafePrimeEvent(), null, bitLength);
+    }
+
+    static Span commitment(SecretOrderGroup group) {
+        return begin(new CommitmentEvent(), group, group.getN().bitLength());
+    }
+
+    static Span proverStep(SecretOrderGroup group, int step) {
+        return begin(new ProverStepEvent(step), group, group.getN().bitLength());
+    }
+
+    static Span verifierCheck(SecretOrderGroup group, int check) {
+        return begin(new VerifierCheckEvent(check), group, group.getN().bitLength());
+    }
+
+    private static Span begin(ProofEvent event, SecretOrderGroup group, int bitLength) {
+        if (!event.isEnabled()) {
+            return NONE;
+        }
+        event.bitLength = bitLength;
+        event.begin();
+        return new JfrSpan(event, group);
+    }
+
+    @Override
+    public void setGroup(SecretOrderGroup group) {
+        this.group = group;
+    }
+
+    @Override
+    public void setAttempts(int attempts) {
+        event.setAttempts(attempts);
+    }
+
+    @Override
+    public void end(Outcome outcome) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.outcome = outcome.name();
+            if (group != null) {
+                event.group = GroupFingerprint.of(group).toString();
+            }
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+@Category({"Zero Knowledge", "Range Proof"})
+@StackTrace(false)
+abstract class ProofEvent extends Event {
+
+    @Label("Group")
+    @Description("Fingerprint of the group")
+    String group;
+
+    @Label("Bit Length")
+    @Description("Bit length of N, or of the prime of a safe prime search")
+    int bitLength;
+
+    @Label("Outcome")
+    String outcome;
+
+    void setAttempts(int attempts) {
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.jfr;
+
+import com.ing.blockchain.zk.dto.SecretOrderGroup;
+
+/**
+ * Java Flight Recorder events of the prover, the verifier, the trusted party and the group generator:
+ * <pre>
+ * com.ing.blockchain.zk.GroupGeneration  generation of a group of the given bit length
+ * com.ing.blockchain.zk.SafePrime        search for a safe prime, with the number of candidates
+ * com.ing.blockchain.zk.Commitment       commitment by the trusted party
+ * com.ing.blockchain.zk.ProverStep       step 1 to 6 of the prover
+ * com.ing.blockchain.zk.VerifierCheck    check 3 to 12 of the verifier
+ * </pre>
+ * Every event has the fingerprint and the bit length of the group, the outcome and the duration. The events are
+ * configured with the standard settings, for example in a .jfc file or on the command line:
+ * <pre>
+ * -XX:StartFlightRecording=settings=profile,com.ing.blockchain.zk.VerifierCheck#threshold=5ms
+ * </pre>
+ *
+ * When no recording is running, or the JVM has no flight recorder, a span is {@link Span#NONE}, so the
+ * instrumentation costs a check of whether the event is enabled.
+ */
+public final class ProofEvents {
+
+    static final boolean AVAILABLE = isAvailable();
+
+    private ProofEvents() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    private static boolean isAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    public static Span groupGeneration(int bitLength) {
+        return AVAILABLE ? JfrSpan.groupGeneration(bitLength) : Span.NONE;
+    }
+
+    public static Span safePrime(int bitLength) {
+        return AVAILABLE ? JfrSpan.safePrime(bitLength) : Span.NONE;
+    }
+
+    public static Span commitment(SecretOrderGroup group) {
+        return AVAILABLE ? JfrSpan.commitment(group) : Span.NONE;
+    }
+
+    /**
+     * @param step the number of the step of the prover in the paper, 1 to 6
+     */
+    public static Span proverStep(SecretOrderGroup group, int step) {
+        return AVAILABLE ? JfrSpan.proverStep(group, step) : Span.NONE;
+    }
+
+    /**
+     * @param check the number of the check of the verifier in the paper, 3 to 12
+     */
+    public static Span verifierCheck(SecretOrderGroup group, int check) {
+        return AVAILABLE ? JfrSpan.verifierCheck(group, check) : Span.NONE;
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.jfr;
+
+import com.ing.blockchain.zk.dto.SecretOrderGroup;
+
+/**
+ * A unit of work that is recorded as a flight recorder event when it ends, see {@link ProofEvents}.
+ */
+public abstract class Span {
+
+    /**
+     * The span of work that is not recorded.
+     */
+    public static final Span NONE = new Span() {
+        @Override
+        public void setGroup(SecretOrderGroup group) {
+        }
+
+        @Override
+        public void setAttempts(int attempts) {
+        }
+
+        @Override
+        public void end(Outcome outcome) {
+        }
+    };
+
+    Span() {
+    }
+
+    /**
+     * Sets the group of work that creates the group, like group generation.
+     */
+    public abstract void setGroup(SecretOrderGroup group);
+
+    /**
+     * Sets the number of candidates of a search, like the number of candidates for a safe prime.
+     */
+    public abstract void setAttempts(int attempts);
+
+    /**
+     * Ends the span and records its event if the event is enabled and takes longer than its threshold.
+     */
+    public abstract void end(Outcome outcome);
+}
@@ -0,0 +1,337 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.math;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Chooses the fastest {@link PowStrategy} for the exponentiations of a group on this host, by timing the candidates
+ * the first time an operation shape is seen.
+ *
+ * A shape is the size of N, whether the base is g or h, which have exponentiation tables, or another number, and the
+ * size of the exponent rounded up to a power of two of at least {@value #MIN_EXPONENT_BITS} bits. The candidates are
+ * {@link BigInteger#modPow}, for g and h the {@link FixedBaseTable}, and the Montgomery exponentiation with every
+ * available {@link MontgomeryKernel}, with windows of 4 and 6 bits besides the default 5 if the kernel comes within
+ * 25% of the fastest candidate. Each candidate is timed on the N of the group that first needs the shape, with an
+ * exponent of at most {@value #MAX_CALIBRATION_BITS} bits, for at least 3 runs and 5 ms, and the fastest single run
+ * wins. Groups of the same size share the decisions.
+ *
+ * The decisions can be kept in a properties file, together with the host they were made on: the number of
+ * processors, the architecture, the Java version and whether the vector kernel is available. The decisions in a file
+ * of another host are not used, and are replaced.
+ *
+ * {@link GroupContext#powG}, {@link GroupContext#powH} and {@link Exponentiation#modPow} follow the decisions of the
+ * default tuner. There is none unless the system property {@value #PROPERTY} is true; the default tuner then keeps its
+ * decisions in the file of the system property {@value #FILE_PROPERTY}, if it is set.
+ */
+public final class Autotuner {
+
+    public static final String PROPERTY = "com.ing.blockchain.zk.math.autotune";
+    public static final String FILE_PROPERTY = "com.ing.blockchain.zk.math.autotune.file";
+
+    /**
+     * The base of an exponentiation.
+     */
+    public enum Base {
+
+        /**
+         * g or h of the group.
+         */
+        FIXED,
+
+        /**
+         * Any other number, for example a commitment.
+         */
+        VARIABLE
+    }
+
+    static final int MIN_EXPONENT_BITS = 256;
+    static final int MAX_CALIBRATION_BITS = 2048;
+
+    private static final int[] OTHER_WINDOWS = {4, 6};
+    private static final int MIN_RUNS = 3;
+    private static final long MIN_NANOS = 5_000_000;
+    private static final String HOST_KEY = "host";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Autotuner.class);
+
+    private static volatile Autotuner defaultTuner = createDefault();
+
+    private final Path file;
+    private final ConcurrentMap<String, PowStrategy> decisions = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a tuner that keeps its decisions in memory.
+     */
+    public Autotuner() {
+        this.file = null;
+    }
+
+    /**
+     * Creates a tuner that starts with the decisions in the file, if it exists and was written on this host, and
+     * writes its decisions to the file.
+     *
+     * @throws IOException if the file exists but cannot be read
+     */
+    public Autotuner(Path file) throws IOException {
+        this.file = file;
+        if (Files.exists(file)) {
+            Properties properties = read(file);
+            if (host().equals(properties.getProperty(HOST_KEY))) {
+                decisions.putAll(decisions(properties));
+            } else {
+                LOGGER.info("Not using the exponentiation strategies in {} of host {}", file,
+                        properties.getProperty(HOST_KEY));
+            }
+        }
+    }
+
+    private static Autotuner createDefault() {
+        if (!Boolean.getBoolean(PROPERTY)) {
+            return null;
+        }
+        String file = System.getProperty(FILE_PROPERTY);
+        if (file == null) {
+            return new Autotuner();
+        }
+        try {
+            return new Autotuner(Paths.get(file));
+        } catch (IOException | InvalidPathException e) {
+            LOGGER.warn("Cannot read the exponentiation strategies in " + file + ", tuning in memory", e);
+            return new Autotuner();
+        }
+    }
+
+    /**
+     * @return the tuner of {@link GroupContext} and {@link Exponentiation}, or null if exponentiations are not tuned
+     */
+    public static Autotuner getDefault() {
+        return defaultTuner;
+    }
+
+    /**
+     * @param tuner the tuner of {@link GroupContext} and {@link Exponentiation}, or null to use
+     *              {@link BigInteger#modPow} and the exponentiation tables without tuning
+     */
+    public static void setDefault(Autotuner tuner) {
+        defaultTuner = tuner;
+    }
+
+    /**
+     * @return a description of this host; decisions made on another host are not used
+     */
+    public static String host() {
+        return Runtime.getRuntime().availableProcessors() + " processors, " + System.getProperty("os.arch")
+                + ", Java " + System.getProperty("java.version") + ", "
+                + (MontgomeryKernel.VECTOR.isAvailable() ? "vector" : "scalar") + " kernel";
+    }
+
+    /**
+     * Returns the fastest strategy for exponentiations modulo N of this size, timing the candidates if the shape has
+     * not been seen before.
+     *
+     * @param modulus an odd N larger than 1
+     * @param exponentBits the size of the exponent
+     */
+    public PowStrategy strategy(BigInteger modulus, Base base, int exponentBits) {
+        int bucket = bucket(exponentBits);
+        String key = key(modulus.bitLength(), base, bucket);
+        PowStrategy strategy = decisions.get(key);
+        if (strategy == null) {
+            // One calibration at a time, so that they do not slow each other down
+            synchronized (this) {
+                strategy = decisions.get(key);
+                if (strategy == null) {
+                    strategy = calibrate(modulus, base, Math.min(bucket, MAX_CALIBRATION_BITS));
+                    LOGGER.info("Exponentiation strategy for {}: {}", key, strategy);
+                    decisions.put(key, strategy);
+                    save();
+                }
+            }
+        }
+        return strategy;
+    }
+
+    /**
+     * @return the decisions by shape, as N bits, base and exponent bits, for example {@code 2048.fixed.4096}
+     */
+    public Map<String, PowStrategy> getDecisions() {
+        return new TreeMap<>(decisions);
+    }
+
+    // Rounds up to a power of two of at least MIN_EXPONENT_BITS
+    static int bucket(int exponentBits) {
+        if (exponentBits <= MIN_EXPONENT_BITS) {
+            return MIN_EXPONENT_BITS;
+        }
+        return Integer.highestOneBit(exponentBits - 1) << 1;
+    }
+
+    static String key(int modulusBits, Base base, int bucket) {
+        return modulusBits + "." + base.name().toLowerCase(Locale.ROOT) + "." + bucket;
+    }
+
+    /**
+     * Times the candidates for a base modulo N and an exponent of the given size.
+     *
+     * @return the fastest candidate
+     */
+    static PowStrategy calibrate(BigInteger modulus, Base base, int exponentBits) {
+        // The operands do not matter, only their sizes
+        Random random = new Random(exponentBits);
+        BigInteger x = new BigInteger(modulus.bitLength() - 1, random).setBit(1);
+        BigInteger exponent = new BigInteger(exponentBits, random).setBit(exponentBits - 1);
+
+        Calibration calibration = new Calibration(x.modPow(exponent, modulus));
+        calibration.time(PowStrategy.MOD_POW, () -> x.modPow(exponent, modulus));
+        if (base == Base.FIXED) {
+            FixedBaseTable table = new FixedBaseTable(new MontgomeryParams(modulus), x, exponentBits);
+            table.precompute(exponentBits);
+            calibration.time(PowStrategy.FIXED_BASE, () -> table.pow(exponent));
+        }
+        for (MontgomeryKernel kernel : MontgomeryKernel.values()) {
+            if (!kernel.isAvailable()) {
+                continue;
+            }
+            MontgomeryParams params = new MontgomeryParams(modulus, kernel);
+            long nanos = calibration.time(PowStrategy.montgomery(kernel, MontgomeryParams.WINDOW_BITS),
+                    () -> params.pow(x, exponent));
+            // Another window saves a few percent at most, so it is only tried if the kernel comes close
+            if (nanos < calibration.fastestNanos + calibration.fastestNanos / 4) {
+                for (int window : OTHER_WINDOWS) {
+                    calibration.time(PowStrategy.montgomery(kernel, window), () -> params.pow(x, exponent, window));
+                }
+            }
+        }
+        return calibration.fastest;
+    }
+
+    private static final class Calibration {
+        private final BigInteger expected;
+        private PowStrategy fastest;
+        private long fastestNanos = Long.MAX_VALUE;
+
+        private Calibration(BigInteger expected) {
+            this.expected = expected;
+        }
+
+        // Returns the time of the fastest run, after a first run that warms up and checks the result
+        private long time(PowStrategy strategy, Supplier<BigInteger> computation) {
+            if (!computation.get().equals(expected)) {
+                // Never chosen
+                LOGGER.warn("Exponentiation strategy {} computes wrong results", strategy);
+                return Long.MAX_VALUE;
+            }
+            long nanos = Long.MAX_VALUE;
+            long start = System.nanoTime();
+            for (int runs = 0; runs < MIN_RUNS || System.nanoTime() - start < MIN_NANOS; runs++) {
+                long runStart = System.nanoTime();
+                computation.get();
+                nanos = Math.min(nanos, System.nanoTime() - runStart);
+            }
+            if (nanos < fastestNanos) {
+                fastest = strategy;
+                fastestNanos = nanos;
+            }
+            return nanos;
+        }
+    }
+
+    private static Properties read(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        } catch (IllegalArgumentException e) {
+            // A malformed escape, the file is replaced by the next decision
+            LOGGER.warn("Ignoring the exponentiation strategies in {}: {}", file, e.getMessage());
+            properties.clear();
+        }
+        return properties;
+    }
+
+    private Map<String, PowStrategy> decisions(Properties properties) {
+        Map<String, PowStrategy> result = new TreeMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            if (!key.equals(HOST_KEY)) {
+                try {
+                    result.put(key, PowStrategy.parse(properties.getProperty(key)));
+                } catch (IllegalArgumentException e) {
+                    LOGGER.warn("Ignoring {} in {}: {}", key, file, e.getMessage());
+                }
+            }
+        }
+        return result;
+    }
+
+    // Adds the decisions to the file, keeping those that another process of this host wrote in the meantime
+    private void save() {
+        if (file == null) {
+            return;
+        }
+        try {
+            Properties properties = new Properties();
+            if (Files.exists(file)) {
+                Properties existing = read(file);
+                if (host().equals(existing.getProperty(HOST_KEY))) {
+                    properties.putAll(existing);
+                }
+            }
+            properties.setProperty(HOST_KEY, host());
+            for (Map.Entry<String, PowStrategy> decision : decisions.entrySet()) {
+                properties.setProperty(decision.getKey(), decision.getValue().toString());
+            }
+
+            Path directory = Files.createDirectories(file.toAbsolutePath().getParent());
+            Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+            try {
+                try (Writer writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+                    properties.store(writer, "Exponentiation strategies of " + Autotuner.class.getName());
+                }
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        } catch (IOException e) {
+            // The decisions stay in memory
+            LOGGER.warn("Cannot write the exponentiation strategies to " + file, e);
+        }
+    }
+}
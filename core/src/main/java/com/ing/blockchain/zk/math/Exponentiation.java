@@ -0,0 +1,120 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.math;
+
+import com.ing.blockchain.zk.metrics.OpAccounting;
+import com.ing.blockchain.zk.metrics.Operation;
+
+import java.math.BigInteger;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Modular exponentiation of numbers other than g and h, with the strategy that the default {@link Autotuner} found
+ * fastest. Without a default tuner this is {@link OpAccounting#modPow}.
+ *
+ * The Montgomery constants of the {@value #CACHED_MODULI} most recently used moduli are kept, so that provers and
+ * verifiers in several groups at once do not recompute them; {@link GroupContext} uses the constants of its group.
+ */
+public final class Exponentiation {
+
+    // Montgomery constants of the most recently used moduli, by kernel
+    static final int CACHED_MODULI = 32;
+    private static final Map<BigInteger, MontgomeryParams[]> MONTGOMERY =
+            new LinkedHashMap<BigInteger, MontgomeryParams[]>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<BigInteger, MontgomeryParams[]> eldest) {
+                    return size() > CACHED_MODULI;
+                }
+            };
+
+    private Exponentiation() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    /**
+     * @return base^exponent mod m
+     */
+    public static BigInteger modPow(BigInteger base, BigInteger exponent, BigInteger m) {
+        return modPow(base, exponent, m, kernel -> montgomery(m, kernel));
+    }
+
+    // As modPow, with the Montgomery constants of m by kernel, for example those of a GroupContext
+    static BigInteger modPow(BigInteger base, BigInteger exponent, BigInteger m,
+                             Function<MontgomeryKernel, MontgomeryParams> montgomery) {
+        Autotuner tuner = Autotuner.getDefault();
+        if (tuner == null || m.signum() <= 0 || !m.testBit(0) || m.equals(BigInteger.ONE)) {
+            return OpAccounting.modPow(base, exponent, m);
+        }
+        PowStrategy strategy = tuner.strategy(m, Autotuner.Base.VARIABLE, exponent.bitLength());
+        MontgomeryKernel kernel = strategy.getKernel();
+        return strategy.pow(kernel == null ? null : montgomery.apply(kernel), base, exponent, m);
+    }
+
+    /**
+     * Computes the product of bases[i]^exponents[i] mod m. If the default tuner chose a Montgomery kernel for a
+     * variable base and the longest exponent, the exponentiations share their squarings
+     * ({@link MontgomeryParams#multiPow}); otherwise this is the product of {@link #modPow} of every base.
+     *
+     * @throws IllegalArgumentException if the arrays are empty or have different lengths
+     */
+    public static BigInteger multiPow(BigInteger[] bases, BigInteger[] exponents, BigInteger m) {
+        return multiPow(bases, exponents, m, kernel -> montgomery(m, kernel));
+    }
+
+    // As multiPow, with the Montgomery constants of m by kernel
+    static BigInteger multiPow(BigInteger[] bases, BigInteger[] exponents, BigInteger m,
+                               Function<MontgomeryKernel, MontgomeryParams> montgomery) {
+        if (bases.length == 0 || bases.length != exponents.length) {
+            throw new IllegalArgumentException(bases.length + " bases for " + exponents.length + " exponents");
+        }
+        Autotuner tuner = Autotuner.getDefault();
+        if (tuner != null && bases.length > 1 && m.signum() > 0 && m.testBit(0) && !m.equals(BigInteger.ONE)) {
+            int exponentBits = 0;
+            for (BigInteger exponent : exponents) {
+                exponentBits = Math.max(exponentBits, exponent.bitLength());
+            }
+            PowStrategy strategy = tuner.strategy(m, Autotuner.Base.VARIABLE, exponentBits);
+            if (strategy.getMethod() == PowStrategy.Method.MONTGOMERY) {
+                // Counted as one exponentiation, since the squarings of the longest exponent dominate
+                OpAccounting.record(Operation.MOD_POW, exponentBits, m.bitLength());
+                return montgomery.apply(strategy.getKernel()).multiPow(bases, exponents, strategy.getWindowBits());
+            }
+        }
+        BigInteger result = modPow(bases[0], exponents[0], m, montgomery);
+        for (int i = 1; i < bases.length; i++) {
+            result = OpAccounting.mulMod(result, modPow(bases[i], exponents[i], m, montgomery), m);
+        }
+        return result;
+    }
+
+    static MontgomeryParams montgomery(BigInteger m, MontgomeryKernel kernel) {
+        synchronized (MONTGOMERY) {
+            MontgomeryParams[] params = MONTGOMERY.computeIfAbsent(m,
+                    modulus -> new MontgomeryParams[MontgomeryKernel.values().length]);
+            if (params[kernel.ordinal()] == null) {
+                params[kernel.ordinal()] = new MontgomeryParams(m, kernel);
+            }
+            return params[kernel.ordinal()];
+        }
+    }
+}
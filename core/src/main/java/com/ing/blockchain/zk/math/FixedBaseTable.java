@@ -0,0 +1,214 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.math;
+
+import java.math.BigInteger;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * Powers of a fixed base for exponentiation without squarings.
+ *
+ * The table holds x_i = base^(64^i). With e = sum e_i 64^i, base^e is the product over the digits d of
+ * (prod_{e_i = d} x_i)^d, which Yao's method computes with one multiplication per non-zero digit and two per digit
+ * value (A. C. Yao, "On the evaluation of powers", SIAM Journal on Computing 5(1), 1976). Rows are added when an
+ * exponent needs them, up to a maximum exponent size; larger exponents fall back to {@link BigInteger#modPow}.
+ *
+ * The first rows may be given as a read-only buffer, for example mapped from a file of
+ * {@link com.ing.blockchain.zk.registry.TableStore}, so that they are neither computed nor held on the heap.
+ */
+public final class FixedBaseTable {
+
+    public static final int WINDOW_BITS = 6;
+    private static final int DIGITS = 1 << WINDOW_BITS;
+
+    private final MontgomeryParams params;
+    private final BigInteger base;
+    private final int maxBits;
+
+    // Rows 0 to mappedRows - 1, each as params.getLimbs() ints
+    private final IntBuffer mapped;
+    private final int mappedRows;
+
+    // rows[i] = base^(64^i) in Montgomery form, replaced by a longer copy when rows are added; null if mapped
+    private volatile int[][] rows;
+
+    public FixedBaseTable(MontgomeryParams params, BigInteger base, int maxBits) {
+        this(params, base, maxBits, IntBuffer.allocate(0));
+    }
+
+    /**
+     * @param mapped the first rows, as written by {@link #getRow}; the buffer must not change afterwards
+     * @throws IllegalArgumentException if the buffer does not hold a whole number of rows
+     */
+    public FixedBaseTable(MontgomeryParams params, BigInteger base, int maxBits, IntBuffer mapped) {
+        if (mapped.remaining() % params.getLimbs() != 0) {
+            throw new IllegalArgumentException("Buffer of " + mapped.remaining() + " ints does not hold whole rows of "
+                    + params.getLimbs());
+        }
+        this.params = params;
+        this.base = base.mod(params.getModulus());
+        this.maxBits = maxBits;
+        this.mapped = mapped.slice();
+        this.mappedRows = mapped.remaining() / params.getLimbs();
+        this.rows = new int[mappedRows][];
+    }
+
+    public BigInteger getBase() {
+        return base;
+    }
+
+    public BigInteger getModulus() {
+        return params.getModulus();
+    }
+
+    /**
+     * @return the number of rows that have been computed or mapped
+     */
+    public int size() {
+        return rows.length;
+    }
+
+    /**
+     * @return the number of rows that are read from the buffer of the constructor
+     */
+    public int getMappedRows() {
+        return mappedRows;
+    }
+
+    /**
+     * @return a copy of row i, base^(64^i) in Montgomery form
+     * @throws IndexOutOfBoundsException if the row has not been computed, see {@link #precompute}
+     */
+    public int[] getRow(int i) {
+        return row(rows, i, new int[params.getLimbs()]).clone();
+    }
+
+    // Returns the row, or copies it into the scratch array if it is mapped
+    private int[] row(int[][] table, int i, int[] scratch) {
+        int[] row = table[i];
+        if (row != null) {
+            return row;
+        }
+        int offset = i * scratch.length;
+        for (int j = 0; j < scratch.length; j++) {
+            scratch[j] = mapped.get(offset + j);
+        }
+        return scratch;
+    }
+
+    /**
+     * @return base^exponent mod N, as {@code base.modPow(exponent, N)}
+     * @throws ArithmeticException if the exponent is negative and the base is not invertible
+     */
+    public BigInteger pow(BigInteger exponent) {
+        BigInteger modulus = params.getModulus();
+        if (exponent.signum() < 0) {
+            return pow(exponent.negate()).modInverse(modulus);
+        }
+        int bits = exponent.bitLength();
+        if (bits > maxBits) {
+            return base.modPow(exponent, modulus);
+        }
+
+        int count = (bits + WINDOW_BITS - 1) / WINDOW_BITS;
+        int[][] table = ensureRows(count);
+
+        // Lists of the rows with the same digit
+        byte[] magnitude = exponent.toByteArray();
+        int[] first = new int[DIGITS];
+        Arrays.fill(first, -1);
+        int[] next = new int[count];
+        for (int i = 0; i < count; i++) {
+            int digit = digit(magnitude, WINDOW_BITS * i);
+            if (digit != 0) {
+                next[i] = first[digit];
+                first[digit] = i;
+            }
+        }
+
+        // After digit d, b is the product of the rows with a digit >= d, and a the product of b over all d
+        int[] scratch = new int[params.getLimbs()];
+        int[] a = null;
+        int[] b = null;
+        for (int digit = DIGITS - 1; digit > 0; digit--) {
+            for (int i = first[digit]; i >= 0; i = next[i]) {
+                if (b == null) {
+                    b = row(table, i, scratch).clone();
+                } else {
+                    params.multiply(b, row(table, i, scratch), b);
+                }
+            }
+            if (b != null) {
+                if (a == null) {
+                    a = b.clone();
+                } else {
+                    params.multiply(a, b, a);
+                }
+            }
+        }
+        return a == null ? BigInteger.ONE : params.fromMontgomery(a);
+    }
+
+    // Returns the WINDOW_BITS bits from the given bit of a big-endian two's complement number
+    private static int digit(byte[] magnitude, int bit) {
+        int index = magnitude.length - 1 - bit / 8;
+        int bits = magnitude[index] & 0xff;
+        if (index > 0) {
+            bits |= (magnitude[index - 1] & 0xff) << 8;
+        }
+        return (bits >>> (bit % 8)) & (DIGITS - 1);
+    }
+
+    /**
+     * Computes the rows for exponents up to the given number of bits.
+     */
+    public void precompute(int bits) {
+        ensureRows((Math.min(bits, maxBits) + WINDOW_BITS - 1) / WINDOW_BITS);
+    }
+
+    private int[][] ensureRows(int count) {
+        int[][] table = rows;
+        if (table.length >= count) {
+            return table;
+        }
+        synchronized (this) {
+            table = rows;
+            if (table.length >= count) {
+                return table;
+            }
+            int[][] extended = Arrays.copyOf(table, count);
+            for (int i = table.length; i < count; i++) {
+                if (i == 0) {
+                    extended[0] = params.toMontgomery(base);
+                } else {
+                    int[] row = row(extended, i - 1, new int[params.getLimbs()]).clone();
+                    for (int j = 0; j < WINDOW_BITS; j++) {
+                        params.multiply(row, row, row);
+                    }
+                    extended[i] = row;
+                }
+            }
+            rows = extended;
+            return extended;
+        }
+    }
+}
@@ -0,0 +1,307 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.math;
+
+import com.ing.blockchain.zk.dto.SecretOrderGroup;
+import com.ing.blockchain.zk.metrics.OpAccounting;
+import com.ing.blockchain.zk.metrics.Operation;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * State of a {@link SecretOrderGroup} that is computed once and shared by all equal groups, see
+ * {@link GroupInterner#context(SecretOrderGroup)}: the validated parameters, the Montgomery constants of N and the
+ * exponentiation tables of g and h.
+ *
+ * Computing a table row takes a few squarings and saves them in every later exponentiation, so the rows are only
+ * computed after {@link #TABLE_THRESHOLD} exponentiations in the group. Until then, and for groups that are not valid,
+ * {@link #powG} and {@link #powH} use {@link BigInteger#modPow}. With a default {@link Autotuner}, they use the tables
+ * only for exponent sizes where the tuner found them fastest, and otherwise the strategy it found fastest.
+ *
+ * A context holds no reference to the group instance, so it does not keep its group alive.
+ */
+public final class GroupContext {
+
+    static final int TABLE_THRESHOLD = 16;
+
+    // The responses u and v of a range proof have about 6 times as many bits as N
+    private static final int TABLE_MAX_BITS_PER_MODULUS_BIT = 8;
+
+    private final BigInteger N;
+    private final BigInteger g;
+    private final BigInteger h;
+    private final String invalidReason;
+
+    private final AtomicInteger exponentiations = new AtomicInteger();
+    private volatile MontgomeryParams montgomery;
+    private final MontgomeryParams[] kernelMontgomery = new MontgomeryParams[MontgomeryKernel.values().length];
+    private volatile FixedBaseTable gTable;
+    private volatile FixedBaseTable hTable;
+
+    GroupContext(SecretOrderGroup group) {
+        this.N = group.getN();
+        this.g = group.getG();
+        this.h = group.getH();
+        this.invalidReason = validate(N, g, h);
+    }
+
+    // Returns why the group is not valid, or null if it is valid
+    private static String validate(BigInteger N, BigInteger g, BigInteger h) {
+        if (N == null || g == null || h == null) {
+            return "missing parameter";
+        }
+        if (N.signum() <= 0 || !N.testBit(0)) {
+            return "N is not a positive odd number";
+        }
+        String reason = validateGenerator(N, g);
+        if (reason != null) {
+            return "g " + reason;
+        }
+        reason = validateGenerator(N, h);
+        return reason == null ? null : "h " + reason;
+    }
+
+    private static String validateGenerator(BigInteger N, BigInteger x) {
+        // 0, 1 and N - 1 generate groups of order at most 2
+        if (x.compareTo(BigInteger.ONE) <= 0 || x.compareTo(N.subtract(BigInteger.ONE)) >= 0) {
+            return "is not in the range 2..N-2";
+        }
+        if (!x.gcd(N).equals(BigInteger.ONE)) {
+            return "is not coprime to N";
+        }
+        return null;
+    }
+
+    public int getBitLength() {
+        return N.bitLength();
+    }
+
+    public boolean isValid() {
+        return invalidReason == null;
+    }
+
+    /**
+     * @throws IllegalArgumentException if N is not a positive odd number, or if g or h is not a non-trivial element
+     *                                  coprime to N
+     */
+    public void checkValid() {
+        if (invalidReason != null) {
+            throw new IllegalArgumentException("Invalid group: " + invalidReason);
+        }
+    }
+
+    /**
+     * @return the Montgomery constants of N
+     * @throws IllegalArgumentException if the group is not valid
+     */
+    public MontgomeryParams getMontgomery() {
+        MontgomeryParams params = montgomery;
+        if (params == null) {
+            checkValid();
+            synchronized (this) {
+                params = montgomery;
+                if (params == null) {
+                    params = new MontgomeryParams(N);
+                    montgomery = params;
+                }
+            }
+        }
+        return params;
+    }
+
+    /**
+     * @return the Montgomery constants of N with the given kernel
+     * @throws IllegalArgumentException if the group is not valid or the kernel is not available
+     */
+    public MontgomeryParams getMontgomery(MontgomeryKernel kernel) {
+        MontgomeryParams params = getMontgomery();
+        if (params.getKernel() == kernel) {
+            return params;
+        }
+        synchronized (this) {
+            params = kernelMontgomery[kernel.ordinal()];
+            if (params == null) {
+                params = new MontgomeryParams(N, kernel);
+                kernelMontgomery[kernel.ordinal()] = params;
+            }
+            return params;
+        }
+    }
+
+    /**
+     * @return g^exponent mod N
+     */
+    public BigInteger powG(BigInteger exponent) {
+        PowStrategy strategy = tunedStrategy(exponent);
+        if (strategy != null) {
+            return pow(strategy, g, exponent);
+        }
+        FixedBaseTable table = gTable;
+        if (table == null) {
+            if (!useTables()) {
+                return OpAccounting.modPow(g, exponent, N);
+            }
+            table = gTable;
+        }
+        OpAccounting.record(Operation.FIXED_BASE_POW, exponent.bitLength(), N.bitLength());
+        return table.pow(exponent);
+    }
+
+    /**
+     * @return h^exponent mod N
+     */
+    public BigInteger powH(BigInteger exponent) {
+        PowStrategy strategy = tunedStrategy(exponent);
+        if (strategy != null) {
+            return pow(strategy, h, exponent);
+        }
+        FixedBaseTable table = hTable;
+        if (table == null) {
+            if (!useTables()) {
+                return OpAccounting.modPow(h, exponent, N);
+            }
+            table = hTable;
+        }
+        OpAccounting.record(Operation.FIXED_BASE_POW, exponent.bitLength(), N.bitLength());
+        return table.pow(exponent);
+    }
+
+    /**
+     * @return base^exponent mod N, with the exponentiation tables if the base is g or h
+     */
+    public BigInteger pow(BigInteger base, BigInteger exponent) {
+        if (base.equals(g)) {
+            return powG(exponent);
+        }
+        if (base.equals(h)) {
+            return powH(exponent);
+        }
+        return isValid() ? Exponentiation.modPow(base, exponent, N, this::getMontgomery)
+                : Exponentiation.modPow(base, exponent, N);
+    }
+
+    /**
+     * @return the product of bases[i]^exponents[i] mod N, with the exponentiation tables for g and h and
+     *         {@link Exponentiation#multiPow} for the other bases
+     * @throws IllegalArgumentException if the arrays are empty or have different lengths
+     */
+    public BigInteger multiPow(BigInteger[] bases, BigInteger[] exponents) {
+        if (bases.length == 0 || bases.length != exponents.length) {
+            throw new IllegalArgumentException(bases.length + " bases for " + exponents.length + " exponents");
+        }
+        List<BigInteger> otherBases = new ArrayList<>();
+        List<BigInteger> otherExponents = new ArrayList<>();
+        BigInteger result = null;
+        for (int i = 0; i < bases.length; i++) {
+            if (bases[i].equals(g) || bases[i].equals(h)) {
+                BigInteger power = pow(bases[i], exponents[i]);
+                result = result == null ? power : OpAccounting.mulMod(result, power, N);
+            } else {
+                otherBases.add(bases[i]);
+                otherExponents.add(exponents[i]);
+            }
+        }
+        if (otherBases.isEmpty()) {
+            return result;
+        }
+        BigInteger[] basesArray = otherBases.toArray(new BigInteger[0]);
+        BigInteger[] exponentsArray = otherExponents.toArray(new BigInteger[0]);
+        BigInteger others = isValid() ? Exponentiation.multiPow(basesArray, exponentsArray, N, this::getMontgomery)
+                : Exponentiation.multiPow(basesArray, exponentsArray, N);
+        return result == null ? others : OpAccounting.mulMod(result, others, N);
+    }
+
+    // Returns the strategy of the default tuner, or null for the tables or modPow as without a tuner
+    private PowStrategy tunedStrategy(BigInteger exponent) {
+        Autotuner tuner = Autotuner.getDefault();
+        if (tuner == null || !isValid()) {
+            return null;
+        }
+        PowStrategy strategy = tuner.strategy(N, Autotuner.Base.FIXED, exponent.bitLength());
+        return strategy.getMethod() == PowStrategy.Method.FIXED_BASE ? null : strategy;
+    }
+
+    private BigInteger pow(PowStrategy strategy, BigInteger base, BigInteger exponent) {
+        MontgomeryKernel kernel = strategy.getKernel();
+        return strategy.pow(kernel == null ? null : getMontgomery(kernel), base, exponent, N);
+    }
+
+    /**
+     * Computes the exponentiation tables now instead of after {@link #TABLE_THRESHOLD} exponentiations.
+     *
+     * @throws IllegalArgumentException if the group is not valid
+     */
+    public void precompute() {
+        createTables();
+        gTable.precompute(getTableBits());
+        hTable.precompute(getTableBits());
+    }
+
+    /**
+     * @return the largest exponent, in bits, for which the exponentiation tables are used
+     */
+    public int getTableBits() {
+        return TABLE_MAX_BITS_PER_MODULUS_BIT * N.bitLength();
+    }
+
+    /**
+     * Uses the given exponentiation tables from now on, for example tables mapped from a file by
+     * {@link com.ing.blockchain.zk.registry.TableStore}, instead of computing them.
+     *
+     * @throws IllegalArgumentException if the group is not valid, or if the tables are not for g and h modulo N
+     */
+    public synchronized void setTables(FixedBaseTable g, FixedBaseTable h) {
+        checkValid();
+        if (!g.getModulus().equals(N) || !h.getModulus().equals(N)
+                || !g.getBase().equals(this.g) || !h.getBase().equals(this.h)) {
+            throw new IllegalArgumentException("Tables of other bases or another modulus");
+        }
+        gTable = g;
+        hTable = h;
+    }
+
+    /**
+     * @return whether the exponentiation tables have been created
+     */
+    public boolean hasTables() {
+        return hTable != null;
+    }
+
+    private boolean useTables() {
+        if (!isValid() || exponentiations.incrementAndGet() < TABLE_THRESHOLD) {
+            return false;
+        }
+        createTables();
+        return true;
+    }
+
+    private synchronized void createTables() {
+        if (hTable == null) {
+            MontgomeryParams params = getMontgomery();
+            int maxBits = getTableBits();
+            gTable = new FixedBaseTable(params, g, maxBits);
+            hTable = new FixedBaseTable(params, h, maxBits);
+        }
+    }
+}
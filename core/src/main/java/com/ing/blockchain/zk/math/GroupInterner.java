@@ -0,0 +1,90 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.math;
+
+import com.ing.blockchain.zk.dto.SecretOrderGroup;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Canonical instances of groups, so that equal groups, for example decoded from different messages, share one
+ * {@link GroupContext}.
+ *
+ * The interner only holds weak references: a group and its context are dropped when the canonical instance is no
+ * longer used elsewhere. Keep a reference to the canonical instance, as {@link com.ing.blockchain.zk.registry.GroupRegistry}
+ * does, to keep the computed state of a group.
+ */
+public final class GroupInterner {
+
+    private static final Map<SecretOrderGroup, Entry> GROUPS = new WeakHashMap<>();
+
+    private GroupInterner() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    private static final class Entry {
+        private final WeakReference<SecretOrderGroup> group;
+        private final GroupContext context;
+
+        private Entry(SecretOrderGroup group) {
+            this.group = new WeakReference<>(group);
+            this.context = new GroupContext(group);
+        }
+    }
+
+    private static Entry entry(SecretOrderGroup group) {
+        synchronized (GROUPS) {
+            Entry entry = GROUPS.get(group);
+            if (entry == null || entry.group.get() == null) {
+                entry = new Entry(group);
+                GROUPS.put(group, entry);
+            }
+            return entry;
+        }
+    }
+
+    /**
+     * @return the canonical instance of the group: the given group, or an equal group that was interned before
+     */
+    public static SecretOrderGroup intern(SecretOrderGroup group) {
+        SecretOrderGroup canonical = entry(group).group.get();
+        // The canonical instance may just have been collected, then the given group replaces it
+        return canonical == null ? intern(group) : canonical;
+    }
+
+    /**
+     * @return the shared state of the group and all groups equal to it
+     */
+    public static GroupContext context(SecretOrderGroup group) {
+        return entry(group).context;
+    }
+
+    /**
+     * @return the number of interned groups that have not been collected
+     */
+    public static int size() {
+        synchronized (GROUPS) {
+            return GROUPS.size();
+        }
+    }
+}
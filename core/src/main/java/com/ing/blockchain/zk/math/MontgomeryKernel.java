@@ -0,0 +1,120 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.math;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Constructor;
+
+/**
+ * Implementations of the Montgomery multiplication of {@link MontgomeryParams}.
+ *
+ * The kernel of new parameters is chosen by the system property {@value #PROPERTY}: {@code scalar}, {@code vector},
+ * or {@code auto} (the default), which takes the vector kernel when it is available. If the vector kernel is asked
+ * for but not available, the scalar kernel is used.
+ */
+public enum MontgomeryKernel {
+
+    /**
+     * Multiplication and reduction in one pass over 32 bit limbs, in plain Java.
+     */
+    SCALAR,
+
+    /**
+     * The rows of the product and the reduction on 64 bit lanes with the Vector API. Available if the jar was built on
+     * JDK 16 or later and the JVM was started with {@code --add-modules jdk.incubator.vector}.
+     */
+    VECTOR;
+
+    public static final String PROPERTY = "com.ing.blockchain.zk.math.kernel";
+
+    /**
+     * @return whether this kernel can be used in this JVM
+     */
+    public boolean isAvailable() {
+        return this == SCALAR || VectorSupport.CONSTRUCTOR != null;
+    }
+
+    /**
+     * @return the kernel of {@link MontgomeryParams#MontgomeryParams(java.math.BigInteger)}
+     */
+    public static MontgomeryKernel getDefault() {
+        return Default.KERNEL;
+    }
+
+    MontgomeryMultiplier create(int[] n, int n0Inv) {
+        if (this == SCALAR) {
+            return new ScalarMultiplier(n, n0Inv);
+        }
+        if (!isAvailable()) {
+            throw new IllegalArgumentException("Montgomery kernel " + this + " is not available");
+        }
+        try {
+            return VectorSupport.CONSTRUCTOR.newInstance(n, n0Inv);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot create the vector kernel", e);
+        }
+    }
+
+    // Loaded on first use, so the vector classes are not touched unless asked for
+    private static final class VectorSupport {
+        private static final String VECTOR_CLASS = "com.ing.blockchain.zk.math.VectorMultiplier";
+
+        private static final Constructor<? extends MontgomeryMultiplier> CONSTRUCTOR = find();
+
+        private static Constructor<? extends MontgomeryMultiplier> find() {
+            try {
+                // Not found unless the incubator module is added to the boot layer
+                Class.forName("jdk.incubator.vector.LongVector");
+                return Class.forName(VECTOR_CLASS).asSubclass(MontgomeryMultiplier.class)
+                        .getDeclaredConstructor(int[].class, int.class);
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // Missing module or class, or a class file of a newer Java version
+                return null;
+            }
+        }
+    }
+
+    private static final class Default {
+        private static final Logger LOGGER = LoggerFactory.getLogger(MontgomeryKernel.class);
+
+        private static final MontgomeryKernel KERNEL = choose(System.getProperty(PROPERTY, "auto"));
+
+        private static MontgomeryKernel choose(String value) {
+            switch (value) {
+                case "scalar":
+                    return SCALAR;
+                case "vector":
+                    if (VECTOR.isAvailable()) {
+                        return VECTOR;
+                    }
+                    LOGGER.warn("Vector API not available, using the scalar Montgomery kernel");
+                    return SCALAR;
+                case "auto":
+                    return VECTOR.isAvailable() ? VECTOR : SCALAR;
+                default:
+                    LOGGER.warn("Unknown Montgomery kernel {}={}, using auto", PROPERTY, value);
+                    return VECTOR.isAvailable() ? VECTOR : SCALAR;
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.math;
+
+/**
+ * Montgomery multiplication for one modulus, see {@link MontgomeryKernel}.
+ */
+abstract class MontgomeryMultiplier {
+
+    static final long MASK = 0xffffffffL;
+
+    // Little-endian 32 bit limbs of N, and the inverse of -N modulo 2^32
+    final int[] n;
+    final long n0Inv;
+
+    MontgomeryMultiplier(int[] n, int n0Inv) {
+        this.n = n;
+        this.n0Inv = n0Inv & MASK;
+    }
+
+    /**
+     * Computes a * b / R mod N of numbers in Montgomery form. The result may be one of the arguments.
+     */
+    abstract void multiply(int[] a, int[] b, int[] result);
+
+    /**
+     * Stores t mod N in the result, for t &lt; 2N given as limbs t[0..length - 1] and a top limb t[length].
+     */
+    final void subtractModulus(long[] t, int[] result) {
+        int length = n.length;
+        if (t[length] != 0 || !lessThanModulus(t)) {
+            long borrow = 0;
+            for (int j = 0; j < length; j++) {
+                long d = t[j] - (n[j] & MASK) - borrow;
+                result[j] = (int) d;
+                borrow = (d >>> 63);
+            }
+        } else {
+            for (int j = 0; j < length; j++) {
+                result[j] = (int) t[j];
+            }
+        }
+    }
+
+    private boolean lessThanModulus(long[] t) {
+        for (int j = n.length - 1; j >= 0; j--) {
+            long nj = n[j] & MASK;
+            if (t[j] != nj) {
+                return t[j] < nj;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,287 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.math;
+
+import java.math.BigInteger;
+
+/**
+ * Montgomery constants of an odd modulus N, with numbers represented as little-endian arrays of 32 bit limbs.
+ *
+ * A number x in Montgomery form is x * R mod N, with R = 2^(32 * limbs). The product of two numbers in Montgomery
+ * form is computed without division (CIOS method, Koç, Acar and Kaliski, "Analyzing and comparing Montgomery
+ * multiplication algorithms", IEEE Micro 16(3), 1996). The multiplication is done by a {@link MontgomeryKernel}.
+ */
+public final class MontgomeryParams {
+
+    private static final long MASK = 0xffffffffL;
+
+    static final int WINDOW_BITS = 5;
+    static final int MAX_WINDOW_BITS = 8;
+
+    private final BigInteger modulus;
+    private final int[] n;
+    private final long n0Inv;
+    private final MontgomeryKernel kernel;
+    private final MontgomeryMultiplier multiplier;
+    private final int[] one;
+
+    public MontgomeryParams(BigInteger modulus) {
+        this(modulus, MontgomeryKernel.getDefault());
+    }
+
+    /**
+     * @throws IllegalArgumentException if the kernel is not available, see {@link MontgomeryKernel#isAvailable()}
+     */
+    public MontgomeryParams(BigInteger modulus, MontgomeryKernel kernel) {
+        if (modulus.signum() <= 0 || !modulus.testBit(0) || modulus.equals(BigInteger.ONE)) {
+            throw new IllegalArgumentException("Montgomery multiplication needs an odd modulus larger than 1");
+        }
+        this.modulus = modulus;
+        this.n = toLimbs(modulus, (modulus.bitLength() + 31) / 32);
+
+        // Newton iteration for N^-1 mod 2^32, every step doubles the number of correct bits (3 for x = N)
+        int x = n[0];
+        for (int i = 0; i < 4; i++) {
+            x *= 2 - n[0] * x;
+        }
+        this.n0Inv = -x & MASK;
+        this.kernel = kernel;
+        this.multiplier = kernel.create(n, (int) n0Inv);
+        this.one = toMontgomery(BigInteger.ONE);
+    }
+
+    public BigInteger getModulus() {
+        return modulus;
+    }
+
+    public MontgomeryKernel getKernel() {
+        return kernel;
+    }
+
+    /**
+     * @return the number of 32 bit limbs of the numbers
+     */
+    public int getLimbs() {
+        return n.length;
+    }
+
+    /**
+     * @return the inverse of -N modulo 2^32
+     */
+    public int getN0Inv() {
+        return (int) n0Inv;
+    }
+
+    /**
+     * @return 1 in Montgomery form, which is R mod N
+     */
+    public int[] one() {
+        return one.clone();
+    }
+
+    public int[] toMontgomery(BigInteger x) {
+        return toLimbs(x.mod(modulus).shiftLeft(32 * n.length).mod(modulus), n.length);
+    }
+
+    public BigInteger fromMontgomery(int[] x) {
+        int[] result = new int[n.length];
+        int[] unit = new int[n.length];
+        unit[0] = 1;
+        multiply(x, unit, result);
+        return toBigInteger(result);
+    }
+
+    /**
+     * Computes a * b / R mod N of numbers in Montgomery form. The result may be one of the arguments.
+     */
+    public void multiply(int[] a, int[] b, int[] result) {
+        multiplier.multiply(a, b, result);
+    }
+
+    /**
+     * Computes base^exponent mod N with a sliding window of up to {@value #WINDOW_BITS} bits, as
+     * {@code base.modPow(exponent, N)}.
+     *
+     * @throws ArithmeticException if the exponent is negative and the base is not invertible
+     */
+    public BigInteger pow(BigInteger base, BigInteger exponent) {
+        return pow(base, exponent, WINDOW_BITS);
+    }
+
+    /**
+     * Computes base^exponent mod N with a sliding window of up to the given number of bits, which takes
+     * 2^(windowBits - 1) multiplications for the odd powers of the base.
+     *
+     * @throws IllegalArgumentException if the window is not 1 to {@value #MAX_WINDOW_BITS} bits
+     * @throws ArithmeticException if the exponent is negative and the base is not invertible
+     */
+    public BigInteger pow(BigInteger base, BigInteger exponent, int windowBits) {
+        if (windowBits < 1 || windowBits > MAX_WINDOW_BITS) {
+            throw new IllegalArgumentException("Window of " + windowBits + " bits is not in 1.." + MAX_WINDOW_BITS);
+        }
+        if (exponent.signum() < 0) {
+            return pow(base, exponent.negate(), windowBits).modInverse(modulus);
+        }
+        if (exponent.signum() == 0) {
+            return BigInteger.ONE.mod(modulus);
+        }
+
+        // Odd powers base^1, base^3, ..., base^(2^windowBits - 1)
+        int[][] odd = new int[1 << (windowBits - 1)][];
+        odd[0] = toMontgomery(base);
+        int[] square = new int[n.length];
+        multiply(odd[0], odd[0], square);
+        for (int i = 1; i < odd.length; i++) {
+            odd[i] = new int[n.length];
+            multiply(odd[i - 1], square, odd[i]);
+        }
+
+        int[] result = null;
+        int bit = exponent.bitLength() - 1;
+        while (bit >= 0) {
+            if (!exponent.testBit(bit)) {
+                multiply(result, result, result);
+                bit--;
+                continue;
+            }
+            // The longest window of at most windowBits bits from this bit that ends with a 1
+            int low = Math.max(bit - windowBits + 1, 0);
+            while (!exponent.testBit(low)) {
+                low++;
+            }
+            int window = 0;
+            for (int i = bit; i >= low; i--) {
+                window = window << 1 | (exponent.testBit(i) ? 1 : 0);
+                if (result != null) {
+                    multiply(result, result, result);
+                }
+            }
+            if (result == null) {
+                result = odd[window >>> 1].clone();
+            } else {
+                multiply(result, odd[window >>> 1], result);
+            }
+            bit = low - 1;
+        }
+        return fromMontgomery(result);
+    }
+
+    /**
+     * Computes the product of bases[i]^exponents[i] mod N with interleaved sliding windows of up to the given number
+     * of bits (Möller, "Algorithms for multi-exponentiation", SAC 2001). The squarings are shared by all bases, so
+     * the product costs about as many squarings as the longest exponent has bits.
+     *
+     * @throws IllegalArgumentException if the arrays have different lengths or the window is not 1 to
+     *                                  {@value #MAX_WINDOW_BITS} bits
+     * @throws ArithmeticException if an exponent is negative and its base is not invertible
+     */
+    public BigInteger multiPow(BigInteger[] bases, BigInteger[] exponents, int windowBits) {
+        if (bases.length != exponents.length) {
+            throw new IllegalArgumentException(bases.length + " bases for " + exponents.length + " exponents");
+        }
+        if (windowBits < 1 || windowBits > MAX_WINDOW_BITS) {
+            throw new IllegalArgumentException("Window of " + windowBits + " bits is not in 1.." + MAX_WINDOW_BITS);
+        }
+        int length = 0;
+        for (BigInteger exponent : exponents) {
+            length = Math.max(length, exponent.bitLength());
+        }
+
+        // Per base the odd powers and, at the lowest bit of every window, the window value
+        int[][][] odd = new int[bases.length][][];
+        int[][] windows = new int[bases.length][length];
+        int[] square = new int[n.length];
+        for (int j = 0; j < bases.length; j++) {
+            BigInteger exponent = exponents[j];
+            if (exponent.signum() == 0) {
+                continue;
+            }
+            BigInteger base = exponent.signum() < 0 ? bases[j].modInverse(modulus) : bases[j];
+            exponent = exponent.abs();
+
+            odd[j] = new int[1 << (windowBits - 1)][];
+            odd[j][0] = toMontgomery(base);
+            multiply(odd[j][0], odd[j][0], square);
+            for (int i = 1; i < odd[j].length; i++) {
+                odd[j][i] = new int[n.length];
+                multiply(odd[j][i - 1], square, odd[j][i]);
+            }
+
+            int bit = exponent.bitLength() - 1;
+            while (bit >= 0) {
+                if (!exponent.testBit(bit)) {
+                    bit--;
+                    continue;
+                }
+                int low = Math.max(bit - windowBits + 1, 0);
+                while (!exponent.testBit(low)) {
+                    low++;
+                }
+                int window = 0;
+                for (int i = bit; i >= low; i--) {
+                    window = window << 1 | (exponent.testBit(i) ? 1 : 0);
+                }
+                windows[j][low] = window;
+                bit = low - 1;
+            }
+        }
+
+        int[] result = null;
+        for (int bit = length - 1; bit >= 0; bit--) {
+            if (result != null) {
+                multiply(result, result, result);
+            }
+            for (int j = 0; j < bases.length; j++) {
+                int window = windows[j][bit];
+                if (window == 0) {
+                    continue;
+                }
+                if (result == null) {
+                    result = odd[j][window >>> 1].clone();
+                } else {
+                    multiply(result, odd[j][window >>> 1], result);
+                }
+            }
+        }
+        return result == null ? BigInteger.ONE.mod(modulus) : fromMontgomery(result);
+    }
+
+    static int[] toLimbs(BigInteger x, int length) {
+        int[] limbs = new int[length];
+        for (int i = 0; i < length; i++) {
+            limbs[i] = x.shiftRight(32 * i).intValue();
+        }
+        return limbs;
+    }
+
+    static BigInteger toBigInteger(int[] limbs) {
+        byte[] bytes = new byte[4 * limbs.length];
+        for (int i = 0; i < limbs.length; i++) {
+            int limb = limbs[i];
+            int offset = bytes.length - 4 * i;
+            bytes[offset - 1] = (byte) limb;
+            bytes[offset - 2] = (byte) (limb >>> 8);
+            bytes[offset - 3] = (byte) (limb >>> 16);
+            bytes[offset - 4] = (byte) (limb >>> 24);
+        }
+        return new BigInteger(1, bytes);
+    }
+}
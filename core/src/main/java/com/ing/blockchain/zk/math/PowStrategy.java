@@ -0,0 +1,140 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.math;
+
+import com.ing.blockchain.zk.metrics.OpAccounting;
+import com.ing.blockchain.zk.metrics.Operation;
+
+import java.math.BigInteger;
+import java.util.Objects;
+
+/**
+ * A way to compute a modular exponentiation, as chosen by the {@link Autotuner}: {@link BigInteger#modPow}, a
+ * sliding window exponentiation of {@link MontgomeryParams} with a given kernel and window, or the exponentiation
+ * tables of g and h.
+ *
+ * The string form, used in the files of the autotuner, is {@code MOD_POW}, {@code FIXED_BASE} or
+ * {@code MONTGOMERY/kernel/window}, for example {@code MONTGOMERY/VECTOR/5}.
+ */
+public final class PowStrategy {
+
+    public enum Method {
+        MOD_POW,
+        MONTGOMERY,
+
+        /**
+         * The {@link FixedBaseTable} of g or h, with the kernel of {@link MontgomeryKernel#getDefault()}.
+         */
+        FIXED_BASE
+    }
+
+    public static final PowStrategy MOD_POW = new PowStrategy(Method.MOD_POW, null, 0);
+    public static final PowStrategy FIXED_BASE = new PowStrategy(Method.FIXED_BASE, null, 0);
+
+    private final Method method;
+    private final MontgomeryKernel kernel;
+    private final int windowBits;
+
+    private PowStrategy(Method method, MontgomeryKernel kernel, int windowBits) {
+        this.method = method;
+        this.kernel = kernel;
+        this.windowBits = windowBits;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the window is not 1 to 8 bits
+     */
+    public static PowStrategy montgomery(MontgomeryKernel kernel, int windowBits) {
+        if (windowBits < 1 || windowBits > MontgomeryParams.MAX_WINDOW_BITS) {
+            throw new IllegalArgumentException("Window of " + windowBits + " bits is not in 1.."
+                    + MontgomeryParams.MAX_WINDOW_BITS);
+        }
+        return new PowStrategy(Method.MONTGOMERY, kernel, windowBits);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the string is not the string form of a strategy
+     */
+    public static PowStrategy parse(String value) {
+        String[] parts = value.split("/");
+        try {
+            Method method = Method.valueOf(parts[0]);
+            if (method == Method.MONTGOMERY && parts.length == 3) {
+                return montgomery(MontgomeryKernel.valueOf(parts[1]), Integer.parseInt(parts[2]));
+            }
+            if (method != Method.MONTGOMERY && parts.length == 1) {
+                return method == Method.MOD_POW ? MOD_POW : FIXED_BASE;
+            }
+        } catch (IllegalArgumentException e) {
+            // Unknown method or kernel, or a window that is not a number
+        }
+        throw new IllegalArgumentException("Unknown exponentiation strategy " + value);
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    /**
+     * @return the kernel of {@link Method#MONTGOMERY}, otherwise null
+     */
+    public MontgomeryKernel getKernel() {
+        return kernel;
+    }
+
+    /**
+     * @return the window of {@link Method#MONTGOMERY}, otherwise 0
+     */
+    public int getWindowBits() {
+        return windowBits;
+    }
+
+    // Computes base^exponent mod N with MOD_POW or MONTGOMERY; params are those of N and the kernel, or null for MOD_POW
+    BigInteger pow(MontgomeryParams params, BigInteger base, BigInteger exponent, BigInteger N) {
+        if (method == Method.MOD_POW) {
+            return OpAccounting.modPow(base, exponent, N);
+        }
+        OpAccounting.record(Operation.MOD_POW, exponent.bitLength(), N.bitLength());
+        return params.pow(base, exponent, windowBits);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        PowStrategy that = (PowStrategy) o;
+        return method == that.method && kernel == that.kernel && windowBits == that.windowBits;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(method, kernel, windowBits);
+    }
+
+    @Override
+    public String toString() {
+        return method == Method.MONTGOMERY ? method + "/" + kernel + "/" + windowBits : method.toString();
+    }
+}
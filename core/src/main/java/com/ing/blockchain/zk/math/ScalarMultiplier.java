@@ -0,0 +1,58 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.math;
+
+/**
+ * {@link MontgomeryKernel#SCALAR}: multiplication and reduction in one pass over the limbs (FIOS).
+ */
+final class ScalarMultiplier extends MontgomeryMultiplier {
+
+    ScalarMultiplier(int[] n, int n0Inv) {
+        super(n, n0Inv);
+    }
+
+    @Override
+    void multiply(int[] a, int[] b, int[] result) {
+        int length = n.length;
+        long n0 = n[0] & MASK;
+        long[] t = new long[length + 1];
+        for (int i = 0; i < length; i++) {
+            long bi = b[i] & MASK;
+            long p = (a[0] & MASK) * bi + t[0];
+            long m = ((p & MASK) * n0Inv) & MASK;
+            long productCarry = p >>> 32;
+            long reductionCarry = (m * n0 + (p & MASK)) >>> 32;
+            for (int j = 1; j < length; j++) {
+                p = (a[j] & MASK) * bi + t[j] + productCarry;
+                productCarry = p >>> 32;
+                long q = m * (n[j] & MASK) + (p & MASK) + reductionCarry;
+                reductionCarry = q >>> 32;
+                t[j - 1] = q & MASK;
+            }
+            long s = t[length] + productCarry + reductionCarry;
+            t[length - 1] = s & MASK;
+            t[length] = s >>> 32;
+        }
+
+        // t < 2N, subtract N once if needed
+        subtractModulus(t, result);
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.metrics;
+
+/**
+ * The result or failure of a computation together with its {@link CostReport}, see {@link OpAccounting#measure}.
+ */
+public final class Accounted<T> {
+
+    private final T result;
+    private final RuntimeException failure;
+    private final CostReport cost;
+
+    Accounted(T result, RuntimeException failure, CostReport cost) {
+        this.result = result;
+        this.failure = failure;
+        this.cost = cost;
+    }
+
+    /**
+     * @return the result of the computation, null if it failed
+     */
+    public T getResult() {
+        return result;
+    }
+
+    /**
+     * @return the exception thrown by the computation, like the rejection of a proof, or null if it succeeded
+     */
+    public RuntimeException getFailure() {
+        return failure;
+    }
+
+    public boolean isSuccess() {
+        return failure == null;
+    }
+
+    public CostReport getCost() {
+        return cost;
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.metrics;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The operations of a computation measured by {@link OpAccounting}, per section and per {@link Operation}.
+ *
+ * The range proof names its sections after the steps of the prover ("step 1" to "step 6") and the checks of the
+ * verifier ("check 3" to "check 12"), in the order of their first operation. Sections without counted operations,
+ * like the comparisons of checks 11 and 12, are left out. Operations outside any section are in {@link #NO_SECTION}.
+ *
+ * If the JVM counts allocations per thread (see {@link AllocationCounter}), the report also has the bytes that each
+ * section allocated on the measured thread, including those of sections without counted operations.
+ */
+public final class CostReport {
+
+    public static final String NO_SECTION = "other";
+
+    private final Map<String, Map<Operation, OpCount>> sections = new LinkedHashMap<>();
+    private final Map<String, Long> allocated = new LinkedHashMap<>();
+
+    CostReport() {
+    }
+
+    void record(String section, Operation operation, int operandBits, int modulusBits) {
+        sections.computeIfAbsent(section, s -> new EnumMap<>(Operation.class))
+                .computeIfAbsent(operation, OpCount::new)
+                .record(operandBits, modulusBits);
+    }
+
+    void recordAllocation(String section, long bytes) {
+        if (bytes > 0) {
+            allocated.merge(section, bytes, Long::sum);
+        }
+    }
+
+    /**
+     * @return the operations per section, in the order of their first operation
+     */
+    public Map<String, Map<Operation, OpCount>> getSections() {
+        return Collections.unmodifiableMap(sections);
+    }
+
+    /**
+     * @return the operations of one kind in all sections
+     */
+    public OpCount getTotal(Operation operation) {
+        OpCount total = new OpCount(operation);
+        for (Map<Operation, OpCount> counts : sections.values()) {
+            OpCount count = counts.get(operation);
+            if (count != null) {
+                total.add(count);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * @return the estimated cost of a section, 0 if it has no operations
+     */
+    public double getCost(String section) {
+        double cost = 0;
+        for (OpCount count : sections.getOrDefault(section, Collections.emptyMap()).values()) {
+            cost += count.getCost();
+        }
+        return cost;
+    }
+
+    /**
+     * @return the estimated cost of all sections
+     */
+    public double getCost() {
+        double cost = 0;
+        for (String section : sections.keySet()) {
+            cost += getCost(section);
+        }
+        return cost;
+    }
+
+    /**
+     * @return the bytes allocated in a section, 0 if allocations are not counted
+     */
+    public long getAllocatedBytes(String section) {
+        return allocated.getOrDefault(section, 0L);
+    }
+
+    /**
+     * @return the bytes allocated in all sections, 0 if allocations are not counted
+     */
+    public long getAllocatedBytes() {
+        long bytes = 0;
+        for (long sectionBytes : allocated.values()) {
+            bytes += sectionBytes;
+        }
+        return bytes;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append(String.format("%-10s %-15s %6s %12s %10s %12s%n",
+                "section", "operation", "count", "mean bits", "cost", "allocated"));
+        Set<String> names = new LinkedHashSet<>(sections.keySet());
+        names.addAll(allocated.keySet());
+        for (String name : names) {
+            // The allocated bytes of a section are on its first row
+            String bytes = allocated.containsKey(name) ? Long.toString(allocated.get(name)) : "";
+            for (OpCount count : sections.getOrDefault(name, Collections.emptyMap()).values()) {
+                builder.append(String.format("%-10s %-15s %6d %12.0f %10.0f %12s%n", name, count.getOperation(),
+                        count.getCount(), count.getMeanOperandBits(), count.getCost(), bytes));
+                bytes = "";
+            }
+            if (!bytes.isEmpty()) {
+                builder.append(String.format("%-10s %-15s %6s %12s %10s %12s%n", name, "", "", "", "", bytes));
+            }
+        }
+        builder.append(String.format("%-10s %-15s %6s %12s %10.0f %12d%n", "total", "", "", "", getCost(),
+                getAllocatedBytes()));
+        return builder.toString();
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+
+/**
+ * Logs the metrics on one line at INFO level.
+ */
+public class LoggingExporter implements MetricsExporter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LoggingExporter.class);
+
+    @Override
+    public void export(Map<String, Number> metrics) {
+        if (LOGGER.isInfoEnabled()) {
+            StringBuilder line = new StringBuilder("metrics");
+            for (Map.Entry<String, Number> entry : metrics.entrySet()) {
+                line.append(' ').append(entry.getKey()).append('=').append(entry.getValue());
+            }
+            LOGGER.info(line.toString());
+        }
+    }
+}
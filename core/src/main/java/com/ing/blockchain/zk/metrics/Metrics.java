@@ -0,0 +1,137 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToLongFunction;
+
+/**
+ * Instrumentation of the prover, the verifier, the trusted party and the group generator.
+ *
+ * Metrics are off unless the system property {@value #ENABLED_PROPERTY} is true when this class is loaded. The
+ * switch is a constant, so when it is off the JIT compiler removes the calls and they cost nothing. When it is on,
+ * the metrics are registered in the platform MBean server as {@value #MBEAN_NAME}.
+ *
+ * With metrics on, the system property {@value #ALLOCATION_PROPERTY} also records the bytes that each phase
+ * allocates on its thread, if the JVM counts allocations per thread (see {@link AllocationCounter}).
+ *
+ * Usage:
+ * <pre>
+ * long start = Metrics.start();
+ * long allocated = Metrics.startAllocation();
+ * ...
+ * Metrics.stopAllocation(Phase.VERIFY, allocated);
+ * Metrics.stop(Phase.VERIFY, start);
+ * </pre>
+ */
+public final class Metrics {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Metrics.class);
+
+    public static final String ENABLED_PROPERTY = "com.ing.blockchain.zk.metrics";
+    public static final String MBEAN_NAME = "com.ing.blockchain.zk:type=Metrics";
+
+    public static final String ALLOCATION_PROPERTY = "com.ing.blockchain.zk.metrics.allocation";
+
+    public static final boolean ENABLED = Boolean.getBoolean(ENABLED_PROPERTY);
+    public static final boolean ALLOCATION = ENABLED && Boolean.getBoolean(ALLOCATION_PROPERTY)
+            && AllocationCounter.isSupported();
+
+    private static final MetricsRegistry REGISTRY = new MetricsRegistry();
+    private static final AtomicInteger CACHE_COUNT = new AtomicInteger();
+
+    static {
+        if (ENABLED) {
+            try {
+                REGISTRY.registerMBean(MBEAN_NAME);
+            } catch (JMException e) {
+                LOGGER.warn("Cannot register metrics as " + MBEAN_NAME, e);
+            }
+        }
+    }
+
+    private Metrics() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    /**
+     * @return the registry of the instrumentation, which stays empty when metrics are off
+     */
+    public static MetricsRegistry registry() {
+        return REGISTRY;
+    }
+
+    /**
+     * @return the start time of a phase for {@link #stop}, 0 when metrics are off
+     */
+    public static long start() {
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+    public static void stop(Phase phase, long start) {
+        if (ENABLED) {
+            REGISTRY.histogram(phase).record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * @return the bytes allocated by the current thread for {@link #stopAllocation}, 0 when allocations are not
+     * recorded
+     */
+    public static long startAllocation() {
+        return ALLOCATION ? AllocationCounter.currentThread() : 0;
+    }
+
+    public static void stopAllocation(Phase phase, long start) {
+        if (ALLOCATION) {
+            REGISTRY.allocations(phase).record(AllocationCounter.currentThread() - start);
+        }
+    }
+
+    public static void verified() {
+        if (ENABLED) {
+            REGISTRY.recordVerified();
+        }
+    }
+
+    /**
+     * @param check the number of the failed check in the paper, or {@link MetricsRegistry#OTHER_CHECK}
+     */
+    public static void rejected(int check) {
+        if (ENABLED) {
+            REGISTRY.recordRejected(check);
+        }
+    }
+
+    /**
+     * Adds the hit rate of a cache to the metrics, named after its class and a sequence number.
+     */
+    public static <T> void registerCache(T cache, ToLongFunction<T> hits, ToLongFunction<T> misses) {
+        if (ENABLED) {
+            String name = cache.getClass().getSimpleName() + "-" + CACHE_COUNT.incrementAndGet();
+            REGISTRY.registerCache(name, cache, hits, misses);
+        }
+    }
+}
@@ -0,0 +1,271 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.metrics;
+
+import javax.management.*;
+import java.lang.ref.WeakReference;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+/**
+ * Latency histograms per {@link Phase}, counters of verified proofs and of rejected proofs per check of the range
+ * proof, and hit rates of caches.
+ *
+ * All metrics are available as a flat map of names to numbers ({@link #snapshot()}), which is what exporters and
+ * the JMX bean see:
+ * <pre>
+ * verify.count, verify.mean, verify.p50, verify.p90, verify.p99, verify.max  (latencies in nanoseconds)
+ * verify.allocated.mean, verify.allocated.p50, ..., verify.allocated.max     (bytes, if allocations are recorded)
+ * proofs.verified, proofs.rejected, proofs.rejected.check9
+ * cache.VerificationCache-1.hits, cache.VerificationCache-1.misses, cache.VerificationCache-1.hitRate
+ * </pre>
+ */
+public final class MetricsRegistry {
+
+    /**
+     * The number of the check of a rejection that is not one of the checks of the paper, like an arithmetic error.
+     */
+    public static final int OTHER_CHECK = 0;
+
+    // Checks are numbered as in the paper, up to 12
+    private static final int CHECKS = 13;
+
+    private static final double[] PERCENTILES = {50, 90, 99};
+
+    private final Map<Phase, LatencyHistogram> histograms = new LinkedHashMap<>();
+    private final Map<Phase, LatencyHistogram> allocations = new LinkedHashMap<>();
+    private final LongAdder verified = new LongAdder();
+    private final AtomicLongArray rejected = new AtomicLongArray(CHECKS);
+    private final Map<String, CacheStatistics<?>> caches = new ConcurrentHashMap<>();
+
+    public MetricsRegistry() {
+        for (Phase phase : Phase.values()) {
+            histograms.put(phase, new LatencyHistogram());
+            allocations.put(phase, new LatencyHistogram());
+        }
+    }
+
+    public LatencyHistogram histogram(Phase phase) {
+        return histograms.get(phase);
+    }
+
+    /**
+     * @return the histogram of the bytes allocated by the phase, see {@link Metrics#ALLOCATION_PROPERTY}
+     */
+    public LatencyHistogram allocations(Phase phase) {
+        return allocations.get(phase);
+    }
+
+    public void recordVerified() {
+        verified.increment();
+    }
+
+    /**
+     * @param check the number of the failed check, or {@link #OTHER_CHECK}
+     */
+    public void recordRejected(int check) {
+        rejected.incrementAndGet(check > 0 && check < CHECKS ? check : OTHER_CHECK);
+    }
+
+    public long getVerified() {
+        return verified.sum();
+    }
+
+    public long getRejected(int check) {
+        return rejected.get(check);
+    }
+
+    public long getRejected() {
+        long total = 0;
+        for (int check = 0; check < CHECKS; check++) {
+            total += rejected.get(check);
+        }
+        return total;
+    }
+
+    /**
+     * Adds the hits and misses of a cache to the metrics. The registry only holds a weak reference to the cache, and
+     * drops its metrics when the cache is collected.
+     */
+    public <T> void registerCache(String name, T cache, ToLongFunction<T> hits, ToLongFunction<T> misses) {
+        caches.put(name, new CacheStatistics<>(cache, hits, misses));
+    }
+
+    public void unregisterCache(String name) {
+        caches.remove(name);
+    }
+
+    private static final class CacheStatistics<T> {
+        private final WeakReference<T> cache;
+        private final ToLongFunction<T> hits;
+        private final ToLongFunction<T> misses;
+
+        private CacheStatistics(T cache, ToLongFunction<T> hits, ToLongFunction<T> misses) {
+            this.cache = new WeakReference<>(cache);
+            this.hits = hits;
+            this.misses = misses;
+        }
+
+        // Returns false if the cache has been collected
+        private boolean addTo(String name, Map<String, Number> metrics) {
+            T instance = cache.get();
+            if (instance == null) {
+                return false;
+            }
+            long h = hits.applyAsLong(instance);
+            long m = misses.applyAsLong(instance);
+            metrics.put("cache." + name + ".hits", h);
+            metrics.put("cache." + name + ".misses", m);
+            metrics.put("cache." + name + ".hitRate", h + m == 0 ? 0.0 : (double) h / (h + m));
+            return true;
+        }
+    }
+
+    /**
+     * @return all metrics by name, in a stable order
+     */
+    public Map<String, Number> snapshot() {
+        Map<String, Number> metrics = new LinkedHashMap<>();
+        for (Map.Entry<Phase, LatencyHistogram> entry : histograms.entrySet()) {
+            String prefix = entry.getKey().getMetricName() + ".";
+            LatencyHistogram histogram = entry.getValue();
+            metrics.put(prefix + "count", histogram.getCount());
+            metrics.put(prefix + "mean", histogram.getMean());
+            for (double percentile : PERCENTILES) {
+                metrics.put(prefix + "p" + (int) percentile, histogram.getValueAtPercentile(percentile));
+            }
+            metrics.put(prefix + "max", histogram.getMax());
+
+            LatencyHistogram allocated = allocations.get(entry.getKey());
+            if (allocated.getCount() > 0) {
+                metrics.put(prefix + "allocated.mean", allocated.getMean());
+                for (double percentile : PERCENTILES) {
+                    metrics.put(prefix + "allocated.p" + (int) percentile, allocated.getValueAtPercentile(percentile));
+                }
+                metrics.put(prefix + "allocated.max", allocated.getMax());
+            }
+        }
+
+        metrics.put("proofs.verified", getVerified());
+        metrics.put("proofs.rejected", getRejected());
+        for (int check = 0; check < CHECKS; check++) {
+            metrics.put(check == OTHER_CHECK ? "proofs.rejected.other" : "proofs.rejected.check" + check,
+                    rejected.get(check));
+        }
+
+        List<String> names = new ArrayList<>(caches.keySet());
+        names.sort(null);
+        for (String name : names) {
+            CacheStatistics<?> statistics = caches.get(name);
+            if (statistics != null && !statistics.addTo(name, metrics)) {
+                caches.remove(name, statistics);
+            }
+        }
+        return metrics;
+    }
+
+    public void export(MetricsExporter exporter) {
+        exporter.export(snapshot());
+    }
+
+    /**
+     * Exports the metrics at a fixed rate until the returned future is cancelled.
+     */
+    public ScheduledFuture<?> scheduleExport(MetricsExporter exporter, long period, TimeUnit unit,
+                                             ScheduledExecutorService executor) {
+        return executor.scheduleAtFixedRate(() -> export(exporter), period, period, unit);
+    }
+
+    /**
+     * Registers the metrics as read-only attributes of an MBean with the given name in the platform MBean server.
+     */
+    public ObjectName registerMBean(String name) throws JMException {
+        ObjectName objectName = new ObjectName(name);
+        ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricsMBean(), objectName);
+        return objectName;
+    }
+
+    // The attributes are the names of the snapshot, which change when caches are added
+    private final class MetricsMBean implements DynamicMBean {
+
+        @Override
+        public Object getAttribute(String attribute) throws AttributeNotFoundException {
+            Number value = snapshot().get(attribute);
+            if (value == null) {
+                throw new AttributeNotFoundException(attribute);
+            }
+            return value;
+        }
+
+        @Override
+        public AttributeList getAttributes(String[] attributes) {
+            Map<String, Number> metrics = snapshot();
+            AttributeList list = new AttributeList();
+            for (String attribute : attributes) {
+                if (metrics.containsKey(attribute)) {
+                    list.add(new Attribute(attribute, metrics.get(attribute)));
+                }
+            }
+            return list;
+        }
+
+        @Override
+        public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+            throw new AttributeNotFoundException("Metrics are read-only: " + attribute.getName());
+        }
+
+        @Override
+        public AttributeList setAttributes(AttributeList attributes) {
+            return new AttributeList();
+        }
+
+        @Override
+        public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+            throw new ReflectionException(new NoSuchMethodException(actionName));
+        }
+
+        @Override
+        public MBeanInfo getMBeanInfo() {
+            List<MBeanAttributeInfo> attributes = new ArrayList<>();
+            for (Map.Entry<String, Number> entry : snapshot().entrySet()) {
+                attributes.add(new MBeanAttributeInfo(entry.getKey(), entry.getValue().getClass().getName(),
+                        entry.getKey(), true, false, false));
+            }
+            return new MBeanInfo(MetricsRegistry.class.getName(), "Range proof metrics",
+                    attributes.toArray(new MBeanAttributeInfo[0]), null, null, null);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return snapshot().toString();
+    }
+}
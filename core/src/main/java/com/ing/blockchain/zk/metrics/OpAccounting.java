@@ -0,0 +1,139 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.metrics;
+
+import java.math.BigInteger;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Counts the arithmetic operations of a computation on the current thread, to explain where the time of a proof
+ * goes:
+ * <pre>
+ * Accounted&lt;RangeProof&gt; proof = OpAccounting.measure(() -&gt; HPAKErangeProof.calculateRangeProof(message, range));
+ * Accounted&lt;Void&gt; check = OpAccounting.measure(() -&gt; HPAKErangeProof.validateRangeProof(proof.getResult(), ...));
+ * System.out.println(check.getCost());
+ * </pre>
+ *
+ * The prover and verifier perform their exponentiations and modular multiplications through {@link #modPow} and
+ * {@link #mulMod}; {@link com.ing.blockchain.zk.math.GroupContext}, {@link com.ing.blockchain.zk.util.BigIntUtil}
+ * and {@link com.ing.blockchain.zk.util.DigestUtil} report theirs with {@link #record}. Multiplications of exponents
+ * without a modulus are not counted. When no measurement is running, a hook costs one volatile read.
+ *
+ * The report also has the bytes allocated by each section, read from the allocation counter of the thread when the
+ * section changes. These include the allocations of nested measurements.
+ */
+public final class OpAccounting {
+
+    private static final ThreadLocal<Account> ACCOUNT = new ThreadLocal<>();
+
+    // The number of measurements in progress on all threads
+    private static final AtomicInteger ACTIVE = new AtomicInteger();
+
+    private OpAccounting() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    private static final class Account {
+        final CostReport report = new CostReport();
+        String section = CostReport.NO_SECTION;
+        long allocated = AllocationCounter.currentThread();
+
+        // Adds the bytes allocated since the last change of section to the current section
+        void recordAllocation() {
+            long now = AllocationCounter.currentThread();
+            report.recordAllocation(section, now - allocated);
+            allocated = now;
+        }
+    }
+
+    /**
+     * Runs a computation and counts its operations. A measurement inside another one is not part of the outer one.
+     */
+    public static <T> Accounted<T> measure(Supplier<T> computation) {
+        Account previous = ACCOUNT.get();
+        Account account = new Account();
+        ACCOUNT.set(account);
+        ACTIVE.incrementAndGet();
+        try {
+            return new Accounted<>(computation.get(), null, account.report);
+        } catch (RuntimeException e) {
+            return new Accounted<>(null, e, account.report);
+        } finally {
+            account.recordAllocation();
+            ACTIVE.decrementAndGet();
+            if (previous == null) {
+                ACCOUNT.remove();
+            } else {
+                ACCOUNT.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Runs a computation without a result, like the validation of a proof, and counts its operations.
+     */
+    public static Accounted<Void> measure(Runnable computation) {
+        return measure(() -> {
+            computation.run();
+            return null;
+        });
+    }
+
+    /**
+     * Attributes the following operations on this thread to the given section of the measurement.
+     */
+    public static void section(String name) {
+        Account account = account();
+        if (account != null) {
+            account.recordAllocation();
+            account.section = name;
+        }
+    }
+
+    public static void record(Operation operation, int operandBits, int modulusBits) {
+        Account account = account();
+        if (account != null) {
+            account.report.record(account.section, operation, operandBits, modulusBits);
+        }
+    }
+
+    /**
+     * @return base^exponent mod m
+     */
+    public static BigInteger modPow(BigInteger base, BigInteger exponent, BigInteger m) {
+        record(Operation.MOD_POW, exponent.bitLength(), m.bitLength());
+        return base.modPow(exponent, m);
+    }
+
+    /**
+     * @return a * b mod m
+     */
+    public static BigInteger mulMod(BigInteger a, BigInteger b, BigInteger m) {
+        BigInteger product = a.multiply(b);
+        record(Operation.MULTIPLY, product.bitLength(), m.bitLength());
+        return product.mod(m);
+    }
+
+    private static Account account() {
+        return ACTIVE.get() == 0 ? null : ACCOUNT.get();
+    }
+}
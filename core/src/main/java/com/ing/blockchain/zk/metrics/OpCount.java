@@ -0,0 +1,93 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.metrics;
+
+/**
+ * The number and sizes of the operations of one kind in a section of a {@link CostReport}.
+ */
+public final class OpCount {
+
+    private final Operation operation;
+    private long count;
+    private long operandBits;
+    private long maxOperandBits;
+    private long modulusBits;
+    private double cost;
+
+    OpCount(Operation operation) {
+        this.operation = operation;
+    }
+
+    void record(int operandBits, int modulusBits) {
+        count++;
+        this.operandBits += operandBits;
+        this.maxOperandBits = Math.max(maxOperandBits, operandBits);
+        this.modulusBits += modulusBits;
+        this.cost += operation.cost(operandBits, modulusBits);
+    }
+
+    void add(OpCount other) {
+        count += other.count;
+        operandBits += other.operandBits;
+        maxOperandBits = Math.max(maxOperandBits, other.maxOperandBits);
+        modulusBits += other.modulusBits;
+        cost += other.cost;
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return the sum of the bit lengths of the operands: exponents, products or hashed input
+     */
+    public long getOperandBits() {
+        return operandBits;
+    }
+
+    public long getMaxOperandBits() {
+        return maxOperandBits;
+    }
+
+    public double getMeanOperandBits() {
+        return count == 0 ? 0 : (double) operandBits / count;
+    }
+
+    public double getMeanModulusBits() {
+        return count == 0 ? 0 : (double) modulusBits / count;
+    }
+
+    /**
+     * @return the estimated cost of the operations, see {@link Operation}
+     */
+    public double getCost() {
+        return cost;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d x %.0f bits, cost %.0f", operation, count, getMeanOperandBits(), cost);
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.metrics;
+
+/**
+ * Arithmetic operations counted by {@link OpAccounting}, with a rough cost model.
+ *
+ * Costs are in units of one exponent bit of a {@link java.math.BigInteger#modPow} with a 1024 bit modulus, so that
+ * a 1024 bit exponentiation with a 1024 bit exponent costs 1024. The weights were measured with OpenJDK 17 on
+ * x86-64 and scale quadratically with the size of the modulus. They are meant to rank the steps of a proof, not to
+ * predict its time.
+ */
+public enum Operation {
+
+    /**
+     * {@link java.math.BigInteger#modPow}; the operand is the exponent.
+     */
+    MOD_POW(1) {
+        @Override
+        double cost(long operandBits, long modulusBits) {
+            return weight * operandBits * square(modulusBits);
+        }
+    },
+
+    /**
+     * Exponentiation of g or h with the tables of {@link com.ing.blockchain.zk.math.FixedBaseTable}; the operand is
+     * the exponent.
+     */
+    FIXED_BASE_POW(0.6) {
+        @Override
+        double cost(long operandBits, long modulusBits) {
+            return weight * operandBits * square(modulusBits);
+        }
+    },
+
+    /**
+     * Multiplication followed by a reduction; the operand is the product.
+     */
+    MULTIPLY(6) {
+        @Override
+        double cost(long operandBits, long modulusBits) {
+            return weight * square(operandBits / 2);
+        }
+    },
+
+    /**
+     * {@link java.math.BigInteger#modInverse}.
+     */
+    MOD_INVERSE(200) {
+        @Override
+        double cost(long operandBits, long modulusBits) {
+            return weight * square(modulusBits);
+        }
+    },
+
+    /**
+     * SHA-256 of the Fiat-Shamir challenges; the operand is the hashed input.
+     */
+    HASH(0.003) {
+        @Override
+        double cost(long operandBits, long modulusBits) {
+            return weight * operandBits;
+        }
+    };
+
+    final double weight;
+
+    Operation(double weight) {
+        this.weight = weight;
+    }
+
+    /**
+     * @return the estimated cost of one operation
+     */
+    abstract double cost(long operandBits, long modulusBits);
+
+    private static double square(long bits) {
+        double relative = bits / 1024.0;
+        return relative * relative;
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.metrics;
+
+import com.ing.blockchain.zk.dto.SecretOrderGroup;
+import com.ing.blockchain.zk.jfr.Outcome;
+import com.ing.blockchain.zk.jfr.ProofEvents;
+import com.ing.blockchain.zk.jfr.Span;
+
+/**
+ * Marks the steps of one range proof or the checks of one validation, for {@link OpAccounting} and for the flight
+ * recorder events of {@link ProofEvents}. Each step or check ends where the next one starts.
+ */
+public final class ProofTrace {
+
+    private static final String[] STEPS = sectionNames("step", 6);
+    private static final String[] CHECKS = sectionNames("check", 12);
+
+    private final SecretOrderGroup group;
+    private final boolean prover;
+    private Span span = Span.NONE;
+
+    private ProofTrace(SecretOrderGroup group, boolean prover) {
+        this.group = group;
+        this.prover = prover;
+    }
+
+    private static String[] sectionNames(String prefix, int count) {
+        String[] names = new String[count + 1];
+        for (int i = 1; i <= count; i++) {
+            names[i] = prefix + " " + i;
+        }
+        return names;
+    }
+
+    public static ProofTrace prover(SecretOrderGroup group) {
+        return new ProofTrace(group, true);
+    }
+
+    public static ProofTrace verifier(SecretOrderGroup group) {
+        return new ProofTrace(group, false);
+    }
+
+    /**
+     * Starts the given step of the prover or check of the verifier, numbered as in the paper.
+     */
+    public void section(int number) {
+        span.end(Outcome.SUCCESS);
+        if (prover) {
+            span = ProofEvents.proverStep(group, number);
+            OpAccounting.section(STEPS[number]);
+        } else {
+            span = ProofEvents.verifierCheck(group, number);
+            OpAccounting.section(CHECKS[number]);
+        }
+    }
+
+    /**
+     * Ends the current step or check with the given outcome.
+     */
+    public void end(Outcome outcome) {
+        span.end(outcome);
+        span = Span.NONE;
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.registry;
+
+import com.ing.blockchain.zk.codec.BinaryCodec;
+import com.ing.blockchain.zk.dto.SecretOrderGroup;
+import org.bouncycastle.crypto.Digest;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.util.encoders.Hex;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Stable identifier of a {@link SecretOrderGroup}: the SHA-256 digest of its {@link BinaryCodec} encoding.
+ */
+public final class GroupFingerprint {
+
+    public static final int BYTES = 32;
+
+    // Fingerprints of recently used group instances
+    private static final Map<SecretOrderGroup, GroupFingerprint> CACHE = new WeakHashMap<>();
+
+    private final byte[] value;
+    private final int hash;
+
+    private GroupFingerprint(byte[] value) {
+        this.value = value;
+        // The digest is uniformly distributed, any four bytes make a good hash code
+        this.hash = ByteBuffer.wrap(value).getInt();
+    }
+
+    public static GroupFingerprint of(SecretOrderGroup group) {
+        synchronized (CACHE) {
+            GroupFingerprint fingerprint = CACHE.get(group);
+            if (fingerprint != null) {
+                return fingerprint;
+            }
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(BinaryCodec.encodedSize(group));
+        BinaryCodec.encode(group, buffer);
+        Digest digest = new SHA256Digest();
+        digest.update(buffer.array(), 0, buffer.capacity());
+        byte[] output = new byte[BYTES];
+        digest.doFinal(output, 0);
+
+        GroupFingerprint fingerprint = new GroupFingerprint(output);
+        synchronized (CACHE) {
+            CACHE.put(group, fingerprint);
+        }
+        return fingerprint;
+    }
+
+    public static GroupFingerprint fromBytes(byte[] bytes) {
+        if (bytes.length != BYTES) {
+            throw new IllegalArgumentException("A group fingerprint has " + BYTES + " bytes");
+        }
+        return new GroupFingerprint(bytes.clone());
+    }
+
+    /**
+     * @param n the fingerprint as unsigned big-endian number, as in the decimal commitment string of the precompile
+     */
+    public static GroupFingerprint fromBigInteger(BigInteger n) {
+        if (n.signum() < 0 || n.bitLength() > 8 * BYTES) {
+            throw new IllegalArgumentException("Not a group fingerprint: " + n);
+        }
+        byte[] bytes = new byte[BYTES];
+        byte[] magnitude = n.toByteArray();
+        int length = Math.min(magnitude.length, BYTES);
+        System.arraycopy(magnitude, magnitude.length - length, bytes, BYTES - length, length);
+        return new GroupFingerprint(bytes);
+    }
+
+    public byte[] toByteArray() {
+        return value.clone();
+    }
+
+    public BigInteger toBigInteger() {
+        return new BigInteger(1, value);
+    }
+
+    public void put(ByteBuffer buffer) {
+        buffer.put(value);
+    }
+
+    public static GroupFingerprint get(ByteBuffer buffer) {
+        byte[] bytes = new byte[BYTES];
+        buffer.get(bytes);
+        return new GroupFingerprint(bytes);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof GroupFingerprint && Arrays.equals(value, ((GroupFingerprint) o).value);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return Hex.toHexString(value);
+    }
+}
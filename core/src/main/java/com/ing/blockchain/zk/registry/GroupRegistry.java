@@ -0,0 +1,176 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.registry;
+
+import com.ing.blockchain.zk.codec.BinaryCodec;
+import com.ing.blockchain.zk.dto.Commitment;
+import com.ing.blockchain.zk.dto.SecretOrderGroup;
+import com.ing.blockchain.zk.math.GroupContext;
+import com.ing.blockchain.zk.math.GroupInterner;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Registry of known groups by fingerprint, so that commitments can refer to their group by a 32 byte fingerprint
+ * instead of carrying N, g and h.
+ *
+ * Registered groups are interned with {@link GroupInterner}: resolving a fingerprint, or registering an equal group
+ * again, returns the canonical instance, and the registry keeps that instance and its {@link GroupContext} (validated
+ * parameters and exponentiation tables) alive.
+ *
+ * The encoding of a commitment by reference is
+ * <pre>
+ * 'Z' 'K' version TYPE_COMMITMENT_REFERENCE fingerprint c
+ * </pre>
+ * with the 32 byte fingerprint and c encoded as integer of {@link BinaryCodec}.
+ *
+ * With a {@link TableStore}, the exponentiation tables of a group are mapped from its file when it is registered.
+ */
+public class GroupRegistry {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GroupRegistry.class);
+
+    private final ConcurrentMap<GroupFingerprint, SecretOrderGroup> groups = new ConcurrentHashMap<>();
+    private final TableStore tables;
+
+    public GroupRegistry() {
+        this(null);
+    }
+
+    /**
+     * @param tables the store of the exponentiation tables of registered groups, or null to compute them in memory
+     */
+    public GroupRegistry(TableStore tables) {
+        this.tables = tables;
+    }
+
+    /**
+     * Registers the group, unless an equal group is registered already.
+     *
+     * @return the fingerprint of the group
+     * @throws IllegalArgumentException if the group is not valid, see {@link GroupContext#checkValid()}
+     */
+    public GroupFingerprint register(SecretOrderGroup group) {
+        GroupFingerprint fingerprint = GroupFingerprint.of(group);
+        add(fingerprint, group);
+        return fingerprint;
+    }
+
+    /**
+     * Registers the group, unless an equal group is registered already.
+     *
+     * @return the canonical instance of the group
+     * @throws IllegalArgumentException if the group is not valid, see {@link GroupContext#checkValid()}
+     */
+    public SecretOrderGroup canonical(SecretOrderGroup group) {
+        return add(GroupFingerprint.of(group), group);
+    }
+
+    private SecretOrderGroup add(GroupFingerprint fingerprint, SecretOrderGroup group) {
+        SecretOrderGroup registered = groups.get(fingerprint);
+        if (registered != null) {
+            return registered;
+        }
+        GroupInterner.context(group).checkValid();
+        SecretOrderGroup canonical = GroupInterner.intern(group);
+        registered = groups.putIfAbsent(fingerprint, canonical);
+        if (registered == null && tables != null) {
+            try {
+                tables.attach(canonical);
+            } catch (IOException e) {
+                // The tables are computed in memory instead
+                LOGGER.warn("Cannot map the tables of group " + fingerprint, e);
+            }
+        }
+        return registered == null ? canonical : registered;
+    }
+
+    /**
+     * @return the canonical instance of the group with the given fingerprint
+     * @throws IllegalArgumentException if no such group is registered
+     */
+    public SecretOrderGroup resolve(GroupFingerprint fingerprint) {
+        SecretOrderGroup group = groups.get(fingerprint);
+        if (group == null) {
+            throw new IllegalArgumentException("Unknown group " + fingerprint);
+        }
+        return group;
+    }
+
+    public boolean contains(GroupFingerprint fingerprint) {
+        return groups.containsKey(fingerprint);
+    }
+
+    public int size() {
+        return groups.size();
+    }
+
+    // ----- Commitments by reference
+
+    public static int encodedSize(Commitment commitment) {
+        return BinaryCodec.MESSAGE_HEADER_BYTES + GroupFingerprint.BYTES + BinaryCodec.integerSize(commitment.getCommitmentValue());
+    }
+
+    /**
+     * Encodes the commitment with the fingerprint of its group; the group itself has to be registered at the
+     * decoding side.
+     */
+    public static void encode(Commitment commitment, ByteBuffer buffer) {
+        BinaryCodec.putHeader(buffer, BinaryCodec.TYPE_COMMITMENT_REFERENCE);
+        GroupFingerprint.of(commitment.getGroup()).put(buffer);
+        BinaryCodec.putInteger(buffer, commitment.getCommitmentValue());
+    }
+
+    public static byte[] encode(Commitment commitment) {
+        ByteBuffer buffer = ByteBuffer.allocate(encodedSize(commitment));
+        encode(commitment, buffer);
+        return buffer.array();
+    }
+
+    /**
+     * Decodes a commitment by reference.
+     *
+     * @return a commitment in the canonical instance of its group
+     * @throws IllegalArgumentException if the encoding is invalid or the group is unknown
+     */
+    public Commitment decodeCommitment(ByteBuffer buffer) {
+        BinaryCodec.checkHeader(buffer, BinaryCodec.TYPE_COMMITMENT_REFERENCE);
+        GroupFingerprint fingerprint;
+        try {
+            fingerprint = GroupFingerprint.get(buffer);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated encoding", e);
+        }
+        BigInteger c = BinaryCodec.getInteger(buffer);
+        return new Commitment(resolve(fingerprint), c);
+    }
+
+    public Commitment decodeCommitment(byte[] bytes) {
+        return decodeCommitment(ByteBuffer.wrap(bytes));
+    }
+}
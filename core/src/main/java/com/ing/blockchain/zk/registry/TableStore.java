@@ -0,0 +1,291 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.registry;
+
+import com.ing.blockchain.zk.dto.SecretOrderGroup;
+import com.ing.blockchain.zk.math.FixedBaseTable;
+import com.ing.blockchain.zk.math.GroupContext;
+import com.ing.blockchain.zk.math.GroupInterner;
+import com.ing.blockchain.zk.math.MontgomeryParams;
+import org.bouncycastle.crypto.Digest;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+/**
+ * Exponentiation tables of g and h (see {@link FixedBaseTable}) in files, one per group, named after the
+ * {@link GroupFingerprint}. The tables are memory-mapped read-only, so all processes on a host that use the same
+ * directory share one copy in the page cache, and a process that starts finds its tables ready. At 4096 bit N the
+ * tables of a group take 5.6 MB.
+ *
+ * The format of a file is
+ * <pre>
+ * 'Z' 'K' 'T' version limbs rows window fingerprint digest
+ * rows of g
+ * rows of h
+ * </pre>
+ * with limbs, rows and window as 4 byte integers, the 32 byte fingerprint of the group, and the SHA-256 digest of the
+ * rows. A row is base^(64^i) in Montgomery form as little-endian 32 bit limbs. Files are written to a temporary file
+ * and renamed, so a reader never sees a partial file; a file that does not match its group or digest is replaced.
+ *
+ * The digest is not keyed, so it only detects damage: whoever can write the directory can write tables with a
+ * matching digest. {@link #load} checks row 0 and a few random rows against the squarings of the row before them,
+ * which catches wholesale tampering but not a single changed row, and a verifier that uses wrong tables accepts
+ * wrong proofs. The directory must therefore be writable only by the user that runs the verifier.
+ */
+public final class TableStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TableStore.class);
+
+    private static final byte[] MAGIC = {'Z', 'K', 'T'};
+    private static final byte VERSION = 1;
+    static final int HEADER_BYTES = MAGIC.length + 1 + 3 * Integer.BYTES + GroupFingerprint.BYTES + 32;
+    static final int DIGEST_OFFSET = HEADER_BYTES - 32;
+    private static final String SUFFIX = ".tables";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+
+    // Rows per table that are checked against the squarings of the previous row when a file is loaded
+    private static final int SPOT_CHECKS = 16;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final Path directory;
+
+    public TableStore(Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory);
+    }
+
+    /**
+     * The mapped tables of a group.
+     */
+    public static final class Tables {
+        private final FixedBaseTable g;
+        private final FixedBaseTable h;
+
+        private Tables(FixedBaseTable g, FixedBaseTable h) {
+            this.g = g;
+            this.h = h;
+        }
+
+        public FixedBaseTable getG() {
+            return g;
+        }
+
+        public FixedBaseTable getH() {
+            return h;
+        }
+    }
+
+    public Path path(GroupFingerprint fingerprint) {
+        return directory.resolve(fingerprint + SUFFIX);
+    }
+
+    /**
+     * Makes the {@link GroupContext} of the group use mapped tables: from the file of the group if it is valid,
+     * otherwise computed and written to the file first.
+     *
+     * @return whether the tables came from an existing file
+     * @throws IllegalArgumentException if the group is not valid
+     */
+    public boolean attach(SecretOrderGroup group) throws IOException {
+        GroupContext context = GroupInterner.context(group);
+        context.checkValid();
+        Tables tables = load(group);
+        boolean existed = tables != null;
+        if (tables == null) {
+            write(group);
+            tables = load(group);
+            if (tables == null) {
+                throw new IOException("Cannot read tables just written to " + path(GroupFingerprint.of(group)));
+            }
+        }
+        context.setTables(tables.getG(), tables.getH());
+        return existed;
+    }
+
+    /**
+     * @return the mapped tables of the group, or null if there is no file or it does not match the group
+     */
+    public Tables load(SecretOrderGroup group) throws IOException {
+        GroupFingerprint fingerprint = GroupFingerprint.of(group);
+        Path path = path(fingerprint);
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        MontgomeryParams params = GroupInterner.context(group).getMontgomery();
+        int limbs = params.getLimbs();
+
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        String invalid = checkHeader(buffer, fingerprint, limbs);
+        if (invalid != null) {
+            LOGGER.warn("Ignoring tables in {}: {}", path, invalid);
+            return null;
+        }
+
+        int rows = buffer.getInt(MAGIC.length + 1 + Integer.BYTES);
+        IntBuffer g = rows(buffer, 0, rows, limbs);
+        IntBuffer h = rows(buffer, 1, rows, limbs);
+        int maxBits = GroupInterner.context(group).getTableBits();
+        FixedBaseTable gTable = new FixedBaseTable(params, group.getG(), maxBits, g);
+        FixedBaseTable hTable = new FixedBaseTable(params, group.getH(), maxBits, h);
+        // A cheap check that the rows belong to these bases, on top of the digest
+        if (rows > 0 && (!Arrays.equals(gTable.getRow(0), params.toMontgomery(group.getG()))
+                || !Arrays.equals(hTable.getRow(0), params.toMontgomery(group.getH())))) {
+            LOGGER.warn("Ignoring tables in {}: other bases", path);
+            return null;
+        }
+        for (FixedBaseTable table : new FixedBaseTable[]{gTable, hTable}) {
+            int row = spotCheck(params, table, rows);
+            if (row > 0) {
+                LOGGER.warn("Ignoring tables in {}: row {} does not follow row {}", path, row, row - 1);
+                return null;
+            }
+        }
+        return new Tables(gTable, hTable);
+    }
+
+    // Returns a random row that is not the previous row squared WINDOW_BITS times, or 0 if the checked rows are
+    private static int spotCheck(MontgomeryParams params, FixedBaseTable table, int rows) {
+        for (int k = 0; k < SPOT_CHECKS && rows > 1; k++) {
+            int i = 1 + RANDOM.nextInt(rows - 1);
+            int[] row = table.getRow(i - 1);
+            for (int j = 0; j < FixedBaseTable.WINDOW_BITS; j++) {
+                params.multiply(row, row, row);
+            }
+            if (!Arrays.equals(row, table.getRow(i))) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    // Returns why the file is not valid, or null
+    private static String checkHeader(ByteBuffer buffer, GroupFingerprint fingerprint, int limbs) {
+        if (buffer.capacity() < HEADER_BYTES) {
+            return "truncated";
+        }
+        byte[] magic = new byte[MAGIC.length];
+        buffer.get(magic);
+        if (!Arrays.equals(magic, MAGIC) || buffer.get() != VERSION) {
+            return "not a table file of version " + VERSION;
+        }
+        int fileLimbs = buffer.getInt();
+        int rows = buffer.getInt();
+        int window = buffer.getInt();
+        if (fileLimbs != limbs || window != FixedBaseTable.WINDOW_BITS || rows < 0) {
+            return "limbs " + fileLimbs + ", window " + window + ", rows " + rows;
+        }
+        if (!GroupFingerprint.get(buffer).equals(fingerprint)) {
+            return "other group";
+        }
+        if (buffer.capacity() != HEADER_BYTES + 2L * rows * limbs * Integer.BYTES) {
+            return "size " + buffer.capacity() + " does not match " + rows + " rows";
+        }
+        byte[] digest = new byte[32];
+        buffer.get(digest);
+        if (!Arrays.equals(digest, digest(buffer, HEADER_BYTES))) {
+            return "digest mismatch";
+        }
+        return null;
+    }
+
+    private static IntBuffer rows(MappedByteBuffer buffer, int table, int rows, int limbs) {
+        ByteBuffer slice = buffer.duplicate();
+        int start = HEADER_BYTES + table * rows * limbs * Integer.BYTES;
+        slice.position(start);
+        slice.limit(start + rows * limbs * Integer.BYTES);
+        return slice.slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+    }
+
+    // SHA-256 of the bytes from the offset to the end of the buffer
+    private static byte[] digest(ByteBuffer buffer, int offset) {
+        ByteBuffer data = buffer.duplicate();
+        data.position(offset);
+        Digest digest = new SHA256Digest();
+        byte[] chunk = new byte[64 * 1024];
+        while (data.hasRemaining()) {
+            int length = Math.min(chunk.length, data.remaining());
+            data.get(chunk, 0, length);
+            digest.update(chunk, 0, length);
+        }
+        byte[] result = new byte[digest.getDigestSize()];
+        digest.doFinal(result, 0);
+        return result;
+    }
+
+    /**
+     * Computes the tables of the group and writes them to its file, replacing an existing file.
+     */
+    public void write(SecretOrderGroup group) throws IOException {
+        GroupFingerprint fingerprint = GroupFingerprint.of(group);
+        GroupContext context = GroupInterner.context(group);
+        MontgomeryParams params = context.getMontgomery();
+        int limbs = params.getLimbs();
+        int maxBits = context.getTableBits();
+
+        FixedBaseTable g = new FixedBaseTable(params, group.getG(), maxBits);
+        FixedBaseTable h = new FixedBaseTable(params, group.getH(), maxBits);
+        g.precompute(maxBits);
+        h.precompute(maxBits);
+        int rows = g.size();
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + 2 * rows * limbs * Integer.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(MAGIC).put(VERSION).putInt(limbs).putInt(rows).putInt(FixedBaseTable.WINDOW_BITS);
+        fingerprint.put(buffer);
+        buffer.position(HEADER_BYTES);
+        for (FixedBaseTable table : new FixedBaseTable[]{g, h}) {
+            for (int i = 0; i < rows; i++) {
+                for (int limb : table.getRow(i)) {
+                    buffer.putInt(limb);
+                }
+            }
+        }
+        buffer.position(DIGEST_OFFSET);
+        buffer.put(digest(buffer, HEADER_BYTES));
+
+        Path temporary = Files.createTempFile(directory, fingerprint.toString(), TEMPORARY_SUFFIX);
+        try {
+            Files.write(temporary, buffer.array());
+            Files.move(temporary, path(fingerprint), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+}
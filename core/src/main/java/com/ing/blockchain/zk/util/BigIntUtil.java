@@ -19,6 +19,9 @@
 
 package com.ing.blockchain.zk.util;
 
+import com.ing.blockchain.zk.metrics.OpAccounting;
+import com.ing.blockchain.zk.metrics.Operation;
+
 import java.math.BigInteger;
 
 public class BigIntUtil {
@@ -77,7 +80,8 @@ public class BigIntUtil {
     }
 
     public static BigInteger divMod(BigInteger a, BigInteger b, BigInteger N) {
-        return a.multiply(b.modInverse(N)).mod(N);
+        OpAccounting.record(Operation.MOD_INVERSE, b.bitLength(), N.bitLength());
+        return OpAccounting.mulMod(a, b.modInverse(N), N);
     }
 
 }
@@ -19,28 +19,63 @@
 
 package com.ing.blockchain.zk.util;
 
+import com.ing.blockchain.zk.metrics.OpAccounting;
+import com.ing.blockchain.zk.metrics.Operation;
 import org.bouncycastle.crypto.Digest;
 import org.bouncycastle.crypto.digests.SHA256Digest;
 import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.Pack;
 
 import java.math.BigInteger;
+import java.util.List;
 
 public class DigestUtil {
     private DigestUtil() {
         throw new UnsupportedOperationException("Utility class");
     }
 
-    private static void update(org.bouncycastle.crypto.Digest digest, BigInteger ... bigIntegers) {
+    // Returns the number of hashed bytes
+    private static int update(org.bouncycastle.crypto.Digest digest, BigInteger ... bigIntegers) {
+        int length = 0;
         for (BigInteger bigInt : bigIntegers) {
             byte[] encodedBigInt = bigInt.toByteArray();
             update(digest, encodedBigInt);
+            length += encodedBigInt.length;
             Arrays.fill(encodedBigInt, (byte) 0);
         }
+        return length;
     }
 
     public static BigInteger calculateHash(BigInteger ... bigIntegers) {
         Digest digest = new SHA256Digest();
-        DigestUtil.update(digest, bigIntegers);
+        int length = DigestUtil.update(digest, bigIntegers);
+        OpAccounting.record(Operation.HASH, 8 * length, 0);
+
+        byte[] output = new byte[digest.getDigestSize()];
+        digest.doFinal(output, 0);
+
+        return new BigInteger(output);
+    }
+
+    /**
+     * Hashes a transcript of integers. Every integer is preceded by the length of its encoding, so that different
+     * transcripts have different inputs; {@link #calculateHash} concatenates the encodings only.
+     *
+     * @return the SHA-256 hash as a signed number, as {@link #calculateHash}
+     */
+    public static BigInteger calculateTranscriptHash(List<BigInteger> transcript) {
+        Digest digest = new SHA256Digest();
+        int length = 0;
+        byte[] lengthBytes = new byte[4];
+        for (BigInteger bigInt : transcript) {
+            byte[] encodedBigInt = bigInt.toByteArray();
+            Pack.intToBigEndian(encodedBigInt.length, lengthBytes, 0);
+            update(digest, lengthBytes);
+            update(digest, encodedBigInt);
+            length += lengthBytes.length + encodedBigInt.length;
+            Arrays.fill(encodedBigInt, (byte) 0);
+        }
+        OpAccounting.record(Operation.HASH, 8 * length, 0);
 
         byte[] output = new byte[digest.getDigestSize()];
         digest.doFinal(output, 0);
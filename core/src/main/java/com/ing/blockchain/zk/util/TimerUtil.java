@@ -23,7 +23,11 @@ import java.util.function.Supplier;
 
 /**
  * Execution time measurement utility class.
+ *
+ * @deprecated printing every measurement does not scale and cannot be aggregated, use
+ * {@link com.ing.blockchain.zk.metrics.Metrics}
  */
+@Deprecated
 public class TimerUtil {
     private TimerUtil() {
     }
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.math;
+
+import com.ing.blockchain.zk.dto.SecretOrderGroup;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link Autotuner}, {@link PowStrategy} and {@link Exponentiation}.
+ */
+public class AutotunerTest {
+
+    private static final Random RANDOM = new Random(4);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final Autotuner previous = Autotuner.getDefault();
+
+    @After
+    public void restoreDefault() {
+        Autotuner.setDefault(previous);
+    }
+
+    private static BigInteger modulus() {
+        BigInteger N;
+        do {
+            N = BigInteger.probablePrime(256, RANDOM).multiply(BigInteger.probablePrime(256, RANDOM));
+        } while (N.bitLength() != 512);
+        return N;
+    }
+
+    @Test
+    public void testParse() {
+        for (PowStrategy strategy : new PowStrategy[]{PowStrategy.MOD_POW, PowStrategy.FIXED_BASE,
+                PowStrategy.montgomery(MontgomeryKernel.SCALAR, 4), PowStrategy.montgomery(MontgomeryKernel.VECTOR, 6)}) {
+            assertEquals(strategy, PowStrategy.parse(strategy.toString()));
+        }
+        assertEquals("MONTGOMERY/VECTOR/5", PowStrategy.montgomery(MontgomeryKernel.VECTOR, 5).toString());
+        for (String invalid : new String[]{"", "MONTGOMERY", "MONTGOMERY/SCALAR", "MONTGOMERY/SCALAR/x",
+                "MONTGOMERY/SCALAR/9", "MONTGOMERY/GPU/5", "MOD_POW/SCALAR/5", "modPow"}) {
+            try {
+                PowStrategy.parse(invalid);
+                fail("Parsed " + invalid);
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testBucket() {
+        assertEquals(256, Autotuner.bucket(1));
+        assertEquals(256, Autotuner.bucket(256));
+        assertEquals(512, Autotuner.bucket(257));
+        assertEquals(4096, Autotuner.bucket(2600));
+        assertEquals(4096, Autotuner.bucket(4096));
+    }
+
+    @Test
+    public void testStrategy() {
+        Autotuner tuner = new Autotuner();
+        BigInteger N = modulus();
+        PowStrategy variable = tuner.strategy(N, Autotuner.Base.VARIABLE, 300);
+        assertNotEquals(PowStrategy.Method.FIXED_BASE, variable.getMethod());
+        assertNotNull(tuner.strategy(N, Autotuner.Base.FIXED, 300));
+
+        // Same shape, also for another modulus of the same size
+        assertSame(variable, tuner.strategy(modulus(), Autotuner.Base.VARIABLE, 500));
+        assertEquals(2, tuner.getDecisions().size());
+        assertEquals(variable, tuner.getDecisions().get("512.variable.512"));
+    }
+
+    @Test
+    public void testFile() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("tuning").resolve("strategies.properties");
+        Autotuner tuner = new Autotuner(file);
+        tuner.strategy(modulus(), Autotuner.Base.FIXED, 1000);
+        assertTrue(Files.exists(file));
+        assertEquals(tuner.getDecisions(), new Autotuner(file).getDecisions());
+
+        Properties properties = read(file);
+        properties.setProperty("host", "another host");
+        write(file, properties);
+        assertTrue(new Autotuner(file).getDecisions().isEmpty());
+    }
+
+    @Test
+    public void testDefault() throws IOException {
+        SecretOrderGroup group = group();
+        BigInteger N = group.getN();
+
+        // Decisions that no calibration would make, so that the Montgomery path is taken
+        Properties properties = new Properties();
+        properties.setProperty("host", Autotuner.host());
+        properties.setProperty("512.fixed.256", "MONTGOMERY/SCALAR/4");
+        properties.setProperty("512.variable.256", "MONTGOMERY/SCALAR/6");
+        properties.setProperty("512.variable.512", "MOD_POW");
+        properties.setProperty("512.fixed.512", "FIXED_BASE");
+        properties.setProperty("512.fixed.1024", "unknown");
+        Path file = folder.getRoot().toPath().resolve("strategies.properties");
+        write(file, properties);
+        Autotuner tuner = new Autotuner(file);
+        assertEquals(4, tuner.getDecisions().size());
+        Autotuner.setDefault(tuner);
+
+        GroupContext context = GroupInterner.context(group);
+        BigInteger base = new BigInteger(600, RANDOM);
+        for (int bits : new int[]{100, 256, 400, 512}) {
+            BigInteger exponent = new BigInteger(bits, RANDOM);
+            assertEquals(group.getG().modPow(exponent, N), context.powG(exponent));
+            assertEquals(group.getH().modPow(exponent.negate(), N), context.powH(exponent.negate()));
+            assertEquals(base.modPow(exponent, N), Exponentiation.modPow(base, exponent, N));
+        }
+        assertEquals(4, tuner.getDecisions().size());
+    }
+
+    private static SecretOrderGroup group() {
+        BigInteger N = modulus();
+        BigInteger g = new BigInteger(512, RANDOM).pow(2).mod(N);
+        BigInteger h = g.modPow(new BigInteger(500, RANDOM), N);
+        return new SecretOrderGroup(N, g, h);
+    }
+
+    private static Properties read(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        return properties;
+    }
+
+    private static void write(Path file, Properties properties) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            properties.store(writer, null);
+        }
+    }
+}
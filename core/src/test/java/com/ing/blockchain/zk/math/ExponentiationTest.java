@@ -0,0 +1,75 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.math;
+
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link Exponentiation}.
+ */
+public class ExponentiationTest {
+
+    private static final Random RANDOM = new Random(3);
+
+    private static BigInteger modulus(int bits) {
+        return new BigInteger(bits, RANDOM).setBit(bits - 1).setBit(0);
+    }
+
+    @Test
+    public void testMontgomeryPerModulus() {
+        // Several groups in use at the same time keep their constants
+        BigInteger[] moduli = {modulus(512), modulus(1024), modulus(2048)};
+        MontgomeryParams[] params = new MontgomeryParams[moduli.length];
+        for (int i = 0; i < moduli.length; i++) {
+            params[i] = Exponentiation.montgomery(moduli[i], MontgomeryKernel.SCALAR);
+        }
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < moduli.length; i++) {
+                assertSame(params[i], Exponentiation.montgomery(moduli[i], MontgomeryKernel.SCALAR));
+            }
+        }
+        assertEquals(moduli[1], Exponentiation.montgomery(moduli[1], MontgomeryKernel.SCALAR).getModulus());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedModulusIsEvicted() {
+        BigInteger first = modulus(256);
+        MontgomeryParams params = Exponentiation.montgomery(first, MontgomeryKernel.SCALAR);
+        for (int i = 0; i < Exponentiation.CACHED_MODULI; i++) {
+            Exponentiation.montgomery(modulus(256), MontgomeryKernel.SCALAR);
+        }
+        assertNotSame(params, Exponentiation.montgomery(first, MontgomeryKernel.SCALAR));
+    }
+
+    @Test
+    public void testMultiPow() {
+        BigInteger N = modulus(1024);
+        BigInteger[] bases = {new BigInteger(1000, RANDOM), new BigInteger(1000, RANDOM)};
+        BigInteger[] exponents = {new BigInteger(400, RANDOM), new BigInteger(256, RANDOM)};
+        assertEquals(bases[0].modPow(exponents[0], N).multiply(bases[1].modPow(exponents[1], N)).mod(N),
+                Exponentiation.multiPow(bases, exponents, N));
+    }
+}
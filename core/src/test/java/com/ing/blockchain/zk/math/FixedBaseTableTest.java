@@ -0,0 +1,98 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.math;
+
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link FixedBaseTable} and {@link MontgomeryParams}.
+ */
+public class FixedBaseTableTest {
+
+    private static final Random RANDOM = new Random(1);
+
+    private static BigInteger modulus(int bits) {
+        return BigInteger.probablePrime(bits / 2, RANDOM).multiply(BigInteger.probablePrime(bits - bits / 2, RANDOM));
+    }
+
+    @Test
+    public void testMontgomeryMultiplication() {
+        for (int bits : new int[]{33, 64, 512, 1000, 2048}) {
+            BigInteger N = modulus(bits);
+            MontgomeryParams params = new MontgomeryParams(N);
+            assertEquals(-1, N.intValue() * params.getN0Inv());
+            assertEquals(BigInteger.ONE, params.fromMontgomery(params.one()));
+
+            for (int i = 0; i < 20; i++) {
+                BigInteger a = new BigInteger(bits + 8, RANDOM);
+                BigInteger b = i == 0 ? N.subtract(BigInteger.ONE) : new BigInteger(bits, RANDOM).mod(N);
+                int[] product = params.toMontgomery(a);
+                params.multiply(product, params.toMontgomery(b), product);
+                assertEquals(a.multiply(b).mod(N), params.fromMontgomery(product));
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEvenModulus() {
+        new MontgomeryParams(BigInteger.valueOf(1L << 40));
+    }
+
+    @Test
+    public void testPow() {
+        BigInteger N = modulus(1024);
+        BigInteger base = new BigInteger(1023, RANDOM);
+        FixedBaseTable table = new FixedBaseTable(new MontgomeryParams(N), base, 4096);
+
+        assertEquals(BigInteger.ONE, table.pow(BigInteger.ZERO));
+        assertEquals(base, table.pow(BigInteger.ONE));
+        assertEquals(base.modInverse(N), table.pow(BigInteger.ONE.negate()));
+        for (int i = 0; i < 100; i++) {
+            BigInteger exponent = new BigInteger(RANDOM.nextInt(4096), RANDOM);
+            if (i % 2 == 1) {
+                exponent = exponent.negate();
+            }
+            assertEquals(base.modPow(exponent, N), table.pow(exponent));
+        }
+        assertTrue(table.size() <= 4096 / FixedBaseTable.WINDOW_BITS + 1);
+
+        // Exponents that are too large for the table are computed without it
+        BigInteger large = BigInteger.ONE.shiftLeft(5000).add(BigInteger.TEN);
+        assertEquals(base.modPow(large, N), table.pow(large));
+        assertTrue(table.size() <= 4096 / FixedBaseTable.WINDOW_BITS + 1);
+    }
+
+    @Test
+    public void testRowsOnDemand() {
+        BigInteger N = modulus(512);
+        FixedBaseTable table = new FixedBaseTable(new MontgomeryParams(N), BigInteger.valueOf(3), 2048);
+        assertEquals(0, table.size());
+        table.pow(BigInteger.ONE.shiftLeft(100));
+        assertEquals(101 / FixedBaseTable.WINDOW_BITS + 1, table.size());
+        table.precompute(2048);
+        assertEquals(2048 / FixedBaseTable.WINDOW_BITS + 1, table.size());
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.math;
+
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Unit tests for {@link MontgomeryKernel}, {@link MontgomeryParams#pow} and {@link MontgomeryParams#multiPow}. The
+ * vector kernel is only tested if the JVM runs with the Vector API, as the build does on JDK 16 or later.
+ */
+public class MontgomeryKernelTest {
+
+    private static final Random RANDOM = new Random(2);
+
+    // Limb counts around multiples of the vector lanes, and the sizes of the security profiles
+    private static final int[] BITS = {31, 64, 65, 200, 255, 257, 1024, 2048, 3072, 4096};
+
+    private static BigInteger modulus(int bits) {
+        return new BigInteger(bits, RANDOM).setBit(bits - 1).setBit(0);
+    }
+
+    @Test
+    public void testScalar() {
+        testKernel(MontgomeryKernel.SCALAR);
+    }
+
+    @Test
+    public void testVector() {
+        assumeTrue(MontgomeryKernel.VECTOR.isAvailable());
+        testKernel(MontgomeryKernel.VECTOR);
+    }
+
+    private static void testKernel(MontgomeryKernel kernel) {
+        for (int bits : BITS) {
+            BigInteger N = modulus(bits);
+            MontgomeryParams params = new MontgomeryParams(N, kernel);
+            assertEquals(kernel, params.getKernel());
+            assertEquals(BigInteger.ONE, params.fromMontgomery(params.one()));
+
+            BigInteger max = N.subtract(BigInteger.ONE);
+            for (int i = 0; i < 20; i++) {
+                BigInteger a = i == 0 ? max : new BigInteger(bits, RANDOM).mod(N);
+                BigInteger b = i <= 1 ? max : new BigInteger(bits, RANDOM).mod(N);
+                int[] product = params.toMontgomery(a);
+                params.multiply(product, params.toMontgomery(b), product);
+                assertEquals(a.multiply(b).mod(N), params.fromMontgomery(product));
+
+                int[] square = params.toMontgomery(a);
+                params.multiply(square, square, square);
+                assertEquals(a.multiply(a).mod(N), params.fromMontgomery(square));
+            }
+
+            BigInteger base = new BigInteger(bits + 10, RANDOM);
+            for (int i = 0; i < 5; i++) {
+                BigInteger exponent = new BigInteger(1 + RANDOM.nextInt(2 * bits), RANDOM);
+                assertEquals(base.modPow(exponent, N), params.pow(base, exponent));
+            }
+        }
+    }
+
+    @Test
+    public void testPowEdgeCases() {
+        BigInteger N = modulus(1024).nextProbablePrime();
+        MontgomeryParams params = new MontgomeryParams(N, MontgomeryKernel.SCALAR);
+        BigInteger base = new BigInteger(1000, RANDOM);
+        assertEquals(BigInteger.ONE, params.pow(base, BigInteger.ZERO));
+        assertEquals(base, params.pow(base, BigInteger.ONE));
+        assertEquals(BigInteger.ZERO, params.pow(N, BigInteger.TEN));
+        assertEquals(base.modInverse(N), params.pow(base, BigInteger.ONE.negate()));
+        // Runs of zeros longer than a window, and windows that are all ones
+        for (String bits : new String[]{"100000000001", "11111111111111", "1000001000001", "10"}) {
+            BigInteger exponent = new BigInteger(bits, 2);
+            assertEquals(base.modPow(exponent, N), params.pow(base, exponent));
+        }
+    }
+
+    @Test
+    public void testMultiPow() {
+        BigInteger N = modulus(1024).nextProbablePrime();
+        for (MontgomeryKernel kernel : MontgomeryKernel.values()) {
+            if (!kernel.isAvailable()) {
+                continue;
+            }
+            MontgomeryParams params = new MontgomeryParams(N, kernel);
+            // Exponents of different lengths and signs, zero, and a base that is 1
+            BigInteger[] bases = {new BigInteger(1000, RANDOM), new BigInteger(1100, RANDOM), BigInteger.ONE,
+                    new BigInteger(500, RANDOM)};
+            BigInteger[] exponents = {new BigInteger(1400, RANDOM), new BigInteger(256, RANDOM).negate(),
+                    new BigInteger(300, RANDOM), BigInteger.ZERO};
+            BigInteger expected = BigInteger.ONE;
+            for (int i = 0; i < bases.length; i++) {
+                expected = expected.multiply(bases[i].modPow(exponents[i], N)).mod(N);
+            }
+            for (int window = 1; window <= MontgomeryParams.MAX_WINDOW_BITS; window++) {
+                assertEquals(expected, params.multiPow(bases, exponents, window));
+            }
+            BigInteger[] zeros = {BigInteger.ZERO, BigInteger.ZERO, BigInteger.ZERO, BigInteger.ZERO};
+            assertEquals(BigInteger.ONE, params.multiPow(bases, zeros, 5));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMultiPowLengths() {
+        new MontgomeryParams(modulus(256)).multiPow(new BigInteger[2], new BigInteger[1], 5);
+    }
+
+    @Test
+    public void testKernelsAgree() {
+        assumeTrue(MontgomeryKernel.VECTOR.isAvailable());
+        BigInteger N = modulus(2048);
+        MontgomeryParams scalar = new MontgomeryParams(N, MontgomeryKernel.SCALAR);
+        MontgomeryParams vector = new MontgomeryParams(N, MontgomeryKernel.VECTOR);
+        int[] x = scalar.toMontgomery(new BigInteger(2048, RANDOM));
+        int[] y = x.clone();
+        for (int i = 0; i < 1000; i++) {
+            scalar.multiply(x, x, x);
+            vector.multiply(y, y, y);
+        }
+        assertArrayEquals(x, y);
+    }
+
+    @Test
+    public void testDefault() {
+        assertTrue(MontgomeryKernel.getDefault().isAvailable());
+        assertEquals(MontgomeryKernel.getDefault(), new MontgomeryParams(BigInteger.valueOf(101)).getKernel());
+    }
+}
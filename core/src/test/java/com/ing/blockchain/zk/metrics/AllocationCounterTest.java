@@ -0,0 +1,54 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.metrics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Unit tests for {@link AllocationCounter}.
+ */
+public class AllocationCounterTest {
+
+    private static volatile byte[] sink;
+
+    @Test
+    public void testCurrentThread() {
+        assumeTrue(AllocationCounter.isSupported());
+        long before = AllocationCounter.currentThread();
+        sink = new byte[1 << 20];
+        long allocated = AllocationCounter.currentThread() - before;
+        assertTrue(allocated >= 1 << 20);
+        assertTrue(allocated < 2 << 20);
+    }
+
+    @Test
+    public void testOtherThread() throws InterruptedException {
+        assumeTrue(AllocationCounter.isSupported());
+        long before = AllocationCounter.currentThread();
+        Thread thread = new Thread(() -> sink = new byte[4 << 20]);
+        thread.start();
+        thread.join();
+        assertTrue(AllocationCounter.currentThread() - before < 1 << 20);
+    }
+}
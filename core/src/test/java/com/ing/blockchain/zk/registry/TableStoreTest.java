@@ -0,0 +1,161 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.registry;
+
+import com.ing.blockchain.zk.dto.SecretOrderGroup;
+import com.ing.blockchain.zk.math.GroupContext;
+import com.ing.blockchain.zk.math.GroupInterner;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static java.math.BigInteger.ONE;
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link TableStore}.
+ */
+public class TableStoreTest {
+
+    private static final Random RANDOM = new Random(3);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private TableStore store;
+
+    @Before
+    public void createStore() throws IOException {
+        store = new TableStore(folder.getRoot().toPath().resolve("tables"));
+    }
+
+    // A new group for every test, so that no other test has tables in its context
+    private static SecretOrderGroup group() {
+        BigInteger N = BigInteger.probablePrime(256, RANDOM).multiply(BigInteger.probablePrime(256, RANDOM));
+        BigInteger root = new BigInteger(512, RANDOM).mod(N);
+        BigInteger g = root.multiply(root).mod(N);
+        return new SecretOrderGroup(N, g, g.modPow(new BigInteger(256, RANDOM), N));
+    }
+
+    @Test
+    public void testAttach() throws IOException {
+        SecretOrderGroup group = group();
+        assertNull(store.load(group));
+        assertFalse(store.attach(group));
+        assertTrue(Files.isRegularFile(store.path(GroupFingerprint.of(group))));
+
+        GroupContext context = GroupInterner.context(group);
+        assertTrue(context.hasTables());
+        for (int i = 0; i < 20; i++) {
+            BigInteger exponent = new BigInteger(RANDOM.nextInt(context.getTableBits()), RANDOM);
+            assertEquals(group.getG().modPow(exponent, group.getN()), context.powG(exponent));
+            assertEquals(group.getH().modPow(exponent, group.getN()), context.powH(exponent));
+        }
+
+        // The next process finds the file
+        assertTrue(store.attach(group));
+        TableStore.Tables tables = store.load(group);
+        assertNotNull(tables);
+        assertEquals(tables.getG().size(), tables.getG().getMappedRows());
+        assertEquals((context.getTableBits() + 5) / 6, tables.getH().getMappedRows());
+        BigInteger exponent = new BigInteger(context.getTableBits(), RANDOM);
+        assertEquals(group.getH().modPow(exponent, group.getN()), tables.getH().pow(exponent));
+        // Larger exponents than the table covers
+        assertEquals(group.getH().modPow(exponent.shiftLeft(64), group.getN()),
+                tables.getH().pow(exponent.shiftLeft(64)));
+    }
+
+    @Test
+    public void testCorruptFile() throws IOException {
+        SecretOrderGroup group = group();
+        store.write(group);
+        Path path = store.path(GroupFingerprint.of(group));
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[bytes.length - 10] ^= 1;
+        Files.write(path, bytes);
+        assertNull(store.load(group));
+
+        // Replaced by a valid file
+        assertFalse(store.attach(group));
+        assertNotNull(store.load(group));
+
+        Files.write(path, new byte[10]);
+        assertNull(store.load(group));
+    }
+
+    @Test
+    public void testTamperedRowsWithDigest() throws IOException {
+        SecretOrderGroup group = group();
+        store.write(group);
+        Path path = store.path(GroupFingerprint.of(group));
+        byte[] bytes = Files.readAllBytes(path);
+
+        // Change every row of h after row 0 and write a matching digest, as someone who can write the directory can
+        int rowBytes = (bytes.length - TableStore.HEADER_BYTES) / 2;
+        int limbBytes = (group.getN().bitLength() + 31) / 32 * Integer.BYTES;
+        for (int i = TableStore.HEADER_BYTES + rowBytes + limbBytes; i < bytes.length; i += limbBytes) {
+            bytes[i] ^= 1;
+        }
+        SHA256Digest digest = new SHA256Digest();
+        digest.update(bytes, TableStore.HEADER_BYTES, bytes.length - TableStore.HEADER_BYTES);
+        digest.doFinal(bytes, TableStore.DIGEST_OFFSET);
+        Files.write(path, bytes);
+        assertNull(store.load(group));
+
+        // Replaced by a valid file
+        assertFalse(store.attach(group));
+        BigInteger exponent = new BigInteger(1000, RANDOM);
+        assertEquals(group.getH().modPow(exponent, group.getN()), GroupInterner.context(group).powH(exponent));
+    }
+
+    @Test
+    public void testOtherGroup() throws IOException {
+        SecretOrderGroup group = group();
+        SecretOrderGroup other = group();
+        store.write(other);
+        Files.copy(store.path(GroupFingerprint.of(other)), store.path(GroupFingerprint.of(group)));
+        assertNull(store.load(group));
+    }
+
+    @Test
+    public void testRegistry() {
+        SecretOrderGroup group = group();
+        GroupRegistry registry = new GroupRegistry(store);
+        GroupFingerprint fingerprint = registry.register(group);
+        assertTrue(Files.isRegularFile(store.path(fingerprint)));
+        assertTrue(GroupInterner.context(group).hasTables());
+        assertEquals(group.getG().modPow(ONE.shiftLeft(100), group.getN()),
+                GroupInterner.context(group).powG(ONE.shiftLeft(100)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidGroup() throws IOException {
+        store.attach(new SecretOrderGroup(BigInteger.valueOf(101 * 103), ONE, BigInteger.valueOf(4)));
+    }
+}
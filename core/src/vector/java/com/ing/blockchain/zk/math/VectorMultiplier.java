@@ -0,0 +1,100 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.math;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link MontgomeryKernel#VECTOR}: Montgomery multiplication with the Vector API, in a source set of its own because
+ * it needs JDK 16 or later. Only {@link MontgomeryKernel} refers to this class, by name.
+ *
+ * Row i adds a * b_i and m_i * N to the columns i to i + length. The 32 bit limbs are zero-extended to 64 bit lanes,
+ * so a lane multiplication gives the whole product of two limbs. Carries are not propagated within a row: the low
+ * halves of the products are added to one array of column sums and the high halves to another, shifted by one column,
+ * and only column i is carried into column i + 1 when row i is done. Every row adds less than 2^33 to a column, so the
+ * sums cannot overflow for moduli of up to 2^30 limbs.
+ */
+final class VectorMultiplier extends MontgomeryMultiplier {
+
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+    // N zero-extended, padded with zeros to a multiple of the number of lanes
+    private final long[] modulus;
+    private final int padded;
+
+    VectorMultiplier(int[] n, int n0Inv) {
+        super(n, n0Inv);
+        this.padded = SPECIES.loopBound(n.length + SPECIES.length() - 1);
+        this.modulus = new long[padded];
+        for (int j = 0; j < n.length; j++) {
+            modulus[j] = n[j] & MASK;
+        }
+    }
+
+    @Override
+    void multiply(int[] a, int[] b, int[] result) {
+        int length = n.length;
+        long[] x = new long[padded];
+        for (int j = 0; j < length; j++) {
+            x[j] = a[j] & MASK;
+        }
+
+        // Column c is low[c] + high[c - 1]
+        long[] low = new long[2 * padded + 1];
+        long[] high = new long[2 * padded];
+        for (int i = 0; i < length; i++) {
+            addProducts(x, b[i] & MASK, low, high, i);
+            long column = low[i] + (i > 0 ? high[i - 1] : 0);
+            long m = ((column & MASK) * n0Inv) & MASK;
+            addProducts(modulus, m, low, high, i);
+            // The low 32 bits of the column are 0 now
+            column = low[i] + (i > 0 ? high[i - 1] : 0);
+            low[i + 1] += column >>> 32;
+        }
+
+        // t = columns length to 2 * length, which is less than 2N
+        long[] t = new long[length + 1];
+        long carry = 0;
+        for (int j = 0; j < length; j++) {
+            long column = low[length + j] + high[length + j - 1] + carry;
+            t[j] = column & MASK;
+            carry = column >>> 32;
+        }
+        t[length] = high[2 * length - 1] + low[2 * length] + carry;
+        subtractModulus(t, result);
+    }
+
+    // Adds the products of the limbs of x and a 32 bit factor to the columns from the offset
+    private void addProducts(long[] x, long factor, long[] low, long[] high, int offset) {
+        LongVector f = LongVector.broadcast(SPECIES, factor);
+        for (int j = 0; j < padded; j += SPECIES.length()) {
+            LongVector product = LongVector.fromArray(SPECIES, x, j).mul(f);
+            LongVector.fromArray(SPECIES, low, offset + j)
+                    .add(product.and(MASK))
+                    .intoArray(low, offset + j);
+            LongVector.fromArray(SPECIES, high, offset + j)
+                    .add(product.lanewise(VectorOperators.LSHR, 32))
+                    .intoArray(high, offset + j);
+        }
+    }
+}
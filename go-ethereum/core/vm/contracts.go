@@ -19,6 +19,7 @@ package vm
 import (
 
 	// Standard golang libs:
+	"bytes"
 	"crypto/sha256"
 	"errors"
 	"math/big"
@@ -390,8 +391,20 @@ func (c *bn256Pairing) Run(input []byte) ([]byte, error) {
 
 type zkpRangeProof struct{}
 
+// zkpRangeProofGas is the gas of one range proof, a call of validateBatch pays it for every item.
+const zkpRangeProofGas = uint64(180000)
+
+// keccak256("validateBatch(bytes)")[0:4], calls with another selector are calls of validate.
+var validateBatchSelector = []byte{0x56, 0x45, 0x48, 0x7d}
+
 func(c *zkpRangeProof) RequiredGas(input []byte) uint64 {
-	return uint64(180000)
+	if isBatch(input) {
+		// A malformed batch costs one item, Run rejects it
+		if starts, err := batchItemBounds(input); err == nil {
+			return uint64(len(starts) - 1) * zkpRangeProofGas
+		}
+	}
+	return zkpRangeProofGas
 }
 
 var (
@@ -399,6 +412,18 @@ var (
 )
 
 func(c *zkpRangeProof) Run(input []byte) ([]byte, error) {
+	if isBatch(input) {
+		return runBatch(input)
+	}
+	return runRangeProof(input)
+}
+
+func isBatch(input []byte) bool {
+	return len(input) >= 4 && bytes.Equal(input[:4], validateBatchSelector)
+}
+
+// runRangeProof validates the input of validate(uint lower, uint upper, string commitment, string proof).
+func runRangeProof(input []byte) ([]byte, error) {
 	const OFFSET = 4
 
 	if len(input) < OFFSET + 6 * 32 {
@@ -409,7 +434,8 @@ func(c *zkpRangeProof) Run(input []byte) ([]byte, error) {
 	upper := new(big.Int).SetBytes(input[36:68])
 	startProof := new(big.Int).SetBytes(input[100:132]).Int64() + OFFSET
 
-	if startProof <= 164 || startProof + 32 > int64(len(input)) {
+	// The second condition also holds if startProof + 32 overflows
+	if startProof <= 164 || startProof > int64(len(input)) - 32 {
 		return nil, errInvalidInputRangeProof
 	}
 
@@ -439,4 +465,73 @@ func(c *zkpRangeProof) Run(input []byte) ([]byte, error) {
     	return true32Byte, nil
     }
 	return false32Byte, nil	
+}
+
+// runBatch validates the input of validateBatch(bytes items): a word with k, k words with the offsets of the items
+// relative to the start of the argument, and the items, each the input of validate without the selector. It
+// returns a bitmap of the valid items as ABI encoded bytes, bit i % 8 of byte i / 8 is set if item i is valid. An
+// item that validate rejects with an error is invalid.
+func runBatch(input []byte) ([]byte, error) {
+	starts, err := batchItemBounds(input)
+	if err != nil {
+		return nil, err
+	}
+	items := len(starts) - 1
+	bitmapBytes := (items + 7) / 8
+	output := make([]byte, 64 + (bitmapBytes + 31) / 32 * 32)
+	output[31] = 32
+	copy(output[32:64], common.LeftPadBytes(big.NewInt(int64(bitmapBytes)).Bytes(), 32))
+	for i := 0; i < items; i++ {
+		// The 4 bytes before an item stand in for the selector of validate
+		result, err := runRangeProof(input[starts[i] - 4:starts[i + 1]])
+		if err == nil && bytes.Equal(result, true32Byte) {
+			output[64 + i / 8] |= 1 << uint(i % 8)
+		}
+	}
+	return output, nil
+}
+
+// batchItemBounds returns the start of each item of a call of validateBatch, followed by the end of the last item.
+func batchItemBounds(input []byte) ([]int, error) {
+	if len(input) < 4 + 3 * 32 || !isBatch(input) {
+		return nil, errInvalidInputRangeProof
+	}
+	offset, ok := readLength(input, 4, len(input))
+	if !ok {
+		return nil, errInvalidInputRangeProof
+	}
+	argument := 4 + offset + 32
+	size, ok := readLength(input, argument - 32, len(input))
+	end := argument + size
+	if !ok || end > len(input) || size < 32 {
+		return nil, errInvalidInputRangeProof
+	}
+	count, ok := readLength(input, argument, end)
+	if !ok || count == 0 || count > (size - 32) / 32 {
+		return nil, errInvalidInputRangeProof
+	}
+
+	table := argument + 32
+	starts := make([]int, count + 1)
+	starts[count] = end
+	for i := 0; i < count; i++ {
+		start, ok := readLength(input, table + i * 32, end)
+		if !ok || start < 32 + count * 32 || start > size || (i > 0 && argument + start < starts[i - 1]) {
+			return nil, errInvalidInputRangeProof
+		}
+		starts[i] = argument + start
+	}
+	return starts, nil
+}
+
+// readLength reads the word at the offset as a length of at most max.
+func readLength(input []byte, offset int, max int) (int, bool) {
+	if offset + 32 > len(input) {
+		return 0, false
+	}
+	value := new(big.Int).SetBytes(input[offset:offset + 32])
+	if value.Cmp(big.NewInt(int64(max))) > 0 {
+		return 0, false
+	}
+	return int(value.Int64()), true
 }
\ No newline at end of file
@@ -1,3 +1,8 @@
 contract PrecompiledRangeProof {
 	function validate(uint lower, uint upper, string commitment, string proof) constant returns (bool);
+
+	// items: k packed validate arguments (count, offsets, items), see CalldataEncoder.encodeBatch
+	// returns a bitmap in which bit i % 8 of byte i / 8 is set if item i is valid
+	// zkpRangeProof dispatches on this selector and charges the gas of validate for each item
+	function validateBatch(bytes items) constant returns (bytes);
 }
@@ -20,6 +20,11 @@
 package com.ing.blockchain.zk;
 
 import com.ing.blockchain.zk.dto.SecretOrderGroup;
+import com.ing.blockchain.zk.jfr.Outcome;
+import com.ing.blockchain.zk.jfr.ProofEvents;
+import com.ing.blockchain.zk.jfr.Span;
+import com.ing.blockchain.zk.metrics.Metrics;
+import com.ing.blockchain.zk.metrics.Phase;
 import org.bouncycastle.util.BigIntegers;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,7 +32,6 @@ import org.slf4j.LoggerFactory;
 import java.math.BigInteger;
 import java.security.SecureRandom;
 
-import static com.ing.blockchain.zk.util.TimerUtil.timeAndLog;
 import static java.math.BigInteger.ONE;
 
 public class SecretOrderGroupGenerator {
@@ -36,8 +40,7 @@ public class SecretOrderGroupGenerator {
 
     private final int bitLength;
     private final int certainty;
-
-    private static SecureRandom rnd = new SecureRandom();
+    private final SecureRandom rnd;
 
     public SecretOrderGroupGenerator() {
         this(1024);
@@ -48,32 +51,43 @@ public class SecretOrderGroupGenerator {
     }
 
     public SecretOrderGroupGenerator(int bitlen, int cert) {
+        this(bitlen, cert, new SecureRandom());
+    }
+
+    /**
+     * @param rnd the source of the primes and generators; only a reproducible source for test vectors, like
+     *            SeededRandom of the bench module, makes the group reproducible
+     */
+    public SecretOrderGroupGenerator(int bitlen, int cert, SecureRandom rnd) {
         bitLength = bitlen;
         certainty = cert;
+        this.rnd = rnd;
     }
 
     public SecretOrderGroup generate() {
+        long start = Metrics.start();
+        Span span = ProofEvents.groupGeneration(bitLength);
 
-        BigInteger[] safePrimes = generateSafePrimes(bitLength, certainty);
-        BigInteger[] generators = findGenerators(safePrimes);
+        BigInteger[] safePrimes = generateSafePrimes(bitLength, certainty, rnd);
+        BigInteger[] generators = findGenerators(safePrimes, rnd);
 
         BigInteger N = safePrimes[0].multiply(safePrimes[1]);
+        SecretOrderGroup group = new SecretOrderGroup(N, generators[0], generators[1]);
 
-        return new SecretOrderGroup(N, generators[0], generators[1]);
+        span.setGroup(group);
+        span.end(Outcome.SUCCESS);
+        Metrics.stop(Phase.GROUP_GENERATION, start);
+        return group;
     }
 
 
-    private static BigInteger[] generateSafePrimes(int bitlength, int certainty) {
-        BigInteger P = timeAndLog("Generating safe prime 1", () -> generateSafePrime(bitlength - 1, certainty));
-
-        BigInteger Q = timeAndLog("Generating safe prime 2", () -> {
-            BigInteger result;
-            do {
-                result = generateSafePrime(bitlength - 1, certainty);
-            } while (result.equals(P));
+    private static BigInteger[] generateSafePrimes(int bitlength, int certainty, SecureRandom rnd) {
+        BigInteger P = generateSafePrime(bitlength - 1, certainty, rnd);
 
-            return result;
-        });
+        BigInteger Q;
+        do {
+            Q = generateSafePrime(bitlength - 1, certainty, rnd);
+        } while (Q.equals(P));
 
         return new BigInteger[]{P, Q};
     }
@@ -81,7 +95,9 @@ public class SecretOrderGroupGenerator {
     /**
      * Generates a safe prime P such that (P - 1) / 2 is also prime.
      */
-    private static BigInteger generateSafePrime(int bitlength, int certainty) {
+    private static BigInteger generateSafePrime(int bitlength, int certainty, SecureRandom rnd) {
+        long start = Metrics.start();
+        Span span = ProofEvents.safePrime(bitlength);
         BigInteger bigPrime, smallPrime;
         int attempts = 0;
         do {
@@ -96,6 +112,9 @@ public class SecretOrderGroupGenerator {
             // check whether smallPrime is also prime, otherwise generate new bigPrime
         } while (!smallPrime.isProbablePrime(certainty));
 
+        span.setAttempts(attempts);
+        span.end(Outcome.SUCCESS);
+        Metrics.stop(Phase.SAFE_PRIME, start);
         LOGGER.debug("Found safe prime after " + attempts + " attempts");
         return bigPrime;
     }
@@ -103,7 +122,7 @@ public class SecretOrderGroupGenerator {
     // Find two generators of G_pq.
     // This is step 2 to 4 in the "Set-up procedure" in the paper from Fujisaki and Okamoto, page 19
     // Therefore the generators for G_pq are called b0, b1 instead of g, h
-    private static BigInteger[] findGenerators(BigInteger[] safePrimes) {
+    private static BigInteger[] findGenerators(BigInteger[] safePrimes, SecureRandom rnd) {
         BigInteger P = safePrimes[0];
         BigInteger Q = safePrimes[1];
         BigInteger p = safePrimes[0].subtract(ONE).divide(TWO);
@@ -113,10 +132,10 @@ public class SecretOrderGroupGenerator {
         // Step 2
         BigInteger g_p, g_q;
 
-        g_p = findGeneratorForSafePrime(P);
+        g_p = findGeneratorForSafePrime(P, rnd);
         g_p = g_p.modPow(BigIntegers.createRandomInRange(ONE, p.subtract(ONE), rnd), P);
 
-        g_q = findGeneratorForSafePrime(Q);
+        g_q = findGeneratorForSafePrime(Q, rnd);
         g_q = g_q.modPow(BigIntegers.createRandomInRange(ONE, q.subtract(ONE), rnd), Q);
 
         // Step 3
@@ -138,7 +157,7 @@ public class SecretOrderGroupGenerator {
     }
 
     /* For the given safe prime P, find a generator for a subgroup of order (P - 1) / 2. */
-    private static BigInteger findGeneratorForSafePrime(BigInteger P) {
+    private static BigInteger findGeneratorForSafePrime(BigInteger P, SecureRandom rnd) {
         // If P is a safe prime with p = (P - 1) / 2, then generated groups modulo P have order 1, 2, p or 2p
         // According to Fujisaki and Okamoto we need a group of order p.
         // To know that a generator does not have order 1 or 2, we check g^2 != 1
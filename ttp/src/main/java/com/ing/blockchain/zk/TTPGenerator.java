@@ -21,7 +21,15 @@ package com.ing.blockchain.zk;
 
 import com.ing.blockchain.zk.dto.Commitment;
 import com.ing.blockchain.zk.dto.SecretOrderGroup;
+import com.ing.blockchain.zk.dto.SecurityProfile;
 import com.ing.blockchain.zk.dto.TTPMessage;
+import com.ing.blockchain.zk.jfr.Outcome;
+import com.ing.blockchain.zk.jfr.ProofEvents;
+import com.ing.blockchain.zk.jfr.Span;
+import com.ing.blockchain.zk.math.GroupContext;
+import com.ing.blockchain.zk.math.GroupInterner;
+import com.ing.blockchain.zk.metrics.Metrics;
+import com.ing.blockchain.zk.metrics.Phase;
 import org.bouncycastle.util.BigIntegers;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,6 +37,7 @@ import org.slf4j.LoggerFactory;
 import java.math.BigInteger;
 import java.security.SecureRandom;
 
+import static com.ing.blockchain.zk.metrics.OpAccounting.mulMod;
 import static java.math.BigInteger.ONE;
 
 public class TTPGenerator {
@@ -36,21 +45,37 @@ public class TTPGenerator {
     private static final Logger LOGGER = LoggerFactory.getLogger(SecretOrderGroup.class);
     private static final BigInteger TWO = BigInteger.valueOf(2);
 
-    // Security parameter that determines size of key in generated commitments
-    public static final int s = 552;
+    // Security parameter that determines size of key in generated commitments, see SecurityProfile
+    public static final int s = SecurityProfile.DEFAULT.getS();
 
     public static TTPMessage generateTTPMessage(BigInteger secretValue) {
-        System.out.println("Generating Secret Order Group.");
+        LOGGER.debug("Generating Secret Order Group");
         SecretOrderGroup group = new SecretOrderGroupGenerator().generate();
         return generateTTPMessage(secretValue, group);
     }
 
     public static TTPMessage generateTTPMessage(BigInteger secretValue, SecretOrderGroup group) {
-        System.out.println("Generating TTP Message");
+        return generateTTPMessage(secretValue, group, SecurityProfile.DEFAULT);
+    }
+
+    public static TTPMessage generateTTPMessage(BigInteger secretValue, SecretOrderGroup group,
+                                                SecurityProfile profile) {
+        return generateTTPMessage(secretValue, group, profile, new SecureRandom());
+    }
+
+    /**
+     * @param random the source of the commitment key; only a reproducible source for test vectors, like
+     *               SeededRandom of the bench module, makes the message reproducible
+     */
+    public static TTPMessage generateTTPMessage(BigInteger secretValue, SecretOrderGroup group,
+                                                SecurityProfile profile, SecureRandom random) {
+        LOGGER.debug("Generating TTP Message");
+        long start = Metrics.start();
 
-        BigInteger secretRandom = TTPGenerator.generateKey(group.getN(), new SecureRandom());
+        BigInteger secretRandom = TTPGenerator.generateKey(group.getN(), profile, random);
         Commitment commitment = commit(group, secretValue, secretRandom);
 
+        Metrics.stop(Phase.TTP_MESSAGE, start);
         return new TTPMessage(commitment, secretValue, secretRandom);
     }
 
@@ -66,10 +91,14 @@ public class TTPGenerator {
      * @return the commitment value
      */
     public static Commitment commit(final SecretOrderGroup group, final BigInteger valueToHide, final BigInteger key) {
-        final BigInteger N = group.getN();
-        final BigInteger g = group.getG();
-        final BigInteger h = group.getH();
-        final BigInteger commitment = g.modPow(valueToHide, N).multiply(h.modPow(key, N)).mod(N); // g^m*h^r mod N
+        final long start = Metrics.start();
+        final long allocated = Metrics.startAllocation();
+        final Span span = ProofEvents.commitment(group);
+        final GroupContext context = GroupInterner.context(group);
+        final BigInteger commitment = mulMod(context.powG(valueToHide), context.powH(key), group.getN()); // g^m*h^r mod N
+        span.end(Outcome.SUCCESS);
+        Metrics.stopAllocation(Phase.COMMITMENT, allocated);
+        Metrics.stop(Phase.COMMITMENT, start);
 
         return new Commitment(group, commitment);
     }
@@ -77,7 +106,15 @@ public class TTPGenerator {
     // Generate a random value between - 2(power s) * N + 1 and 2(power s) * N - 1.
     // This range is used for generating commitment keys.
     public static BigInteger generateKey(BigInteger N, SecureRandom random) {
-        BigInteger integerMax = TWO.pow(s).multiply(N).subtract(ONE);
+        return generateKey(N, SecurityProfile.DEFAULT, random);
+    }
+
+    /**
+     * @throws IllegalArgumentException if N is larger than the profile is for, see {@link SecurityProfile#checkModulus}
+     */
+    public static BigInteger generateKey(BigInteger N, SecurityProfile profile, SecureRandom random) {
+        profile.checkModulus(N);
+        BigInteger integerMax = TWO.pow(profile.getS()).multiply(N).subtract(ONE);
         return BigIntegers.createRandomInRange(integerMax.negate(), integerMax, random);
     }
 }
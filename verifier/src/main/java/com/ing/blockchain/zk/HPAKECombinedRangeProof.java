@@ -0,0 +1,239 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.ing.blockchain.zk;
+
+import com.ing.blockchain.zk.codec.BinaryCodec;
+import com.ing.blockchain.zk.dto.*;
+import com.ing.blockchain.zk.exception.ZeroKnowledgeException;
+import com.ing.blockchain.zk.math.GroupContext;
+import com.ing.blockchain.zk.math.GroupInterner;
+import com.ing.blockchain.zk.util.BigIntUtil;
+import com.ing.blockchain.zk.util.DigestUtil;
+import org.bouncycastle.util.BigIntegers;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+
+import static com.ing.blockchain.zk.metrics.OpAccounting.mulMod;
+import static java.math.BigInteger.ONE;
+import static java.math.BigInteger.ZERO;
+
+/**
+ * Version 2 of the range proof, see {@link CombinedRangeProof}. The equality proof of step 2 and the square proofs of
+ * steps 3 and 4 of {@link HPAKErangeProof} are one sigma protocol: the prover hashes the group, the range, k1, the
+ * commitment and all first-round messages (cPrime, cPrime1, cPrime2, cPrime3, F of both square proofs and W1 and W2
+ * of the three equality proofs) once, and answers all three sub-proofs with that challenge. s and t are hashes of the
+ * challenge, so unlike in version 1, where they are hashes of c1 and c2, they depend on cPrime1, cPrime2 and cPrime3.
+ *
+ * Compared to version 1 this takes one hash of the transcript and two of s and t instead of five hashes, and drops two
+ * challenges from the proof. The verifier computes every first-round message with one multi-exponentiation. Checks 9
+ * and 10 are exact, as in version 1.
+ *
+ * Proofs of version 1 stay valid, see {@link #validateRangeProof(byte[], Commitment, ClosedRange, SecurityProfile)}.
+ */
+public class HPAKECombinedRangeProof {
+
+    public static CombinedRangeProof calculateRangeProof(TTPMessage ttpMessage, ClosedRange range) {
+        return calculateRangeProof(ttpMessage, range, SecurityProfile.DEFAULT, new SecureRandom());
+    }
+
+    /**
+     * @param ttpMessage secret message from the trusted third party
+     * @param range the boundaries of the range
+     * @param profile the security parameters, the verifier needs to use the same k1
+     * @param random the source of all random values of the proof
+     * @throws IllegalArgumentException if N is larger than the profile is for
+     */
+    public static CombinedRangeProof calculateRangeProof(TTPMessage ttpMessage, ClosedRange range,
+                                                         SecurityProfile profile, SecureRandom random) {
+        SecretOrderGroup secretOrderGroup = ttpMessage.getCommitment().getGroup();
+        BigInteger N = secretOrderGroup.getN();
+        BigInteger g = secretOrderGroup.getG();
+        BigInteger h = secretOrderGroup.getH();
+        profile.checkModulus(N);
+        GroupContext group = GroupInterner.context(secretOrderGroup);
+        BinaryOperator<BigInteger> pow = group::pow;
+
+        BigInteger c = ttpMessage.getCommitment().getCommitmentValue();
+        BigInteger a = range.getStart();
+        BigInteger b = range.getEnd();
+        BigInteger m = ttpMessage.getX(); // number in range
+        BigInteger r = ttpMessage.getY(); // commitment key
+        BigInteger k2 = profile.getK2();
+
+        // Step 1
+        BigInteger c1 = BigIntUtil.divMod(c, group.powG(a.subtract(ONE)), N);
+
+        // Step 2
+        BigInteger rPrime = BigIntegers.createRandomInRange(ZERO, k2, random);
+        BigInteger cPrime = mulMod(pow.apply(c1, b.subtract(m).add(ONE)), group.powH(rPrime), N);
+        HPAKEEqualityConstraint.Round equality2 = HPAKEEqualityConstraint.commit(pow, N, g, c1, h, h,
+                b.subtract(m).add(ONE), r.negate(), rPrime, profile, random);
+
+        // Step 3
+        BigInteger w = BigIntegers.createRandomInRange(ONE, k2, random);
+        BigInteger rPrimePrime = BigIntegers.createRandomInRange(ZERO, k2, random);
+        BigInteger cPrimePrime = mulMod(pow.apply(cPrime, w.multiply(w)), group.powH(rPrimePrime), N);
+        HPAKESquare.Round square3 = HPAKESquare.commit(pow, N, cPrime, h, w, rPrimePrime, profile, random);
+
+        // Step 4
+        BigInteger[] m_ = HPAKErangeProof.takeRandomM(
+                w.multiply(w).multiply(m.subtract(a).add(ONE)).multiply(b.subtract(m).add(ONE)), random);
+        BigInteger[] r_ = HPAKErangeProof.takeRandomR(
+                w.multiply(w).multiply(b.subtract(m).add(ONE).multiply(r).add(rPrime)).add(rPrimePrime), N, random);
+
+        BigInteger m1 = m_[0];
+        BigInteger m2 = m_[1];
+        BigInteger m4 = m_[2];
+        BigInteger m3 = m4.multiply(m4);
+
+        BigInteger r1 = r_[0];
+        BigInteger r2 = r_[1];
+        BigInteger r3 = r_[2];
+
+        BigInteger cPrime1 = mulMod(group.powG(m1), group.powH(r1), N);
+        BigInteger cPrime2 = mulMod(group.powG(m2), group.powH(r2), N);
+        BigInteger cPrime3 = BigIntUtil.divMod(cPrimePrime, mulMod(cPrime1, cPrime2, N), N);
+        HPAKESquare.Round square4 = HPAKESquare.commit(pow, N, g, h, m4, r3, profile, random);
+
+        // The challenge of steps 2 to 4 and s and t of step 5
+        BigInteger challenge = challenge(secretOrderGroup, range, profile, c, cPrime, cPrime1, cPrime2, cPrime3,
+                square3.F, square4.F, equality2.W1, equality2.W2, square3.equality.W1, square3.equality.W2,
+                square4.equality.W1, square4.equality.W2);
+        BigInteger s = derive(challenge, 0, profile);
+        BigInteger t = derive(challenge, 1, profile);
+
+        BigInteger x = s.multiply(m1).add(m2).add(m3);
+        BigInteger y = m1.add(t.multiply(m2)).add(m3);
+        BigInteger u = s.multiply(r1).add(r2).add(r3);
+        BigInteger v = r1.add(t.multiply(r2)).add(r3);
+
+        return new CombinedRangeProof(challenge, new RangeProof(equality2.respond(challenge),
+                square3.respond(challenge), square4.respond(challenge), cPrime, cPrime1, cPrime2, cPrime3, x, y, u, v));
+    }
+
+    public static void validateRangeProof(CombinedRangeProof proof, Commitment commitment, ClosedRange range) {
+        validateRangeProof(proof, commitment, range, SecurityProfile.DEFAULT);
+    }
+
+    /**
+     * The proof may have been deserialized without its constructor, so the challenges of its sub-proofs are checked
+     * here as well.
+     *
+     * @throws ZeroKnowledgeException if the proof is not valid
+     * @throws ArithmeticException if a value of the proof is not invertible modulo N, which also means it is not valid
+     */
+    public static void validateRangeProof(CombinedRangeProof combinedProof, Commitment commitment, ClosedRange range,
+                                          SecurityProfile profile) {
+        SecretOrderGroup secretOrderGroup = commitment.getGroup();
+        GroupContext group = GroupInterner.context(secretOrderGroup);
+        BigInteger N = secretOrderGroup.getN();
+        BigInteger g = secretOrderGroup.getG();
+        BigInteger h = secretOrderGroup.getH();
+        BigInteger c = commitment.getCommitmentValue();
+        BiFunction<BigInteger[], BigInteger[], BigInteger> multiPow = group::multiPow;
+
+        BigInteger challenge = combinedProof.getChallenge();
+        RangeProof proof = combinedProof.getProof();
+        if (!challenge.equals(proof.getEcProof2().getC())
+                || !challenge.equals(proof.getSqrProof3().getECProof().getC())
+                || !challenge.equals(proof.getSqrProof4().getECProof().getC())) {
+            throw new ZeroKnowledgeException("Crypto Exception at the challenge of the sub-proofs");
+        }
+
+        // Checks 6 to 8
+        BigInteger c1 = BigIntUtil.divMod(c, group.powG(range.getStart().subtract(ONE)), N);
+        BigInteger c2 = BigIntUtil.divMod(group.powG(range.getEnd().add(ONE)), c, N);
+        BigInteger cPrimePrime = mulMod(mulMod(proof.getcPrime1(), proof.getcPrime2(), N), proof.getcPrime3(), N);
+
+        // Checks 3 to 5, completed by the comparison of the challenge
+        BigInteger[] W2 = HPAKEEqualityConstraint.firstMessages(multiPow, g, c1, h, h, c2, proof.getcPrime(),
+                proof.getEcProof2());
+        BigInteger[] W3 = HPAKESquare.firstMessages(multiPow, proof.getcPrime(), h, cPrimePrime,
+                proof.getSqrProof3());
+        BigInteger[] W4 = HPAKESquare.firstMessages(multiPow, g, h, proof.getcPrime3(), proof.getSqrProof4());
+        if (!challenge.equals(challenge(secretOrderGroup, range, profile, c, proof.getcPrime(), proof.getcPrime1(),
+                proof.getcPrime2(), proof.getcPrime3(), proof.getSqrProof3().getF(), proof.getSqrProof4().getF(),
+                W2[0], W2[1], W3[0], W3[1], W4[0], W4[1]))) {
+            throw new ZeroKnowledgeException("Crypto Exception at the challenge of checks (3) to (5)");
+        }
+
+        // Checks 9 and 10: cPrime1^s cPrime2 cPrime3 = g^x h^u and cPrime1 cPrime2^t cPrime3 = g^y h^v
+        BigInteger s = derive(challenge, 0, profile);
+        BigInteger t = derive(challenge, 1, profile);
+        BigInteger[] left = {proof.getcPrime1(), proof.getcPrime2(), proof.getcPrime3()};
+        BigInteger[] right = {g, h};
+        if (!multiPow.apply(left, new BigInteger[]{s, ONE, ONE})
+                .equals(multiPow.apply(right, new BigInteger[]{proof.getX(), proof.getU()}))) {
+            throw new ZeroKnowledgeException("Crypto Exception at check (9)");
+        }
+        if (!multiPow.apply(left, new BigInteger[]{ONE, t, ONE})
+                .equals(multiPow.apply(right, new BigInteger[]{proof.getY(), proof.getV()}))) {
+            throw new ZeroKnowledgeException("Crypto Exception at check (10)");
+        }
+
+        // Checks 11 and 12
+        if (proof.getX().signum() <= 0 || proof.getY().signum() <= 0) {
+            throw new ZeroKnowledgeException("Crypto Exception at check (11) or (12)");
+        }
+    }
+
+    /**
+     * Validates an encoded proof of either version: a {@link RangeProof} with {@link HPAKErangeProof} or a
+     * {@link CombinedRangeProof}.
+     *
+     * @throws ZeroKnowledgeException if the proof is not valid
+     * @throws IllegalArgumentException if the bytes are not the encoding of a range proof
+     */
+    public static void validateRangeProof(byte[] encoded, Commitment commitment, ClosedRange range,
+                                          SecurityProfile profile) {
+        ByteBuffer buffer = ByteBuffer.wrap(encoded);
+        byte type = BinaryCodec.messageType(buffer);
+        if (type == BinaryCodec.TYPE_RANGE_PROOF) {
+            HPAKErangeProof.validateRangeProof(BinaryCodec.decodeRangeProof(buffer), commitment, range, profile);
+        } else if (type == BinaryCodec.TYPE_COMBINED_RANGE_PROOF) {
+            validateRangeProof(BinaryCodec.decodeCombinedRangeProof(buffer), commitment, range, profile);
+        } else {
+            throw new IllegalArgumentException("Message type " + type + " is not a range proof");
+        }
+    }
+
+    // The hash of what the proof is about and of the first-round messages
+    private static BigInteger challenge(SecretOrderGroup group, ClosedRange range, SecurityProfile profile,
+                                        BigInteger... firstRound) {
+        List<BigInteger> transcript = new ArrayList<>(Arrays.asList(
+                BigInteger.valueOf(BinaryCodec.TYPE_COMBINED_RANGE_PROOF), group.getN(), group.getG(), group.getH(),
+                range.getStart(), range.getEnd(), profile.getK1()));
+        transcript.addAll(Arrays.asList(firstRound));
+        return DigestUtil.calculateTranscriptHash(transcript);
+    }
+
+    // s for index 0 and t for index 1, in [1, k1]
+    private static BigInteger derive(BigInteger challenge, int index, SecurityProfile profile) {
+        return DigestUtil.calculateTranscriptHash(Arrays.asList(challenge, BigInteger.valueOf(index)))
+                .mod(profile.getK1()).add(ONE);
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.ing.blockchain.zk;
+
+import com.ing.blockchain.zk.dto.ECProof;
+import com.ing.blockchain.zk.dto.SecurityProfile;
+import com.ing.blockchain.zk.exception.ZeroKnowledgeException;
+import com.ing.blockchain.zk.math.Exponentiation;
+import com.ing.blockchain.zk.util.DigestUtil;
+import org.bouncycastle.util.BigIntegers;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+
+import static com.ing.blockchain.zk.math.Exponentiation.modPow;
+import static com.ing.blockchain.zk.metrics.OpAccounting.mulMod;
+import static java.math.BigInteger.ONE;
+
+/**
+ * Implementation of 'Proof that Two Commitments Hide the Same Secret'
+ *
+ * This protocol is described in section 2.2 in the following paper:
+ * Fabrice Boudot, Efficient Proofs that a Committed Number Lies in an Interval
+ */
+public class HPAKEEqualityConstraint {
+
+    // Security parameters of the default profile, see SecurityProfile
+    public static final int t = SecurityProfile.DEFAULT.getT();  // Parameter for soundness (bitlength of hash divided by 2)
+    public static final int l = SecurityProfile.DEFAULT.getL();  // Parameter for zero-knowledge property
+    public static final int s1 = SecurityProfile.DEFAULT.getS(); // s from commitment 1
+    public static final int s2 = SecurityProfile.DEFAULT.getS(); // s from commitment 2
+    public static final BigInteger TWO = BigInteger.valueOf(2);
+    public static final BigInteger b = TWO.pow(256); // max uint in Ethereum
+
+    public static ECProof calculateZeroKnowledgeProof(
+            BigInteger N,   // large composite number whose factorization is unknown by Alice and Bob
+            BigInteger g1,  // element of large order in Zn*
+            BigInteger g2,  //  |
+            BigInteger h1,  //  |> elements of the group generated by g1 such that discrete logarithms are unknown
+            BigInteger h2,  //  |
+            BigInteger x,   // the secretly committed number
+            BigInteger r1,  // random number used in commitment 1 (secret)
+            BigInteger r2,  // random number used in commitment 2 (secret)
+            SecureRandom random) {
+        return calculateZeroKnowledgeProof(N, g1, g2, h1, h2, x, r1, r2, SecurityProfile.DEFAULT, random);
+    }
+
+    public static ECProof calculateZeroKnowledgeProof(BigInteger N, BigInteger g1, BigInteger g2, BigInteger h1,
+                                                      BigInteger h2, BigInteger x, BigInteger r1, BigInteger r2,
+                                                      SecurityProfile profile, SecureRandom random) {
+        Round round = commit((base, exponent) -> modPow(base, exponent, N), N, g1, g2, h1, h2, x, r1, r2, profile,
+                random);
+        return round.respond(DigestUtil.calculateHash(round.W1, round.W2));
+    }
+
+    /**
+     * The first round of the proof: the secrets, the random values and the messages W1 and W2, which the challenge
+     * has to depend on.
+     */
+    static final class Round {
+        final BigInteger x, r1, r2;
+        final BigInteger w, n1, n2;
+        final BigInteger W1, W2;
+
+        private Round(BigInteger x, BigInteger r1, BigInteger r2, BigInteger w, BigInteger n1, BigInteger n2,
+                      BigInteger W1, BigInteger W2) {
+            this.x = x;
+            this.r1 = r1;
+            this.r2 = r2;
+            this.w = w;
+            this.n1 = n1;
+            this.n2 = n2;
+            this.W1 = W1;
+            this.W2 = W2;
+        }
+
+        ECProof respond(BigInteger c) {
+            BigInteger D = w.add(c.multiply(x));    // w + cx
+            BigInteger D1 = n1.add(c.multiply(r1)); // n1 + c*r1
+            BigInteger D2 = n2.add(c.multiply(r2)); // n2 + c*r2
+            return new ECProof(c, D, D1, D2);
+        }
+    }
+
+    // Draws the random values and computes W1 and W2 with the given exponentiation modulo N
+    static Round commit(BinaryOperator<BigInteger> pow, BigInteger N, BigInteger g1, BigInteger g2, BigInteger h1,
+                        BigInteger h2, BigInteger x, BigInteger r1, BigInteger r2, SecurityProfile profile,
+                        SecureRandom random) {
+        int l = profile.getL();
+        int t = profile.getT();
+        int s1 = profile.getS(); // s from commitment 1
+        int s2 = profile.getS(); // s from commitment 2
+
+        BigInteger w = BigIntegers.createRandomInRange(ONE, TWO.pow(l + t).multiply(b).subtract(ONE), random);
+        BigInteger n1 = BigIntegers.createRandomInRange(ONE, TWO.pow(l + t + s1).multiply(N).subtract(ONE), random);
+        BigInteger n2 = BigIntegers.createRandomInRange(ONE, TWO.pow(l + t + s2).multiply(N).subtract(ONE), random);
+
+        BigInteger W1 = mulMod(pow.apply(g1, w), pow.apply(h1, n1), N); // g1^w h1^n1
+        BigInteger W2 = mulMod(pow.apply(g2, w), pow.apply(h2, n2), N); // g2^w h2^n2
+        return new Round(x, r1, r2, w, n1, n2, W1, W2);
+    }
+
+    public static void validateZeroKnowledgeProof(BigInteger N, BigInteger g1, BigInteger g2, BigInteger h1, BigInteger h2,
+                                                  BigInteger E, BigInteger F, ECProof ecProof) {
+        BigInteger[] W = firstMessages((bases, exponents) -> Exponentiation.multiPow(bases, exponents, N), g1, g2, h1,
+                h2, E, F, ecProof);
+        if (!ecProof.getC().equals(DigestUtil.calculateHash(W[0], W[1]))) {
+            throw new ZeroKnowledgeException("Zero-knowledge proof validation failed");
+        }
+    }
+
+    /**
+     * Computes W1 and W2 from the challenge and the responses, each with one multi-exponentiation modulo N of the
+     * given bases and exponents. The proof is valid if the challenge is the hash of W1 and W2, or of a transcript that
+     * contains them.
+     *
+     * @throws ZeroKnowledgeException if E or F is zero
+     */
+    static BigInteger[] firstMessages(BiFunction<BigInteger[], BigInteger[], BigInteger> multiPow, BigInteger g1,
+                                      BigInteger g2, BigInteger h1, BigInteger h2, BigInteger E, BigInteger F,
+                                      ECProof ecProof) {
+
+        if (E.equals(BigInteger.ZERO) || F.equals(BigInteger.ZERO)) {
+            // To prevent failure at 0 ^ -c
+            throw new ZeroKnowledgeException("Zero-knowledge proof validation failed");
+        }
+
+        BigInteger c = ecProof.getC();
+        BigInteger D = ecProof.getD();
+        BigInteger D1 = ecProof.getD1();
+        BigInteger D2 = ecProof.getD2();
+
+        BigInteger W1 = multiPow.apply(new BigInteger[]{g1, h1, E}, new BigInteger[]{D, D1, c.negate()}); // g1^D h1^D1 E^-c
+        BigInteger W2 = multiPow.apply(new BigInteger[]{g2, h2, F}, new BigInteger[]{D, D2, c.negate()}); // g2^D h2^D2 F^-c
+        return new BigInteger[]{W1, W2};
+    }
+}
\ No newline at end of file
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.ing.blockchain.zk;
+
+import com.ing.blockchain.zk.dto.SecurityProfile;
+import com.ing.blockchain.zk.dto.SquareProof;
+import com.ing.blockchain.zk.util.DigestUtil;
+import org.bouncycastle.util.BigIntegers;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+
+import static com.ing.blockchain.zk.math.Exponentiation.modPow;
+import static com.ing.blockchain.zk.metrics.OpAccounting.mulMod;
+import static java.math.BigInteger.ONE;
+
+/**
+ * Implementation of 'Proof that a Committed Number is a Square'
+ *
+ * This protocol is described in section 2.3 in the following paper:
+ * Fabrice Boudot, Efficient Proofs that a Committed Number Lies in an Interval
+ */
+public class HPAKESquare {
+
+    public static SquareProof calculateZeroKnowledgeProof(
+            BigInteger N,  // large composite number whose factorization is unknown by Alice and Bob
+            BigInteger g,  // element of large order in Zn*
+            BigInteger h,  // element of group generated by g such that both the discrete log of g
+                           //   in base h and vice versa are unknown by Alice
+            BigInteger x,  // the square root of the committed number
+            BigInteger r1, // random value used in the existing commitment E = g^(x^2) h^r1
+            SecureRandom random) {
+        return calculateZeroKnowledgeProof(N, g, h, x, r1, SecurityProfile.DEFAULT, random);
+    }
+
+    public static SquareProof calculateZeroKnowledgeProof(BigInteger N, BigInteger g, BigInteger h, BigInteger x,
+                                                          BigInteger r1, SecurityProfile profile, SecureRandom random) {
+        Round round = commit((base, exponent) -> modPow(base, exponent, N), N, g, h, x, r1, profile, random);
+        HPAKEEqualityConstraint.Round equality = round.equality;
+        return round.respond(DigestUtil.calculateHash(equality.W1, equality.W2));
+    }
+
+    /**
+     * The first round of the proof: the commitment F and the first round of the equality proof.
+     */
+    static final class Round {
+        final BigInteger F;
+        final HPAKEEqualityConstraint.Round equality;
+
+        private Round(BigInteger F, HPAKEEqualityConstraint.Round equality) {
+            this.F = F;
+            this.equality = equality;
+        }
+
+        SquareProof respond(BigInteger c) {
+            return new SquareProof(F, equality.respond(c));
+        }
+    }
+
+    // Draws the random values and computes F and the first round of the equality proof, with the given
+    // exponentiation modulo N
+    static Round commit(BinaryOperator<BigInteger> pow, BigInteger N, BigInteger g, BigInteger h, BigInteger x,
+                        BigInteger r1, SecurityProfile profile, SecureRandom random) {
+
+        // A fresh commitment key in the range of TTPGenerator.generateKey
+        BigInteger keyMax = BigInteger.valueOf(2).pow(profile.getS()).multiply(N).subtract(ONE);
+        BigInteger r2 = BigIntegers.createRandomInRange(keyMax.negate(), keyMax, random);
+        BigInteger r3 = r1.subtract(r2.multiply(x)); // r1 - r2 * x
+
+        BigInteger F = mulMod(pow.apply(g, x), pow.apply(h, r2), N); // F = g^x*h^r2
+
+        // Now we show that E = F^x h^r3 hides the same number as F = g^x h^r2
+        // From this it follows that E = g^x2 h^r1 hides the square of x:
+        // E = F^x h^r3 = (g^x h^r2)^x h^r3 = g^x2 h^(r2*x +r3) = g^x2 h^(r2*x + r1 - r2*x) = g^x2 h^r1
+
+        return new Round(F, HPAKEEqualityConstraint.commit(pow, N, g, F, h, h, x, r2, r3, profile, random));
+    }
+
+    public static void validateZeroKnowledgeProof(BigInteger N, BigInteger g, BigInteger h, BigInteger E, SquareProof proof) {
+        BigInteger F = proof.getF();
+        HPAKEEqualityConstraint.validateZeroKnowledgeProof(N, g, F, h, h, F, E, proof.getECProof());
+    }
+
+    /**
+     * Computes W1 and W2 of the equality proof, see {@link HPAKEEqualityConstraint#firstMessages}.
+     */
+    static BigInteger[] firstMessages(BiFunction<BigInteger[], BigInteger[], BigInteger> multiPow, BigInteger g,
+                                      BigInteger h, BigInteger E, SquareProof proof) {
+        BigInteger F = proof.getF();
+        return HPAKEEqualityConstraint.firstMessages(multiPow, g, F, h, h, F, E, proof.getECProof());
+    }
+}
@@ -0,0 +1,325 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.ing.blockchain.zk;
+
+import com.ing.blockchain.zk.dto.*;
+import com.ing.blockchain.zk.exception.ZeroKnowledgeException;
+import com.ing.blockchain.zk.jfr.Outcome;
+import com.ing.blockchain.zk.math.GroupContext;
+import com.ing.blockchain.zk.math.GroupInterner;
+import com.ing.blockchain.zk.metrics.Metrics;
+import com.ing.blockchain.zk.metrics.MetricsRegistry;
+import com.ing.blockchain.zk.metrics.Phase;
+import com.ing.blockchain.zk.metrics.ProofTrace;
+import com.ing.blockchain.zk.util.BigIntUtil;
+import com.ing.blockchain.zk.util.DigestUtil;
+import org.bouncycastle.util.BigIntegers;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+
+import static com.ing.blockchain.zk.math.Exponentiation.modPow;
+import static com.ing.blockchain.zk.metrics.OpAccounting.mulMod;
+import static java.math.BigInteger.ONE;
+import static java.math.BigInteger.ZERO;
+
+/**
+ * Range proof according to the algorithm described in Peng and Bao:
+ *
+ * Kun Peng and Bao Feng. "An efficient range proof scheme."
+ * IEEE Second International Conference on Social Computing, 2010
+ */
+public class HPAKErangeProof {
+
+    // Security parameters of the default profile, see SecurityProfile
+    public static final BigInteger k1 = SecurityProfile.DEFAULT.getK1();
+    public static final BigInteger k2 = SecurityProfile.DEFAULT.getK2();
+
+    // Proof that two commitments hide the same secret is denoted as EL(x,r1,r2 | g1,h1,g2,h2 | y1,y2)
+    private static ECProof EL(BigInteger x, BigInteger r1, BigInteger r2, BigInteger g1, BigInteger h1,
+                              BigInteger g2, BigInteger h2, BigInteger y1, BigInteger y2, BigInteger N,
+                              SecurityProfile profile, SecureRandom random) {
+        return HPAKEEqualityConstraint.calculateZeroKnowledgeProof(N, g1, g2, h1, h2, x, r1, r2, profile, random);
+    }
+
+    // Proof that a committed number x^2 is a square is denoted as SQR(x,r | g,h | y)
+    private static SquareProof SQR(BigInteger x, BigInteger r, BigInteger g, BigInteger h, BigInteger y, BigInteger N,
+                                   SecurityProfile profile, SecureRandom random) {
+        return HPAKESquare.calculateZeroKnowledgeProof(N, g, h, x, r, profile, random);
+    }
+
+    /**
+     * @param ttpMessage secret message from the trusted third party
+     * @param range the boundaries of the range
+     * @return
+     */
+    public static RangeProof calculateRangeProof(TTPMessage ttpMessage, ClosedRange range) {
+        return calculateRangeProof(ttpMessage, range, SecurityProfile.DEFAULT);
+    }
+
+    /**
+     * @param ttpMessage secret message from the trusted third party
+     * @param range the boundaries of the range
+     * @param profile the security parameters, the verifier needs to use the same k1
+     * @return
+     */
+    public static RangeProof calculateRangeProof(TTPMessage ttpMessage, ClosedRange range, SecurityProfile profile) {
+        return calculateRangeProof(ttpMessage, range, profile, new SecureRandom());
+    }
+
+    /**
+     * @param ttpMessage secret message from the trusted third party
+     * @param range the boundaries of the range
+     * @param profile the security parameters, the verifier needs to use the same k1
+     * @param random the source of all random values of the proof; only a reproducible source for test vectors, like
+     *               SeededRandom of the bench module, makes the proof reproducible
+     * @return
+     * @throws IllegalArgumentException if N is larger than the profile is for, see {@link SecurityProfile#checkModulus}
+     */
+    public static RangeProof calculateRangeProof(TTPMessage ttpMessage, ClosedRange range, SecurityProfile profile,
+                                                 SecureRandom random) {
+        profile.checkModulus(ttpMessage.getCommitment().getGroup().getN());
+        long start = Metrics.start();
+        long allocated = Metrics.startAllocation();
+        ProofTrace trace = ProofTrace.prover(ttpMessage.getCommitment().getGroup());
+        try {
+            RangeProof proof = prove(ttpMessage, range, profile, random, trace);
+            trace.end(Outcome.SUCCESS);
+            return proof;
+        } catch (RuntimeException e) {
+            trace.end(Outcome.ERROR);
+            throw e;
+        } finally {
+            Metrics.stopAllocation(Phase.PROVE, allocated);
+            Metrics.stop(Phase.PROVE, start);
+        }
+    }
+
+    private static RangeProof prove(TTPMessage ttpMessage, ClosedRange range, SecurityProfile profile,
+                                    SecureRandom random, ProofTrace trace) {
+
+        Commitment commitment = ttpMessage.getCommitment();
+
+        BigInteger N = commitment.getGroup().getN();
+        BigInteger g = commitment.getGroup().getG();
+        BigInteger h = commitment.getGroup().getH();
+        BigInteger c = commitment.getCommitmentValue();
+        GroupContext group = GroupInterner.context(commitment.getGroup()); // exponentiations of g and h
+
+        BigInteger a = range.getStart();
+        BigInteger b = range.getEnd();
+        BigInteger m = ttpMessage.getX(); // number in range
+        BigInteger r = ttpMessage.getY(); // commitment key
+
+        BigInteger k1 = profile.getK1();
+        BigInteger k2 = profile.getK2();
+
+        // Step 1
+        trace.section(1);
+        BigInteger c1 = BigIntUtil.divMod(c, group.powG(a.subtract(ONE)), N);
+        BigInteger c2 = BigIntUtil.divMod(group.powG(b.add(ONE)), c, N);
+
+        // Step 2
+        trace.section(2);
+        BigInteger rPrime = BigIntegers.createRandomInRange(ZERO, k2, random);
+        BigInteger cPrime = mulMod(modPow(c1, b.subtract(m).add(ONE), N), group.powH(rPrime), N);
+        ECProof equalityProof2 = EL(b.subtract(m).add(ONE), r.negate(), rPrime, g, h, c1, h, c2, cPrime, N, profile, random);
+
+        // Step 3
+        trace.section(3);
+        BigInteger w = BigIntegers.createRandomInRange(ONE, k2, random);
+        BigInteger rPrimePrime = BigIntegers.createRandomInRange(ZERO, k2, random);
+        BigInteger cPrimePrime = mulMod(modPow(cPrime, w.multiply(w), N), group.powH(rPrimePrime), N);
+        SquareProof sqrProof3 = SQR(w, rPrimePrime, cPrime, h, cPrimePrime, N, profile, random);
+
+        // Step 4
+        trace.section(4);
+        BigInteger[] m_ = takeRandomM(w.multiply(w).multiply(m.subtract(a).add(ONE)).multiply(b.subtract(m).add(ONE)), random);
+        BigInteger[] r_ = takeRandomR(w.multiply(w).multiply(b.subtract(m).add(ONE).multiply(r).add(rPrime)).add(rPrimePrime), N, random);
+
+        BigInteger m1 = m_[0];
+        BigInteger m2 = m_[1];
+        BigInteger m4 = m_[2];
+        BigInteger m3 = m4.multiply(m4);
+
+        BigInteger r1 = r_[0];
+        BigInteger r2 = r_[1];
+        BigInteger r3 = r_[2];
+
+        BigInteger cPrime1 = mulMod(group.powG(m1), group.powH(r1), N);
+        BigInteger cPrime2 = mulMod(group.powG(m2), group.powH(r2), N);
+        BigInteger cPrime3 = BigIntUtil.divMod(cPrimePrime, mulMod(cPrime1, cPrime2, N), N);
+
+        SquareProof sqrProof4 = SQR(m4, r3, g, h, cPrime3, N, profile, random);
+
+        // Step 5 (modified to make the proof non-interactive)
+        trace.section(5);
+        BigInteger s = DigestUtil.calculateHash(c1).mod(k1).add(ONE);
+        BigInteger t = DigestUtil.calculateHash(c2).mod(k1).add(ONE);
+
+        // Step 6
+        trace.section(6);
+        BigInteger x = s.multiply(m1).add(m2).add(m3);
+        BigInteger y = m1.add(t.multiply(m2)).add(m3);
+        BigInteger u = s.multiply(r1).add(r2).add(r3);
+        BigInteger v = r1.add(t.multiply(r2)).add(r3);
+
+        return new RangeProof(equalityProof2, sqrProof3, sqrProof4, cPrime, cPrime1, cPrime2, cPrime3, x, y, u, v);
+    }
+
+    public static void validateRangeProof(RangeProof proof, Commitment commitment, ClosedRange range) {
+        validateRangeProof(proof, commitment, range, SecurityProfile.DEFAULT);
+    }
+
+    public static void validateRangeProof(RangeProof proof, Commitment commitment, ClosedRange range,
+                                          SecurityProfile profile) {
+        long start = Metrics.start();
+        long allocated = Metrics.startAllocation();
+        ProofTrace trace = ProofTrace.verifier(commitment.getGroup());
+        try {
+            verify(proof, commitment, range, profile, trace);
+            trace.end(Outcome.SUCCESS);
+            Metrics.verified();
+        } catch (ZeroKnowledgeException e) {
+            trace.end(Outcome.REJECTED);
+            throw e;
+        } catch (ArithmeticException e) {
+            // Like a modular inverse of a proof value that is not coprime to N
+            trace.end(Outcome.REJECTED);
+            Metrics.rejected(MetricsRegistry.OTHER_CHECK);
+            throw e;
+        } catch (RuntimeException e) {
+            trace.end(Outcome.ERROR);
+            throw e;
+        } finally {
+            Metrics.stopAllocation(Phase.VERIFY, allocated);
+            Metrics.stop(Phase.VERIFY, start);
+        }
+    }
+
+    // Counts the rejection of a proof at the given check
+    private static ZeroKnowledgeException rejected(int check, ZeroKnowledgeException e) {
+        Metrics.rejected(check);
+        return e;
+    }
+
+    private static void verify(RangeProof proof, Commitment commitment, ClosedRange range, SecurityProfile profile,
+                               ProofTrace trace) {
+        BigInteger k1 = profile.getK1();
+
+        // Commitment
+        BigInteger N = commitment.getGroup().getN();
+        BigInteger g = commitment.getGroup().getG();
+        BigInteger h = commitment.getGroup().getH();
+        BigInteger c = commitment.getCommitmentValue();
+        GroupContext group = GroupInterner.context(commitment.getGroup()); // exponentiations of g and h
+
+        // Proof
+        ECProof equalityProof = proof.getEcProof2();
+        SquareProof sqrProof1 = proof.getSqrProof3();
+        SquareProof sqrProof2 = proof.getSqrProof4();
+        BigInteger cPrime = proof.getcPrime();
+        BigInteger cPrime1 = proof.getcPrime1();
+        BigInteger cPrime2 = proof.getcPrime2();
+        BigInteger cPrime3 = proof.getcPrime3();
+        BigInteger x = proof.getX();
+        BigInteger y = proof.getY();
+        BigInteger u = proof.getU();
+        BigInteger v = proof.getV();
+
+        // Derived information
+        trace.section(6);
+        BigInteger c1 = BigIntUtil.divMod(c, group.powG(range.getStart().subtract(ONE)), N); // Check 6 in the paper
+        trace.section(7);
+        BigInteger c2 = BigIntUtil.divMod(group.powG(range.getEnd().add(ONE)), c, N); // Check 7 in the paper
+        trace.section(8);
+        BigInteger cPrimePrime = mulMod(mulMod(cPrime1, cPrime2, N), cPrime3, N); // Check 8 in the paper
+
+        trace.section(3);
+        try {
+            HPAKEEqualityConstraint.validateZeroKnowledgeProof(N, g, c1, h, h, c2, cPrime, equalityProof);
+        } catch (ZeroKnowledgeException e) {
+            throw rejected(3, new ZeroKnowledgeException("Crypto Exception at EL check (3)", e));
+        }
+
+        trace.section(4);
+        try {
+            HPAKESquare.validateZeroKnowledgeProof(N, cPrime, h, cPrimePrime, sqrProof1);
+        } catch (ZeroKnowledgeException e) {
+            throw rejected(4, new ZeroKnowledgeException("Crypto Exception at SQR check (4)", e));
+        }
+
+        trace.section(5);
+        try {
+            HPAKESquare.validateZeroKnowledgeProof(N, g, h, cPrime3, sqrProof2);
+        } catch (ZeroKnowledgeException e) {
+            throw rejected(5, new ZeroKnowledgeException("Crypto Exception at SQR check (5)", e));
+        }
+
+        trace.section(9);
+        BigInteger s = DigestUtil.calculateHash(c1).mod(k1).add(ONE);
+        BigInteger nineLeft = mulMod(mulMod(modPow(cPrime1, s, N), cPrime2, N), cPrime3, N);
+        BigInteger nineRight = mulMod(group.powG(x), group.powH(u), N);
+
+        if (!nineLeft.equals(nineRight)) {
+            throw rejected(9, new ZeroKnowledgeException("Crypto Exception at check (9)"));
+        }
+
+        trace.section(10);
+        BigInteger t = DigestUtil.calculateHash(c2).mod(k1).add(ONE);
+        BigInteger tenLeft = mulMod(mulMod(cPrime1, modPow(cPrime2, t, N), N), cPrime3, N);
+        BigInteger tenRight = mulMod(group.powG(y), group.powH(v), N);
+        if (!tenLeft.equals(tenRight)) {
+            throw rejected(10, new ZeroKnowledgeException("Crypto Exception at check (10)"));
+        }
+
+        trace.section(11);
+        if (x.compareTo(ZERO) <= 0) {
+            throw rejected(11, new ZeroKnowledgeException("Crypto Exception at check (11)"));
+        }
+
+        trace.section(12);
+        if (y.compareTo(ZERO) <= 0) {
+            throw rejected(12, new ZeroKnowledgeException("Crypto Exception at check (12)"));
+        }
+    }
+
+    // Randomly choose m1, m2, m4 smaller than (non-negative) sum, such that m1 + m2 + m4^2 = sum
+    static BigInteger[] takeRandomM(BigInteger sum) {
+        return takeRandomM(sum, new SecureRandom());
+    }
+
+    static BigInteger[] takeRandomM(BigInteger sum, SecureRandom random) {
+        BigInteger maxForM4 = BigIntUtil.floorSquareRoot(sum);
+        BigInteger m4 = BigIntegers.createRandomInRange(ZERO, maxForM4, random);
+        BigInteger remaining = sum.subtract(m4.multiply(m4));
+        BigInteger m1 = BigIntegers.createRandomInRange(ZERO, remaining, random);
+        BigInteger m2 = remaining.subtract(m1);
+        return new BigInteger[]{m1, m2, m4};
+    }
+
+    // Randomly choose r1, r2, r3 so that r1 + r2 + r3 = sum
+    static BigInteger[] takeRandomR(BigInteger sum, BigInteger N, SecureRandom random) {
+        BigInteger res0 = BigIntegers.createRandomInRange(N.negate(), N, random);
+        BigInteger res1 = BigIntegers.createRandomInRange(N.negate(), N, random);
+        BigInteger res2  = sum.subtract(res0).subtract(res1);
+        return new BigInteger[]{ res0, res1, res2 };
+    }
+}
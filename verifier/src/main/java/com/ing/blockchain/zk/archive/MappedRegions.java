@@ -0,0 +1,85 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.archive;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Read-only memory mapping of a file that may be larger than a single MappedByteBuffer.
+ *
+ * The file is mapped in regions. Consecutive regions overlap by a fixed number of bytes, so that every
+ * structure of at most that size that starts in a region also ends in it.
+ */
+final class MappedRegions {
+
+    private final long size;
+    private final long regionSize;
+    private final MappedByteBuffer[] regions;
+
+    MappedRegions(FileChannel channel, long size, long regionSize, int overlap) throws IOException {
+        if (regionSize <= 0 || regionSize + overlap > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid region size " + regionSize);
+        }
+        this.size = size;
+        this.regionSize = regionSize;
+
+        int count = (int) ((size + regionSize - 1) / regionSize);
+        regions = new MappedByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            long start = i * regionSize;
+            long length = Math.min(regionSize + overlap, size - start);
+            regions[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+        }
+    }
+
+    long size() {
+        return size;
+    }
+
+    int regionIndex(long offset) {
+        if (offset < 0 || offset >= size) {
+            throw new IndexOutOfBoundsException("Offset " + offset + " outside of file of " + size + " bytes");
+        }
+        return (int) (offset / regionSize);
+    }
+
+    int localOffset(long offset) {
+        return (int) (offset % regionSize);
+    }
+
+    /**
+     * @return a new buffer on the region, with its own position, that can be used by a single thread.
+     */
+    ByteBuffer duplicate(int regionIndex) {
+        return regions[regionIndex].duplicate();
+    }
+
+    long getLong(long offset) {
+        return regions[regionIndex(offset)].getLong(localOffset(offset));
+    }
+
+    int getInt(long offset) {
+        return regions[regionIndex(offset)].getInt(localOffset(offset));
+    }
+}
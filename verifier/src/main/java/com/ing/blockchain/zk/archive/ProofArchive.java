@@ -0,0 +1,158 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.archive;
+
+import com.ing.blockchain.zk.dto.RangeProof;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only view on an archive of (commitment, range, proof) tuples written by {@link ProofArchiveWriter}.
+ *
+ * The archive consists of a data file and an index file with the extension ".idx":
+ * <pre>
+ * data   := 'Z' 'K' 'A' version reserved[4] record*
+ * record := length[4] N g h c start end proof[22]
+ * index  := 'Z' 'K' 'I' version reserved[4] offset[8]*
+ * </pre>
+ * The integers in a record use the integer encoding of {@link com.ing.blockchain.zk.codec.BinaryCodec}, the proof
+ * integers are in the order of {@link com.ing.blockchain.zk.dto.RangeProof#toArray()}. The index holds the offset
+ * of every record in the data file; only records in the index are part of the archive.
+ *
+ * Both files are memory-mapped. Records are read through {@link ProofView} flyweights, which decode an integer only
+ * when it is asked for. The archive contains the records that were in the index when it was opened.
+ */
+public class ProofArchive implements Closeable {
+
+    public static final byte VERSION = 1;
+    public static final String INDEX_EXTENSION = ".idx";
+
+    // Integers per record: N, g, h, c, start, end and the proof
+    static final int RECORD_INTEGERS = 6 + RangeProof.FIELD_COUNT;
+    static final int FILE_HEADER_BYTES = 8;
+    static final int RECORD_HEADER_BYTES = 4;
+    static final int INDEX_ENTRY_BYTES = 8;
+    static final int MAX_RECORD_BYTES = 1 << 20;
+
+    static final byte[] DATA_MAGIC = {'Z', 'K', 'A'};
+    static final byte[] INDEX_MAGIC = {'Z', 'K', 'I'};
+
+    private static final long DEFAULT_REGION_SIZE = 1L << 30;
+
+    private final FileChannel dataChannel;
+    private final FileChannel indexChannel;
+    private final MappedRegions data;
+    private final MappedRegions index;
+    private final long size;
+
+    public ProofArchive(Path path) throws IOException {
+        this(path, DEFAULT_REGION_SIZE);
+    }
+
+    ProofArchive(Path path, long regionSize) throws IOException {
+        dataChannel = FileChannel.open(path, StandardOpenOption.READ);
+        indexChannel = FileChannel.open(indexPath(path), StandardOpenOption.READ);
+        try {
+            checkFileHeader(dataChannel, DATA_MAGIC);
+            checkFileHeader(indexChannel, INDEX_MAGIC);
+
+            size = (indexChannel.size() - FILE_HEADER_BYTES) / INDEX_ENTRY_BYTES;
+            index = new MappedRegions(indexChannel, FILE_HEADER_BYTES + size * INDEX_ENTRY_BYTES,
+                    regionSize - regionSize % INDEX_ENTRY_BYTES, 0);
+            // A record that starts in a region, with its length prefix, also ends in it
+            data = new MappedRegions(dataChannel, dataChannel.size(), regionSize,
+                    RECORD_HEADER_BYTES + MAX_RECORD_BYTES);
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the number of records in the archive.
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Creates a flyweight to read records. A view is not thread-safe, use one view per thread.
+     */
+    public ProofView newView() {
+        return new ProofView(this);
+    }
+
+    long recordOffset(long record) {
+        if (record < 0 || record >= size) {
+            throw new IndexOutOfBoundsException("Record " + record + " not in archive of " + size + " records");
+        }
+        return index.getLong(FILE_HEADER_BYTES + record * INDEX_ENTRY_BYTES);
+    }
+
+    MappedRegions data() {
+        return data;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            dataChannel.close();
+        } finally {
+            indexChannel.close();
+        }
+    }
+
+    static Path indexPath(Path path) {
+        return Paths.get(path.toString() + INDEX_EXTENSION);
+    }
+
+    static ByteBuffer fileHeader(byte[] magic) {
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_BYTES);
+        header.put(magic).put(VERSION);
+        header.position(FILE_HEADER_BYTES);
+        header.flip();
+        return header;
+    }
+
+    static void checkFileHeader(FileChannel channel, byte[] magic) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_BYTES);
+        while (header.hasRemaining() && channel.read(header, header.position()) > 0) {
+            // keep reading until the header is complete or the file ends
+        }
+        if (header.hasRemaining()) {
+            throw new IOException("Not a proof archive: file too short");
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if (header.get(i) != magic[i]) {
+                throw new IOException("Not a proof archive: wrong magic");
+            }
+        }
+        if (header.get(magic.length) != VERSION) {
+            throw new IOException("Unsupported proof archive version " + header.get(magic.length));
+        }
+    }
+}
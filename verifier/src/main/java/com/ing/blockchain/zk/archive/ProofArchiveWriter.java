@@ -0,0 +1,186 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.archive;
+
+import com.ing.blockchain.zk.codec.BinaryCodec;
+import com.ing.blockchain.zk.dto.ClosedRange;
+import com.ing.blockchain.zk.dto.Commitment;
+import com.ing.blockchain.zk.dto.RangeProof;
+import com.ing.blockchain.zk.dto.SecretOrderGroup;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static com.ing.blockchain.zk.archive.ProofArchive.*;
+
+/**
+ * Appends (commitment, range, proof) tuples to a {@link ProofArchive}.
+ *
+ * A record is written to the data file before its offset is written to the index, so an interrupted append leaves
+ * at most an unreferenced tail in the data file. That tail is removed when the archive is opened again.
+ */
+public class ProofArchiveWriter implements Closeable {
+
+    private final FileChannel dataChannel;
+    private final FileChannel indexChannel;
+    private final ByteBuffer indexEntry = ByteBuffer.allocate(INDEX_ENTRY_BYTES);
+    private ByteBuffer recordBuffer = ByteBuffer.allocate(4096);
+
+    private long dataEnd;
+    private long size;
+
+    /**
+     * Opens the archive at the given path for appending, or creates it when it does not exist.
+     */
+    public ProofArchiveWriter(Path path) throws IOException {
+        dataChannel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        indexChannel = FileChannel.open(indexPath(path),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (dataChannel.size() == 0 && indexChannel.size() == 0) {
+                writeFully(dataChannel, fileHeader(DATA_MAGIC), 0);
+                writeFully(indexChannel, fileHeader(INDEX_MAGIC), 0);
+            }
+            checkFileHeader(dataChannel, DATA_MAGIC);
+            checkFileHeader(indexChannel, INDEX_MAGIC);
+            recover();
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    // Drops a partially written index entry and records that are not in the index
+    private void recover() throws IOException {
+        size = (indexChannel.size() - FILE_HEADER_BYTES) / INDEX_ENTRY_BYTES;
+        indexChannel.truncate(FILE_HEADER_BYTES + size * INDEX_ENTRY_BYTES);
+
+        dataEnd = FILE_HEADER_BYTES;
+        if (size > 0) {
+            ByteBuffer buffer = ByteBuffer.allocate(INDEX_ENTRY_BYTES);
+            readFully(indexChannel, buffer, FILE_HEADER_BYTES + (size - 1) * INDEX_ENTRY_BYTES);
+            long lastRecord = buffer.getLong(0);
+
+            buffer.clear().limit(RECORD_HEADER_BYTES);
+            readFully(dataChannel, buffer, lastRecord);
+            dataEnd = lastRecord + RECORD_HEADER_BYTES + buffer.getInt(0);
+            if (dataEnd > dataChannel.size()) {
+                throw new IOException("Proof archive is corrupt: last record is incomplete");
+            }
+        }
+        dataChannel.truncate(dataEnd);
+    }
+
+    /**
+     * Appends a record to the archive.
+     *
+     * @return the number of the record in the archive
+     */
+    public long append(Commitment commitment, ClosedRange range, RangeProof proof) throws IOException {
+        SecretOrderGroup group = commitment.getGroup();
+        BigInteger[] fields = proof.toArray();
+
+        int bodySize = BinaryCodec.integerSize(group.getN()) + BinaryCodec.integerSize(group.getG())
+                + BinaryCodec.integerSize(group.getH()) + BinaryCodec.integerSize(commitment.getCommitmentValue())
+                + BinaryCodec.integerSize(range.getStart()) + BinaryCodec.integerSize(range.getEnd());
+        for (BigInteger field : fields) {
+            bodySize += BinaryCodec.integerSize(field);
+        }
+        if (bodySize > MAX_RECORD_BYTES) {
+            throw new IllegalArgumentException("Record of " + bodySize + " bytes exceeds the maximum record size");
+        }
+
+        ByteBuffer buffer = recordBuffer(RECORD_HEADER_BYTES + bodySize);
+        buffer.putInt(bodySize);
+        BinaryCodec.putInteger(buffer, group.getN());
+        BinaryCodec.putInteger(buffer, group.getG());
+        BinaryCodec.putInteger(buffer, group.getH());
+        BinaryCodec.putInteger(buffer, commitment.getCommitmentValue());
+        BinaryCodec.putInteger(buffer, range.getStart());
+        BinaryCodec.putInteger(buffer, range.getEnd());
+        for (BigInteger field : fields) {
+            BinaryCodec.putInteger(buffer, field);
+        }
+        buffer.flip();
+
+        long offset = dataEnd;
+        writeFully(dataChannel, buffer, offset);
+        dataEnd += RECORD_HEADER_BYTES + bodySize;
+
+        indexEntry.clear();
+        indexEntry.putLong(offset).flip();
+        writeFully(indexChannel, indexEntry, FILE_HEADER_BYTES + size * INDEX_ENTRY_BYTES);
+        return size++;
+    }
+
+    /**
+     * @return the number of records in the archive.
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Forces the appended records to the storage device.
+     */
+    public void flush() throws IOException {
+        dataChannel.force(false);
+        indexChannel.force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            dataChannel.close();
+        } finally {
+            indexChannel.close();
+        }
+    }
+
+    private ByteBuffer recordBuffer(int capacity) {
+        if (recordBuffer.capacity() < capacity) {
+            recordBuffer = ByteBuffer.allocate(Math.max(capacity, 2 * recordBuffer.capacity()));
+        }
+        recordBuffer.clear();
+        return recordBuffer;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Proof archive is corrupt: unexpected end of file");
+            }
+            position += read;
+        }
+    }
+}
@@ -0,0 +1,326 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.archive;
+
+import com.ing.blockchain.zk.HPAKErangeProof;
+import com.ing.blockchain.zk.codec.BinaryCodec;
+import com.ing.blockchain.zk.dto.*;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static com.ing.blockchain.zk.archive.ProofArchive.MAX_RECORD_BYTES;
+import static com.ing.blockchain.zk.archive.ProofArchive.RECORD_HEADER_BYTES;
+import static com.ing.blockchain.zk.archive.ProofArchive.RECORD_INTEGERS;
+
+/**
+ * Flyweight on one record of a {@link ProofArchive}.
+ *
+ * {@link #moveTo(long)} repositions the view without reading the record. An integer is decoded from the mapped
+ * file when it is asked for, and is kept until the view moves. The objects returned by {@link #proof()} read
+ * through the view, so they are only valid until the next call of moveTo.
+ *
+ * A view is not thread-safe.
+ */
+public final class ProofView {
+
+    // Positions of the integers in a record
+    private static final int N = 0;
+    private static final int G = 1;
+    private static final int H = 2;
+    private static final int C = 3;
+    private static final int START = 4;
+    private static final int END = 5;
+    private static final int PROOF = 6;
+
+    private final ProofArchive archive;
+    private final int[] offsets = new int[RECORD_INTEGERS];
+    private final BigInteger[] values = new BigInteger[RECORD_INTEGERS];
+
+    private ByteBuffer region;
+    private int regionIndex = -1;
+    private int recordStart;
+    private int recordLength;
+    private long record = -1;
+    private boolean scanned;
+
+    ProofView(ProofArchive archive) {
+        this.archive = archive;
+    }
+
+    /**
+     * Moves the view to the given record. If the record is corrupt, the view stays on the record it was on.
+     *
+     * @throws IllegalStateException if the length of the record is not positive, larger than the maximum or beyond
+     *                               the end of the file
+     */
+    public ProofView moveTo(long record) {
+        long offset = archive.recordOffset(record);
+        MappedRegions data = archive.data();
+        int newRegionIndex = data.regionIndex(offset);
+        ByteBuffer newRegion = newRegionIndex == regionIndex ? region : data.duplicate(newRegionIndex);
+        int newRecordStart = data.localOffset(offset) + RECORD_HEADER_BYTES;
+        int newRecordLength = newRecordStart <= newRegion.limit()
+                ? newRegion.getInt(newRecordStart - RECORD_HEADER_BYTES) : -1;
+        if (newRecordLength <= 0 || newRecordLength > MAX_RECORD_BYTES
+                || newRecordStart + newRecordLength > newRegion.limit()) {
+            throw new IllegalStateException("Proof archive record " + record + " is corrupt");
+        }
+        region = newRegion;
+        regionIndex = newRegionIndex;
+        recordStart = newRecordStart;
+        recordLength = newRecordLength;
+        this.record = record;
+        scanned = false;
+        Arrays.fill(values, null);
+        return this;
+    }
+
+    /**
+     * @return the number of the record the view is on.
+     */
+    public long record() {
+        return record;
+    }
+
+    /**
+     * @return the number of bytes of the record, without its length prefix.
+     */
+    public int recordLength() {
+        checkPositioned();
+        return recordLength;
+    }
+
+    public BigInteger getN() {
+        return integer(N);
+    }
+
+    public BigInteger getG() {
+        return integer(G);
+    }
+
+    public BigInteger getH() {
+        return integer(H);
+    }
+
+    public BigInteger getCommitmentValue() {
+        return integer(C);
+    }
+
+    public BigInteger getRangeStart() {
+        return integer(START);
+    }
+
+    public BigInteger getRangeEnd() {
+        return integer(END);
+    }
+
+    /**
+     * @param field the position of the integer in {@link RangeProof#toArray()}
+     */
+    public BigInteger getProofField(int field) {
+        if (field < 0 || field >= RangeProof.FIELD_COUNT) {
+            throw new IndexOutOfBoundsException("No proof field " + field);
+        }
+        return integer(PROOF + field);
+    }
+
+    public Commitment commitment() {
+        return new Commitment(new SecretOrderGroup(getN(), getG(), getH()), getCommitmentValue());
+    }
+
+    public ClosedRange range() {
+        return ClosedRange.of(getRangeStart(), getRangeEnd());
+    }
+
+    /**
+     * @return a proof that decodes its integers from this view when they are read.
+     */
+    public RangeProof proof() {
+        checkPositioned();
+        return new LazyRangeProof(this);
+    }
+
+    /**
+     * Verifies the proof of the record against its commitment and range.
+     *
+     * @throws com.ing.blockchain.zk.exception.ZeroKnowledgeException when the proof is not valid
+     */
+    public void validate(SecurityProfile profile) {
+        HPAKErangeProof.validateRangeProof(proof(), commitment(), range(), profile);
+    }
+
+    private BigInteger integer(int position) {
+        checkPositioned();
+        BigInteger value = values[position];
+        if (value == null) {
+            value = decode(offsets()[position]);
+            values[position] = value;
+        }
+        return value;
+    }
+
+    // Finds the offsets of all integers in the record by following the length headers
+    private int[] offsets() {
+        if (!scanned) {
+            region.position(recordStart);
+            for (int i = 0; i < RECORD_INTEGERS; i++) {
+                offsets[i] = region.position();
+                BinaryCodec.skipInteger(region);
+            }
+            if (region.position() != recordStart + recordLength) {
+                throw new IllegalStateException("Proof archive record " + record + " is corrupt");
+            }
+            scanned = true;
+        }
+        return offsets;
+    }
+
+    private BigInteger decode(int offset) {
+        region.position(offset);
+        return BinaryCodec.getInteger(region);
+    }
+
+    private void checkPositioned() {
+        if (record < 0) {
+            throw new IllegalStateException("View is not positioned on a record");
+        }
+    }
+
+    // The proof DTOs below only hold a reference to the view and the position of their first integer
+
+    private static final class LazyRangeProof extends RangeProof {
+        private final ProofView view;
+
+        LazyRangeProof(ProofView view) {
+            super(null, null, null, null, null, null, null, null, null, null, null);
+            this.view = view;
+        }
+
+        @Override
+        public BigInteger getcPrime() {
+            return view.getProofField(0);
+        }
+
+        @Override
+        public BigInteger getcPrime1() {
+            return view.getProofField(1);
+        }
+
+        @Override
+        public BigInteger getcPrime2() {
+            return view.getProofField(2);
+        }
+
+        @Override
+        public BigInteger getcPrime3() {
+            return view.getProofField(3);
+        }
+
+        @Override
+        public SquareProof getSqrProof3() {
+            return new LazySquareProof(view, 4);
+        }
+
+        @Override
+        public SquareProof getSqrProof4() {
+            return new LazySquareProof(view, 9);
+        }
+
+        @Override
+        public ECProof getEcProof2() {
+            return new LazyECProof(view, 14);
+        }
+
+        @Override
+        public BigInteger getU() {
+            return view.getProofField(18);
+        }
+
+        @Override
+        public BigInteger getV() {
+            return view.getProofField(19);
+        }
+
+        @Override
+        public BigInteger getX() {
+            return view.getProofField(20);
+        }
+
+        @Override
+        public BigInteger getY() {
+            return view.getProofField(21);
+        }
+    }
+
+    private static final class LazySquareProof extends SquareProof {
+        private final ProofView view;
+        private final int field;
+
+        LazySquareProof(ProofView view, int field) {
+            super(null, null);
+            this.view = view;
+            this.field = field;
+        }
+
+        @Override
+        public BigInteger getF() {
+            return view.getProofField(field);
+        }
+
+        @Override
+        public ECProof getECProof() {
+            return new LazyECProof(view, field + 1);
+        }
+    }
+
+    private static final class LazyECProof extends ECProof {
+        private final ProofView view;
+        private final int field;
+
+        LazyECProof(ProofView view, int field) {
+            super(null, null, null, null);
+            this.view = view;
+            this.field = field;
+        }
+
+        @Override
+        public BigInteger getC() {
+            return view.getProofField(field);
+        }
+
+        @Override
+        public BigInteger getD() {
+            return view.getProofField(field + 1);
+        }
+
+        @Override
+        public BigInteger getD1() {
+            return view.getProofField(field + 2);
+        }
+
+        @Override
+        public BigInteger getD2() {
+            return view.getProofField(field + 3);
+        }
+    }
+}
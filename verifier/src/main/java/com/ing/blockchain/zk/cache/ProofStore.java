@@ -0,0 +1,327 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.cache;
+
+import com.ing.blockchain.zk.HPAKErangeProof;
+import com.ing.blockchain.zk.codec.BinaryCodec;
+import com.ing.blockchain.zk.dto.ClosedRange;
+import com.ing.blockchain.zk.dto.Commitment;
+import com.ing.blockchain.zk.dto.RangeProof;
+import com.ing.blockchain.zk.dto.SecurityProfile;
+import com.ing.blockchain.zk.dto.TTPMessage;
+import com.ing.blockchain.zk.metrics.Metrics;
+import org.bouncycastle.crypto.Digest;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.util.encoders.Hex;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Prover-side store of range proofs, so that presenting the same commitment for the same range again reuses the
+ * proof instead of calculating a new one.
+ *
+ * Proofs are kept in a directory, one file per (commitment, range, security profile), named after the SHA-256 digest
+ * of their binary encoding. A file holds a header with the creation and expiry time, followed by the commitment, the
+ * range and the proof in the format of {@link BinaryCodec}. Expired proofs are removed when they are looked up or
+ * by {@link #purgeExpired()}; when the store is full, the least recently used proof is removed. Files are written
+ * to a temporary file first and then moved into place, so a crash never leaves a partial proof behind.
+ */
+public class ProofStore {
+
+    static final String SUFFIX = ".proof";
+    static final byte[] MAGIC = {'Z', 'K', 'S'};
+    static final byte VERSION = 1;
+    static final int HEADER_BYTES = MAGIC.length + 1 + 2 * Long.BYTES;
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+    private static final int CREATED_AT = MAGIC.length + 1;
+    private static final int EXPIRES_AT = CREATED_AT + Long.BYTES;
+
+    private final Path directory;
+    private final int maxEntries;
+    private final long timeToLiveMillis;
+    private final Clock clock;
+
+    // Expiry time of each stored proof, in order of access
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public ProofStore(Path directory, int maxEntries, Duration timeToLive) throws IOException {
+        this(directory, maxEntries, timeToLive, Clock.systemUTC());
+    }
+
+    /**
+     * Opens the store in the given directory, or creates it. Expired and unreadable files are removed.
+     */
+    public ProofStore(Path directory, int maxEntries, Duration timeToLive, Clock clock) throws IOException {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries should be positive");
+        }
+        if (timeToLive.isNegative() || timeToLive.isZero()) {
+            throw new IllegalArgumentException("timeToLive should be positive");
+        }
+        this.directory = Files.createDirectories(directory);
+        this.maxEntries = maxEntries;
+        this.timeToLiveMillis = timeToLive.toMillis();
+        this.clock = clock;
+        load();
+        Metrics.registerCache(this, ProofStore::getHits, ProofStore::getMisses);
+    }
+
+    // Reads the headers of the stored files, oldest first so that they are evicted first
+    private void load() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + TEMPORARY_SUFFIX)) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        }
+
+        List<StoredFile> found = new ArrayList<>();
+        long now = clock.millis();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path file : files) {
+                ByteBuffer header = readHeader(file);
+                if (header == null || header.getLong(EXPIRES_AT) <= now) {
+                    Files.deleteIfExists(file);
+                    continue;
+                }
+                String name = file.getFileName().toString();
+                found.add(new StoredFile(name.substring(0, name.length() - SUFFIX.length()),
+                        header.getLong(CREATED_AT), header.getLong(EXPIRES_AT)));
+            }
+        }
+        found.sort(Comparator.comparingLong(file -> file.createdAt));
+        for (StoredFile file : found) {
+            entries.put(file.key, file.expiresAt);
+        }
+        evict();
+    }
+
+    public RangeProof getOrCalculate(TTPMessage ttpMessage, ClosedRange range) throws IOException {
+        return getOrCalculate(ttpMessage, range, SecurityProfile.DEFAULT);
+    }
+
+    /**
+     * @return the stored proof for the commitment of the message and the range, or a new proof that is then stored
+     */
+    public RangeProof getOrCalculate(TTPMessage ttpMessage, ClosedRange range, SecurityProfile profile)
+            throws IOException {
+        RangeProof proof = get(ttpMessage.getCommitment(), range, profile);
+        if (proof == null) {
+            proof = HPAKErangeProof.calculateRangeProof(ttpMessage, range, profile);
+            put(ttpMessage.getCommitment(), range, profile, proof);
+        }
+        return proof;
+    }
+
+    /**
+     * @return the stored proof, or null if there is none or it has expired
+     */
+    public RangeProof get(Commitment commitment, ClosedRange range, SecurityProfile profile) throws IOException {
+        byte[] encodedKey = encodeKey(commitment, range);
+        String key = key(encodedKey, profile);
+        RangeProof proof = read(key, encodedKey);
+        if (proof == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return proof;
+    }
+
+    private synchronized RangeProof read(String key, byte[] encodedKey) throws IOException {
+        Long expiresAt = entries.get(key);
+        if (expiresAt == null) {
+            return null;
+        }
+        if (expiresAt <= clock.millis()) {
+            remove(key);
+            return null;
+        }
+
+        Path file = path(key);
+        ByteBuffer buffer;
+        try {
+            buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        } catch (IOException e) {
+            remove(key);
+            return null;
+        }
+        try {
+            buffer.position(HEADER_BYTES);
+            byte[] stored = new byte[encodedKey.length];
+            buffer.get(stored);
+            if (!Arrays.equals(stored, encodedKey)) {
+                throw new IllegalArgumentException("Stored proof is for another commitment or range");
+            }
+            return BinaryCodec.decodeRangeProof(buffer);
+        } catch (IllegalArgumentException | BufferUnderflowException e) {
+            remove(key);
+            return null;
+        }
+    }
+
+    /**
+     * Stores a proof, replacing an earlier proof for the same commitment and range.
+     */
+    public void put(Commitment commitment, ClosedRange range, SecurityProfile profile, RangeProof proof)
+            throws IOException {
+        byte[] encodedKey = encodeKey(commitment, range);
+        String key = key(encodedKey, profile);
+
+        long now = clock.millis();
+        long expiresAt = now + timeToLiveMillis;
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + encodedKey.length + BinaryCodec.encodedSize(proof));
+        buffer.put(MAGIC).put(VERSION).putLong(now).putLong(expiresAt);
+        buffer.put(encodedKey);
+        BinaryCodec.encode(proof, buffer);
+
+        Path temporary = Files.createTempFile(directory, key, TEMPORARY_SUFFIX);
+        try {
+            Files.write(temporary, buffer.array());
+            Files.move(temporary, path(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+
+        synchronized (this) {
+            entries.put(key, expiresAt);
+            evict();
+        }
+    }
+
+    /**
+     * Removes all expired proofs.
+     *
+     * @return the number of removed proofs
+     */
+    public synchronized int purgeExpired() throws IOException {
+        long now = clock.millis();
+        int removed = 0;
+        Iterator<Map.Entry<String, Long>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Long> entry = iterator.next();
+            if (entry.getValue() <= now) {
+                iterator.remove();
+                Files.deleteIfExists(path(entry.getKey()));
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    private void evict() throws IOException {
+        Iterator<String> eldest = entries.keySet().iterator();
+        while (entries.size() > maxEntries) {
+            String key = eldest.next();
+            eldest.remove();
+            Files.deleteIfExists(path(key));
+        }
+    }
+
+    private void remove(String key) throws IOException {
+        entries.remove(key);
+        Files.deleteIfExists(path(key));
+    }
+
+    private Path path(String key) {
+        return directory.resolve(key + SUFFIX);
+    }
+
+    private static ByteBuffer readHeader(Path file) throws IOException {
+        byte[] bytes = new byte[HEADER_BYTES];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read = 0;
+            while (read < HEADER_BYTES) {
+                int n = in.read(bytes, read, HEADER_BYTES - read);
+                if (n < 0) {
+                    return null;
+                }
+                read += n;
+            }
+        }
+        if (bytes[0] != MAGIC[0] || bytes[1] != MAGIC[1] || bytes[2] != MAGIC[2] || bytes[3] != VERSION) {
+            return null;
+        }
+        return ByteBuffer.wrap(bytes);
+    }
+
+    private static byte[] encodeKey(Commitment commitment, ClosedRange range) {
+        ByteBuffer buffer = ByteBuffer.allocate(BinaryCodec.encodedSize(commitment) + BinaryCodec.encodedSize(range));
+        BinaryCodec.encode(commitment, buffer);
+        BinaryCodec.encode(range, buffer);
+        return buffer.array();
+    }
+
+    // The proof depends on all parameters of the profile, not only on k1 like the validation
+    private static String key(byte[] encodedKey, SecurityProfile profile) {
+        Digest digest = new SHA256Digest();
+        digest.update(encodedKey, 0, encodedKey.length);
+        byte[] parameters = profile.toString().getBytes(StandardCharsets.UTF_8);
+        digest.update(parameters, 0, parameters.length);
+        byte[] output = new byte[digest.getDigestSize()];
+        digest.doFinal(output, 0);
+        return Hex.toHexString(output);
+    }
+
+    private static final class StoredFile {
+        final String key;
+        final long createdAt;
+        final long expiresAt;
+
+        StoredFile(String key, long createdAt, long expiresAt) {
+            this.key = key;
+            this.createdAt = createdAt;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
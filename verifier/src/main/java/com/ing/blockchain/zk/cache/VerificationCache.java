@@ -0,0 +1,203 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.cache;
+
+import com.ing.blockchain.zk.HPAKErangeProof;
+import com.ing.blockchain.zk.codec.BinaryCodec;
+import com.ing.blockchain.zk.dto.ClosedRange;
+import com.ing.blockchain.zk.dto.Commitment;
+import com.ing.blockchain.zk.dto.RangeProof;
+import com.ing.blockchain.zk.dto.SecurityProfile;
+import com.ing.blockchain.zk.exception.ZeroKnowledgeException;
+import com.ing.blockchain.zk.metrics.Metrics;
+import com.ing.blockchain.zk.registry.GroupFingerprint;
+import org.bouncycastle.crypto.Digest;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers the outcome of range proof validations, so that validating the same proof again is a hash lookup.
+ *
+ * Entries are keyed by the SHA-256 digest of the group fingerprint, the commitment value, the range, the proof and
+ * k1 of the security profile, in the binary encoding. Both valid and invalid outcomes are cached. When the cache is
+ * full, the least recently used entry is evicted. The cache can be shared between threads; two threads that validate
+ * the same new proof at the same time both run the validation.
+ */
+public class VerificationCache {
+
+    private final int maxEntries;
+    private final Map<Key, Boolean> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public VerificationCache(int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries should be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<Key, Boolean>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Boolean> eldest) {
+                if (size() > VerificationCache.this.maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        Metrics.registerCache(this, VerificationCache::getHits, VerificationCache::getMisses);
+    }
+
+    public void validateRangeProof(RangeProof proof, Commitment commitment, ClosedRange range) {
+        validateRangeProof(proof, commitment, range, SecurityProfile.DEFAULT);
+    }
+
+    /**
+     * Same as {@link HPAKErangeProof#validateRangeProof(RangeProof, Commitment, ClosedRange, SecurityProfile)}, but
+     * looks up the outcome first.
+     *
+     * @throws ZeroKnowledgeException if the proof is invalid
+     */
+    public void validateRangeProof(RangeProof proof, Commitment commitment, ClosedRange range,
+                                   SecurityProfile profile) {
+        Key key = key(proof, commitment, range, profile);
+        Boolean valid;
+        synchronized (entries) {
+            valid = entries.get(key);
+        }
+
+        if (valid != null) {
+            hits.increment();
+            if (!valid) {
+                throw new ZeroKnowledgeException("Range proof validation failed (cached)");
+            }
+            return;
+        }
+
+        misses.increment();
+        try {
+            HPAKErangeProof.validateRangeProof(proof, commitment, range, profile);
+        } catch (ZeroKnowledgeException e) {
+            put(key, false);
+            throw e;
+        } catch (ArithmeticException e) {
+            // An element of the proof that is not invertible modulo N, which makes it invalid
+            put(key, false);
+            throw new ZeroKnowledgeException("Range proof validation failed", e);
+        }
+        put(key, true);
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return the fraction of lookups that were hits, or 0 if there were no lookups
+     */
+    public double getHitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("VerificationCache(size=%d/%d, hits=%d, misses=%d, evictions=%d)",
+                size(), maxEntries, getHits(), getMisses(), getEvictions());
+    }
+
+    private void put(Key key, boolean valid) {
+        synchronized (entries) {
+            entries.put(key, valid);
+        }
+    }
+
+    static Key key(RangeProof proof, Commitment commitment, ClosedRange range, SecurityProfile profile) {
+        ByteBuffer buffer = ByteBuffer.allocate(GroupFingerprint.BYTES
+                + BinaryCodec.integerSize(commitment.getCommitmentValue()) + BinaryCodec.encodedSize(range)
+                + BinaryCodec.encodedSize(proof) + BinaryCodec.integerSize(profile.getK1()));
+        GroupFingerprint.of(commitment.getGroup()).put(buffer);
+        BinaryCodec.putInteger(buffer, commitment.getCommitmentValue());
+        BinaryCodec.encode(range, buffer);
+        BinaryCodec.encode(proof, buffer);
+        BinaryCodec.putInteger(buffer, profile.getK1());
+
+        Digest digest = new SHA256Digest();
+        digest.update(buffer.array(), 0, buffer.position());
+        byte[] output = new byte[digest.getDigestSize()];
+        digest.doFinal(output, 0);
+        return new Key(output);
+    }
+
+    static final class Key {
+        private final byte[] digest;
+        private final int hash;
+
+        Key(byte[] digest) {
+            this.digest = digest;
+            // The digest is uniformly distributed, any four bytes make a good hash code
+            this.hash = ByteBuffer.wrap(digest).getInt();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && Arrays.equals(digest, ((Key) o).digest);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
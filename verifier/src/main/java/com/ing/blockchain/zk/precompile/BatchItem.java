@@ -0,0 +1,53 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.precompile;
+
+import com.ing.blockchain.zk.dto.ClosedRange;
+import com.ing.blockchain.zk.dto.Commitment;
+import com.ing.blockchain.zk.dto.RangeProof;
+
+/**
+ * One (range, commitment, proof) tuple of a call of validateBatch.
+ */
+public final class BatchItem {
+
+    private final ClosedRange range;
+    private final Commitment commitment;
+    private final RangeProof proof;
+
+    public BatchItem(ClosedRange range, Commitment commitment, RangeProof proof) {
+        this.range = range;
+        this.commitment = commitment;
+        this.proof = proof;
+    }
+
+    public ClosedRange getRange() {
+        return range;
+    }
+
+    public Commitment getCommitment() {
+        return commitment;
+    }
+
+    public RangeProof getProof() {
+        return proof;
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.precompile;
+
+import com.ing.blockchain.zk.dto.ClosedRange;
+import com.ing.blockchain.zk.dto.Commitment;
+import com.ing.blockchain.zk.dto.RangeProof;
+import com.ing.blockchain.zk.dto.SecretOrderGroup;
+import com.ing.blockchain.zk.registry.GroupFingerprint;
+import com.ing.blockchain.zk.registry.GroupRegistry;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Encodes the input of the range proof precompile at address 0x09, which is the ABI encoding of
+ * <pre>
+ * validate(uint lower, uint upper, string commitment, string proof)
+ * </pre>
+ * The commitment string is "c,N,g,h" and the proof string holds the 22 integers of
+ * {@link RangeProof#toArray()}, both as comma-separated ASCII decimals.
+ *
+ * A call of
+ * <pre>
+ * validateBatch(bytes items)
+ * </pre>
+ * packs k of these calls in one argument: a word with k, k words with the offsets of the items relative to the
+ * start of the argument, and the items. An item is the input of validate without the selector, its string offsets
+ * are relative to the start of the item.
+ *
+ * The encoder writes into a buffer that it reuses for the next call; it is not thread-safe.
+ */
+public class CalldataEncoder {
+
+    // keccak256("validate(uint256,uint256,string,string)")[0:4]
+    public static final byte[] VALIDATE_SELECTOR = {(byte) 0xcd, 0x2e, 0x3d, 0x79};
+
+    // keccak256("validateBatch(bytes)")[0:4]
+    public static final byte[] VALIDATE_BATCH_SELECTOR = {0x56, 0x45, 0x48, 0x7d};
+
+    static final int WORD = 32;
+    static final BigInteger MAX_UINT = BigInteger.ONE.shiftLeft(256).subtract(BigInteger.ONE);
+
+    static final int SELECTOR_BYTES = 4;
+    private static final int HEAD_BYTES = 4 * WORD;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private byte[] buffer;
+    private int length;
+
+    public CalldataEncoder() {
+        this(16 * 1024);
+    }
+
+    public CalldataEncoder(int initialCapacity) {
+        buffer = new byte[initialCapacity];
+    }
+
+    /**
+     * Encodes a call of validate.
+     *
+     * @return a read-only view of the calldata, valid until the next call of the encoder
+     */
+    public ByteBuffer encode(RangeProof proof, Commitment commitment, ClosedRange range) {
+        ensureCapacity(SELECTOR_BYTES);
+        System.arraycopy(VALIDATE_SELECTOR, 0, buffer, 0, SELECTOR_BYTES);
+        length = writeItem(proof, commitmentFields(commitment), range, SELECTOR_BYTES);
+        return view();
+    }
+
+    /**
+     * Encodes a call of validate with the commitment string "c,F", where F is the fingerprint of the group as
+     * decimal number. Only a validator that has the group registered accepts this, see
+     * {@link PrecompileValidator#validate(byte[], GroupRegistry)}.
+     *
+     * @return a read-only view of the calldata, valid until the next call of the encoder
+     */
+    public ByteBuffer encodeByReference(RangeProof proof, Commitment commitment, ClosedRange range) {
+        ensureCapacity(SELECTOR_BYTES);
+        System.arraycopy(VALIDATE_SELECTOR, 0, buffer, 0, SELECTOR_BYTES);
+        BigInteger[] commitmentFields = {
+                commitment.getCommitmentValue(), GroupFingerprint.of(commitment.getGroup()).toBigInteger()
+        };
+        length = writeItem(proof, commitmentFields, range, SELECTOR_BYTES);
+        return view();
+    }
+
+    /**
+     * Encodes a call of validateBatch.
+     *
+     * @return a read-only view of the calldata, valid until the next call of the encoder
+     */
+    public ByteBuffer encodeBatch(List<BatchItem> items) {
+        if (items.isEmpty()) {
+            throw new IllegalArgumentException("A batch needs at least one item");
+        }
+        int argument = SELECTOR_BYTES + 2 * WORD;
+        int table = argument + WORD;
+        int item = table + items.size() * WORD;
+        ensureCapacity(item);
+
+        System.arraycopy(VALIDATE_BATCH_SELECTOR, 0, buffer, 0, SELECTOR_BYTES);
+        writeUint(BigInteger.valueOf(WORD), SELECTOR_BYTES);
+        writeUint(BigInteger.valueOf(items.size()), argument);
+        for (int i = 0; i < items.size(); i++) {
+            writeUint(BigInteger.valueOf(item - argument), table + i * WORD);
+            BatchItem next = items.get(i);
+            item = writeItem(next.getProof(), commitmentFields(next.getCommitment()), next.getRange(), item);
+        }
+        writeUint(BigInteger.valueOf(item - argument), SELECTOR_BYTES + WORD);
+
+        // Items are a multiple of 32 bytes, so the argument needs no padding
+        length = item;
+        return view();
+    }
+
+    // Writes the arguments of validate, with offsets relative to start, and returns the offset after the last byte
+    private int writeItem(RangeProof proof, BigInteger[] commitmentFields, ClosedRange range, int start) {
+        BigInteger[] proofFields = proof.toArray();
+        ensureCapacity(start + HEAD_BYTES + 2 * WORD
+                + maxStringLength(commitmentFields) + maxStringLength(proofFields) + 2 * WORD);
+
+        writeUint(range.getStart(), start);
+        writeUint(range.getEnd(), start + WORD);
+
+        // The strings are written first, their offsets and lengths are filled in afterwards
+        int commitmentOffset = HEAD_BYTES;
+        int commitmentEnd = writeString(commitmentFields, start + commitmentOffset);
+        int proofOffset = commitmentEnd - start;
+        int end = writeString(proofFields, commitmentEnd);
+
+        writeUint(BigInteger.valueOf(commitmentOffset), start + 2 * WORD);
+        writeUint(BigInteger.valueOf(proofOffset), start + 3 * WORD);
+        return end;
+    }
+
+    private ByteBuffer view() {
+        return ByteBuffer.wrap(buffer, 0, length).slice().asReadOnlyBuffer();
+    }
+
+    /**
+     * @return a copy of the calldata of the last call of {@link #encode} or {@link #encodeBatch}.
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, length);
+    }
+
+    /**
+     * @return the calldata of the last call of {@link #encode} or {@link #encodeBatch} as a hex string with 0x
+     * prefix, as used in JSON-RPC.
+     */
+    public String toHexString() {
+        char[] hex = new char[2 + 2 * length];
+        hex[0] = '0';
+        hex[1] = 'x';
+        for (int i = 0; i < length; i++) {
+            hex[2 + 2 * i] = HEX_DIGITS[(buffer[i] >> 4) & 0xf];
+            hex[3 + 2 * i] = HEX_DIGITS[buffer[i] & 0xf];
+        }
+        return new String(hex);
+    }
+
+    static BigInteger[] commitmentFields(Commitment commitment) {
+        SecretOrderGroup group = commitment.getGroup();
+        return new BigInteger[]{commitment.getCommitmentValue(), group.getN(), group.getG(), group.getH()};
+    }
+
+    static int maxStringLength(BigInteger[] fields) {
+        int max = fields.length; // separators, rounded up for padding below
+        for (BigInteger field : fields) {
+            max += DecimalWriter.maxLength(field);
+        }
+        return max + WORD;
+    }
+
+    /**
+     * Writes a length word followed by the comma-separated integers, zero-padded to a multiple of 32 bytes.
+     *
+     * @return the offset after the padding
+     */
+    int writeString(BigInteger[] fields, int offset) {
+        int start = offset + WORD;
+        int end = start;
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                buffer[end++] = ',';
+            }
+            end = DecimalWriter.write(fields[i], buffer, end);
+        }
+        writeUint(BigInteger.valueOf(end - start), offset);
+
+        int padded = start + (end - start + WORD - 1) / WORD * WORD;
+        Arrays.fill(buffer, end, padded, (byte) 0);
+        return padded;
+    }
+
+    /**
+     * Writes a big-endian 256 bit word.
+     */
+    void writeUint(BigInteger value, int offset) {
+        if (value.signum() < 0 || value.compareTo(MAX_UINT) > 0) {
+            throw new IllegalArgumentException("Value " + value + " does not fit in uint256");
+        }
+        byte[] bytes = value.toByteArray();
+        int skip = bytes.length > WORD ? bytes.length - WORD : 0; // sign byte of 256 bit values
+        int size = bytes.length - skip;
+        Arrays.fill(buffer, offset, offset + WORD - size, (byte) 0);
+        System.arraycopy(bytes, skip, buffer, offset + WORD - size, size);
+    }
+
+    void ensureCapacity(int capacity) {
+        if (buffer.length < capacity) {
+            buffer = Arrays.copyOf(buffer, Math.max(capacity, 2 * buffer.length));
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.precompile;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * Writes the ASCII decimal representation of big integers straight into a byte array.
+ *
+ * Large values are split recursively by 10^(2^k), so that the conversion costs a few divisions of balanced size
+ * instead of one division by a small number per digit group. The powers of ten are computed once and shared.
+ */
+public final class DecimalWriter {
+
+    // Values up to this bit length are converted through a long
+    private static final int LONG_BITS = 62;
+    private static final double LOG10_2 = Math.log10(2);
+
+    // TEN_POWERS[k] = 10^(2^k)
+    private static volatile BigInteger[] TEN_POWERS = {BigInteger.TEN};
+
+    private DecimalWriter() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    /**
+     * @return an upper bound of the number of bytes {@link #write} needs for n, including the sign.
+     */
+    public static int maxLength(BigInteger n) {
+        return (int) (n.bitLength() * LOG10_2) + 2;
+    }
+
+    /**
+     * Writes n in decimal, with a leading '-' when negative.
+     *
+     * @return the offset after the last written byte
+     */
+    public static int write(BigInteger n, byte[] out, int offset) {
+        if (n.signum() < 0) {
+            out[offset++] = '-';
+            n = n.negate();
+        }
+        return write(n, 0, out, offset);
+    }
+
+    // Writes non-negative n, left-padded with zeros to the given number of digits (0 for no padding)
+    private static int write(BigInteger n, int digits, byte[] out, int offset) {
+        if (n.bitLength() <= LONG_BITS) {
+            return writeLong(n.longValue(), digits, out, offset);
+        }
+
+        // Split in two halves of about the same number of digits
+        int k = 31 - Integer.numberOfLeadingZeros((int) (n.bitLength() * LOG10_2) / 2);
+        int lowDigits = 1 << k;
+        BigInteger[] qr = n.divideAndRemainder(tenPower(k));
+
+        offset = write(qr[0], digits > 0 ? digits - lowDigits : 0, out, offset);
+        return write(qr[1], lowDigits, out, offset);
+    }
+
+    private static int writeLong(long value, int digits, byte[] out, int offset) {
+        int length = 1;
+        for (long v = value / 10; v != 0; v /= 10) {
+            length++;
+        }
+        if (digits > length) {
+            for (int i = 0; i < digits - length; i++) {
+                out[offset++] = '0';
+            }
+        }
+        int end = offset + length;
+        for (int i = end - 1; i >= offset; i--) {
+            out[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        return end;
+    }
+
+    private static BigInteger tenPower(int k) {
+        BigInteger[] powers = TEN_POWERS;
+        if (k < powers.length) {
+            return powers[k];
+        }
+        synchronized (DecimalWriter.class) {
+            powers = TEN_POWERS;
+            if (k >= powers.length) {
+                BigInteger[] extended = Arrays.copyOf(powers, k + 1);
+                for (int i = powers.length; i <= k; i++) {
+                    extended[i] = extended[i - 1].multiply(extended[i - 1]);
+                }
+                TEN_POWERS = extended;
+                powers = extended;
+            }
+            return powers[k];
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.precompile;
+
+import com.ing.blockchain.zk.dto.ClosedRange;
+import com.ing.blockchain.zk.dto.Commitment;
+import com.ing.blockchain.zk.dto.RangeProof;
+import com.ing.blockchain.zk.dto.SecretOrderGroup;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * Arguments of a call of the range proof precompile, as parsed by {@link PrecompileValidator#parse}.
+ *
+ * The commitment and proof hold all integers that were present in the input, which may be fewer or more than
+ * the precompile uses.
+ */
+public final class PrecompileInput {
+
+    static final int COMMITMENT_FIELDS = 4;
+
+    private final BigInteger lower;
+    private final BigInteger upper;
+    private final BigInteger[] commitment;
+    private final BigInteger[] proof;
+
+    PrecompileInput(BigInteger lower, BigInteger upper, BigInteger[] commitment, BigInteger[] proof) {
+        this.lower = lower;
+        this.upper = upper;
+        this.commitment = commitment;
+        this.proof = proof;
+    }
+
+    public BigInteger getLower() {
+        return lower;
+    }
+
+    public BigInteger getUpper() {
+        return upper;
+    }
+
+    public BigInteger[] getCommitmentFields() {
+        return commitment.clone();
+    }
+
+    public BigInteger[] getProofFields() {
+        return proof.clone();
+    }
+
+    /**
+     * @return whether there are enough integers for the precompile to run the validation.
+     */
+    public boolean isComplete() {
+        return commitment.length >= COMMITMENT_FIELDS && proof.length >= RangeProof.FIELD_COUNT;
+    }
+
+    public ClosedRange getRange() {
+        return ClosedRange.of(lower, upper);
+    }
+
+    public Commitment getCommitment() {
+        checkComplete();
+        return new Commitment(new SecretOrderGroup(commitment[1], commitment[2], commitment[3]), commitment[0]);
+    }
+
+    public RangeProof getProof() {
+        checkComplete();
+        return RangeProof.fromArray(Arrays.copyOf(proof, RangeProof.FIELD_COUNT));
+    }
+
+    private void checkComplete() {
+        if (!isComplete()) {
+            throw new IllegalStateException("Input has " + commitment.length + " commitment and "
+                    + proof.length + " proof integers");
+        }
+    }
+}
@@ -0,0 +1,338 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.precompile;
+
+import com.ing.blockchain.zk.HPAKErangeProof;
+import com.ing.blockchain.zk.dto.RangeProof;
+import com.ing.blockchain.zk.dto.SecretOrderGroup;
+import com.ing.blockchain.zk.dto.SecurityProfile;
+import com.ing.blockchain.zk.exception.ZeroKnowledgeException;
+import com.ing.blockchain.zk.registry.GroupFingerprint;
+import com.ing.blockchain.zk.registry.GroupRegistry;
+import org.bouncycastle.util.BigIntegers;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Java version of the range proof precompile of go-ethereum (zkpRangeProof in core/vm/contracts.go), to check
+ * calldata before it is submitted.
+ *
+ * It accepts exactly the input that zkpRangeProof.Run and byteconversion.ParseInput accept:
+ * <ul>
+ *     <li>the offset of the commitment in the head is ignored, the commitment always starts at byte 164;</li>
+ *     <li>the padding after each string is not checked;</li>
+ *     <li>an integer consists of digits with an optional leading '-', an empty integer or "-" is parsed as 0;</li>
+ *     <li>superfluous integers in the commitment and the proof are ignored.</li>
+ * </ul>
+ * Where Run returns an error, this class throws an IllegalArgumentException with the same message. Run dispatches
+ * a call with the selector of validateBatch to {@link #runBatch} and treats any other input as a call of validate.
+ */
+public final class PrecompileValidator {
+
+    // Gas that the precompile charges for a call of validate, and for each item of a call of validateBatch
+    public static final long REQUIRED_GAS = 180000;
+
+    static final String INVALID_INPUT = "invalid input to range proof";
+    static final String INVALID_BIG_INTEGER = "invalid ASCII for big integer";
+
+    private static final int OFFSET = 4;
+    private static final int WORD = CalldataEncoder.WORD;
+    private static final int SELECTOR_BYTES = CalldataEncoder.SELECTOR_BYTES;
+    private static final int COMMITMENT_START = 164;
+
+    private static final byte[] TRUE = word(1);
+    private static final byte[] FALSE = word(0);
+
+    private PrecompileValidator() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    /**
+     * Mirrors zkpRangeProof.RequiredGas: {@link #REQUIRED_GAS} for every item of a well-formed call of validateBatch,
+     * and once for any other input.
+     */
+    public static long requiredGas(byte[] input) {
+        if (isBatch(input)) {
+            try {
+                return (itemBounds(input).length - 1) * REQUIRED_GAS;
+            } catch (IllegalArgumentException e) {
+                // Run rejects the batch
+            }
+        }
+        return REQUIRED_GAS;
+    }
+
+    /**
+     * Mirrors zkpRangeProof.Run.
+     *
+     * @return for validate the 32 byte word 1 if the proof is valid, or 0 if not; for validateBatch the output of
+     *         {@link #runBatch}
+     * @throws IllegalArgumentException if the precompile would return an error
+     */
+    public static byte[] run(byte[] input) {
+        if (isBatch(input)) {
+            return runBatch(input);
+        }
+        return validate(input) ? TRUE.clone() : FALSE.clone();
+    }
+
+    private static boolean isBatch(byte[] input) {
+        return input.length >= SELECTOR_BYTES
+                && Arrays.equals(Arrays.copyOf(input, SELECTOR_BYTES), CalldataEncoder.VALIDATE_BATCH_SELECTOR);
+    }
+
+    /**
+     * @return whether the precompile would return true for the input
+     * @throws IllegalArgumentException if the precompile would return an error
+     */
+    public static boolean validate(byte[] input) {
+        PrecompileInput parsed = parse(input);
+        return validateRangeProof(parsed.getLower(), parsed.getUpper(),
+                parsed.getCommitmentFields(), parsed.getProofFields());
+    }
+
+    /**
+     * Like {@link #validate(byte[])}, but also accepts a commitment string "c,F" that refers to a registered group by
+     * its fingerprint F, see {@link CalldataEncoder#encodeByReference}. An unknown fingerprint makes the proof
+     * invalid. The go-ethereum precompile has no registry and rejects such a commitment.
+     */
+    public static boolean validate(byte[] input, GroupRegistry registry) {
+        PrecompileInput parsed = parse(input);
+        BigInteger[] commitment = parsed.getCommitmentFields();
+        if (commitment.length == 2) {
+            try {
+                SecretOrderGroup group = registry.resolve(GroupFingerprint.fromBigInteger(commitment[1]));
+                commitment = new BigInteger[]{commitment[0], group.getN(), group.getG(), group.getH()};
+            } catch (IllegalArgumentException e) {
+                return false;
+            }
+        }
+        return validateRangeProof(parsed.getLower(), parsed.getUpper(), commitment, parsed.getProofFields());
+    }
+
+    /**
+     * Parses the input like zkpRangeProof.Run does before it validates the proof.
+     *
+     * @throws IllegalArgumentException if the input is rejected
+     */
+    public static PrecompileInput parse(byte[] input) {
+        return parse(input, 0, input.length);
+    }
+
+    // Parses data[base:end], base is the position of the selector of validate
+    static PrecompileInput parse(byte[] data, int base, int end) {
+        int length = end - base;
+        if (length < OFFSET + 6 * WORD) {
+            throw new IllegalArgumentException(INVALID_INPUT);
+        }
+
+        BigInteger lower = readWord(data, base + 4);
+        BigInteger upper = readWord(data, base + 36);
+        // Same wrap-around as big.Int.Int64() and int64 addition
+        long startProof = readWord(data, base + 100).longValue() + OFFSET;
+
+        if (startProof <= COMMITMENT_START || startProof + WORD > length) {
+            throw new IllegalArgumentException(INVALID_INPUT);
+        }
+        if (startProof > length - WORD) {
+            // startProof + 32 overflowed
+            throw new IllegalArgumentException(INVALID_INPUT);
+        }
+
+        int proofStart = base + (int) startProof;
+        int commitmentStart = base + COMMITMENT_START;
+        long commitmentLength = readWord(data, base + 132).longValue();
+        long proofLength = readWord(data, proofStart).longValue();
+        int commitmentAvailable = proofStart - commitmentStart;
+        int proofAvailable = end - proofStart - WORD;
+
+        if (commitmentLength <= 0 || proofLength <= 0
+                || commitmentLength > commitmentAvailable || proofLength > proofAvailable) {
+            throw new IllegalArgumentException(INVALID_INPUT);
+        }
+
+        // The padding after the strings is ignored
+        BigInteger[] commitment = parseFields(data, commitmentStart, commitmentStart + (int) commitmentLength);
+        int proofDataStart = proofStart + WORD;
+        BigInteger[] proof = parseFields(data, proofDataStart, proofDataStart + (int) proofLength);
+
+        return new PrecompileInput(lower, upper, commitment, proof);
+    }
+
+    /**
+     * Validates a call of validateBatch, see {@link CalldataEncoder#encodeBatch}. An item that validate would
+     * reject with an error, or that does not fit in its slot, is invalid.
+     *
+     * @return the set of valid items
+     * @throws IllegalArgumentException if the selector, the bytes argument or the item table is malformed
+     */
+    public static BitSet validateBatch(byte[] input) {
+        return validateItems(input, itemBounds(input));
+    }
+
+    /**
+     * @return the ABI encoding of the bytes that validateBatch returns: bit i % 8 of byte i / 8 is set if item i
+     * is valid
+     * @throws IllegalArgumentException if the batch is malformed
+     */
+    public static byte[] runBatch(byte[] input) {
+        int[] bounds = itemBounds(input);
+        byte[] bitmap = validateItems(input, bounds).toByteArray();
+
+        int bitmapBytes = (bounds.length - 1 + 7) / 8;
+        byte[] output = new byte[2 * WORD + (bitmapBytes + WORD - 1) / WORD * WORD];
+        System.arraycopy(word(WORD), 0, output, 0, WORD);
+        System.arraycopy(word(bitmapBytes), 0, output, WORD, WORD);
+        System.arraycopy(bitmap, 0, output, 2 * WORD, bitmap.length);
+        return output;
+    }
+
+    // Returns the start of each item in the input, followed by the end of the last item
+    private static int[] itemBounds(byte[] input) {
+        if (input.length < SELECTOR_BYTES + 3 * WORD || !isBatch(input)) {
+            throw new IllegalArgumentException(INVALID_INPUT);
+        }
+
+        long offset = readLength(input, SELECTOR_BYTES, input.length);
+        int argument = SELECTOR_BYTES + (int) offset + WORD;
+        long size = readLength(input, argument - WORD, input.length);
+        int end = argument + (int) size;
+        if (end > input.length || size < WORD) {
+            throw new IllegalArgumentException(INVALID_INPUT);
+        }
+
+        long count = readLength(input, argument, end);
+        if (count == 0 || count > (size - WORD) / WORD) {
+            throw new IllegalArgumentException(INVALID_INPUT);
+        }
+
+        int items = (int) count;
+        int table = argument + WORD;
+        int[] starts = new int[items + 1];
+        starts[items] = end;
+        for (int i = 0; i < items; i++) {
+            long start = readLength(input, table + i * WORD, end);
+            if (start < WORD + items * (long) WORD || start > size || (i > 0 && argument + start < starts[i - 1])) {
+                throw new IllegalArgumentException(INVALID_INPUT);
+            }
+            starts[i] = argument + (int) start;
+        }
+
+        return starts;
+    }
+
+    private static BitSet validateItems(byte[] input, int[] starts) {
+        int items = starts.length - 1;
+        BitSet valid = new BitSet(items);
+        for (int i = 0; i < items; i++) {
+            try {
+                PrecompileInput item = parse(input, starts[i] - SELECTOR_BYTES, starts[i + 1]);
+                valid.set(i, validateRangeProof(item.getLower(), item.getUpper(),
+                        item.getCommitmentFields(), item.getProofFields()));
+            } catch (IllegalArgumentException e) {
+                // Leave the item invalid
+            }
+        }
+        return valid;
+    }
+
+    /**
+     * Mirrors zkrangeproof.ValidateRangeProof, which takes k1 = 2^160.
+     */
+    public static boolean validateRangeProof(BigInteger lower, BigInteger upper, BigInteger[] commitment,
+                                             BigInteger[] proof) {
+        PrecompileInput input = new PrecompileInput(lower, upper, commitment, proof);
+        if (!input.isComplete() || commitment[1].signum() <= 0) {
+            return false;
+        }
+
+        try {
+            HPAKErangeProof.validateRangeProof(input.getProof(), input.getCommitment(), input.getRange(),
+                    SecurityProfile.LEGACY);
+            return true;
+        } catch (ZeroKnowledgeException | ArithmeticException e) {
+            // ArithmeticException: an element that is not invertible modulo N
+            return false;
+        }
+    }
+
+    /**
+     * Mirrors byteconversion.ParseInput: comma-separated integers in ASCII.
+     */
+    static BigInteger[] parseFields(byte[] in, int from, int to) {
+        List<BigInteger> fields = new ArrayList<>(RangeProof.FIELD_COUNT);
+        int start = from;
+        for (int i = from; i < to; i++) {
+            if (in[i] == ',') {
+                fields.add(parseInteger(in, start, i));
+                start = i + 1;
+            }
+        }
+        fields.add(parseInteger(in, start, to));
+        return fields.toArray(new BigInteger[fields.size()]);
+    }
+
+    /**
+     * Mirrors byteconversion.ConvertToBigInt.
+     */
+    static BigInteger parseInteger(byte[] in, int from, int to) {
+        for (int i = from; i < to; i++) {
+            byte b = in[i];
+            if (!((b >= '0' && b <= '9') || (i == from && b == '-'))) {
+                throw new IllegalArgumentException(INVALID_BIG_INTEGER);
+            }
+        }
+
+        boolean negative = to > from && in[from] == '-';
+        int digits = negative ? from + 1 : from;
+        if (digits == to) {
+            // big.Int.SetString fails and leaves 0, which ConvertToBigInt returns anyway
+            return BigInteger.ZERO;
+        }
+        BigInteger value = new BigInteger(new String(in, digits, to - digits, StandardCharsets.US_ASCII));
+        return negative ? value.negate() : value;
+    }
+
+    // Reads a word that has to be at most max
+    private static long readLength(byte[] input, int offset, long max) {
+        if (offset + WORD > input.length) {
+            throw new IllegalArgumentException(INVALID_INPUT);
+        }
+        BigInteger value = readWord(input, offset);
+        if (value.compareTo(BigInteger.valueOf(max)) > 0) {
+            throw new IllegalArgumentException(INVALID_INPUT);
+        }
+        return value.longValue();
+    }
+
+    private static BigInteger readWord(byte[] input, int offset) {
+        return new BigInteger(1, Arrays.copyOfRange(input, offset, offset + WORD));
+    }
+
+    private static byte[] word(int value) {
+        return BigIntegers.asUnsignedByteArray(WORD, BigInteger.valueOf(value));
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk;
+
+import com.ing.blockchain.zk.codec.BinaryCodec;
+import com.ing.blockchain.zk.dto.*;
+import com.ing.blockchain.zk.exception.ZeroKnowledgeException;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.math.BigInteger;
+import java.security.SecureRandom;
+
+import static com.ing.blockchain.zk.RangeProofTests.EXAMPLE_GROUP;
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link HPAKECombinedRangeProof}.
+ */
+public class HPAKECombinedRangeProofTest {
+
+    private static final ClosedRange RANGE = ClosedRange.of("10", "100");
+
+    @Test
+    public void testValidProof() {
+        for (String x : new String[]{"10", "50", "100"}) {
+            TTPMessage message = TTPGenerator.generateTTPMessage(new BigInteger(x), EXAMPLE_GROUP);
+            CombinedRangeProof proof = HPAKECombinedRangeProof.calculateRangeProof(message, RANGE);
+            HPAKECombinedRangeProof.validateRangeProof(proof, message.getCommitment(), RANGE);
+
+            CombinedRangeProof decoded = BinaryCodec.decodeCombinedRangeProof(BinaryCodec.encode(proof));
+            HPAKECombinedRangeProof.validateRangeProof(decoded, message.getCommitment(), RANGE);
+        }
+    }
+
+    @Test
+    public void testBothVersions() {
+        TTPMessage message = TTPGenerator.generateTTPMessage(BigInteger.valueOf(42), EXAMPLE_GROUP);
+        byte[] version1 = BinaryCodec.encode(HPAKErangeProof.calculateRangeProof(message, RANGE));
+        byte[] version2 = BinaryCodec.encode(HPAKECombinedRangeProof.calculateRangeProof(message, RANGE));
+        HPAKECombinedRangeProof.validateRangeProof(version1, message.getCommitment(), RANGE, SecurityProfile.DEFAULT);
+        HPAKECombinedRangeProof.validateRangeProof(version2, message.getCommitment(), RANGE, SecurityProfile.DEFAULT);
+        assertTrue(version2.length < version1.length);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNotARangeProof() {
+        TTPMessage message = TTPGenerator.generateTTPMessage(BigInteger.valueOf(42), EXAMPLE_GROUP);
+        HPAKECombinedRangeProof.validateRangeProof(BinaryCodec.encode(message.getCommitment()),
+                message.getCommitment(), RANGE, SecurityProfile.DEFAULT);
+    }
+
+    @Test(expected = ZeroKnowledgeException.class)
+    public void testOutOfRange() {
+        TTPMessage message = TTPGenerator.generateTTPMessage(BigInteger.valueOf(101), EXAMPLE_GROUP);
+        CombinedRangeProof proof = HPAKECombinedRangeProof.calculateRangeProof(message, RANGE);
+        HPAKECombinedRangeProof.validateRangeProof(proof, message.getCommitment(), RANGE);
+    }
+
+    @Test
+    public void testChecksNineAndTenExactly() {
+        TTPMessage message = TTPGenerator.generateTTPMessage(BigInteger.valueOf(42), EXAMPLE_GROUP);
+        CombinedRangeProof proof = HPAKECombinedRangeProof.calculateRangeProof(message, RANGE);
+        RangeProof p = proof.getProof();
+        // u and v are not in the transcript, so only check 9 or 10 sees the change
+        RangeProof[] modified = {
+                new RangeProof(p.getEcProof2(), p.getSqrProof3(), p.getSqrProof4(), p.getcPrime(), p.getcPrime1(),
+                        p.getcPrime2(), p.getcPrime3(), p.getX(), p.getY(), p.getU().add(BigInteger.ONE), p.getV()),
+                new RangeProof(p.getEcProof2(), p.getSqrProof3(), p.getSqrProof4(), p.getcPrime(), p.getcPrime1(),
+                        p.getcPrime2(), p.getcPrime3(), p.getX(), p.getY(), p.getU(), p.getV().add(BigInteger.ONE))
+        };
+        for (int i = 0; i < modified.length; i++) {
+            try {
+                HPAKECombinedRangeProof.validateRangeProof(new CombinedRangeProof(proof.getChallenge(), modified[i]),
+                        message.getCommitment(), RANGE);
+                fail("Modified " + (i == 0 ? "u" : "v") + " accepted");
+            } catch (ZeroKnowledgeException e) {
+                assertEquals("Crypto Exception at check (" + (9 + i) + ")", e.getMessage());
+            }
+        }
+    }
+
+    @Test(expected = ZeroKnowledgeException.class)
+    public void testForgedSubProofChallenge() throws ReflectiveOperationException {
+        TTPMessage message = TTPGenerator.generateTTPMessage(BigInteger.valueOf(42), EXAMPLE_GROUP);
+        CombinedRangeProof proof = HPAKECombinedRangeProof.calculateRangeProof(message, RANGE);
+        BigInteger[] fields = proof.getProof().toArray();
+        fields[14] = fields[14].add(BigInteger.ONE);
+
+        // The constructor rejects such a proof, but deserialization does not call it
+        Field field = CombinedRangeProof.class.getDeclaredField("proof");
+        field.setAccessible(true);
+        field.set(proof, RangeProof.fromArray(fields));
+        HPAKECombinedRangeProof.validateRangeProof(proof, message.getCommitment(), RANGE);
+    }
+
+    @Test
+    public void testAllFieldsChecked() {
+        TTPMessage message = TTPGenerator.generateTTPMessage(BigInteger.valueOf(42), EXAMPLE_GROUP);
+        BigInteger[] fields = HPAKECombinedRangeProof.calculateRangeProof(message, RANGE, SecurityProfile.DEFAULT,
+                new SecureRandom()).toArray();
+        assertEquals(CombinedRangeProof.FIELD_COUNT, fields.length);
+        for (int i = 0; i < fields.length; i++) {
+            BigInteger real = fields[i];
+            for (BigInteger fake : new BigInteger[]{BigInteger.ZERO, BigInteger.ONE, real.add(BigInteger.ONE)}) {
+                fields[i] = fake;
+                try {
+                    HPAKECombinedRangeProof.validateRangeProof(CombinedRangeProof.fromArray(fields),
+                            message.getCommitment(), RANGE);
+                    fail("Modified field " + i + " accepted");
+                } catch (ZeroKnowledgeException | ArithmeticException e) {
+                    // expected
+                }
+            }
+            fields[i] = real;
+        }
+    }
+}
@@ -25,17 +25,30 @@ import org.junit.Test;
 
 import java.math.BigInteger;
 import java.security.SecureRandom;
+import java.util.Random;
 
 import static junit.framework.TestCase.fail;
 import static org.junit.Assert.assertEquals;
 
 public class RangeProofTests {
 
-    static final SecretOrderGroup EXAMPLE_GROUP = new SecretOrderGroup(
+    public static final SecretOrderGroup EXAMPLE_GROUP = new SecretOrderGroup(
             new BigInteger("123763483659823661164839153854113"),
             new BigInteger("9978076495933337078596144096749"),
             new BigInteger("46959937887401751832025265468109"));
 
+    // A group of the given size for tests only: N = p * q for ordinary primes, which is quicker than safe primes
+    static SecretOrderGroup group(int bitLength, Random random) {
+        BigInteger N;
+        do {
+            N = BigInteger.probablePrime(bitLength / 2, random)
+                    .multiply(BigInteger.probablePrime(bitLength - bitLength / 2, random));
+        } while (N.bitLength() != bitLength);
+        BigInteger root = new BigInteger(bitLength, random).mod(N);
+        BigInteger g = root.multiply(root).mod(N);
+        return new SecretOrderGroup(N, g, g.modPow(new BigInteger(bitLength, random), N));
+    }
+
     private BigInteger[] toArray(RangeProof proof) {
         BigInteger[] res = new BigInteger[22];
         res[0] = proof.getcPrime();
@@ -168,6 +181,49 @@ public class RangeProofTests {
         HPAKErangeProof.validateRangeProof(rangeProof, message.getCommitment(), range);
     }
 
+    @Test
+    public void testSecurityProfiles() throws Exception {
+        BigInteger x = new BigInteger("50");
+        ClosedRange range = ClosedRange.of("10", "100");
+
+        Random random = new Random(26);
+        for (SecurityProfile profile : new SecurityProfile[]{SecurityProfile.RSA_2048, SecurityProfile.RSA_3072}) {
+            SecretOrderGroup group = group(profile.getModulusBitLength(), random);
+            TTPMessage message = TTPGenerator.generateTTPMessage(x, group, profile);
+            RangeProof rangeProof = HPAKErangeProof.calculateRangeProof(message, range, profile);
+            HPAKErangeProof.validateRangeProof(rangeProof, message.getCommitment(), range, profile);
+        }
+    }
+
+    @Test
+    public void testProfileSmallerThanModulus() {
+        SecretOrderGroup group = group(2048, new Random(26));
+        try {
+            TTPGenerator.generateTTPMessage(BigInteger.TEN, group, SecurityProfile.LEGACY);
+            fail("Legacy profile should not cover a 2048 bit N");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        TTPMessage message = TTPGenerator.generateTTPMessage(BigInteger.TEN, group, SecurityProfile.RSA_2048);
+        try {
+            HPAKErangeProof.calculateRangeProof(message, ClosedRange.of("0", "100"), SecurityProfile.LEGACY);
+            fail("Legacy profile should not cover a 2048 bit N");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test (expected = ZeroKnowledgeException.class)
+    public void testMismatchedSecurityProfile() throws Exception {
+        BigInteger x = new BigInteger("50");
+        ClosedRange range = ClosedRange.of("10", "100");
+        SecurityProfile profile = SecurityProfile.of("wide-challenge", 1024, 256, 2048, 128, 40, 552);
+
+        TTPMessage message = TTPGenerator.generateTTPMessage(x, EXAMPLE_GROUP, profile);
+        RangeProof rangeProof = HPAKErangeProof.calculateRangeProof(message, range, profile);
+        HPAKErangeProof.validateRangeProof(rangeProof, message.getCommitment(), range, SecurityProfile.LEGACY);
+    }
+
     @Test
     public void testRangeProofMmaker() {
         BigInteger two = new BigInteger("2");
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.archive;
+
+import com.ing.blockchain.zk.HPAKErangeProof;
+import com.ing.blockchain.zk.RangeProofTests;
+import com.ing.blockchain.zk.TTPGenerator;
+import com.ing.blockchain.zk.dto.*;
+import com.ing.blockchain.zk.exception.ZeroKnowledgeException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static junit.framework.TestCase.fail;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit tests for {@link ProofArchive} and {@link ProofArchiveWriter}.
+ */
+public class ProofArchiveTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final TTPMessage message = TTPGenerator.generateTTPMessage(BigInteger.valueOf(50), RangeProofTests.EXAMPLE_GROUP);
+    private final ClosedRange range = ClosedRange.of("10", "100");
+    private final RangeProof proof = HPAKErangeProof.calculateRangeProof(message, range);
+
+    @Test
+    public void testAppendAndRead() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("proofs.zka");
+        try (ProofArchiveWriter writer = new ProofArchiveWriter(path)) {
+            for (int i = 0; i < 100; i++) {
+                assertEquals(i, writer.append(message.getCommitment(), range, proof));
+            }
+        }
+
+        // Small regions, so records are read from different mappings
+        try (ProofArchive archive = new ProofArchive(path, 1024)) {
+            assertEquals(100, archive.size());
+            ProofView view = archive.newView();
+            for (long i = 0; i < archive.size(); i++) {
+                view.moveTo(i);
+                assertEquals(message.getCommitment().getCommitmentValue(), view.getCommitmentValue());
+                assertEquals(RangeProofTests.EXAMPLE_GROUP.getN(), view.getN());
+                assertEquals(range.toString(), view.range().toString());
+                assertArrayEquals(proof.toArray(), view.proof().toArray());
+                view.validate(SecurityProfile.DEFAULT);
+            }
+        }
+    }
+
+    @Test
+    public void testInvalidProofIsRejected() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("proofs.zka");
+        BigInteger[] fields = proof.toArray();
+        fields[20] = fields[20].add(BigInteger.ONE);
+        try (ProofArchiveWriter writer = new ProofArchiveWriter(path)) {
+            writer.append(message.getCommitment(), range, RangeProof.fromArray(fields));
+        }
+
+        try (ProofArchive archive = new ProofArchive(path)) {
+            archive.newView().moveTo(0).validate(SecurityProfile.DEFAULT);
+            fail("No error at invalid proof");
+        } catch (ZeroKnowledgeException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testAppendAfterReopen() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("proofs.zka");
+        try (ProofArchiveWriter writer = new ProofArchiveWriter(path)) {
+            writer.append(message.getCommitment(), range, proof);
+        }
+
+        // Simulate an interrupted append: a record in the data file that is not in the index
+        try (FileChannel data = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            data.write(ByteBuffer.wrap(new byte[]{0, 0, 1, 0, 42}));
+        }
+
+        try (ProofArchiveWriter writer = new ProofArchiveWriter(path)) {
+            assertEquals(1, writer.size());
+            assertEquals(1, writer.append(message.getCommitment(), range, proof));
+        }
+
+        try (ProofArchive archive = new ProofArchive(path)) {
+            assertEquals(2, archive.size());
+            archive.newView().moveTo(1).validate(SecurityProfile.DEFAULT);
+        }
+    }
+
+    @Test
+    public void testMaximumRecordAtRegionBoundary() throws IOException {
+        // The length prefix starts on the last byte of the first region, so the record lies in its overlap
+        Path path = folder.getRoot().toPath().resolve("proofs.zka");
+        writeRecordHeader(path, 4095, ProofArchive.MAX_RECORD_BYTES, ProofArchive.MAX_RECORD_BYTES);
+
+        try (ProofArchive archive = new ProofArchive(path, 4096)) {
+            assertEquals(ProofArchive.MAX_RECORD_BYTES, archive.newView().moveTo(0).recordLength());
+        }
+    }
+
+    @Test
+    public void testCorruptRecordLength() throws IOException {
+        int[] lengths = {0, -1, ProofArchive.MAX_RECORD_BYTES + 1, 101};
+        for (int length : lengths) {
+            Path path = folder.getRoot().toPath().resolve("proofs" + length + ".zka");
+            writeRecordHeader(path, ProofArchive.FILE_HEADER_BYTES, length, 100);
+
+            try (ProofArchive archive = new ProofArchive(path, 4096)) {
+                archive.newView().moveTo(0);
+                fail("Record length " + length + " accepted");
+            } catch (IllegalStateException e) {
+                assertEquals("Proof archive record 0 is corrupt", e.getMessage());
+            }
+        }
+    }
+
+    // Writes an archive of one record at the given offset, with the given length prefix and body size
+    private static void writeRecordHeader(Path path, long offset, int length, int bodySize) throws IOException {
+        try (FileChannel data = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+             FileChannel index = FileChannel.open(ProofArchive.indexPath(path), StandardOpenOption.CREATE_NEW,
+                     StandardOpenOption.WRITE)) {
+            data.write(ProofArchive.fileHeader(ProofArchive.DATA_MAGIC), 0);
+            data.write((ByteBuffer) ByteBuffer.allocate(ProofArchive.RECORD_HEADER_BYTES).putInt(length).flip(),
+                    offset);
+            data.write(ByteBuffer.allocate(1), offset + ProofArchive.RECORD_HEADER_BYTES + bodySize - 1);
+            index.write(ProofArchive.fileHeader(ProofArchive.INDEX_MAGIC), 0);
+            index.write((ByteBuffer) ByteBuffer.allocate(ProofArchive.INDEX_ENTRY_BYTES).putLong(offset).flip(),
+                    ProofArchive.FILE_HEADER_BYTES);
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testRecordOutOfRange() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("proofs.zka");
+        new ProofArchiveWriter(path).close();
+        try (ProofArchive archive = new ProofArchive(path)) {
+            archive.newView().moveTo(0);
+        }
+    }
+}
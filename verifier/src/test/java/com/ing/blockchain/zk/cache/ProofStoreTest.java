@@ -0,0 +1,193 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.cache;
+
+import com.ing.blockchain.zk.HPAKErangeProof;
+import com.ing.blockchain.zk.RangeProofTests;
+import com.ing.blockchain.zk.TTPGenerator;
+import com.ing.blockchain.zk.dto.ClosedRange;
+import com.ing.blockchain.zk.dto.RangeProof;
+import com.ing.blockchain.zk.dto.SecurityProfile;
+import com.ing.blockchain.zk.dto.TTPMessage;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link ProofStore}.
+ */
+public class ProofStoreTest {
+
+    private static final Duration TIME_TO_LIVE = Duration.ofHours(1);
+
+    private static TTPMessage message;
+    private static final ClosedRange RANGE = ClosedRange.of("10", "100");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path directory;
+    private ManualClock clock;
+
+    @BeforeClass
+    public static void createMessage() {
+        message = TTPGenerator.generateTTPMessage(BigInteger.valueOf(50), RangeProofTests.EXAMPLE_GROUP);
+    }
+
+    @Before
+    public void setUp() {
+        directory = folder.getRoot().toPath().resolve("proofs");
+        clock = new ManualClock();
+    }
+
+    private ProofStore open(int maxEntries) throws Exception {
+        return new ProofStore(directory, maxEntries, TIME_TO_LIVE, clock);
+    }
+
+    @Test
+    public void testGetOrCalculate() throws Exception {
+        ProofStore store = open(10);
+        RangeProof proof = store.getOrCalculate(message, RANGE);
+        RangeProof cached = store.getOrCalculate(message, RANGE);
+
+        assertArrayEquals(proof.toArray(), cached.toArray());
+        HPAKErangeProof.validateRangeProof(cached, message.getCommitment(), RANGE);
+        assertEquals(1, store.getHits());
+        assertEquals(1, store.getMisses());
+        assertEquals(1, store.size());
+
+        assertNull(store.get(message.getCommitment(), ClosedRange.of("10", "101"), SecurityProfile.DEFAULT));
+    }
+
+    @Test
+    public void testPersistence() throws Exception {
+        RangeProof proof = open(10).getOrCalculate(message, RANGE);
+
+        ProofStore reopened = open(10);
+        assertEquals(1, reopened.size());
+        RangeProof stored = reopened.get(message.getCommitment(), RANGE, SecurityProfile.DEFAULT);
+        assertArrayEquals(proof.toArray(), stored.toArray());
+    }
+
+    @Test
+    public void testExpiry() throws Exception {
+        ProofStore store = open(10);
+        store.getOrCalculate(message, RANGE);
+        store.put(message.getCommitment(), ClosedRange.of("0", "100"), SecurityProfile.DEFAULT,
+                HPAKErangeProof.calculateRangeProof(message, ClosedRange.of("0", "100")));
+
+        clock.advance(TIME_TO_LIVE.minusSeconds(1));
+        assertNotNull(store.get(message.getCommitment(), RANGE, SecurityProfile.DEFAULT));
+
+        clock.advance(Duration.ofSeconds(1));
+        assertNull(store.get(message.getCommitment(), RANGE, SecurityProfile.DEFAULT));
+        assertEquals(1, store.purgeExpired());
+        assertEquals(0, store.size());
+        assertEquals(0, countFiles());
+
+        // Expired files are also removed when the store is opened
+        store.getOrCalculate(message, RANGE);
+        clock.advance(TIME_TO_LIVE);
+        assertEquals(0, open(10).size());
+        assertEquals(0, countFiles());
+    }
+
+    @Test
+    public void testSizeCap() throws Exception {
+        ProofStore store = open(2);
+        ClosedRange[] ranges = {ClosedRange.of("10", "100"), ClosedRange.of("9", "100"), ClosedRange.of("8", "100")};
+        store.getOrCalculate(message, ranges[0]);
+        clock.advance(Duration.ofSeconds(1));
+        store.getOrCalculate(message, ranges[1]);
+        clock.advance(Duration.ofSeconds(1));
+        store.getOrCalculate(message, ranges[0]);
+        store.getOrCalculate(message, ranges[2]);
+
+        assertEquals(2, store.size());
+        assertEquals(2, countFiles());
+        assertNotNull(store.get(message.getCommitment(), ranges[0], SecurityProfile.DEFAULT));
+        assertNull(store.get(message.getCommitment(), ranges[1], SecurityProfile.DEFAULT));
+
+        // Reopening with a smaller cap keeps the most recent proof
+        ProofStore reopened = open(1);
+        assertEquals(1, reopened.size());
+        assertNotNull(reopened.get(message.getCommitment(), ranges[2], SecurityProfile.DEFAULT));
+    }
+
+    @Test
+    public void testCorruptFile() throws Exception {
+        ProofStore store = open(10);
+        store.getOrCalculate(message, RANGE);
+        File[] files = directory.toFile().listFiles();
+        assertEquals(1, files.length);
+
+        byte[] bytes = Files.readAllBytes(files[0].toPath());
+        Files.write(files[0].toPath(), Arrays.copyOf(bytes, bytes.length - 10));
+        assertNull(store.get(message.getCommitment(), RANGE, SecurityProfile.DEFAULT));
+        assertEquals(0, countFiles());
+
+        Files.write(directory.resolve("garbage" + ProofStore.SUFFIX), new byte[]{1, 2, 3});
+        assertEquals(0, open(10).size());
+        assertEquals(0, countFiles());
+    }
+
+    private int countFiles() {
+        return directory.toFile().list().length;
+    }
+
+    private static class ManualClock extends Clock {
+        private Instant now = Instant.parse("2017-06-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
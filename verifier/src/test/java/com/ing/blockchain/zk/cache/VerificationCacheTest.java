@@ -0,0 +1,174 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.cache;
+
+import com.ing.blockchain.zk.HPAKErangeProof;
+import com.ing.blockchain.zk.RangeProofTests;
+import com.ing.blockchain.zk.TTPGenerator;
+import com.ing.blockchain.zk.dto.ClosedRange;
+import com.ing.blockchain.zk.dto.RangeProof;
+import com.ing.blockchain.zk.dto.SecurityProfile;
+import com.ing.blockchain.zk.dto.TTPMessage;
+import com.ing.blockchain.zk.exception.ZeroKnowledgeException;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link VerificationCache}.
+ */
+public class VerificationCacheTest {
+
+    private static TTPMessage message;
+    private static ClosedRange range;
+    private static RangeProof proof;
+
+    @BeforeClass
+    public static void createProof() {
+        message = TTPGenerator.generateTTPMessage(BigInteger.valueOf(50), RangeProofTests.EXAMPLE_GROUP);
+        range = ClosedRange.of("10", "100");
+        proof = HPAKErangeProof.calculateRangeProof(message, range);
+    }
+
+    @Test
+    public void testHitsAndMisses() {
+        VerificationCache cache = new VerificationCache(10);
+        cache.validateRangeProof(proof, message.getCommitment(), range);
+        cache.validateRangeProof(proof, message.getCommitment(), range);
+        cache.validateRangeProof(proof, message.getCommitment(), range);
+
+        assertEquals(1, cache.getMisses());
+        assertEquals(2, cache.getHits());
+        assertEquals(1, cache.size());
+        assertEquals(2.0 / 3, cache.getHitRate(), 1e-9);
+    }
+
+    @Test
+    public void testInvalidProofIsCached() {
+        VerificationCache cache = new VerificationCache(10);
+        ClosedRange other = ClosedRange.of("60", "100");
+        for (int i = 0; i < 2; i++) {
+            try {
+                cache.validateRangeProof(proof, message.getCommitment(), other);
+                fail("Proof should be invalid for " + other);
+            } catch (ZeroKnowledgeException e) {
+                // expected
+            }
+        }
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    public void testNonInvertibleProofIsCached() {
+        // cPrime = N is not invertible, so validation fails with an ArithmeticException
+        BigInteger[] fields = proof.toArray();
+        fields[0] = RangeProofTests.EXAMPLE_GROUP.getN();
+        RangeProof invalid = RangeProof.fromArray(fields);
+
+        VerificationCache cache = new VerificationCache(10);
+        for (int i = 0; i < 2; i++) {
+            try {
+                cache.validateRangeProof(invalid, message.getCommitment(), range);
+                fail("Proof with cPrime = N should be invalid");
+            } catch (ZeroKnowledgeException e) {
+                // expected
+            }
+        }
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    public void testKeyCoversAllInputs() {
+        VerificationCache.Key key = VerificationCache.key(proof, message.getCommitment(), range,
+                SecurityProfile.DEFAULT);
+        assertEquals(key, VerificationCache.key(proof, message.getCommitment(), range,
+                SecurityProfile.DEFAULT));
+        assertNotEquals(key, VerificationCache.key(proof, message.getCommitment(), ClosedRange.of("10", "101"),
+                SecurityProfile.DEFAULT));
+        assertNotEquals(key, VerificationCache.key(proof, message.getCommitment(), range,
+                SecurityProfile.of("k1", 1024, 256, 2048, 128, 40, 552)));
+
+        BigInteger[] fields = proof.toArray();
+        fields[RangeProof.FIELD_COUNT - 1] = fields[RangeProof.FIELD_COUNT - 1].add(BigInteger.ONE);
+        assertNotEquals(key, VerificationCache.key(RangeProof.fromArray(fields), message.getCommitment(), range,
+                SecurityProfile.DEFAULT));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEviction() {
+        VerificationCache cache = new VerificationCache(2);
+        List<ClosedRange> ranges = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            ranges.add(ClosedRange.of("" + (10 - i), "100"));
+        }
+        List<RangeProof> proofs = new ArrayList<>();
+        for (ClosedRange r : ranges) {
+            proofs.add(HPAKErangeProof.calculateRangeProof(message, r));
+        }
+
+        cache.validateRangeProof(proofs.get(0), message.getCommitment(), ranges.get(0));
+        cache.validateRangeProof(proofs.get(1), message.getCommitment(), ranges.get(1));
+        cache.validateRangeProof(proofs.get(0), message.getCommitment(), ranges.get(0));
+        // Evicts the entry of the second proof, which is least recently used
+        cache.validateRangeProof(proofs.get(2), message.getCommitment(), ranges.get(2));
+        assertEquals(1, cache.getEvictions());
+        assertEquals(2, cache.size());
+
+        cache.validateRangeProof(proofs.get(0), message.getCommitment(), ranges.get(0));
+        assertEquals(2, cache.getHits());
+        cache.validateRangeProof(proofs.get(1), message.getCommitment(), ranges.get(1));
+        assertEquals(4, cache.getMisses());
+    }
+
+    @Test
+    public void testConcurrentUse() throws InterruptedException {
+        VerificationCache cache = new VerificationCache(10);
+        List<Thread> threads = new ArrayList<>();
+        List<Throwable> failures = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Thread thread = new Thread(() -> {
+                for (int j = 0; j < 20; j++) {
+                    cache.validateRangeProof(proof, message.getCommitment(), range);
+                }
+            });
+            thread.setUncaughtExceptionHandler((t, e) -> {
+                synchronized (failures) {
+                    failures.add(e);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(failures.isEmpty());
+        assertEquals(80, cache.getHits() + cache.getMisses());
+        assertEquals(1, cache.size());
+    }
+}
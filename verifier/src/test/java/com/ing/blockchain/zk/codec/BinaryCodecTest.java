@@ -0,0 +1,124 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.ing.blockchain.zk.codec;
+
+import com.ing.blockchain.zk.HPAKErangeProof;
+import com.ing.blockchain.zk.RangeProofTests;
+import com.ing.blockchain.zk.TTPGenerator;
+import com.ing.blockchain.zk.dto.*;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit tests for {@link BinaryCodec}.
+ */
+public class BinaryCodecTest {
+
+    private BigInteger decodeInteger(BigInteger n) {
+        ByteBuffer buffer = ByteBuffer.allocate(BinaryCodec.integerSize(n));
+        BinaryCodec.putInteger(buffer, n);
+        assertEquals(0, buffer.remaining());
+        buffer.flip();
+        return BinaryCodec.getInteger(buffer);
+    }
+
+    @Test
+    public void testIntegerRoundTrip() {
+        BigInteger[] values = {
+                BigInteger.ZERO, BigInteger.ONE, BigInteger.ONE.negate(),
+                BigInteger.valueOf(127), BigInteger.valueOf(128), BigInteger.valueOf(-128), BigInteger.valueOf(-129),
+                BigInteger.valueOf(255), BigInteger.valueOf(256), BigInteger.valueOf(-256),
+                BigInteger.ONE.shiftLeft(2048), BigInteger.ONE.shiftLeft(2048).negate(),
+                BigInteger.ONE.shiftLeft(4096).subtract(BigInteger.ONE)
+        };
+        for (BigInteger value : values) {
+            assertEquals(value, decodeInteger(value));
+        }
+    }
+
+    @Test
+    public void testIntegerSize() {
+        assertEquals(2, BinaryCodec.integerSize(BigInteger.ZERO));
+        assertEquals(3, BinaryCodec.integerSize(BigInteger.valueOf(255)));
+        assertEquals(3, BinaryCodec.integerSize(BigInteger.valueOf(-256).add(BigInteger.ONE)));
+        assertEquals(4, BinaryCodec.integerSize(BigInteger.valueOf(-256)));
+        assertEquals(2 + 257, BinaryCodec.integerSize(BigInteger.ONE.shiftLeft(2048)));
+    }
+
+    @Test
+    public void testRangeProofRoundTrip() {
+        TTPMessage message = TTPGenerator.generateTTPMessage(BigInteger.valueOf(50), RangeProofTests.EXAMPLE_GROUP);
+        ClosedRange range = ClosedRange.of("10", "100");
+        RangeProof proof = HPAKErangeProof.calculateRangeProof(message, range);
+
+        byte[] encoded = BinaryCodec.encode(proof);
+        assertEquals(BinaryCodec.encodedSize(proof), encoded.length);
+
+        RangeProof decoded = BinaryCodec.decodeRangeProof(encoded);
+        assertArrayEquals(proof.toArray(), decoded.toArray());
+        HPAKErangeProof.validateRangeProof(decoded, message.getCommitment(), range);
+    }
+
+    @Test
+    public void testMessagesRoundTrip() {
+        TTPMessage message = TTPGenerator.generateTTPMessage(BigInteger.valueOf(50), RangeProofTests.EXAMPLE_GROUP);
+        ClosedRange range = ClosedRange.of("10", "100");
+
+        TTPMessage decodedMessage = BinaryCodec.decodeTTPMessage(BinaryCodec.encode(message));
+        assertEquals(message.getX(), decodedMessage.getX());
+        assertEquals(message.getY(), decodedMessage.getY());
+        assertEquals(message.getCommitment().getCommitmentValue(),
+                decodedMessage.getCommitment().getCommitmentValue());
+        assertEquals(message.getCommitment().getGroup().getN(), decodedMessage.getCommitment().getGroup().getN());
+
+        ByteBuffer buffer = ByteBuffer.allocate(BinaryCodec.encodedSize(range) + BinaryCodec.encodedSize(message.getCommitment()));
+        BinaryCodec.encode(range, buffer);
+        BinaryCodec.encode(message.getCommitment(), buffer);
+        buffer.flip();
+        assertEquals(range.toString(), BinaryCodec.decodeRange(buffer).toString());
+        assertEquals(message.getCommitment().getCommitmentValue(),
+                BinaryCodec.decodeCommitment(buffer).getCommitmentValue());
+        assertEquals(0, buffer.remaining());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongType() {
+        TTPMessage message = TTPGenerator.generateTTPMessage(BigInteger.valueOf(50), RangeProofTests.EXAMPLE_GROUP);
+        BinaryCodec.decodeRangeProof(BinaryCodec.encode(message.getCommitment()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTruncated() {
+        TTPMessage message = TTPGenerator.generateTTPMessage(BigInteger.valueOf(50), RangeProofTests.EXAMPLE_GROUP);
+        byte[] encoded = BinaryCodec.encode(message.getCommitment());
+        ByteBuffer truncated = ByteBuffer.wrap(encoded, 0, encoded.length - 1);
+        BinaryCodec.decodeCommitment(truncated);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNonCanonicalInteger() {
+        BinaryCodec.getInteger(ByteBuffer.wrap(new byte[]{0, 2, 0, 1}));
+    }
+}
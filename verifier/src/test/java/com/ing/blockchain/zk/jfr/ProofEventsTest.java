@@ -0,0 +1,137 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.jfr;
+
+import com.ing.blockchain.zk.HPAKErangeProof;
+import com.ing.blockchain.zk.RangeProofTests;
+import com.ing.blockchain.zk.SecretOrderGroupGenerator;
+import com.ing.blockchain.zk.TTPGenerator;
+import com.ing.blockchain.zk.dto.ClosedRange;
+import com.ing.blockchain.zk.dto.RangeProof;
+import com.ing.blockchain.zk.dto.SecretOrderGroup;
+import com.ing.blockchain.zk.dto.TTPMessage;
+import com.ing.blockchain.zk.exception.ZeroKnowledgeException;
+import com.ing.blockchain.zk.registry.GroupFingerprint;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the events of {@link ProofEvents} in a flight recording.
+ */
+public class ProofEventsTest {
+
+    private static final String PREFIX = "com.ing.blockchain.zk.";
+
+    private static List<RecordedEvent> record(Runnable work) throws IOException {
+        Path file = Files.createTempFile("proof-events", ".jfr");
+        try (Recording recording = new Recording()) {
+            for (String name : new String[]{"GroupGeneration", "SafePrime", "Commitment", "ProverStep", "VerifierCheck"}) {
+                recording.enable(PREFIX + name).withoutThreshold();
+            }
+            recording.start();
+            work.run();
+            recording.stop();
+            recording.dump(file);
+            return RecordingFile.readAllEvents(file);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static List<RecordedEvent> events(List<RecordedEvent> events, String name) {
+        return events.stream().filter(e -> e.getEventType().getName().equals(PREFIX + name)).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testProofEvents() throws IOException {
+        SecretOrderGroup group = RangeProofTests.EXAMPLE_GROUP;
+        ClosedRange range = ClosedRange.of("10", "100");
+        List<RecordedEvent> events = record(() -> {
+            TTPMessage message = TTPGenerator.generateTTPMessage(BigInteger.valueOf(50), group);
+            RangeProof proof = HPAKErangeProof.calculateRangeProof(message, range);
+            HPAKErangeProof.validateRangeProof(proof, message.getCommitment(), range);
+            try {
+                HPAKErangeProof.validateRangeProof(proof, message.getCommitment(), ClosedRange.of("60", "100"));
+                fail();
+            } catch (ZeroKnowledgeException e) {
+                // expected
+            }
+        });
+
+        String fingerprint = GroupFingerprint.of(group).toString();
+        List<RecordedEvent> commitments = events(events, "Commitment");
+        assertEquals(1, commitments.size());
+        assertEquals(fingerprint, commitments.get(0).getString("group"));
+        assertEquals(group.getN().bitLength(), commitments.get(0).getInt("bitLength"));
+
+        List<RecordedEvent> steps = events(events, "ProverStep");
+        assertEquals(6, steps.size());
+        for (int i = 0; i < steps.size(); i++) {
+            assertEquals(i + 1, steps.get(i).getInt("step"));
+            assertEquals("SUCCESS", steps.get(i).getString("outcome"));
+            assertEquals(fingerprint, steps.get(i).getString("group"));
+        }
+
+        // Checks 6 to 12 and 3 to 5 of the valid proof, then checks 6 to 8 and 3 of the invalid one
+        List<RecordedEvent> checks = events(events, "VerifierCheck");
+        assertEquals(14, checks.size());
+        for (int i = 0; i < 13; i++) {
+            assertEquals("SUCCESS", checks.get(i).getString("outcome"));
+        }
+        assertEquals(3, checks.get(13).getInt("check"));
+        assertEquals("REJECTED", checks.get(13).getString("outcome"));
+        assertFalse(checks.get(13).getDuration().isNegative());
+    }
+
+    @Test
+    public void testGroupGenerationEvents() throws IOException {
+        SecretOrderGroup[] group = new SecretOrderGroup[1];
+        List<RecordedEvent> events = record(() -> group[0] = new SecretOrderGroupGenerator(128).generate());
+
+        List<RecordedEvent> generations = events(events, "GroupGeneration");
+        assertEquals(1, generations.size());
+        assertEquals(128, generations.get(0).getInt("bitLength"));
+        assertEquals(GroupFingerprint.of(group[0]).toString(), generations.get(0).getString("group"));
+
+        List<RecordedEvent> safePrimes = events(events, "SafePrime");
+        assertTrue(safePrimes.size() >= 2);
+        for (RecordedEvent safePrime : safePrimes) {
+            assertTrue(safePrime.getInt("attempts") > 0);
+            assertNull(safePrime.getString("group"));
+        }
+    }
+
+    @Test
+    public void testNotRecording() {
+        assertSame(Span.NONE, ProofEvents.proverStep(RangeProofTests.EXAMPLE_GROUP, 1));
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.math;
+
+import com.ing.blockchain.zk.RangeProofTests;
+import com.ing.blockchain.zk.dto.SecretOrderGroup;
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.math.BigInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link GroupInterner} and {@link GroupContext}.
+ */
+public class GroupInternerTest {
+
+    private static final SecretOrderGroup GROUP = RangeProofTests.EXAMPLE_GROUP;
+
+    // Groups that are equal to GROUP in all but h, so that tests do not share interned groups
+    private static SecretOrderGroup variant(int exponent) {
+        BigInteger N = GROUP.getN();
+        return new SecretOrderGroup(N, GROUP.getG(), GROUP.getH().modPow(BigInteger.valueOf(exponent), N));
+    }
+
+    @Test
+    public void testEquality() {
+        SecretOrderGroup copy = new SecretOrderGroup(GROUP.getN(), GROUP.getG(), GROUP.getH());
+        assertEquals(GROUP, copy);
+        assertEquals(GROUP.hashCode(), copy.hashCode());
+        assertNotEquals(GROUP, new SecretOrderGroup(GROUP.getN(), GROUP.getH(), GROUP.getG()));
+    }
+
+    @Test
+    public void testIntern() {
+        SecretOrderGroup group = variant(5);
+        SecretOrderGroup copy = variant(5);
+        assertNotSame(group, copy);
+
+        assertSame(group, GroupInterner.intern(group));
+        assertSame(group, GroupInterner.intern(copy));
+        assertSame(GroupInterner.context(group), GroupInterner.context(copy));
+    }
+
+    @Test
+    public void testWeakReferences() throws InterruptedException {
+        SecretOrderGroup group = variant(7);
+        WeakReference<GroupContext> context = new WeakReference<>(GroupInterner.context(group));
+        assertSame(context.get(), GroupInterner.context(variant(7)));
+
+        group = null;
+        for (int i = 0; i < 100 && context.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+            GroupInterner.size(); // expunges collected groups
+        }
+        assertNull(context.get());
+    }
+
+    @Test
+    public void testValidation() {
+        BigInteger N = GROUP.getN();
+        assertTrue(GroupInterner.context(GROUP).isValid());
+        assertEquals(N.bitLength(), GroupInterner.context(GROUP).getBitLength());
+
+        SecretOrderGroup[] invalid = {
+                new SecretOrderGroup(N, BigInteger.ONE, GROUP.getH()),
+                new SecretOrderGroup(N, GROUP.getG(), N.subtract(BigInteger.ONE)),
+                new SecretOrderGroup(N, GROUP.getG().multiply(N), GROUP.getH()),
+                new SecretOrderGroup(N, GROUP.getG(), N.add(GROUP.getH())),
+                new SecretOrderGroup(N.shiftLeft(1), GROUP.getG(), GROUP.getH())
+        };
+        for (SecretOrderGroup group : invalid) {
+            GroupContext context = GroupInterner.context(group);
+            assertFalse(group.toString(), context.isValid());
+            try {
+                context.checkValid();
+                fail(group.toString());
+            } catch (IllegalArgumentException e) {
+                assertTrue(e.getMessage().startsWith("Invalid group"));
+            }
+        }
+    }
+
+    @Test
+    public void testExponentiation() {
+        SecretOrderGroup group = variant(11);
+        GroupContext context = GroupInterner.context(group);
+        BigInteger N = group.getN();
+
+        BigInteger exponent = BigInteger.ONE.shiftLeft(3000).subtract(BigInteger.valueOf(12345));
+        for (int i = 0; i < GroupContext.TABLE_THRESHOLD + 1; i++) {
+            assertEquals(group.getG().modPow(exponent, N), context.powG(exponent));
+            assertEquals(group.getH().modPow(exponent.negate(), N), context.powH(exponent.negate()));
+        }
+        assertTrue(context.hasTables());
+        assertSame(context.getMontgomery(), context.getMontgomery());
+
+        // Invalid groups never use tables
+        GroupContext invalid = GroupInterner.context(new SecretOrderGroup(N, BigInteger.ONE, group.getH()));
+        for (int i = 0; i < GroupContext.TABLE_THRESHOLD + 1; i++) {
+            assertEquals(BigInteger.ONE, invalid.powG(exponent));
+        }
+        assertFalse(invalid.hasTables());
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.metrics;
+
+import com.ing.blockchain.zk.HPAKErangeProof;
+import com.ing.blockchain.zk.RangeProofTests;
+import com.ing.blockchain.zk.TTPGenerator;
+import com.ing.blockchain.zk.cache.VerificationCache;
+import com.ing.blockchain.zk.dto.ClosedRange;
+import com.ing.blockchain.zk.dto.RangeProof;
+import com.ing.blockchain.zk.dto.TTPMessage;
+import com.ing.blockchain.zk.exception.ZeroKnowledgeException;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Unit tests for {@link MetricsRegistry} and the instrumentation through {@link Metrics}.
+ */
+public class MetricsRegistryTest {
+
+    @Test
+    public void testSnapshot() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.histogram(Phase.VERIFY).record(2000);
+        registry.recordVerified();
+        registry.recordRejected(9);
+        registry.recordRejected(42);
+
+        Map<String, Number> metrics = registry.snapshot();
+        assertEquals(1L, metrics.get("verify.count"));
+        assertEquals(2000L, metrics.get("verify.max"));
+        assertEquals(0L, metrics.get("prove.count"));
+        assertEquals(1L, metrics.get("proofs.verified"));
+        assertEquals(2L, metrics.get("proofs.rejected"));
+        assertEquals(1L, metrics.get("proofs.rejected.check9"));
+        assertEquals(1L, metrics.get("proofs.rejected.other"));
+    }
+
+    @Test
+    public void testCaches() {
+        MetricsRegistry registry = new MetricsRegistry();
+        long[] counts = {3, 1};
+        registry.registerCache("test", counts, c -> c[0], c -> c[1]);
+        assertEquals(0.75, registry.snapshot().get("cache.test.hitRate").doubleValue(), 1e-9);
+
+        registry.unregisterCache("test");
+        assertFalse(registry.snapshot().containsKey("cache.test.hitRate"));
+    }
+
+    @Test
+    public void testExporter() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.recordVerified();
+        List<Map<String, Number>> exported = new ArrayList<>();
+        registry.export(exported::add);
+        assertEquals(1, exported.size());
+        assertEquals(1L, exported.get(0).get("proofs.verified"));
+
+        new LoggingExporter().export(exported.get(0));
+    }
+
+    @Test
+    public void testMBean() throws Exception {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.recordVerified();
+        ObjectName name = registry.registerMBean("com.ing.blockchain.zk:type=Metrics,name=test");
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            assertEquals(1L, server.getAttribute(name, "proofs.verified"));
+            assertTrue(server.getMBeanInfo(name).getAttributes().length > 0);
+        } finally {
+            server.unregisterMBean(name);
+        }
+    }
+
+    @Test
+    public void testInstrumentation() throws Exception {
+        assumeTrue(Metrics.ENABLED);
+        MetricsRegistry registry = Metrics.registry();
+        assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(new ObjectName(Metrics.MBEAN_NAME)));
+
+        TTPMessage message = TTPGenerator.generateTTPMessage(BigInteger.valueOf(50), RangeProofTests.EXAMPLE_GROUP);
+        ClosedRange range = ClosedRange.of("10", "100");
+        long proved = registry.histogram(Phase.PROVE).getCount();
+        long verified = registry.getVerified();
+        long rejected = registry.getRejected();
+
+        RangeProof proof = HPAKErangeProof.calculateRangeProof(message, range);
+        HPAKErangeProof.validateRangeProof(proof, message.getCommitment(), range);
+        try {
+            HPAKErangeProof.validateRangeProof(proof, message.getCommitment(), ClosedRange.of("60", "100"));
+            fail();
+        } catch (ZeroKnowledgeException e) {
+            // expected
+        }
+
+        assertTrue(registry.histogram(Phase.PROVE).getCount() > proved);
+        assertTrue(registry.histogram(Phase.TTP_MESSAGE).getCount() > 0);
+        assertTrue(registry.getVerified() > verified);
+        assertTrue(registry.getRejected() > rejected);
+        if (Metrics.ALLOCATION) {
+            assertTrue(registry.allocations(Phase.PROVE).getMean() > 0);
+            assertTrue(registry.allocations(Phase.COMMITMENT).getCount() > 0);
+            assertTrue(registry.snapshot().containsKey("verify.allocated.p99"));
+        }
+
+        VerificationCache cache = new VerificationCache(10);
+        cache.validateRangeProof(proof, message.getCommitment(), range);
+        cache.validateRangeProof(proof, message.getCommitment(), range);
+        boolean found = false;
+        for (Map.Entry<String, Number> entry : registry.snapshot().entrySet()) {
+            found |= entry.getKey().startsWith("cache.VerificationCache-") && entry.getKey().endsWith(".hitRate");
+        }
+        assertTrue(found);
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.metrics;
+
+import com.ing.blockchain.zk.HPAKErangeProof;
+import com.ing.blockchain.zk.RangeProofTests;
+import com.ing.blockchain.zk.TTPGenerator;
+import com.ing.blockchain.zk.dto.ClosedRange;
+import com.ing.blockchain.zk.dto.RangeProof;
+import com.ing.blockchain.zk.dto.TTPMessage;
+import com.ing.blockchain.zk.exception.ZeroKnowledgeException;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Unit tests for {@link OpAccounting}.
+ */
+public class OpAccountingTest {
+
+    private static TTPMessage message;
+    private static ClosedRange range;
+
+    @BeforeClass
+    public static void createMessage() {
+        message = TTPGenerator.generateTTPMessage(BigInteger.valueOf(50), RangeProofTests.EXAMPLE_GROUP);
+        range = ClosedRange.of("10", "100");
+    }
+
+    private static long exponentiations(CostReport report) {
+        return report.getTotal(Operation.MOD_POW).getCount() + report.getTotal(Operation.FIXED_BASE_POW).getCount();
+    }
+
+    @Test
+    public void testRangeProof() {
+        Accounted<RangeProof> proof = OpAccounting.measure(() -> HPAKErangeProof.calculateRangeProof(message, range));
+        assertTrue(proof.isSuccess());
+        // Step 6 only computes with integers
+        assertEquals(Arrays.asList("step 1", "step 2", "step 3", "step 4", "step 5"),
+                new ArrayList<>(proof.getCost().getSections().keySet()));
+        assertTrue(proof.getCost().getCost("step 2") > 0);
+        assertEquals(0, proof.getCost().getCost("step 6"), 0);
+
+        Accounted<Void> valid = OpAccounting.measure(
+                () -> HPAKErangeProof.validateRangeProof(proof.getResult(), message.getCommitment(), range));
+        assertTrue(valid.isSuccess());
+        CostReport report = valid.getCost();
+        assertEquals(Arrays.asList("check 6", "check 7", "check 8", "check 3", "check 4", "check 5", "check 9",
+                "check 10"), new ArrayList<>(report.getSections().keySet()));
+
+        // 6 in each of the three equality proofs, 2 for c1 and c2, 3 in each of checks 9 and 10
+        assertEquals(26, exponentiations(report));
+        assertEquals(2, report.getTotal(Operation.MOD_INVERSE).getCount());
+        assertEquals(5, report.getTotal(Operation.HASH).getCount());
+        int modulusBits = RangeProofTests.EXAMPLE_GROUP.getN().bitLength();
+        assertEquals(modulusBits, report.getTotal(Operation.MOD_POW).getMeanModulusBits(), 0);
+        assertTrue(report.getTotal(Operation.MULTIPLY).getMaxOperandBits() <= 2 * modulusBits);
+        assertEquals(report.getCost(), report.getSections().keySet().stream().mapToDouble(report::getCost).sum(), 1e-6);
+        assertTrue(report.toString().contains("check 10"));
+    }
+
+    @Test
+    public void testAllocations() {
+        assumeTrue(AllocationCounter.isSupported());
+        Accounted<RangeProof> proof = OpAccounting.measure(() -> HPAKErangeProof.calculateRangeProof(message, range));
+        CostReport report = proof.getCost();
+        assertTrue(report.getAllocatedBytes("step 3") > 0);
+        // Step 6 allocates the responses without counted operations
+        assertTrue(report.getAllocatedBytes("step 6") > 0);
+        assertFalse(report.getSections().containsKey("step 6"));
+        assertTrue(report.toString().contains("step 6"));
+
+        long sum = 0;
+        for (int step = 1; step <= 6; step++) {
+            sum += report.getAllocatedBytes("step " + step);
+        }
+        assertEquals(report.getAllocatedBytes(), sum + report.getAllocatedBytes(CostReport.NO_SECTION));
+    }
+
+    @Test
+    public void testRejectedProof() {
+        RangeProof proof = HPAKErangeProof.calculateRangeProof(message, range);
+        Accounted<Void> invalid = OpAccounting.measure(
+                () -> HPAKErangeProof.validateRangeProof(proof, message.getCommitment(), ClosedRange.of("60", "100")));
+        assertFalse(invalid.isSuccess());
+        assertTrue(invalid.getFailure() instanceof ZeroKnowledgeException);
+        assertTrue(invalid.getCost().getCost("check 3") > 0);
+        assertFalse(invalid.getCost().getSections().containsKey("check 10"));
+    }
+
+    @Test
+    public void testNoMeasurement() {
+        BigInteger N = BigInteger.valueOf(1019);
+        assertEquals(BigInteger.valueOf(3).modPow(BigInteger.TEN, N),
+                OpAccounting.modPow(BigInteger.valueOf(3), BigInteger.TEN, N));
+        assertEquals(BigInteger.valueOf(2000 % 1019), OpAccounting.mulMod(BigInteger.valueOf(40), BigInteger.valueOf(50), N));
+
+        Accounted<Integer> outer = OpAccounting.measure(() -> {
+            OpAccounting.record(Operation.HASH, 256, 0);
+            Accounted<Integer> inner = OpAccounting.measure(() -> {
+                OpAccounting.section("inner");
+                OpAccounting.record(Operation.HASH, 512, 0);
+                return 1;
+            });
+            assertEquals(512, inner.getCost().getTotal(Operation.HASH).getOperandBits());
+            OpAccounting.record(Operation.HASH, 256, 0);
+            return inner.getResult() + 1;
+        });
+        assertEquals(Integer.valueOf(2), outer.getResult());
+        assertEquals(Arrays.asList(CostReport.NO_SECTION), new ArrayList<>(outer.getCost().getSections().keySet()));
+        assertEquals(2, outer.getCost().getTotal(Operation.HASH).getCount());
+        assertEquals(512, outer.getCost().getTotal(Operation.HASH).getOperandBits());
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.precompile;
+
+import com.ing.blockchain.zk.HPAKErangeProof;
+import com.ing.blockchain.zk.RangeProofTests;
+import com.ing.blockchain.zk.TTPGenerator;
+import com.ing.blockchain.zk.dto.*;
+import org.bouncycastle.util.encoders.Hex;
+import org.junit.Test;
+import org.web3j.crypto.Hash;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit tests for {@link CalldataEncoder}, using the test vectors of the go-ethereum precompile.
+ */
+public class CalldataEncoderTest {
+
+    static List<String[]> readVectors() throws IOException {
+        List<String[]> vectors = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                CalldataEncoderTest.class.getResourceAsStream("/precompile-vectors.txt"), StandardCharsets.US_ASCII))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    vectors.add(line.split(" "));
+                }
+            }
+        }
+        return vectors;
+    }
+
+    // Reads the string argument at the given head position, the way the precompile does
+    private static BigInteger[] readFields(byte[] input, int headOffset) {
+        int offset = new BigInteger(1, Arrays.copyOfRange(input, headOffset, headOffset + 32)).intValue() + 4;
+        int length = new BigInteger(1, Arrays.copyOfRange(input, offset, offset + 32)).intValue();
+        String[] values = new String(input, offset + 32, length, StandardCharsets.US_ASCII).split(",");
+        BigInteger[] fields = new BigInteger[values.length];
+        for (int i = 0; i < values.length; i++) {
+            fields[i] = new BigInteger(values[i]);
+        }
+        return fields;
+    }
+
+    @Test
+    public void testSelector() {
+        byte[] hash = Hash.sha3("validate(uint256,uint256,string,string)".getBytes(StandardCharsets.US_ASCII));
+        assertArrayEquals(Arrays.copyOf(hash, 4), CalldataEncoder.VALIDATE_SELECTOR);
+
+        hash = Hash.sha3("validateBatch(bytes)".getBytes(StandardCharsets.US_ASCII));
+        assertArrayEquals(Arrays.copyOf(hash, 4), CalldataEncoder.VALIDATE_BATCH_SELECTOR);
+    }
+
+    @Test
+    public void testPrecompileVectors() throws IOException {
+        CalldataEncoder encoder = new CalldataEncoder(64);
+        List<String[]> vectors = readVectors();
+        assertEquals(5, vectors.size());
+
+        for (String[] vector : vectors) {
+            byte[] input = Hex.decode(vector[2]);
+            BigInteger lower = new BigInteger(1, Arrays.copyOfRange(input, 4, 36));
+            BigInteger upper = new BigInteger(1, Arrays.copyOfRange(input, 36, 68));
+            BigInteger[] c = readFields(input, 68);
+            RangeProof proof = RangeProof.fromArray(readFields(input, 100));
+
+            Commitment commitment = new Commitment(new SecretOrderGroup(c[1], c[2], c[3]), c[0]);
+            ClosedRange range = ClosedRange.of(lower.toString(), upper.toString());
+
+            ByteBuffer encoded = encoder.encode(proof, commitment, range);
+            byte[] bytes = new byte[encoded.remaining()];
+            encoded.get(bytes);
+            assertEquals(vector[0], vector[2], Hex.toHexString(bytes));
+            assertArrayEquals(vector[0], input, encoder.toByteArray());
+        }
+    }
+
+    @Test
+    public void testEncodeValidProof() {
+        TTPMessage message = TTPGenerator.generateTTPMessage(BigInteger.valueOf(50), RangeProofTests.EXAMPLE_GROUP);
+        ClosedRange range = ClosedRange.of("10", "100");
+        RangeProof proof = HPAKErangeProof.calculateRangeProof(message, range);
+
+        CalldataEncoder encoder = new CalldataEncoder();
+        encoder.encode(proof, message.getCommitment(), range);
+        byte[] input = encoder.toByteArray();
+        assertEquals(0, (input.length - 4) % 32);
+
+        RangeProof decoded = RangeProof.fromArray(readFields(input, 100));
+        assertArrayEquals(proof.toArray(), decoded.toArray());
+    }
+
+    @Test
+    public void testEncodeBatch() {
+        TTPMessage message = TTPGenerator.generateTTPMessage(BigInteger.valueOf(50), RangeProofTests.EXAMPLE_GROUP);
+        ClosedRange range = ClosedRange.of("10", "100");
+        RangeProof proof = HPAKErangeProof.calculateRangeProof(message, range);
+
+        CalldataEncoder encoder = new CalldataEncoder(64);
+        encoder.encode(proof, message.getCommitment(), range);
+        byte[] single = encoder.toByteArray();
+
+        BatchItem item = new BatchItem(range, message.getCommitment(), proof);
+        encoder.encodeBatch(Arrays.asList(item, item, item));
+        byte[] batch = encoder.toByteArray();
+
+        // selector, offset, length, count, 3 offsets, 3 items
+        int itemLength = single.length - 4;
+        assertEquals(4 + 6 * 32 + 3 * itemLength, batch.length);
+        assertEquals(32, new BigInteger(1, Arrays.copyOfRange(batch, 4, 36)).intValue());
+        assertEquals(batch.length - 68, new BigInteger(1, Arrays.copyOfRange(batch, 36, 68)).intValue());
+        assertEquals(3, new BigInteger(1, Arrays.copyOfRange(batch, 68, 100)).intValue());
+        for (int i = 0; i < 3; i++) {
+            int offset = new BigInteger(1, Arrays.copyOfRange(batch, 100 + 32 * i, 132 + 32 * i)).intValue();
+            assertEquals(4 * 32 + i * itemLength, offset);
+            assertArrayEquals(Arrays.copyOfRange(single, 4, single.length),
+                    Arrays.copyOfRange(batch, 68 + offset, 68 + offset + itemLength));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeBound() {
+        TTPMessage message = TTPGenerator.generateTTPMessage(BigInteger.valueOf(50), RangeProofTests.EXAMPLE_GROUP);
+        ClosedRange range = ClosedRange.of("-10", "100");
+        RangeProof proof = HPAKErangeProof.calculateRangeProof(message, range);
+        new CalldataEncoder().encode(proof, message.getCommitment(), range);
+    }
+
+    @Test
+    public void testDecimalWriter() {
+        Random random = new Random(1);
+        byte[] out = new byte[4096];
+        for (int bits = 0; bits < 8192; bits += 1 + random.nextInt(97)) {
+            BigInteger n = new BigInteger(bits, random);
+            for (BigInteger value : new BigInteger[]{n, n.negate(), BigInteger.TEN.pow(bits / 3)}) {
+                int end = DecimalWriter.write(value, out, 1);
+                assertEquals(value.toString(), new String(out, 1, end - 1, StandardCharsets.US_ASCII));
+                assertEquals(true, end - 1 <= DecimalWriter.maxLength(value));
+            }
+        }
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.precompile;
+
+import com.ing.blockchain.zk.HPAKErangeProof;
+import com.ing.blockchain.zk.RangeProofTests;
+import com.ing.blockchain.zk.TTPGenerator;
+import com.ing.blockchain.zk.dto.ClosedRange;
+import com.ing.blockchain.zk.dto.RangeProof;
+import com.ing.blockchain.zk.dto.TTPMessage;
+import com.ing.blockchain.zk.registry.GroupRegistry;
+import org.bouncycastle.util.encoders.Hex;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link PrecompileValidator}, the expected results follow the Go implementation.
+ */
+public class PrecompileValidatorTest {
+
+    private static TTPMessage message;
+    private static ClosedRange range;
+    private static RangeProof proof;
+
+    @BeforeClass
+    public static void createProof() {
+        message = TTPGenerator.generateTTPMessage(BigInteger.valueOf(50), RangeProofTests.EXAMPLE_GROUP);
+        range = ClosedRange.of("10", "100");
+        proof = HPAKErangeProof.calculateRangeProof(message, range);
+    }
+
+    private static byte[] encode(ClosedRange range) {
+        CalldataEncoder encoder = new CalldataEncoder();
+        encoder.encode(proof, message.getCommitment(), range);
+        return encoder.toByteArray();
+    }
+
+    private static void setWord(byte[] input, int offset, long value) {
+        Arrays.fill(input, offset, offset + 32, (byte) 0);
+        byte[] bytes = BigInteger.valueOf(value).toByteArray();
+        System.arraycopy(bytes, 0, input, offset + 32 - bytes.length, bytes.length);
+    }
+
+    private static void assertInvalidInput(byte[] input) {
+        try {
+            PrecompileValidator.parse(input);
+            fail("Input should be rejected");
+        } catch (IllegalArgumentException e) {
+            assertEquals(PrecompileValidator.INVALID_INPUT, e.getMessage());
+        }
+    }
+
+    @Test
+    public void testPrecompileVectors() throws IOException {
+        for (String[] vector : CalldataEncoderTest.readVectors()) {
+            byte[] output = PrecompileValidator.run(Hex.decode(vector[2]));
+            assertEquals(vector[0], vector[1], Hex.toHexString(output));
+        }
+    }
+
+    @Test
+    public void testEncodedProof() {
+        assertTrue(PrecompileValidator.validate(encode(range)));
+        assertFalse(PrecompileValidator.validate(encode(ClosedRange.of("60", "100"))));
+
+        PrecompileInput input = PrecompileValidator.parse(encode(range));
+        assertEquals(range.getStart(), input.getLower());
+        assertEquals(range.getEnd(), input.getUpper());
+        assertArrayEquals(proof.toArray(), input.getProof().toArray());
+        assertEquals(message.getCommitment().getCommitmentValue(), input.getCommitment().getCommitmentValue());
+    }
+
+    @Test
+    public void testGroupByReference() {
+        CalldataEncoder encoder = new CalldataEncoder();
+        encoder.encodeByReference(proof, message.getCommitment(), range);
+        byte[] input = encoder.toByteArray();
+        assertTrue(input.length < encode(range).length);
+
+        GroupRegistry registry = new GroupRegistry();
+        assertFalse(PrecompileValidator.validate(input, registry));
+        registry.register(RangeProofTests.EXAMPLE_GROUP);
+        assertTrue(PrecompileValidator.validate(input, registry));
+        assertTrue(PrecompileValidator.validate(encode(range), registry));
+
+        // Like the Go precompile, the plain validation needs the full group
+        assertFalse(PrecompileValidator.validate(input));
+    }
+
+    @Test
+    public void testCommitmentOffsetIgnored() {
+        byte[] input = encode(range);
+        setWord(input, 68, 12345);
+        assertTrue(PrecompileValidator.validate(input));
+    }
+
+    @Test
+    public void testMalformedHead() {
+        byte[] input = encode(range);
+        assertInvalidInput(Arrays.copyOf(input, 4 + 6 * 32 - 1));
+
+        byte[] proofAtCommitment = input.clone();
+        setWord(proofAtCommitment, 100, 160);
+        assertInvalidInput(proofAtCommitment);
+
+        byte[] proofBeyondEnd = input.clone();
+        setWord(proofBeyondEnd, 100, input.length - 4 - 31);
+        assertInvalidInput(proofBeyondEnd);
+
+        // startProof + 32 overflows int64
+        byte[] overflow = input.clone();
+        setWord(overflow, 100, Long.MAX_VALUE - 10);
+        assertInvalidInput(overflow);
+
+        byte[] emptyCommitment = input.clone();
+        setWord(emptyCommitment, 132, 0);
+        assertInvalidInput(emptyCommitment);
+
+        int startProof = new BigInteger(1, Arrays.copyOfRange(input, 100, 132)).intValue() + 4;
+        byte[] longProof = input.clone();
+        setWord(longProof, startProof, input.length - startProof - 31);
+        assertInvalidInput(longProof);
+    }
+
+    @Test
+    public void testParseFields() {
+        byte[] ascii = "12,-3,,-,007,-0".getBytes(StandardCharsets.US_ASCII);
+        BigInteger[] fields = PrecompileValidator.parseFields(ascii, 0, ascii.length);
+        assertArrayEquals(new BigInteger[]{BigInteger.valueOf(12), BigInteger.valueOf(-3), BigInteger.ZERO,
+                BigInteger.ZERO, BigInteger.valueOf(7), BigInteger.ZERO}, fields);
+
+        for (String invalid : new String[]{"+1", "1-", "1 ", "--1", "0x1", "1\u0000"}) {
+            byte[] bytes = invalid.getBytes(StandardCharsets.US_ASCII);
+            try {
+                PrecompileValidator.parseFields(bytes, 0, bytes.length);
+                fail(invalid + " should be rejected");
+            } catch (IllegalArgumentException e) {
+                assertEquals(PrecompileValidator.INVALID_BIG_INTEGER, e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void testBatch() {
+        BatchItem valid = new BatchItem(range, message.getCommitment(), proof);
+        BatchItem outOfRange = new BatchItem(ClosedRange.of("60", "100"), message.getCommitment(), proof);
+        CalldataEncoder encoder = new CalldataEncoder();
+
+        encoder.encodeBatch(Arrays.asList(valid, outOfRange, valid, valid, valid, valid, valid, valid, outOfRange));
+        byte[] input = encoder.toByteArray();
+        BitSet expected = new BitSet();
+        expected.set(0);
+        expected.set(2, 8);
+        assertEquals(expected, PrecompileValidator.validateBatch(input));
+
+        byte[] output = PrecompileValidator.runBatch(input);
+        assertEquals(3 * 32, output.length);
+        assertEquals(32, output[31]);
+        assertEquals(2, output[63]);
+        assertEquals((byte) 0xfd, output[64]);
+        assertEquals(0, output[65]);
+        assertArrayEquals(output, PrecompileValidator.run(input));
+        assertEquals(9 * PrecompileValidator.REQUIRED_GAS, PrecompileValidator.requiredGas(input));
+        assertEquals(PrecompileValidator.REQUIRED_GAS, PrecompileValidator.requiredGas(encode(range)));
+
+        // A malformed item only invalidates that item
+        encoder.encodeBatch(Arrays.asList(valid, valid));
+        input = encoder.toByteArray();
+        int second = 68 + new BigInteger(1, Arrays.copyOfRange(input, 132, 164)).intValue();
+        setWord(input, second + 128, 0);
+        expected.clear();
+        expected.set(0);
+        assertEquals(expected, PrecompileValidator.validateBatch(input));
+    }
+
+    @Test
+    public void testMalformedBatch() {
+        BatchItem valid = new BatchItem(range, message.getCommitment(), proof);
+        CalldataEncoder encoder = new CalldataEncoder();
+        encoder.encodeBatch(Arrays.asList(valid, valid));
+        byte[] input = encoder.toByteArray();
+
+        assertInvalidBatch(encode(range));
+        assertInvalidBatch(Arrays.copyOf(input, input.length - 1));
+
+        byte[] noItems = input.clone();
+        setWord(noItems, 68, 0);
+        assertInvalidBatch(noItems);
+        assertEquals(PrecompileValidator.REQUIRED_GAS, PrecompileValidator.requiredGas(noItems));
+
+        byte[] tooManyItems = input.clone();
+        setWord(tooManyItems, 68, input.length);
+        assertInvalidBatch(tooManyItems);
+
+        byte[] itemInTable = input.clone();
+        setWord(itemInTable, 100, 32);
+        assertInvalidBatch(itemInTable);
+
+        byte[] unordered = input.clone();
+        setWord(unordered, 100, new BigInteger(1, Arrays.copyOfRange(input, 132, 164)).intValue() + 32);
+        assertInvalidBatch(unordered);
+    }
+
+    private static void assertInvalidBatch(byte[] input) {
+        try {
+            PrecompileValidator.validateBatch(input);
+            fail("Batch should be rejected");
+        } catch (IllegalArgumentException e) {
+            assertEquals(PrecompileValidator.INVALID_INPUT, e.getMessage());
+        }
+    }
+
+    @Test
+    public void testIncompleteInput() {
+        BigInteger[] commitment = {BigInteger.ONE, BigInteger.TEN, BigInteger.ONE};
+        assertFalse(PrecompileValidator.validateRangeProof(BigInteger.ONE, BigInteger.TEN, commitment,
+                proof.toArray()));
+
+        BigInteger[] zeroGroup = {BigInteger.ONE, BigInteger.ZERO, BigInteger.ONE, BigInteger.ONE};
+        assertFalse(PrecompileValidator.validateRangeProof(BigInteger.ONE, BigInteger.TEN, zeroGroup,
+                proof.toArray()));
+
+        BigInteger[] extra = Arrays.copyOf(proof.toArray(), RangeProof.FIELD_COUNT + 1);
+        extra[RangeProof.FIELD_COUNT] = BigInteger.ONE;
+        BigInteger[] c = {message.getCommitment().getCommitmentValue(), RangeProofTests.EXAMPLE_GROUP.getN(),
+                RangeProofTests.EXAMPLE_GROUP.getG(), RangeProofTests.EXAMPLE_GROUP.getH()};
+        assertTrue(PrecompileValidator.validateRangeProof(range.getStart(), range.getEnd(), c, extra));
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2017 ING Bank N.V.
+ * This file is part of the go-ethereum library.
+ *
+ * The go-ethereum library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The go-ethereum library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the go-ethereum library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.ing.blockchain.zk.registry;
+
+import com.ing.blockchain.zk.RangeProofTests;
+import com.ing.blockchain.zk.TTPGenerator;
+import com.ing.blockchain.zk.codec.BinaryCodec;
+import com.ing.blockchain.zk.dto.Commitment;
+import com.ing.blockchain.zk.dto.SecretOrderGroup;
+import com.ing.blockchain.zk.dto.TTPMessage;
+import com.ing.blockchain.zk.math.GroupInterner;
+import org.junit.Test;
+
+import java.math.BigInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link GroupRegistry} and {@link GroupFingerprint}.
+ */
+public class GroupRegistryTest {
+
+    private static final SecretOrderGroup GROUP = RangeProofTests.EXAMPLE_GROUP;
+
+    private static SecretOrderGroup copy(SecretOrderGroup group) {
+        return new SecretOrderGroup(group.getN(), group.getG(), group.getH());
+    }
+
+    @Test
+    public void testFingerprint() {
+        GroupFingerprint fingerprint = GroupFingerprint.of(GROUP);
+        assertEquals(fingerprint, GroupFingerprint.of(copy(GROUP)));
+        assertEquals(fingerprint.hashCode(), GroupFingerprint.of(copy(GROUP)).hashCode());
+        assertNotEquals(fingerprint, GroupFingerprint.of(new SecretOrderGroup(GROUP.getN(), GROUP.getH(), GROUP.getG())));
+
+        assertEquals(fingerprint, GroupFingerprint.fromBytes(fingerprint.toByteArray()));
+        assertEquals(fingerprint, GroupFingerprint.fromBigInteger(fingerprint.toBigInteger()));
+        assertEquals(2 * GroupFingerprint.BYTES, fingerprint.toString().length());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFingerprintTooLarge() {
+        GroupFingerprint.fromBigInteger(BigInteger.ONE.shiftLeft(8 * GroupFingerprint.BYTES));
+    }
+
+    @Test
+    public void testCanonicalInstance() {
+        GroupRegistry registry = new GroupRegistry();
+        GroupFingerprint fingerprint = registry.register(GROUP);
+        SecretOrderGroup canonical = GroupInterner.intern(GROUP);
+        assertSame(canonical, registry.canonical(copy(GROUP)));
+        assertSame(canonical, registry.resolve(fingerprint));
+        assertEquals(1, registry.size());
+
+        // A group that no other test interns
+        BigInteger h = GROUP.getH().modPow(BigInteger.valueOf(3), GROUP.getN());
+        SecretOrderGroup other = new SecretOrderGroup(GROUP.getN(), GROUP.getG(), h);
+        assertFalse(registry.contains(GroupFingerprint.of(other)));
+        assertSame(other, registry.canonical(other));
+        assertEquals(2, registry.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidGroup() {
+        new GroupRegistry().register(new SecretOrderGroup(GROUP.getN(), BigInteger.ONE, GROUP.getH()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownGroup() {
+        new GroupRegistry().resolve(GroupFingerprint.of(GROUP));
+    }
+
+    @Test
+    public void testCommitmentByReference() {
+        TTPMessage message = TTPGenerator.generateTTPMessage(BigInteger.valueOf(50), GROUP);
+        Commitment commitment = message.getCommitment();
+        GroupRegistry registry = new GroupRegistry();
+        registry.register(GROUP);
+
+        byte[] encoded = GroupRegistry.encode(copyCommitment(commitment));
+        assertEquals(GroupRegistry.encodedSize(commitment), encoded.length);
+        assertTrue(encoded.length < BinaryCodec.encode(commitment).length);
+
+        Commitment decoded = registry.decodeCommitment(encoded);
+        assertSame(GroupInterner.intern(GROUP), decoded.getGroup());
+        assertEquals(commitment.getCommitmentValue(), decoded.getCommitmentValue());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCommitmentOfUnknownGroup() {
+        TTPMessage message = TTPGenerator.generateTTPMessage(BigInteger.valueOf(50), GROUP);
+        new GroupRegistry().decodeCommitment(GroupRegistry.encode(message.getCommitment()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFullCommitmentIsNotAReference() {
+        TTPMessage message = TTPGenerator.generateTTPMessage(BigInteger.valueOf(50), GROUP);
+        new GroupRegistry().decodeCommitment(BinaryCodec.encode(message.getCommitment()));
+    }
+
+    private static Commitment copyCommitment(Commitment commitment) {
+        return new Commitment(copy(commitment.getGroup()), commitment.getCommitmentValue());
+    }
+}